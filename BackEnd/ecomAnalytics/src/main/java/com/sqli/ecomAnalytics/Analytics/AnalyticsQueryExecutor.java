@@ -0,0 +1,87 @@
+package com.sqli.ecomAnalytics.Analytics;
+
+import com.sqli.ecomAnalytics.configuration.AnalyticsProp;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Runs independent read-only analytics sub-queries either sequentially in one transaction,
+ * or concurrently on virtual threads where each sub-query gets its own transaction and pooled connection.
+ * Concurrency is bounded by a semaphore sized below the Hikari pool so the fan-out never starves other requests.
+ */
+@Component
+@Slf4j
+public class AnalyticsQueryExecutor {
+    private final ExecutorService executorService;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Semaphore permits;
+    private final boolean parallel;
+
+    public AnalyticsQueryExecutor(AnalyticsProp prop, ExecutorService analyticsQueryExecutorService,
+                                  PlatformTransactionManager transactionManager, DataSource dataSource) {
+        this.executorService = analyticsQueryExecutorService;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.parallel = prop.getParallel().isEnabled();
+
+        int maxConcurrency = Math.max(1, Math.min(prop.getParallel().getMaxConcurrency(), maxPoolSize(dataSource) - 1));
+        this.permits = new Semaphore(maxConcurrency, true);
+        log.info("Analytics query executor running in {} mode with max concurrency {}",
+                parallel ? "parallel" : "sequential", maxConcurrency);
+    }
+
+    private static int maxPoolSize(DataSource dataSource) {
+        try {
+            if (dataSource != null && dataSource.isWrapperFor(HikariDataSource.class)) {
+                return dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+            }
+        } catch (SQLException e) {
+            log.warn("Could not read connection pool size: {}", e.getMessage());
+        }
+        return Integer.MAX_VALUE;
+    }
+
+    public void runAll(List<Runnable> queries) {
+        if (!parallel) {
+            readOnlyTransaction.executeWithoutResult(status -> queries.forEach(Runnable::run));
+            return;
+        }
+
+        CompletableFuture<?>[] futures = queries.stream()
+                .map(query -> CompletableFuture.runAsync(() -> runWithPermit(query), executorService))
+                .toArray(CompletableFuture[]::new);
+        try {
+            CompletableFuture.allOf(futures).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private void runWithPermit(Runnable query) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for an analytics query slot", e);
+        }
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> query.run());
+        } finally {
+            permits.release();
+        }
+    }
+}
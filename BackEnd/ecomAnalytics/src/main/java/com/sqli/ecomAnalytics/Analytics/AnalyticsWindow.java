@@ -0,0 +1,11 @@
+package com.sqli.ecomAnalytics.Analytics;
+
+import java.time.LocalDateTime;
+
+// A request window snapped to whole buckets, start is the first and end the last instant it covers
+public record AnalyticsWindow(LocalDateTime start, LocalDateTime end) {
+
+    public boolean isClosed(LocalDateTime now) {
+        return end.isBefore(now);
+    }
+}
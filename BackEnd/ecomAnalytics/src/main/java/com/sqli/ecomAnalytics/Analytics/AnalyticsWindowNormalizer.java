@@ -0,0 +1,51 @@
+package com.sqli.ecomAnalytics.Analytics;
+
+import com.sqli.ecomAnalytics.configuration.AnalyticsProp;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Snaps analytics windows to the configured granularity so requests for "the last 30 days" made minutes apart land
+ * on the same cache entry. The start is floored to its bucket and the end extended to the last instant of its bucket.
+ * Endpoints answered from the daily rollups always get whole days, whatever the configured granularity.
+ */
+@Component
+public class AnalyticsWindowNormalizer {
+    // Timestamps are stored with microsecond precision, a finer end would round into the next bucket
+    private static final long END_OF_BUCKET_NANOS = 1_000;
+
+    private final AnalyticsProp analyticsProp;
+
+    public AnalyticsWindowNormalizer(AnalyticsProp analyticsProp) {
+        this.analyticsProp = analyticsProp;
+    }
+
+    public AnalyticsWindow normalize(LocalDateTime start, LocalDateTime end) {
+        return new AnalyticsWindow(floor(start), ceil(end));
+    }
+
+    // daily_sales_rollup and product_daily_stats only know whole days, a mid-day boundary would still count the full day
+    public AnalyticsWindow normalizeToDays(LocalDateTime start, LocalDateTime end) {
+        return new AnalyticsWindow(start.truncatedTo(ChronoUnit.DAYS), ceil(end, ChronoUnit.DAYS));
+    }
+
+    public LocalDateTime floor(LocalDateTime time) {
+        return time.truncatedTo(unit());
+    }
+
+    public LocalDateTime ceil(LocalDateTime time) {
+        return ceil(time, unit());
+    }
+
+    private static LocalDateTime ceil(LocalDateTime time, ChronoUnit unit) {
+        return time.truncatedTo(unit).plus(1, unit).minusNanos(END_OF_BUCKET_NANOS);
+    }
+
+    private ChronoUnit unit() {
+        return analyticsProp.getWindow().getGranularity() == AnalyticsProp.WindowGranularity.HOUR
+                ? ChronoUnit.HOURS
+                : ChronoUnit.DAYS;
+    }
+}
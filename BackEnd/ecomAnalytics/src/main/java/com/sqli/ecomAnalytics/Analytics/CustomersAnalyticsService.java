@@ -1,14 +1,11 @@
 package com.sqli.ecomAnalytics.Analytics;
 
+import com.sqli.ecomAnalytics.configuration.AnalyticsProp;
 import com.sqli.ecomAnalytics.dto.CustomerAnalyticsDto;
-import com.sqli.ecomAnalytics.entity.CustomerSegments;
-import com.sqli.ecomAnalytics.entity.Segments;
+import com.sqli.ecomAnalytics.dto.CustomerMetricsSummary;
 import com.sqli.ecomAnalytics.repository.CustomerRepository;
-import com.sqli.ecomAnalytics.repository.CustomerSegmentsRepository;
-import com.sqli.ecomAnalytics.service.CustomersService;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
@@ -21,46 +18,39 @@ import java.util.stream.Collectors;
 public class CustomersAnalyticsService {
 
     private final CustomerRepository customerRepository;
-    private final CustomersService customersService;
+    private final AnalyticsQueryExecutor queryExecutor;
+    private final AnalyticsProp analyticsProp;
 
-    public CustomersAnalyticsService(CustomerRepository customerRepository, CustomerSegmentsRepository customerSegmentsRepository, CustomersService customersService) {
+    public CustomersAnalyticsService(CustomerRepository customerRepository, AnalyticsQueryExecutor queryExecutor,
+                                     AnalyticsProp analyticsProp) {
         this.customerRepository = customerRepository;
-        this.customersService = customersService;
+        this.queryExecutor = queryExecutor;
+        this.analyticsProp = analyticsProp;
     }
 
     private Map<String, Long> getSegmentDistribution() {
-        return customerRepository.getCustomerCountBySegment().stream()
+        return customerRepository.getSegmentDistributionFromMetrics().stream()
                 .collect(Collectors.toMap(
-                        row -> {
-                            if (row[0] instanceof CustomerSegments) {
-                                return ((CustomerSegments) row[0]).getSegmentLabel().name();
-                            } else if (row[0] instanceof Segments) {
-                                return ((Segments) row[0]).name();
-                            } else {
-                                return row[0].toString();
-                            }
-                        },
+                        row -> row[0].toString(),
                         row -> ((Number) row[1]).longValue()
                 ));
     }
 
+    // Name, segment and lifetime value are precomputed in customer_metrics_mv, no entity or segment load per row
     private List<CustomerAnalyticsDto.TopCustomerData> getTopCustomers() {
         BigDecimal minSpent = new BigDecimal("100");
-        return customerRepository.findHighSpendingCustomers(minSpent).stream()
+        return customerRepository.findTopCustomerMetrics(minSpent, analyticsProp.getCustomers().getTopLimit()).stream()
                 .map(c -> new CustomerAnalyticsDto.TopCustomerData(
                         c.getCustomerId(),
-                        c.getFirstName() + " " + c.getLastName(),
+                        c.getCustomerName(),
                         c.getTotalSpent(),
                         c.getOrderCount(),
-                        c.getCustomerSegment() != null ? c.getCustomerSegment().getSegmentLabel().name() : null,
-                        customersService.calculateLTV(c)
+                        c.getSegmentLabel(),
+                        c.getLifetimeValue(),
+                        c.getRegistrationDate()
                 )).collect(Collectors.toList());
     }
 
-    private BigDecimal getAverageCustomerLifetimeValue() {
-        return customerRepository.getAverageLifetimeValue();
-    }
-
     private List<CustomerAnalyticsDto.CustomerRegistrationTrendData> registrationTrends(LocalDateTime start, LocalDateTime end) {
         return customerRepository.getMonthlyRegistrationTrends(start, end).stream().map(
                 row -> new CustomerAnalyticsDto.CustomerRegistrationTrendData(
@@ -70,29 +60,26 @@ public class CustomersAnalyticsService {
                 )).collect(Collectors.toList());
     }
 
-    private BigDecimal getChurnRate(LocalDateTime thresholdDate) {
-        Long churned = customerRepository.countChurnedCustomers(thresholdDate);
-        Long total = customerRepository.countAllCustomers();
+    // Average lifetime value and churn rate come from the same scan of customer_metrics_mv
+    private void applySummary(CustomerAnalyticsDto analytics, LocalDateTime thresholdDate) {
+        CustomerMetricsSummary summary = customerRepository.getCustomerMetricsSummary(thresholdDate);
+        long total = summary.getTotalCustomers() == null ? 0 : summary.getTotalCustomers();
+        long churned = summary.getChurnedCustomers() == null ? 0 : summary.getChurnedCustomers();
 
-        return total == 0 ? BigDecimal.ZERO :
-                BigDecimal.valueOf(churned * 100.0 / total).setScale(2, RoundingMode.HALF_UP);
+        analytics.setAverageCustomerLifetimeValue(summary.getAverageLifetimeValue());
+        analytics.setChurnRate(total == 0 ? BigDecimal.ZERO :
+                BigDecimal.valueOf(churned * 100.0 / total).setScale(2, RoundingMode.HALF_UP));
     }
 
-    @Cacheable(value = "customersAnalyticsCache", key = "T(com.sqli.ecomAnalytics.util.RedisCacheKeys).customerAnalyticsKey(#start,#end,#thresholdDate)")
-    @Transactional(readOnly = true)
+    @Cacheable(value = "customersAnalyticsCache", key = "T(com.sqli.ecomAnalytics.util.RedisCacheKeys).customerAnalyticsKey(#start,#end,#thresholdDate)", sync = true)
     public CustomerAnalyticsDto getAnalytics(LocalDateTime start, LocalDateTime end, LocalDateTime thresholdDate) {
-        Map<String, Long> segmentDistribution = getSegmentDistribution();
-        List<CustomerAnalyticsDto.TopCustomerData> topCustomers = getTopCustomers();
-        List<CustomerAnalyticsDto.CustomerRegistrationTrendData> trend = registrationTrends(start, end);
-        BigDecimal ACLTV = getAverageCustomerLifetimeValue();
-        BigDecimal churnRate = getChurnRate(thresholdDate);
-
         CustomerAnalyticsDto analytics = new CustomerAnalyticsDto();
-        analytics.setSegmentDistribution(segmentDistribution);
-        analytics.setTopCustomers(topCustomers);
-        analytics.setAverageCustomerLifetimeValue(ACLTV);
-        analytics.setChurnRate(churnRate);
-        analytics.setRegistrationTrends(trend);
+        queryExecutor.runAll(List.of(
+                () -> analytics.setSegmentDistribution(getSegmentDistribution()),
+                () -> analytics.setTopCustomers(getTopCustomers()),
+                () -> applySummary(analytics, thresholdDate),
+                () -> analytics.setRegistrationTrends(registrationTrends(start, end))
+        ));
 
         return analytics;
     }
@@ -1,15 +1,20 @@
 package com.sqli.ecomAnalytics.Analytics;
 
+import com.sqli.ecomAnalytics.cache.CacheTagIndex;
+import com.sqli.ecomAnalytics.configuration.AnalyticsProp;
 import com.sqli.ecomAnalytics.dto.KpiDto;
+import com.sqli.ecomAnalytics.dto.KpiSnapshot;
 import com.sqli.ecomAnalytics.repository.CustomerRepository;
+import com.sqli.ecomAnalytics.repository.DailySalesRollupRepository;
 import com.sqli.ecomAnalytics.repository.OrderRepository;
 import com.sqli.ecomAnalytics.repository.ProductRepository;
+import com.sqli.ecomAnalytics.util.RedisCacheKeys;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Service
 public class KpiService {
@@ -17,19 +22,29 @@ public class KpiService {
     private final OrderRepository orderRepository;
     private final CustomerRepository customerRepository;
     private final ProductRepository productRepository;
+    private final DailySalesRollupRepository dailySalesRollupRepository;
+    private final AnalyticsQueryExecutor queryExecutor;
+    private final AnalyticsProp analyticsProp;
+    private final CacheTagIndex cacheTagIndex;
 
-    public KpiService(OrderRepository orderRepository, CustomerRepository customerRepository, ProductRepository productRepository) {
+    public KpiService(OrderRepository orderRepository, CustomerRepository customerRepository, ProductRepository productRepository,
+                      DailySalesRollupRepository dailySalesRollupRepository, AnalyticsQueryExecutor queryExecutor, AnalyticsProp analyticsProp,
+                      CacheTagIndex cacheTagIndex) {
         this.orderRepository = orderRepository;
         this.customerRepository = customerRepository;
         this.productRepository = productRepository;
+        this.dailySalesRollupRepository = dailySalesRollupRepository;
+        this.queryExecutor = queryExecutor;
+        this.analyticsProp = analyticsProp;
+        this.cacheTagIndex = cacheTagIndex;
     }
 
     private BigDecimal getTotalRevenue(){
-        return orderRepository.findTotalRevenue();
+        return dailySalesRollupRepository.findTotalRevenue();
     }
 
     private BigDecimal getAverageOrderValue(LocalDateTime start, LocalDateTime end) {
-        return orderRepository.getAverageOrderValue(start, end);
+        return dailySalesRollupRepository.getAverageOrderValue(start.toLocalDate(), end.toLocalDate());
     }
 
     private Long newCustomers(LocalDateTime start, LocalDateTime end) {
@@ -48,18 +63,45 @@ public class KpiService {
         return productRepository.countAllProducts();
     }
 
-    @Cacheable(value = "kpiCache",  key = "T(com.sqli.ecomAnalytics.util.RedisCacheKeys).kpiKeys(#start,#end)")
-    @Transactional(readOnly = true)
+    @Cacheable(value = "kpiCache",  key = "T(com.sqli.ecomAnalytics.util.RedisCacheKeys).kpiKeys(#start,#end)", sync = true)
     public KpiDto getKpi(LocalDateTime start, LocalDateTime end) {
+        KpiDto kpi = analyticsProp.getKpi().getQueryMode() == AnalyticsProp.KpiQueryMode.CONSOLIDATED
+                ? getKpiConsolidated(start, end)
+                : getKpiPerMetric(start, end);
+        // The totals cover every order, customer and product, not only the window's
+        cacheTagIndex.tag("kpiCache", RedisCacheKeys.kpiKeys(start, end), List.of(RedisCacheKeys.allOrdersTag(),
+                RedisCacheKeys.customerCountTag(), RedisCacheKeys.productCountTag()));
+        return kpi;
+    }
+
+    private KpiDto getKpiConsolidated(LocalDateTime start, LocalDateTime end) {
+        KpiSnapshot snapshot = orderRepository.getKpiSnapshot(start, end);
+
+        KpiDto kpi = new KpiDto();
+        kpi.setPeriodStart(start);
+        kpi.setPeriodEnd(end);
+        kpi.setTotalRevenue(snapshot.getTotalRevenue());
+        kpi.setTotalOrders(snapshot.getTotalOrders());
+        kpi.setAverageOrderValue(snapshot.getAverageOrderValue());
+        kpi.setTotalCustomers(snapshot.getTotalCustomers());
+        kpi.setNewCustomersCount(snapshot.getNewCustomersCount());
+        kpi.setTotalProducts(snapshot.getTotalProducts());
+
+        return kpi;
+    }
+
+    private KpiDto getKpiPerMetric(LocalDateTime start, LocalDateTime end) {
         KpiDto kpi = new KpiDto();
-        kpi.setAverageOrderValue(getAverageOrderValue(start, end));
-        kpi.setTotalRevenue(getTotalRevenue());
         kpi.setPeriodStart(start);
         kpi.setPeriodEnd(end);
-        kpi.setTotalCustomers(countCustomers());
-        kpi.setTotalProducts(countProducts());
-        kpi.setNewCustomersCount(newCustomers(start, end));
-        kpi.setTotalOrders(countOrders());
+        queryExecutor.runAll(List.of(
+                () -> kpi.setAverageOrderValue(getAverageOrderValue(start, end)),
+                () -> kpi.setTotalRevenue(getTotalRevenue()),
+                () -> kpi.setTotalCustomers(countCustomers()),
+                () -> kpi.setTotalProducts(countProducts()),
+                () -> kpi.setNewCustomersCount(newCustomers(start, end)),
+                () -> kpi.setTotalOrders(countOrders())
+        ));
 
         return kpi;
     }
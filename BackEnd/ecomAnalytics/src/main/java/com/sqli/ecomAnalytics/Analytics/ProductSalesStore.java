@@ -0,0 +1,103 @@
+package com.sqli.ecomAnalytics.Analytics;
+
+import com.sqli.ecomAnalytics.cache.CacheTagIndex;
+import com.sqli.ecomAnalytics.dto.ProductPerformanceDto;
+import com.sqli.ecomAnalytics.repository.ProductDailyStatsRepository;
+import com.sqli.ecomAnalytics.util.RedisCacheKeys;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Service
+public class ProductSalesStore {
+    private final ProductDailyStatsRepository productDailyStatsRepository;
+    private final AnalyticsQueryExecutor queryExecutor;
+    private final CacheTagIndex cacheTagIndex;
+
+    public ProductSalesStore(ProductDailyStatsRepository productDailyStatsRepository, AnalyticsQueryExecutor queryExecutor,
+                             CacheTagIndex cacheTagIndex) {
+        this.productDailyStatsRepository = productDailyStatsRepository;
+        this.queryExecutor = queryExecutor;
+        this.cacheTagIndex = cacheTagIndex;
+    }
+
+    // The sales figures below are range sums over product_daily_stats, cost follows products x days in the window
+    private List<ProductPerformanceDto.TopProductData> getTopProducts(LocalDateTime start, LocalDateTime end) {
+        List<Object[]> topProducts = productDailyStatsRepository.getProductPerformanceByRevenue(start.toLocalDate(), end.toLocalDate());
+
+        return topProducts.stream().map(obj -> {
+            ProductPerformanceDto.TopProductData data = new ProductPerformanceDto.TopProductData();
+            data.setProductId(((Number) obj[0]).intValue());
+            data.setProductName((String) obj[1]);
+            data.setQuantitySold(obj[2] != null ? ((Number) obj[2]).longValue() : 0L);
+            data.setRevenue(obj[3] != null ? (BigDecimal) obj[3] : BigDecimal.ZERO);
+            return data;
+        }).collect(Collectors.toList());
+    }
+
+    public List<ProductPerformanceDto.CategoryPerformanceData> getCategoryPerformance(LocalDateTime startDate, LocalDateTime endDate) {
+        List<Object[]> results = productDailyStatsRepository.getCategoryPerformance(startDate.toLocalDate(), endDate.toLocalDate());
+
+        return results.stream().map(record -> {
+            String category = record[0].toString();
+            Long totalQuantitySold = ((Number) record[1]).longValue();
+            BigDecimal totalRevenue = (BigDecimal) record[2];
+            int productCount = ((Number) record[3]).intValue();
+
+            BigDecimal averagePrice = totalQuantitySold != 0 ?
+                    totalRevenue.divide(BigDecimal.valueOf(totalQuantitySold), 2, RoundingMode.HALF_UP) : BigDecimal.ZERO;
+
+            return new ProductPerformanceDto.CategoryPerformanceData(
+                    category,
+                    totalQuantitySold,
+                    totalRevenue,
+                    productCount,
+                    averagePrice
+            );
+        }).collect(Collectors.toList());
+    }
+
+    // Stock and turnover are those of when the window was computed, ProductsAnalyticsService puts the current stock back
+    public List<ProductPerformanceDto.InventoryTurnoverData> getInventoryTurnover(LocalDateTime startDate, LocalDateTime endDate) {
+        List<Object[]> results = productDailyStatsRepository.getInventoryTurnoverData(startDate.toLocalDate(), endDate.toLocalDate());
+
+        return results.stream().map(record -> {
+            int productId = ((Number) record[0]).intValue();
+            String productName = (String) record[1];
+            int currentStock = ((Number) record[2]).intValue();
+            Long totalSold = record[3] != null ? ((Number) record[3]).longValue() : 0L;
+
+            return new ProductPerformanceDto.InventoryTurnoverData(
+                    productId,
+                    productName,
+                    currentStock,
+                    totalSold,
+                    turnoverRate(totalSold, currentStock)
+            );
+        }).collect(Collectors.toList());
+    }
+
+    static double turnoverRate(long totalSold, int currentStock) {
+        return currentStock > 0 ? (double) totalSold / currentStock : 0.0;
+    }
+
+    // Only what the window's orders decide is cached, so the entry is stale only when an order of those months changes
+    @Cacheable(value = "productsPerformanceCache", key = "T(com.sqli.ecomAnalytics.util.RedisCacheKeys).productPerformanceKeys(#startDate,#endDate)", sync = true)
+    public ProductPerformanceDto windowPerformance(LocalDateTime startDate, LocalDateTime endDate) {
+        ProductPerformanceDto performance = new ProductPerformanceDto();
+        queryExecutor.runAll(List.of(
+                () -> performance.setTopSellingProducts(getTopProducts(startDate, endDate)),
+                () -> performance.setCategoryPerformance(getCategoryPerformance(startDate, endDate)),
+                () -> performance.setInventoryAnalysis(getInventoryTurnover(startDate, endDate))
+        ));
+        cacheTagIndex.tag("productsPerformanceCache", RedisCacheKeys.productPerformanceKeys(startDate, endDate),
+                RedisCacheKeys.orderMonthTags(startDate, endDate));
+
+        return performance;
+    }
+}
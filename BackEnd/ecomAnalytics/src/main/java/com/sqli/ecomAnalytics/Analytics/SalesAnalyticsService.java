@@ -1,7 +1,10 @@
 package com.sqli.ecomAnalytics.Analytics;
 
+import com.sqli.ecomAnalytics.cache.CacheTagIndex;
+import com.sqli.ecomAnalytics.dto.SalesBucketSeries;
 import com.sqli.ecomAnalytics.dto.SalesTrendDto;
-import com.sqli.ecomAnalytics.repository.OrderRepository;
+import com.sqli.ecomAnalytics.dto.TimeGranularity;
+import com.sqli.ecomAnalytics.util.RedisCacheKeys;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -9,56 +12,67 @@ import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.time.YearMonth;
-import java.util.Comparator;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
 
 @Service
 public class SalesAnalyticsService {
-    private final OrderRepository orderRepository;
+    private final SalesBucketStore salesBucketStore;
+    private final CacheTagIndex cacheTagIndex;
 
-    public SalesAnalyticsService(OrderRepository orderRepository) {
-        this.orderRepository = orderRepository;
+    public SalesAnalyticsService(SalesBucketStore salesBucketStore, CacheTagIndex cacheTagIndex) {
+        this.salesBucketStore = salesBucketStore;
+        this.cacheTagIndex = cacheTagIndex;
     }
 
-    private List<SalesTrendDto.DailySalesData> fetchDailySales(LocalDateTime startDate, LocalDateTime endDate) {
-        List<Object[]> dailyRaw = orderRepository.getDailySalesTrends(startDate, endDate);
-
-        return dailyRaw.stream()
-                .map(record -> new SalesTrendDto.DailySalesData(
-                        ((java.sql.Date) record[0]).toLocalDate(),
-                        (BigDecimal) record[1],
-                        ((Number) record[2]).longValue()
-                ))
-                .collect(Collectors.toList());
+    // Day buckets come from whole cached months, trimmed to the requested days
+    private SalesBucketSeries fetchDayBuckets(LocalDateTime startDate, LocalDateTime endDate) {
+        List<SalesBucketSeries> months = new ArrayList<>();
+        for (YearMonth month = YearMonth.from(startDate); !month.isAfter(YearMonth.from(endDate)); month = month.plusMonths(1)) {
+            months.add(salesBucketStore.dayBucketsOfMonth(month));
+        }
+        return TimeBucketAggregator.slice(TimeBucketAggregator.concat(months),
+                startDate.truncatedTo(ChronoUnit.DAYS), endDate);
     }
 
-    private List<SalesTrendDto.MonthlySalesData> aggregateMonthlySales(List<SalesTrendDto.DailySalesData> dailySales) {
-        Map<YearMonth, List<SalesTrendDto.DailySalesData>> groupedByMonth = dailySales.stream()
-                .collect(Collectors.groupingBy(d -> YearMonth.from(d.getDate())));
-
-        return groupedByMonth.entrySet().stream()
-                .map(entry -> {
-                    YearMonth ym = entry.getKey();
-                    BigDecimal totalRevenue = entry.getValue().stream()
-                            .map(SalesTrendDto.DailySalesData::getRevenue)
-                            .reduce(BigDecimal.ZERO, BigDecimal::add);
-                    Long totalOrders = entry.getValue().stream()
-                            .mapToLong(SalesTrendDto.DailySalesData::getOrderCount)
-                            .sum();
+    private List<SalesTrendDto.DailySalesData> toDailySales(SalesBucketSeries days) {
+        List<SalesTrendDto.DailySalesData> dailySales = new ArrayList<>(TimeBucketAggregator.size(days));
+        for (int i = 0; i < TimeBucketAggregator.size(days); i++) {
+            dailySales.add(new SalesTrendDto.DailySalesData(
+                    days.getBucketStarts().get(i).toLocalDate(),
+                    TimeBucketAggregator.revenue(days.getRevenueCents()[i]),
+                    days.getOrderCounts()[i]
+            ));
+        }
+        return dailySales;
+    }
 
-                    return new SalesTrendDto.MonthlySalesData(
-                            ym.getYear(),
-                            ym.getMonthValue(),
-                            totalRevenue,
-                            totalOrders
-                    );
-                })
-                .sorted(Comparator.comparing(m -> YearMonth.of(m.getYear(), m.getMonth())))
-                .collect(Collectors.toList());
+    private List<SalesTrendDto.MonthlySalesData> toMonthlySales(SalesBucketSeries months) {
+        List<SalesTrendDto.MonthlySalesData> monthlySales = new ArrayList<>(TimeBucketAggregator.size(months));
+        for (int i = 0; i < TimeBucketAggregator.size(months); i++) {
+            LocalDateTime monthStart = months.getBucketStarts().get(i);
+            monthlySales.add(new SalesTrendDto.MonthlySalesData(
+                    monthStart.getYear(),
+                    monthStart.getMonthValue(),
+                    TimeBucketAggregator.revenue(months.getRevenueCents()[i]),
+                    months.getOrderCounts()[i]
+            ));
+        }
+        return monthlySales;
     }
 
+    private List<SalesTrendDto.SalesBucketData> toBuckets(SalesBucketSeries series) {
+        List<SalesTrendDto.SalesBucketData> buckets = new ArrayList<>(TimeBucketAggregator.size(series));
+        for (int i = 0; i < TimeBucketAggregator.size(series); i++) {
+            buckets.add(new SalesTrendDto.SalesBucketData(
+                    series.getBucketStarts().get(i),
+                    TimeBucketAggregator.revenue(series.getRevenueCents()[i]),
+                    series.getOrderCounts()[i]
+            ));
+        }
+        return buckets;
+    }
 
     private String determineTrend(List<SalesTrendDto.MonthlySalesData> monthlySales) {
         if (monthlySales.size() < 2) {
@@ -77,13 +91,19 @@ public class SalesAnalyticsService {
         }
     }
 
-    @Cacheable(value = "salesTrendCache",  key = "T(com.sqli.ecomAnalytics.util.RedisCacheKeys).salesTrendKeys(#startDate, #endDate)")
+    @Cacheable(value = "salesTrendCache",  key = "T(com.sqli.ecomAnalytics.util.RedisCacheKeys).salesTrendKeys(#startDate, #endDate, #granularity)", sync = true)
     @Transactional(readOnly = true)
-    public SalesTrendDto getsalesTrend(LocalDateTime startDate, LocalDateTime endDate) {
-        List<SalesTrendDto.DailySalesData>  dailySales = fetchDailySales(startDate, endDate);
-        List<SalesTrendDto.MonthlySalesData>  monthlySales = aggregateMonthlySales(dailySales);
+    public SalesTrendDto getsalesTrend(LocalDateTime startDate, LocalDateTime endDate, TimeGranularity granularity) {
+        SalesBucketSeries days = fetchDayBuckets(startDate, endDate);
+        List<SalesTrendDto.MonthlySalesData> monthlySales = toMonthlySales(TimeBucketAggregator.rollUp(days, TimeGranularity.MONTH));
         String trend = determineTrend(monthlySales);
+        // The rollup is daily, hour buckets are the only ones read from the orders themselves
+        SalesBucketSeries buckets = granularity == TimeGranularity.HOUR
+                ? salesBucketStore.hourBuckets(startDate, endDate)
+                : TimeBucketAggregator.rollUp(days, granularity);
 
-        return new SalesTrendDto(dailySales,monthlySales,trend);
+        cacheTagIndex.tag("salesTrendCache", RedisCacheKeys.salesTrendKeys(startDate, endDate, granularity),
+                RedisCacheKeys.orderMonthTags(startDate, endDate));
+        return new SalesTrendDto(toDailySales(days), monthlySales, trend, granularity, toBuckets(buckets));
     }
 }
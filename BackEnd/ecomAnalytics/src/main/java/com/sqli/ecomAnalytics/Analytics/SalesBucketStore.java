@@ -0,0 +1,41 @@
+package com.sqli.ecomAnalytics.Analytics;
+
+import com.sqli.ecomAnalytics.cache.CacheTagIndex;
+import com.sqli.ecomAnalytics.dto.SalesBucketSeries;
+import com.sqli.ecomAnalytics.repository.DailySalesRollupRepository;
+import com.sqli.ecomAnalytics.repository.OrderRepository;
+import com.sqli.ecomAnalytics.util.RedisCacheKeys;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+
+@Service
+public class SalesBucketStore {
+    private final DailySalesRollupRepository dailySalesRollupRepository;
+    private final OrderRepository orderRepository;
+    private final CacheTagIndex cacheTagIndex;
+
+    public SalesBucketStore(DailySalesRollupRepository dailySalesRollupRepository, OrderRepository orderRepository,
+                            CacheTagIndex cacheTagIndex) {
+        this.dailySalesRollupRepository = dailySalesRollupRepository;
+        this.orderRepository = orderRepository;
+        this.cacheTagIndex = cacheTagIndex;
+    }
+
+    // Cached per calendar month so overlapping windows reuse the same day buckets
+    @Cacheable(value = "salesDayBucketsCache", key = "T(com.sqli.ecomAnalytics.util.RedisCacheKeys).salesDayBucketsKey(#month)", sync = true)
+    public SalesBucketSeries dayBucketsOfMonth(YearMonth month) {
+        SalesBucketSeries days = TimeBucketAggregator.fromRows(
+                dailySalesRollupRepository.getDailySalesTrends(month.atDay(1), month.atEndOfMonth()));
+        cacheTagIndex.tag("salesDayBucketsCache", RedisCacheKeys.salesDayBucketsKey(month),
+                List.of(RedisCacheKeys.orderMonthTag(month)));
+        return days;
+    }
+
+    public SalesBucketSeries hourBuckets(LocalDateTime start, LocalDateTime end) {
+        return TimeBucketAggregator.fromRows(orderRepository.getHourlySales(start, end));
+    }
+}
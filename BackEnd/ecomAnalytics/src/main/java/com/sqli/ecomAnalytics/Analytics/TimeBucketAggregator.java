@@ -0,0 +1,124 @@
+package com.sqli.ecomAnalytics.Analytics;
+
+import com.sqli.ecomAnalytics.dto.SalesBucketSeries;
+import com.sqli.ecomAnalytics.dto.TimeGranularity;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Builds sales series at any granularity by merging finer, already aggregated buckets. Series are kept ordered by
+ * bucket start, so every operation is a single pass over long accumulators.
+ */
+public final class TimeBucketAggregator {
+
+    private TimeBucketAggregator() {}
+
+    // Rows are (bucket start, revenue, order count) ordered by bucket start, as returned by the rollup queries
+    public static SalesBucketSeries fromRows(List<Object[]> rows) {
+        SeriesBuilder builder = new SeriesBuilder(rows.size());
+        for (Object[] row : rows) {
+            long cents = ((BigDecimal) row[1]).movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+            builder.add(toDateTime(row[0]), cents, ((Number) row[2]).longValue());
+        }
+        return builder.build();
+    }
+
+    public static SalesBucketSeries concat(List<SalesBucketSeries> parts) {
+        SeriesBuilder builder = new SeriesBuilder(parts.stream().mapToInt(TimeBucketAggregator::size).sum());
+        for (SalesBucketSeries part : parts) {
+            for (int i = 0; i < size(part); i++) {
+                builder.add(part.getBucketStarts().get(i), part.getRevenueCents()[i], part.getOrderCounts()[i]);
+            }
+        }
+        return builder.build();
+    }
+
+    // Keeps the buckets starting within [start, end]
+    public static SalesBucketSeries slice(SalesBucketSeries series, LocalDateTime start, LocalDateTime end) {
+        SeriesBuilder builder = new SeriesBuilder(size(series));
+        for (int i = 0; i < size(series); i++) {
+            LocalDateTime bucketStart = series.getBucketStarts().get(i);
+            if (!bucketStart.isBefore(start) && !bucketStart.isAfter(end)) {
+                builder.add(bucketStart, series.getRevenueCents()[i], series.getOrderCounts()[i]);
+            }
+        }
+        return builder.build();
+    }
+
+    public static SalesBucketSeries rollUp(SalesBucketSeries series, TimeGranularity granularity) {
+        SeriesBuilder builder = new SeriesBuilder(size(series));
+        for (int i = 0; i < size(series); i++) {
+            builder.merge(granularity.bucketStart(series.getBucketStarts().get(i)),
+                    series.getRevenueCents()[i], series.getOrderCounts()[i]);
+        }
+        return builder.build();
+    }
+
+    public static BigDecimal revenue(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    public static int size(SalesBucketSeries series) {
+        return series.getBucketStarts().size();
+    }
+
+    private static LocalDateTime toDateTime(Object value) {
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toLocalDateTime();
+        }
+        if (value instanceof Date date) {
+            return date.toLocalDate().atStartOfDay();
+        }
+        if (value instanceof LocalDate date) {
+            return date.atStartOfDay();
+        }
+        return (LocalDateTime) value;
+    }
+
+    private static final class SeriesBuilder {
+        private final List<LocalDateTime> bucketStarts;
+        private long[] revenueCents;
+        private long[] orderCounts;
+
+        private SeriesBuilder(int capacity) {
+            this.bucketStarts = new ArrayList<>(capacity);
+            this.revenueCents = new long[Math.max(capacity, 1)];
+            this.orderCounts = new long[Math.max(capacity, 1)];
+        }
+
+        private void add(LocalDateTime bucketStart, long cents, long orders) {
+            int index = bucketStarts.size();
+            if (index == revenueCents.length) {
+                revenueCents = Arrays.copyOf(revenueCents, index * 2);
+                orderCounts = Arrays.copyOf(orderCounts, index * 2);
+            }
+            bucketStarts.add(bucketStart);
+            revenueCents[index] = cents;
+            orderCounts[index] = orders;
+        }
+
+        // Input is ordered, so a bucket only ever merges into the last one
+        private void merge(LocalDateTime bucketStart, long cents, long orders) {
+            int last = bucketStarts.size() - 1;
+            if (last >= 0 && bucketStarts.get(last).equals(bucketStart)) {
+                revenueCents[last] += cents;
+                orderCounts[last] += orders;
+            } else {
+                add(bucketStart, cents, orders);
+            }
+        }
+
+        private SalesBucketSeries build() {
+            int size = bucketStarts.size();
+            return new SalesBucketSeries(bucketStarts, Arrays.copyOf(revenueCents, size), Arrays.copyOf(orderCounts, size));
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.sqli.ecomAnalytics.cache;
+
+import com.github.luben.zstd.Zstd;
+import com.sqli.ecomAnalytics.configuration.CacheProp.Compression;
+import net.jpountz.lz4.LZ4Factory;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Writes cache values with a binary delegate (Smile in RedisConfig) behind a small header, compressing the payload
+ * with LZ4 or Zstd once it reaches the threshold. Values without the header are handed to the JSON fallback,
+ * so entries written before the switch stay readable until they expire.
+ */
+public class BinaryCacheSerializer implements RedisSerializer<Object> {
+    private static final byte MAGIC = (byte) 0xB1;
+    // magic, codec, uncompressed length
+    private static final int HEADER_SIZE = 6;
+    private static final int ZSTD_LEVEL = 3;
+    // Codec ids are part of the stored format, they must never change or be reused, whatever the enum order
+    private static final byte CODEC_NONE = 0;
+    private static final byte CODEC_LZ4 = 1;
+    private static final byte CODEC_ZSTD = 2;
+    private static final LZ4Factory LZ4 = LZ4Factory.fastestInstance();
+
+    private final RedisSerializer<Object> binarySerializer;
+    private final RedisSerializer<Object> jsonFallback;
+    private final Compression compression;
+    private final int compressionThreshold;
+
+    public BinaryCacheSerializer(RedisSerializer<Object> binarySerializer, RedisSerializer<Object> jsonFallback,
+                                 Compression compression, int compressionThreshold) {
+        this.binarySerializer = binarySerializer;
+        this.jsonFallback = jsonFallback;
+        this.compression = compression;
+        this.compressionThreshold = compressionThreshold;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) {
+            return new byte[0];
+        }
+
+        byte[] payload = binarySerializer.serialize(value);
+        Compression codec = Compression.NONE;
+        byte[] body = payload;
+
+        if (compression != Compression.NONE && payload.length >= compressionThreshold) {
+            byte[] compressed = compress(payload);
+            if (compressed.length < payload.length) {
+                codec = compression;
+                body = compressed;
+            }
+        }
+
+        return ByteBuffer.allocate(HEADER_SIZE + body.length)
+                .put(MAGIC)
+                .put(codecId(codec))
+                .putInt(payload.length)
+                .put(body)
+                .array();
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] != MAGIC) {
+            return jsonFallback.deserialize(bytes);
+        }
+        if (bytes.length < HEADER_SIZE) {
+            throw new SerializationException("Truncated cache value of " + bytes.length + " bytes");
+        }
+
+        ByteBuffer header = ByteBuffer.wrap(bytes, 1, HEADER_SIZE - 1);
+        Compression codec = codecFor(header.get());
+        int length = header.getInt();
+
+        byte[] payload = switch (codec) {
+            case NONE -> Arrays.copyOfRange(bytes, HEADER_SIZE, bytes.length);
+            case LZ4 -> LZ4.fastDecompressor().decompress(bytes, HEADER_SIZE, length);
+            case ZSTD -> Zstd.decompress(Arrays.copyOfRange(bytes, HEADER_SIZE, bytes.length), length);
+        };
+        return binarySerializer.deserialize(payload);
+    }
+
+    private static byte codecId(Compression codec) {
+        return switch (codec) {
+            case NONE -> CODEC_NONE;
+            case LZ4 -> CODEC_LZ4;
+            case ZSTD -> CODEC_ZSTD;
+        };
+    }
+
+    private static Compression codecFor(byte id) {
+        return switch (id) {
+            case CODEC_NONE -> Compression.NONE;
+            case CODEC_LZ4 -> Compression.LZ4;
+            case CODEC_ZSTD -> Compression.ZSTD;
+            default -> throw new SerializationException("Unknown cache value codec " + id);
+        };
+    }
+
+    private byte[] compress(byte[] payload) {
+        return switch (compression) {
+            case LZ4 -> LZ4.fastCompressor().compress(payload);
+            case ZSTD -> Zstd.compress(payload, ZSTD_LEVEL);
+            case NONE -> payload;
+        };
+    }
+}
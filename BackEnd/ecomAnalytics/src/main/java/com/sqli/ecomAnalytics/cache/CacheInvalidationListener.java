@@ -0,0 +1,47 @@
+package com.sqli.ecomAnalytics.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+
+@Slf4j
+public class CacheInvalidationListener implements MessageListener {
+    private final CacheManager cacheManager;
+    private final ObjectMapper objectMapper;
+    private final String nodeId;
+
+    public CacheInvalidationListener(CacheManager cacheManager, ObjectMapper objectMapper, String nodeId) {
+        this.cacheManager = cacheManager;
+        this.objectMapper = objectMapper;
+        this.nodeId = nodeId;
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            CacheInvalidationMessage invalidation = objectMapper.readValue(message.getBody(), CacheInvalidationMessage.class);
+            if (nodeId.equals(invalidation.origin())) {
+                return;
+            }
+
+            Cache cache = cacheManager.getCache(invalidation.cacheName());
+            // Decorated caches expose the two level cache as their native cache
+            if (cache == null || !(cache.getNativeCache() instanceof TwoLevelCache twoLevelCache)) {
+                return;
+            }
+
+            if (invalidation.key() == null) {
+                twoLevelCache.clearLocal();
+            } else {
+                twoLevelCache.evictLocal(invalidation.key());
+            }
+            log.debug("L1 invalidation from node {} applied to cache: {} key: {}",
+                    invalidation.origin(), invalidation.cacheName(), invalidation.key());
+        } catch (Exception e) {
+            log.error("Could not apply cache invalidation message", e);
+        }
+    }
+}
@@ -0,0 +1,5 @@
+package com.sqli.ecomAnalytics.cache;
+
+// key is null when the whole cache was cleared
+public record CacheInvalidationMessage(String origin, String cacheName, String key) {
+}
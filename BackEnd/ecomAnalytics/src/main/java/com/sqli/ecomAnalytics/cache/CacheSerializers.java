@@ -0,0 +1,47 @@
+package com.sqli.ecomAnalytics.cache;
+
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.sqli.ecomAnalytics.configuration.CacheProp;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+public final class CacheSerializers {
+
+    private CacheSerializers() {
+    }
+
+    public static GenericJackson2JsonRedisSerializer json() {
+        return new GenericJackson2JsonRedisSerializer(configure(new ObjectMapper()));
+    }
+
+    // Same type hints as the JSON serializer, shared names and values are written once as back references
+    public static GenericJackson2JsonRedisSerializer smile() {
+        SmileFactory factory = SmileFactory.builder()
+                .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+                .build();
+        return new GenericJackson2JsonRedisSerializer(configure(new SmileMapper(factory)));
+    }
+
+    public static RedisSerializer<Object> binary(CacheProp.Compression compression, int compressionThreshold) {
+        return new BinaryCacheSerializer(smile(), json(), compression, compressionThreshold);
+    }
+
+    public static RedisSerializer<Object> forCache(String cacheName, CacheProp.Serialization prop) {
+        if (prop.formatFor(cacheName) == CacheProp.Format.JSON) {
+            return json();
+        }
+        return binary(prop.compressionFor(cacheName), prop.getCompressionThreshold());
+    }
+
+    private static ObjectMapper configure(ObjectMapper objectMapper) {
+        objectMapper.registerModule(new JavaTimeModule());
+        objectMapper.activateDefaultTyping(LaissezFaireSubTypeValidator.instance, ObjectMapper.DefaultTyping.NON_FINAL, JsonTypeInfo.As.PROPERTY);
+        return objectMapper;
+    }
+}
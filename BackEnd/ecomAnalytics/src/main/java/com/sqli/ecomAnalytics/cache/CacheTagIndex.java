@@ -0,0 +1,113 @@
+package com.sqli.ecomAnalytics.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Keeps a tag -> cache entry index in Redis sets (cache:tag:{tag} holding "cacheName|key" members)
+ * so writes can evict exactly the entries that contain the changed product or customer
+ * instead of clearing whole caches.
+ */
+@Component
+@Slf4j
+public class CacheTagIndex {
+    private static final String TAG_PREFIX = "cache:tag:";
+    private static final char MEMBER_SEPARATOR = '|';
+    // Outlives the longest cache TTL so a live entry never loses its tags
+    private static final Duration TAG_TTL = Duration.ofHours(25);
+
+    private final StringRedisTemplate redisTemplate;
+    private final CacheManager cacheManager;
+    private final Counter evictedEntries;
+    private final Timer invalidationTimer;
+
+    public CacheTagIndex(StringRedisTemplate redisTemplate, CacheManager cacheManager, MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.cacheManager = cacheManager;
+        this.evictedEntries = Counter.builder("cache.tag.evicted.entries")
+                .description("Cache entries evicted through tag invalidation")
+                .register(meterRegistry);
+        this.invalidationTimer = Timer.builder("cache.tag.invalidation")
+                .description("Time spent resolving tags and evicting the tagged entries")
+                .register(meterRegistry);
+    }
+
+    public void tag(String cacheName, String key, Collection<String> tags) {
+        if (tags.isEmpty()) {
+            return;
+        }
+        String member = cacheName + MEMBER_SEPARATOR + key;
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection stringConnection = (StringRedisConnection) connection;
+                for (String tag : tags) {
+                    stringConnection.sAdd(TAG_PREFIX + tag, member);
+                    stringConnection.expire(TAG_PREFIX + tag, TAG_TTL.toSeconds());
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            log.warn("Could not tag cache entry {} in cache {}: {}", key, cacheName, e.getMessage());
+        }
+    }
+
+    // Deferred to after commit when called inside a transaction, otherwise a reader could re-cache the old state
+    public void evictTagged(Collection<String> tags) {
+        if (tags.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictNow(tags);
+                }
+            });
+        } else {
+            evictNow(tags);
+        }
+    }
+
+    private void evictNow(Collection<String> tags) {
+        invalidationTimer.record(() -> {
+            try {
+                Set<String> members = new LinkedHashSet<>();
+                for (String tag : tags) {
+                    Set<String> tagged = redisTemplate.opsForSet().members(TAG_PREFIX + tag);
+                    if (tagged != null && !tagged.isEmpty()) {
+                        // Only remove what was read, members added meanwhile stay indexed
+                        redisTemplate.opsForSet().remove(TAG_PREFIX + tag, tagged.toArray());
+                        members.addAll(tagged);
+                    }
+                }
+
+                for (String member : members) {
+                    int separator = member.indexOf(MEMBER_SEPARATOR);
+                    Cache cache = cacheManager.getCache(member.substring(0, separator));
+                    if (cache != null) {
+                        cache.evict(member.substring(separator + 1));
+                    }
+                }
+                evictedEntries.increment(members.size());
+                log.debug("Tag invalidation {} evicted {} entries", tags, members.size());
+            } catch (Exception e) {
+                log.error("Tag invalidation failed for tags {}", tags, e);
+            }
+        });
+    }
+}
@@ -0,0 +1,28 @@
+package com.sqli.ecomAnalytics.cache;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+// Runs outside the cache interceptor so RefreshAheadCache knows which call to replay when an entry needs refreshing
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RefreshAheadAspect {
+
+    @Around("@annotation(org.springframework.cache.annotation.Cacheable)")
+    public Object captureInvocation(ProceedingJoinPoint joinPoint) throws Throwable {
+        RefreshAheadContext.Invocation invocation = new RefreshAheadContext.Invocation(
+                joinPoint.getThis(), ((MethodSignature) joinPoint.getSignature()).getMethod(), joinPoint.getArgs());
+        RefreshAheadContext.Invocation previous = RefreshAheadContext.enter(invocation);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            RefreshAheadContext.exit(previous);
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.sqli.ecomAnalytics.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Stale-while-revalidate: an entry past refreshFraction of its TTL is still served while a background task
+ * recomputes it, and entries read within the recent-read window are refreshed by a periodic sweep even when nobody
+ * reads them at that moment. Only one node refreshes a given entry, the others pick the new value up from Redis.
+ */
+@Slf4j
+public class RefreshAheadCache extends DelegatingCache {
+    private static final String REFRESH_LOCK_PREFIX = "cache:refresh:";
+
+    private final StringRedisTemplate redisTemplate;
+    private final String redisKeyPrefix;
+    private final RedisCacheWriter.TtlFunction ttlFunction;
+    private final double refreshFraction;
+    private final Duration retryDelay;
+    private final Executor refreshExecutor;
+    // Entries read on this node recently, with the call needed to recompute them
+    private final com.github.benmanes.caffeine.cache.Cache<Object, EntryState> entries;
+    private final Counter readRefreshes;
+    private final Counter sweepRefreshes;
+    private final Counter failedRefreshes;
+
+    public RefreshAheadCache(Cache delegate, StringRedisTemplate redisTemplate, String redisKeyPrefix,
+                             RedisCacheWriter.TtlFunction ttlFunction, double refreshFraction, Duration recentReadWindow,
+                             Duration retryDelay, Executor refreshExecutor, MeterRegistry meterRegistry) {
+        super(delegate);
+        this.redisTemplate = redisTemplate;
+        this.redisKeyPrefix = redisKeyPrefix;
+        this.ttlFunction = ttlFunction;
+        this.refreshFraction = refreshFraction;
+        this.retryDelay = retryDelay;
+        this.refreshExecutor = refreshExecutor;
+        this.entries = Caffeine.newBuilder()
+                .expireAfterAccess(recentReadWindow)
+                .maximumSize(10_000)
+                .build();
+        this.readRefreshes = refreshCounter(meterRegistry, "read", "success");
+        this.sweepRefreshes = refreshCounter(meterRegistry, "sweep", "success");
+        this.failedRefreshes = refreshCounter(meterRegistry, "any", "failure");
+    }
+
+    private Counter refreshCounter(MeterRegistry meterRegistry, String trigger, String result) {
+        return Counter.builder("cache.refresh.ahead")
+                .description("Background recomputations of cache entries close to expiry")
+                .tags("cache", delegate.getName(), "trigger", trigger, "result", result)
+                .register(meterRegistry);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        if (RefreshAheadContext.isRefreshing(getName(), key)) {
+            T value = load(key, valueLoader);
+            delegate.put(key, value);
+            // Quiet lookup so a background refresh does not count as a read
+            EntryState state = entries.policy().getIfPresentQuietly(key);
+            if (state != null) {
+                state.refreshAt = refreshAtAfterWrite(key, value);
+            }
+            return value;
+        }
+
+        RefreshAheadContext.Invocation invocation = RefreshAheadContext.current();
+        ValueWrapper cached = delegate.get(key);
+        if (cached == null) {
+            T value = delegate.get(key, valueLoader);
+            EntryState state = entries.get(key, k -> new EntryState());
+            state.refreshAt = refreshAtAfterWrite(key, value);
+            state.invocation = invocation;
+            return value;
+        }
+
+        EntryState state = entries.get(key, k -> {
+            EntryState fresh = new EntryState();
+            fresh.refreshAt = refreshAtFromRedis(k, cached.get());
+            return fresh;
+        });
+        if (invocation != null) {
+            state.invocation = invocation;
+        }
+        if (!Instant.now().isBefore(state.refreshAt)) {
+            scheduleRefresh(key, state, readRefreshes);
+        }
+        return (T) cached.get();
+    }
+
+    // Called by the manager's sweep, keeps recently read entries from ever expiring cold
+    void refreshDueEntries() {
+        Instant now = Instant.now();
+        entries.asMap().forEach((key, state) -> {
+            if (!now.isBefore(state.refreshAt)) {
+                scheduleRefresh(key, state, sweepRefreshes);
+            }
+        });
+    }
+
+    private void scheduleRefresh(Object key, EntryState state, Counter trigger) {
+        RefreshAheadContext.Invocation invocation = state.invocation;
+        if (invocation == null || !state.refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        refreshExecutor.execute(() -> {
+            try {
+                if (!claimRefresh(key, state)) {
+                    return;
+                }
+                RefreshAheadContext.refresh(getName(), key, invocation);
+                trigger.increment();
+            } catch (Exception e) {
+                failedRefreshes.increment();
+                state.refreshAt = Instant.now().plus(retryDelay);
+                log.warn("Refresh ahead failed for cache: {} key: {} - {}", getName(), key, e.getMessage());
+            } finally {
+                state.refreshing.set(false);
+            }
+        });
+    }
+
+    // One node refreshes, the others back off and re-read the expiry once the new value is written
+    private boolean claimRefresh(Object key, EntryState state) {
+        try {
+            Boolean claimed = redisTemplate.opsForValue()
+                    .setIfAbsent(REFRESH_LOCK_PREFIX + getName() + ":" + key, "1", retryDelay);
+            if (Boolean.TRUE.equals(claimed)) {
+                return true;
+            }
+        } catch (Exception e) {
+            log.warn("Could not claim refresh for cache: {} key: {} - {}", getName(), key, e.getMessage());
+        }
+        state.refreshAt = Instant.now().plus(retryDelay);
+        return false;
+    }
+
+    private Instant refreshAtAfterWrite(Object key, Object value) {
+        Duration ttl = ttlFunction.getTimeToLive(key, value);
+        if (ttl.isZero() || ttl.isNegative()) {
+            return Instant.MAX;
+        }
+        return Instant.now().plusMillis((long) (ttl.toMillis() * refreshFraction));
+    }
+
+    // For entries written by another node, the age is derived from what is left of the Redis TTL
+    private Instant refreshAtFromRedis(Object key, Object value) {
+        Duration ttl = ttlFunction.getTimeToLive(key, value);
+        if (ttl.isZero() || ttl.isNegative()) {
+            return Instant.MAX;
+        }
+        Long remaining = null;
+        try {
+            remaining = redisTemplate.getExpire(redisKeyPrefix + key, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            log.warn("Could not read expiry for cache: {} key: {} - {}", getName(), key, e.getMessage());
+        }
+        if (remaining == null || remaining < 0) {
+            return refreshAtAfterWrite(key, value);
+        }
+        long untilRefresh = remaining - (long) (ttl.toMillis() * (1 - refreshFraction));
+        return Instant.now().plusMillis(untilRefresh);
+    }
+
+    private static <T> T load(Object key, Callable<T> valueLoader) {
+        try {
+            return valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+    }
+
+    @Override
+    public void evict(Object key) {
+        entries.invalidate(key);
+        delegate.evict(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        entries.invalidate(key);
+        return delegate.evictIfPresent(key);
+    }
+
+    @Override
+    public void clear() {
+        entries.invalidateAll();
+        delegate.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        entries.invalidateAll();
+        return delegate.invalidate();
+    }
+
+    private static final class EntryState {
+        private volatile Instant refreshAt = Instant.MAX;
+        private volatile RefreshAheadContext.Invocation invocation;
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+    }
+}
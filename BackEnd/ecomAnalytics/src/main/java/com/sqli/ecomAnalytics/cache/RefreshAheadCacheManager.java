@@ -0,0 +1,84 @@
+package com.sqli.ecomAnalytics.cache;
+
+import com.sqli.ecomAnalytics.configuration.CacheProp;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Wraps the configured caches in a RefreshAheadCache and periodically refreshes their recently read entries
+public class RefreshAheadCacheManager implements CacheManager, DisposableBean {
+    private final CacheManager delegate;
+    // Source of the Redis key prefix and TTL of each cache
+    private final RedisCacheManager redisCacheManager;
+    private final CacheProp.RefreshAhead refreshAheadProp;
+    private final StringRedisTemplate redisTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Cache> caches = new ConcurrentHashMap<>();
+    private final ExecutorService refreshExecutor;
+    private final ScheduledExecutorService sweeper;
+
+    public RefreshAheadCacheManager(CacheManager delegate, RedisCacheManager redisCacheManager,
+                                    CacheProp.RefreshAhead refreshAheadProp, StringRedisTemplate redisTemplate,
+                                    MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.redisCacheManager = redisCacheManager;
+        this.refreshAheadProp = refreshAheadProp;
+        this.redisTemplate = redisTemplate;
+        this.meterRegistry = meterRegistry;
+        this.refreshExecutor = Executors.newFixedThreadPool(refreshAheadProp.getThreads(), Thread.ofPlatform()
+                .name("cache-refresh-", 0).daemon(true).factory());
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform()
+                .name("cache-refresh-sweep").daemon(true).factory());
+        long sweepMillis = refreshAheadProp.getSweepInterval().toMillis();
+        this.sweeper.scheduleWithFixedDelay(this::refreshDueEntries, sweepMillis, sweepMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return caches.computeIfAbsent(name, this::createCache);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return delegate.getCacheNames();
+    }
+
+    private Cache createCache(String name) {
+        Cache cache = delegate.getCache(name);
+        if (cache == null || !refreshAheadProp.getCaches().contains(name)
+                || !(redisCacheManager.getCache(name) instanceof RedisCache redisCache)) {
+            return cache;
+        }
+        RedisCacheConfiguration config = redisCache.getCacheConfiguration();
+        return new RefreshAheadCache(cache, redisTemplate, config.getKeyPrefixFor(name), config.getTtlFunction(),
+                refreshAheadProp.getRefreshFraction(), refreshAheadProp.getRecentReadWindow(),
+                refreshAheadProp.getRetryDelay(), refreshExecutor, meterRegistry);
+    }
+
+    private void refreshDueEntries() {
+        for (Cache cache : caches.values()) {
+            if (cache instanceof RefreshAheadCache refreshAheadCache) {
+                refreshAheadCache.refreshDueEntries();
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        sweeper.shutdownNow();
+        refreshExecutor.shutdownNow();
+    }
+}
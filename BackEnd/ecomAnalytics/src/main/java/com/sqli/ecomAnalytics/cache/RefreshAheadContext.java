@@ -0,0 +1,55 @@
+package com.sqli.ecomAnalytics.cache;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Objects;
+
+// Hands the current @Cacheable call to the cache and marks the thread that recomputes an entry in the background
+final class RefreshAheadContext {
+    private static final ThreadLocal<Invocation> CURRENT = new ThreadLocal<>();
+    private static final ThreadLocal<RefreshTarget> REFRESHING = new ThreadLocal<>();
+
+    private RefreshAheadContext() {}
+
+    record Invocation(Object proxy, Method method, Object[] args) {}
+
+    private record RefreshTarget(String cacheName, Object key) {}
+
+    static Invocation enter(Invocation invocation) {
+        Invocation previous = CURRENT.get();
+        CURRENT.set(invocation);
+        return previous;
+    }
+
+    static void exit(Invocation previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    static Invocation current() {
+        return CURRENT.get();
+    }
+
+    static boolean isRefreshing(String cacheName, Object key) {
+        RefreshTarget target = REFRESHING.get();
+        return target != null && target.cacheName().equals(cacheName) && Objects.equals(target.key(), key);
+    }
+
+    // Calls the method through its proxy again, the cache sees the refresh marker and reloads instead of answering
+    static void refresh(String cacheName, Object key, Invocation invocation) throws Exception {
+        REFRESHING.set(new RefreshTarget(cacheName, key));
+        try {
+            invocation.method().invoke(invocation.proxy(), invocation.args());
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        } finally {
+            REFRESHING.remove();
+        }
+    }
+}
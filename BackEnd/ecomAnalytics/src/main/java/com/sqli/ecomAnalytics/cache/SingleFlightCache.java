@@ -0,0 +1,168 @@
+package com.sqli.ecomAnalytics.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Lets concurrent misses for the same key share one computation. Threads on this node wait on the in-flight load,
+ * other nodes find a short Redis lock and wait for the value to land in the cache instead of running the query.
+ * Only loads going through get(key, valueLoader) are coalesced, so the @Cacheable methods need sync = true.
+ */
+@Slf4j
+public class SingleFlightCache extends DelegatingCache {
+    private static final String LOCK_PREFIX = "cache:lock:";
+    private static final RedisScript<Long> RELEASE_LOCK = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end", Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final Duration lockTtl;
+    private final Duration pollInterval;
+    private final Map<Object, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Counter executedLoads;
+    private final Counter localCoalescedLoads;
+    private final Counter remoteCoalescedLoads;
+
+    public SingleFlightCache(Cache delegate, StringRedisTemplate redisTemplate, Duration lockTtl, Duration pollInterval,
+                             MeterRegistry meterRegistry) {
+        super(delegate);
+        this.redisTemplate = redisTemplate;
+        this.lockTtl = lockTtl;
+        this.pollInterval = pollInterval;
+        this.executedLoads = loadCounter(meterRegistry, "executed", "local");
+        this.localCoalescedLoads = loadCounter(meterRegistry, "coalesced", "local");
+        this.remoteCoalescedLoads = loadCounter(meterRegistry, "coalesced", "remote");
+    }
+
+    private Counter loadCounter(MeterRegistry meterRegistry, String result, String source) {
+        return Counter.builder("cache.single.flight.loads")
+                .description("Cache misses that ran the loader or reused a load already in flight")
+                .tags("cache", delegate.getName(), "result", result, "source", source)
+                .register(meterRegistry);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper cached = delegate.get(key);
+        if (cached != null) {
+            return (T) cached.get();
+        }
+
+        CompletableFuture<Object> load = new CompletableFuture<>();
+        CompletableFuture<Object> running = inFlight.putIfAbsent(key, load);
+        if (running != null) {
+            localCoalescedLoads.increment();
+            return (T) await(running);
+        }
+
+        try {
+            Object value = loadOnce(key, valueLoader);
+            load.complete(value);
+            return (T) value;
+        } catch (RuntimeException e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, load);
+        }
+    }
+
+    private Object loadOnce(Object key, Callable<?> valueLoader) {
+        String lockKey = LOCK_PREFIX + getName() + ":" + key;
+        String token = UUID.randomUUID().toString();
+
+        if (tryLock(lockKey, token)) {
+            try {
+                // Another node may have filled the entry between our miss and taking the lock
+                ValueWrapper cached = delegate.get(key);
+                return cached != null ? cached.get() : load(key, valueLoader);
+            } finally {
+                unlock(lockKey, token);
+            }
+        }
+
+        ValueWrapper loaded = awaitRemoteLoad(key, lockKey);
+        if (loaded != null) {
+            remoteCoalescedLoads.increment();
+            return loaded.get();
+        }
+        // The lock holder failed or is too slow, answering from the database beats failing the request
+        return load(key, valueLoader);
+    }
+
+    private Object load(Object key, Callable<?> valueLoader) {
+        executedLoads.increment();
+        Object value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        delegate.put(key, value);
+        return value;
+    }
+
+    private ValueWrapper awaitRemoteLoad(Object key, String lockKey) {
+        long deadline = System.nanoTime() + lockTtl.toNanos();
+        while (System.nanoTime() < deadline) {
+            try {
+                Thread.sleep(pollInterval.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+            ValueWrapper cached = delegate.get(key);
+            if (cached != null) {
+                return cached;
+            }
+            if (!Boolean.TRUE.equals(redisTemplate.hasKey(lockKey))) {
+                // Released without a value, the holder's load failed
+                return delegate.get(key);
+            }
+        }
+        return null;
+    }
+
+    private boolean tryLock(String lockKey, String token) {
+        try {
+            return Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(lockKey, token, lockTtl));
+        } catch (Exception e) {
+            // Without Redis the load still runs, coalescing stays local to this node
+            log.warn("Could not take single flight lock {}: {}", lockKey, e.getMessage());
+            return true;
+        }
+    }
+
+    private void unlock(String lockKey, String token) {
+        try {
+            redisTemplate.execute(RELEASE_LOCK, List.of(lockKey), token);
+        } catch (Exception e) {
+            log.warn("Could not release single flight lock {}: {}", lockKey, e.getMessage());
+        }
+    }
+
+    private static Object await(CompletableFuture<Object> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.sqli.ecomAnalytics.cache;
+
+import com.sqli.ecomAnalytics.configuration.CacheProp;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Wraps the configured caches in a SingleFlightCache, the other caches are returned as they are
+public class SingleFlightCacheManager implements CacheManager {
+    private final CacheManager delegate;
+    private final CacheProp.SingleFlight singleFlightProp;
+    private final StringRedisTemplate redisTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Cache> caches = new ConcurrentHashMap<>();
+
+    public SingleFlightCacheManager(CacheManager delegate, CacheProp.SingleFlight singleFlightProp,
+                                    StringRedisTemplate redisTemplate, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.singleFlightProp = singleFlightProp;
+        this.redisTemplate = redisTemplate;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return caches.computeIfAbsent(name, this::createCache);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return delegate.getCacheNames();
+    }
+
+    private Cache createCache(String name) {
+        Cache cache = delegate.getCache(name);
+        if (cache == null || !singleFlightProp.getCaches().contains(name)) {
+            return cache;
+        }
+        return new SingleFlightCache(cache, redisTemplate, singleFlightProp.getLockTtl(),
+                singleFlightProp.getPollInterval(), meterRegistry);
+    }
+}
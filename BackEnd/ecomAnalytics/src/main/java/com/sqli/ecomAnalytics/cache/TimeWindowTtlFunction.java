@@ -0,0 +1,31 @@
+package com.sqli.ecomAnalytics.cache;
+
+import com.sqli.ecomAnalytics.util.RedisCacheKeys;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+
+import java.time.Duration;
+
+// Windows that ended in the past no longer change and are kept long, the window still being filled expires quickly
+public class TimeWindowTtlFunction implements RedisCacheWriter.TtlFunction {
+    private final Duration closedTtl;
+    private final Duration openTtl;
+    private final RedisCacheWriter.TtlFunction fallback;
+
+    public TimeWindowTtlFunction(Duration closedTtl, Duration openTtl, RedisCacheWriter.TtlFunction fallback) {
+        this.closedTtl = closedTtl;
+        this.openTtl = openTtl;
+        this.fallback = fallback;
+    }
+
+    @Override
+    public Duration getTimeToLive(Object key, Object value) {
+        String cacheKey = String.valueOf(key);
+        if (cacheKey.endsWith(RedisCacheKeys.CLOSED_WINDOW_SUFFIX)) {
+            return closedTtl;
+        }
+        if (cacheKey.endsWith(RedisCacheKeys.OPEN_WINDOW_SUFFIX)) {
+            return openTtl;
+        }
+        return fallback.getTimeToLive(key, value);
+    }
+}
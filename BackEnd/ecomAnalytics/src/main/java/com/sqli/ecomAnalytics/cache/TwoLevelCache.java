@@ -0,0 +1,272 @@
+package com.sqli.ecomAnalytics.cache;
+
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+import org.springframework.cache.support.NullValue;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache backed by an in-process Caffeine tier (L1) in front of the shared Redis cache (L2).
+ * Reads are served from L1 when possible and fall back to L2, writes go to both tiers. Evictions, clears and explicit
+ * updates are broadcast so the other nodes drop their L1 copy, filling a key that just missed is not: no peer can
+ * hold a newer value for it. L1 keeps serialized snapshots, so its bound is in bytes and every read gets its own copy.
+ * Caches whose values are only ever read can share them instead, an L1 hit then costs no decode at all.
+ * Each L1 entry expires with its own TTL, never later than the Redis copy it mirrors.
+ */
+public class TwoLevelCache extends AbstractValueAdaptingCache {
+    private final String name;
+    private final com.github.benmanes.caffeine.cache.Cache<String, L1Entry> l1;
+    private final Cache l2;
+    private final RedisSerializer<Object> snapshotSerializer;
+    private final CacheInvalidationPublisher invalidationPublisher;
+    private final EntryTtl entryTtl;
+    private final boolean shareValues;
+    // Key that missed on this thread, the put that follows it is the fill of that miss rather than an update
+    private final ThreadLocal<Object> pendingFill = new ThreadLocal<>();
+    private final LongAdder l1Hits = new LongAdder();
+    private final LongAdder l2Hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder puts = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    // value is a snapshot, the shared value itself or the null marker. Weight and TTL are fixed when it is stored
+    record L1Entry(Object value, int weight, long ttlNanos) {}
+
+    public interface EntryTtl {
+        // Entry written to both tiers just now
+        Duration afterPut(Object key, Object value);
+
+        // Entry read back from Redis, it must not outlive what is left of the Redis copy
+        Duration afterL2Hit(Object key, Object value);
+
+        static EntryTtl fixed(Duration ttl) {
+            return new EntryTtl() {
+                @Override
+                public Duration afterPut(Object key, Object value) {
+                    return ttl;
+                }
+
+                @Override
+                public Duration afterL2Hit(Object key, Object value) {
+                    return ttl;
+                }
+            };
+        }
+    }
+
+    public TwoLevelCache(String name, com.github.benmanes.caffeine.cache.Cache<String, L1Entry> l1, Cache l2,
+                         RedisSerializer<Object> snapshotSerializer, CacheInvalidationPublisher invalidationPublisher,
+                         EntryTtl entryTtl, boolean shareValues) {
+        super(true);
+        this.name = name;
+        this.l1 = l1;
+        this.l2 = l2;
+        this.snapshotSerializer = snapshotSerializer;
+        this.invalidationPublisher = invalidationPublisher;
+        this.entryTtl = entryTtl;
+        this.shareValues = shareValues;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return this;
+    }
+
+    // Invalidations travel as the key's string form, keying L1 the same way makes a remote evict a single lookup
+    private static String l1Key(Object key) {
+        return key.toString();
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        pendingFill.remove();
+        L1Entry entry = l1.getIfPresent(l1Key(key));
+        if (entry != null) {
+            l1Hits.increment();
+            return read(entry);
+        }
+
+        ValueWrapper wrapper = l2.get(key);
+        if (wrapper == null) {
+            misses.increment();
+            pendingFill.set(key);
+            return null;
+        }
+        l2Hits.increment();
+        // The L2 value was just deserialized from Redis, the caller can have it and L1 keeps its own snapshot
+        Object storeValue = toStoreValue(wrapper.get());
+        l1.put(l1Key(key), entry(storeValue, entryTtl.afterL2Hit(key, storeValue)));
+        return storeValue;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        boolean[] loadedHere = {false};
+        L1Entry entry = l1.get(l1Key(key), k -> {
+            loadedHere[0] = true;
+            return loadEntry(key, valueLoader);
+        });
+        if (!loadedHere[0]) {
+            l1Hits.increment();
+        }
+        return (T) fromStoreValue(read(entry));
+    }
+
+    private L1Entry loadEntry(Object key, Callable<?> valueLoader) {
+        ValueWrapper wrapper = l2.get(key);
+        if (wrapper != null) {
+            l2Hits.increment();
+            Object storeValue = toStoreValue(wrapper.get());
+            return entry(storeValue, entryTtl.afterL2Hit(key, storeValue));
+        }
+        misses.increment();
+        Object value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        // Fill of a miss, no peer can hold a newer value so nothing is broadcast
+        l2.put(key, value);
+        puts.increment();
+        Object storeValue = toStoreValue(value);
+        return entry(storeValue, entryTtl.afterPut(key, storeValue));
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        boolean fill = Objects.equals(pendingFill.get(), key);
+        pendingFill.remove();
+
+        l2.put(key, value);
+        Object storeValue = toStoreValue(value);
+        l1.put(l1Key(key), entry(storeValue, entryTtl.afterPut(key, storeValue)));
+        puts.increment();
+        if (!fill) {
+            invalidationPublisher.publishEvict(name, key);
+        }
+    }
+
+    private L1Entry entry(Object storeValue, Duration ttl) {
+        long ttlNanos = Math.max(0, ttl.toNanos());
+        if (storeValue == NullValue.INSTANCE) {
+            return new L1Entry(storeValue, 1, ttlNanos);
+        }
+        // A shared value is still serialized once, only to weigh it
+        byte[] snapshot = snapshotSerializer.serialize(storeValue);
+        int weight = snapshot == null ? 1 : Math.max(1, snapshot.length);
+        return new L1Entry(shareValues ? storeValue : snapshot, weight, ttlNanos);
+    }
+
+    private Object read(L1Entry entry) {
+        return entry.value() instanceof byte[] bytes ? snapshotSerializer.deserialize(bytes) : entry.value();
+    }
+
+    // Caffeine weigher for L1 entries: snapshot bytes, null markers count as one
+    static int weigh(String key, L1Entry entry) {
+        return entry.weight();
+    }
+
+    // Caffeine expiry for L1 entries, every write restarts the entry's own TTL and reads leave it alone
+    static Expiry<String, L1Entry> expiry() {
+        return new Expiry<>() {
+            @Override
+            public long expireAfterCreate(String key, L1Entry entry, long currentTime) {
+                return entry.ttlNanos();
+            }
+
+            @Override
+            public long expireAfterUpdate(String key, L1Entry entry, long currentTime, long currentDuration) {
+                return entry.ttlNanos();
+            }
+
+            @Override
+            public long expireAfterRead(String key, L1Entry entry, long currentTime, long currentDuration) {
+                return currentDuration;
+            }
+        };
+    }
+
+    @Override
+    public void evict(Object key) {
+        l2.evict(key);
+        l1.invalidate(l1Key(key));
+        evictions.increment();
+        invalidationPublisher.publishEvict(name, key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        boolean present = l2.evictIfPresent(key);
+        l1.invalidate(l1Key(key));
+        evictions.increment();
+        invalidationPublisher.publishEvict(name, key);
+        return present;
+    }
+
+    @Override
+    public void clear() {
+        l2.clear();
+        l1.invalidateAll();
+        invalidationPublisher.publishClear(name);
+    }
+
+    @Override
+    public boolean invalidate() {
+        boolean invalidated = l2.invalidate();
+        l1.invalidateAll();
+        invalidationPublisher.publishClear(name);
+        return invalidated;
+    }
+
+    // Called for invalidations coming from other nodes, L2 is already up to date there
+    void evictLocal(String key) {
+        l1.invalidate(key);
+    }
+
+    void clearLocal() {
+        l1.invalidateAll();
+    }
+
+    long localSize() {
+        return l1.estimatedSize();
+    }
+
+    long localWeight() {
+        return l1.policy().eviction()
+                .map(eviction -> eviction.weightedSize().orElse(0L))
+                .orElse(0L);
+    }
+
+    long l1HitCount() {
+        return l1Hits.sum();
+    }
+
+    long hitCount() {
+        return l1Hits.sum() + l2Hits.sum();
+    }
+
+    long missCount() {
+        return misses.sum();
+    }
+
+    long putCount() {
+        return puts.sum();
+    }
+
+    long evictionCount() {
+        return evictions.sum();
+    }
+}
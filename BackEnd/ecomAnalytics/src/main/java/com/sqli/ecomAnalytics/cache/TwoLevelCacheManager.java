@@ -0,0 +1,107 @@
+package com.sqli.ecomAnalytics.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sqli.ecomAnalytics.configuration.CacheProp;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+public class TwoLevelCacheManager implements CacheManager {
+    private final RedisCacheManager redisCacheManager;
+    private final CacheProp.L1 l1Prop;
+    private final CacheInvalidationPublisher invalidationPublisher;
+    private final StringRedisTemplate redisTemplate;
+    // L1 snapshots never leave the process, so they skip compression
+    private final RedisSerializer<Object> snapshotSerializer = CacheSerializers.binary(CacheProp.Compression.NONE, 0);
+    private final Map<String, TwoLevelCache> caches = new ConcurrentHashMap<>();
+
+    public TwoLevelCacheManager(RedisCacheManager redisCacheManager, CacheProp.L1 l1Prop,
+                                CacheInvalidationPublisher invalidationPublisher, StringRedisTemplate redisTemplate) {
+        this.redisCacheManager = redisCacheManager;
+        this.l1Prop = l1Prop;
+        this.invalidationPublisher = invalidationPublisher;
+        this.redisTemplate = redisTemplate;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return caches.computeIfAbsent(name, this::createCache);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return redisCacheManager.getCacheNames();
+    }
+
+    private TwoLevelCache createCache(String name) {
+        Cache l2 = redisCacheManager.getCache(name);
+        if (l2 == null) {
+            return null;
+        }
+
+        Duration l1Ttl = l1Prop.ttlFor(name);
+        TwoLevelCache.EntryTtl entryTtl = l2 instanceof RedisCache redisCache
+                ? new RedisBoundTtl(l1Ttl, redisCache.getCacheConfiguration().getTtlFunction(),
+                        redisCache.getCacheConfiguration().getKeyPrefixFor(name))
+                : TwoLevelCache.EntryTtl.fixed(l1Ttl);
+
+        com.github.benmanes.caffeine.cache.Cache<String, TwoLevelCache.L1Entry> l1 = Caffeine.newBuilder()
+                .maximumWeight(l1Prop.maxWeightFor(name).toBytes())
+                .weigher(TwoLevelCache::weigh)
+                .expireAfter(TwoLevelCache.expiry())
+                .recordStats()
+                .build();
+        return new TwoLevelCache(name, l1, l2, snapshotSerializer, invalidationPublisher, entryTtl,
+                l1Prop.shareValuesFor(name));
+    }
+
+    // An L1 entry must never outlive its Redis copy: a fresh write gets the Redis TTL of its own key, an entry read
+    // back from Redis only what is left of it
+    private class RedisBoundTtl implements TwoLevelCache.EntryTtl {
+        private final Duration l1Ttl;
+        private final RedisCacheWriter.TtlFunction ttlFunction;
+        private final String redisKeyPrefix;
+
+        RedisBoundTtl(Duration l1Ttl, RedisCacheWriter.TtlFunction ttlFunction, String redisKeyPrefix) {
+            this.l1Ttl = l1Ttl;
+            this.ttlFunction = ttlFunction;
+            this.redisKeyPrefix = redisKeyPrefix;
+        }
+
+        @Override
+        public Duration afterPut(Object key, Object value) {
+            return shorter(l1Ttl, ttlFunction.getTimeToLive(key, value));
+        }
+
+        @Override
+        public Duration afterL2Hit(Object key, Object value) {
+            Duration ttl = afterPut(key, value);
+            Long remaining;
+            try {
+                remaining = redisTemplate.getExpire(redisKeyPrefix + key, TimeUnit.MILLISECONDS);
+            } catch (Exception e) {
+                // Without the remaining TTL the entry is not kept locally, the next read goes back to Redis
+                return Duration.ZERO;
+            }
+            if (remaining == null || remaining == -2) {
+                return Duration.ZERO;
+            }
+            return remaining == -1 ? ttl : shorter(ttl, Duration.ofMillis(remaining));
+        }
+
+        // Zero or negative Redis TTLs mean no expiry there
+        private static Duration shorter(Duration ttl, Duration redisTtl) {
+            return redisTtl.isZero() || redisTtl.isNegative() || ttl.compareTo(redisTtl) <= 0 ? ttl : redisTtl;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.sqli.ecomAnalytics.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.binder.cache.CacheMeterBinder;
+
+public class TwoLevelCacheMetrics extends CacheMeterBinder<TwoLevelCache> {
+
+    public TwoLevelCacheMetrics(TwoLevelCache cache, Iterable<Tag> tags) {
+        super(cache, cache.getName(), tags);
+    }
+
+    @Override
+    protected Long size() {
+        return getCache().localSize();
+    }
+
+    @Override
+    protected long hitCount() {
+        return getCache().hitCount();
+    }
+
+    @Override
+    protected Long missCount() {
+        return getCache().missCount();
+    }
+
+    @Override
+    protected Long evictionCount() {
+        return getCache().evictionCount();
+    }
+
+    @Override
+    protected long putCount() {
+        return getCache().putCount();
+    }
+
+    @Override
+    protected void bindImplementationSpecificMetrics(MeterRegistry registry) {
+        FunctionCounter.builder("cache.l1.hits", getCache(), TwoLevelCache::l1HitCount)
+                .tags(getTagsWithCacheName())
+                .description("Hits served by the in-process tier without a Redis round trip")
+                .register(registry);
+        Gauge.builder("cache.l1.weight", getCache(), TwoLevelCache::localWeight)
+                .tags(getTagsWithCacheName())
+                .description("Serialized bytes held by the in-process tier")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+}
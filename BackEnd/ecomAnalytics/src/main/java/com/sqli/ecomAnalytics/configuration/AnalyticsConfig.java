@@ -0,0 +1,17 @@
+package com.sqli.ecomAnalytics.configuration;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Configuration
+@EnableConfigurationProperties(AnalyticsProp.class)
+public class AnalyticsConfig {
+    @Bean(destroyMethod = "close")
+    public ExecutorService analyticsQueryExecutorService() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("analytics-query-", 0).factory());
+    }
+}
@@ -0,0 +1,66 @@
+package com.sqli.ecomAnalytics.configuration;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+@Validated
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "analytics")
+public class AnalyticsProp {
+    private Parallel parallel = new Parallel();
+    private Kpi kpi = new Kpi();
+    private Window window = new Window();
+    private CustomerMetrics customerMetrics = new CustomerMetrics();
+    @Valid
+    private Customers customers = new Customers();
+
+    @Getter
+    @Setter
+    public static class Parallel {
+        private boolean enabled = true;
+        @Min(1)
+        private int maxConcurrency = 6;
+    }
+
+    @Getter
+    @Setter
+    public static class Kpi {
+        private KpiQueryMode queryMode = KpiQueryMode.CONSOLIDATED;
+    }
+
+    @Getter
+    @Setter
+    public static class Window {
+        private WindowGranularity granularity = WindowGranularity.DAY;
+    }
+
+    @Getter
+    @Setter
+    public static class Customers {
+        // Rows returned by the top customers analytics, the query cost no longer grows with the customer base
+        @Min(1)
+        private int topLimit = 50;
+    }
+
+    @Getter
+    @Setter
+    public static class CustomerMetrics {
+        // How often customer_metrics_mv is rebuilt, customer analytics lag the live tables by at most this much
+        private String refreshCron = "0 */5 * * * *";
+    }
+
+    public enum KpiQueryMode {
+        CONSOLIDATED,
+        PER_METRIC
+    }
+
+    public enum WindowGranularity {
+        HOUR,
+        DAY
+    }
+}
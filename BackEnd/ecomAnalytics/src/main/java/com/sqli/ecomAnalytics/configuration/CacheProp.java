@@ -0,0 +1,140 @@
+package com.sqli.ecomAnalytics.configuration;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Min;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+@Validated
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "cache")
+public class CacheProp {
+    private L1 l1 = new L1();
+    private Serialization serialization = new Serialization();
+    private SingleFlight singleFlight = new SingleFlight();
+    @Valid
+    private RefreshAhead refreshAhead = new RefreshAhead();
+    private TimeWindow timeWindow = new TimeWindow();
+    private String invalidationChannel = "cache:invalidation";
+
+    @Getter
+    @Setter
+    public static class L1 {
+        private boolean enabled = true;
+        private Duration defaultTtl = Duration.ofMinutes(5);
+        // Bound on the serialized size of the entries, a few large analytics results weigh as much as many products
+        private DataSize defaultMaxWeight = DataSize.ofMegabytes(16);
+        private Map<String, Spec> caches = new HashMap<>();
+
+        public Duration ttlFor(String cacheName) {
+            Spec spec = caches.get(cacheName);
+            return spec != null && spec.getTtl() != null ? spec.getTtl() : defaultTtl;
+        }
+
+        public DataSize maxWeightFor(String cacheName) {
+            Spec spec = caches.get(cacheName);
+            return spec != null && spec.getMaxWeight() != null ? spec.getMaxWeight() : defaultMaxWeight;
+        }
+
+        public boolean shareValuesFor(String cacheName) {
+            Spec spec = caches.get(cacheName);
+            return spec != null && spec.isShareValues();
+        }
+    }
+
+    @Getter
+    @Setter
+    public static class Spec {
+        private Duration ttl;
+        private DataSize maxWeight;
+        // L1 hands out the cached instance instead of decoding a snapshot per hit, only for values no caller modifies
+        private boolean shareValues;
+    }
+
+    @Getter
+    @Setter
+    public static class Serialization {
+        private Format format = Format.BINARY;
+        private Compression compression = Compression.LZ4;
+        @Min(0)
+        private int compressionThreshold = 2048;
+        private Map<String, SerializationSpec> caches = new HashMap<>();
+
+        public Format formatFor(String cacheName) {
+            SerializationSpec spec = caches.get(cacheName);
+            return spec != null && spec.getFormat() != null ? spec.getFormat() : format;
+        }
+
+        public Compression compressionFor(String cacheName) {
+            SerializationSpec spec = caches.get(cacheName);
+            return spec != null && spec.getCompression() != null ? spec.getCompression() : compression;
+        }
+    }
+
+    @Getter
+    @Setter
+    public static class SerializationSpec {
+        private Format format;
+        private Compression compression;
+    }
+
+    @Getter
+    @Setter
+    public static class SingleFlight {
+        private boolean enabled = true;
+        private Set<String> caches = new HashSet<>();
+        // Longest a load may hold the lock, waiters on other nodes give up and load themselves after it
+        private Duration lockTtl = Duration.ofSeconds(30);
+        private Duration pollInterval = Duration.ofMillis(50);
+    }
+
+    @Getter
+    @Setter
+    public static class RefreshAhead {
+        private boolean enabled = true;
+        private Set<String> caches = new HashSet<>();
+        // Share of the TTL after which a read triggers a background refresh
+        @DecimalMin("0.1")
+        @DecimalMax("0.95")
+        private double refreshFraction = 0.8;
+        // Entries read within this window are kept warm by the sweep
+        private Duration recentReadWindow = Duration.ofMinutes(15);
+        private Duration sweepInterval = Duration.ofSeconds(30);
+        // Also the lifetime of the cross-node refresh claim
+        private Duration retryDelay = Duration.ofSeconds(30);
+        @Min(1)
+        private int threads = 2;
+    }
+
+    @Getter
+    @Setter
+    public static class TimeWindow {
+        // Caches keyed on analytics windows, their TTL follows whether the window is still open
+        private Set<String> caches = new HashSet<>();
+        private Duration closedTtl = Duration.ofHours(24);
+        private Duration openTtl = Duration.ofMinutes(5);
+    }
+
+    public enum Format {
+        JSON,
+        BINARY
+    }
+
+    public enum Compression {
+        NONE,
+        LZ4,
+        ZSTD
+    }
+}
@@ -16,6 +16,8 @@ import java.util.Map;
 @ConfigurationProperties(prefix = "data-generation")
 public class DataGenerationProp {
     private boolean enabled;
+    private Mode mode = Mode.STANDARD;
+    private Bulk bulk = new Bulk();
     private Customers customers = new Customers();
     private Products products = new Products();
     private Orders orders = new Orders();
@@ -71,6 +73,25 @@ public class DataGenerationProp {
         @Min(1)
         private int dailyVolume = 4;
     }
+
+    @Getter
+    @Setter
+    @Validated
+    public static class Bulk {
+        // Each worker holds a pooled connection while it writes, keep this below the Hikari pool size
+        @Min(1)
+        private int threads = 4;
+        // Rows per JDBC batch and per transaction
+        @Min(1)
+        private int batchSize = 5000;
+    }
+
+    public enum Mode {
+        // Through the services, one transaction and one ML event per entity
+        STANDARD,
+        // Straight JDBC batches written in parallel, no per-entity events, aggregates rebuilt once at the end
+        BULK
+    }
 }
 
 
@@ -0,0 +1,29 @@
+package com.sqli.ecomAnalytics.configuration;
+
+import com.sqli.ecomAnalytics.service.ForecastingResponseService;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+
+@Configuration
+@EnableConfigurationProperties(ForecastProp.class)
+public class ForecastConfig {
+
+    // Forecast responses are consumed by a single node, completions are broadcast so every node can answer its waiters
+    @Bean
+    public RedisMessageListenerContainer forecastCompletionListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                            ForecastingResponseService forecastingService,
+                                                                            ForecastProp forecastProp) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(
+                (message, pattern) -> forecastingService.onJobCompleted(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(forecastProp.getCompletionChannel()));
+        return container;
+    }
+}
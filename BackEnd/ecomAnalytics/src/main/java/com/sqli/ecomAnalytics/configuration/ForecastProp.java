@@ -0,0 +1,19 @@
+package com.sqli.ecomAnalytics.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "forecast")
+public class ForecastProp {
+    // How long a job and its result are kept, identical requests within this window reuse the result
+    private Duration resultTtl = Duration.ofHours(1);
+    // A job still pending after this is reported as failed and the next identical request runs the model again
+    private Duration timeout = Duration.ofMinutes(2);
+    private Duration maxWait = Duration.ofSeconds(30);
+    private String completionChannel = "forecast:completed";
+}
@@ -1,17 +1,48 @@
 package com.sqli.ecomAnalytics.configuration;
 
 import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.springframework.boot.autoconfigure.kafka.DefaultKafkaProducerFactoryCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.config.TopicBuilder;
 
+import java.util.HashMap;
+import java.util.Map;
+
 @Configuration
+@EnableConfigurationProperties(MLEventsProp.class)
 public class KafkaConfig {
+    // Existing topics are grown to this partition count on startup, partitions are never removed
     @Bean
-    public NewTopic mlEventTopic() {
-        return TopicBuilder.name("ml-events")
-                .partitions(1)
-                .replicas(1)
+    public NewTopic mlEventTopic(MLEventsProp mlEventsProp) {
+        return TopicBuilder.name(mlEventsProp.getTopic())
+                .partitions(mlEventsProp.getPartitions())
+                .replicas(mlEventsProp.getReplicas())
                 .build();
     }
+
+    @Bean
+    public DefaultKafkaProducerFactoryCustomizer mlEventsProducerCustomizer(MLEventsProp mlEventsProp) {
+        return producerFactory -> producerFactory.updateConfigs(producerTuning(mlEventsProp.getProducer()));
+    }
+
+    // Applied on top of spring.kafka.producer.*, idempotence needs acks=all and retries so those are forced with it
+    public static Map<String, Object> producerTuning(MLEventsProp.Producer producer) {
+        Map<String, Object> configs = new HashMap<>();
+        configs.put(ProducerConfig.LINGER_MS_CONFIG, producer.getLingerMs());
+        configs.put(ProducerConfig.BATCH_SIZE_CONFIG, producer.getBatchSize());
+        configs.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, producer.getCompression());
+        configs.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, producer.isIdempotence());
+        configs.put(ProducerConfig.MAX_BLOCK_MS_CONFIG, producer.getMaxBlockMs());
+        configs.put(ProducerConfig.REQUEST_TIMEOUT_MS_CONFIG, producer.getRequestTimeoutMs());
+        configs.put(ProducerConfig.DELIVERY_TIMEOUT_MS_CONFIG, producer.getDeliveryTimeoutMs());
+        if (producer.isIdempotence()) {
+            configs.put(ProducerConfig.ACKS_CONFIG, "all");
+            configs.put(ProducerConfig.RETRIES_CONFIG, Integer.MAX_VALUE);
+            configs.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 5);
+        }
+        return configs;
+    }
 }
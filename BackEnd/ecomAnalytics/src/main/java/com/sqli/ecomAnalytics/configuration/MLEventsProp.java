@@ -0,0 +1,61 @@
+package com.sqli.ecomAnalytics.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "ml-events")
+public class MLEventsProp {
+    private String topic = "ml-events";
+    // Records are keyed by customerId, so events of one customer stay ordered on one partition
+    private int partitions = 6;
+    private int replicas = 1;
+    private Producer producer = new Producer();
+    private Outbox outbox = new Outbox();
+    private Coalescing coalescing = new Coalescing();
+
+    @Getter
+    @Setter
+    public static class Producer {
+        // How long the producer waits to fill a batch, trades a few ms of latency for far fewer requests in bulk loads
+        private int lingerMs = 20;
+        private int batchSize = 131072;
+        // none, gzip, snappy, lz4 or zstd, the ML consumer ships the lz4 and zstd codecs
+        private String compression = "lz4";
+        // Broker de-duplicates retried batches, keeps per-partition order with up to 5 requests in flight
+        private boolean idempotence = true;
+        // Longest a send blocks on metadata or a full buffer, with the broker down every send would wait this long
+        private int maxBlockMs = 5000;
+        private int requestTimeoutMs = 5000;
+        // A record still unacknowledged after this fails instead of being delivered behind the relay's back,
+        // must stay within outbox.send-timeout and cover linger-ms + request-timeout-ms
+        private int deliveryTimeoutMs = 10000;
+    }
+
+    @Getter
+    @Setter
+    public static class Outbox {
+        private long pollIntervalMs = 500;
+        private int batchSize = 500;
+        // Longest wait for the broker to acknowledge a batch, unacknowledged rows are retried
+        private Duration sendTimeout = Duration.ofSeconds(10);
+        // Retry delay doubles per failed attempt of a customer's events, up to this
+        private Duration initialBackoff = Duration.ofSeconds(1);
+        private Duration maxBackoff = Duration.ofMinutes(5);
+        // Sends of one event before it is moved to the dead letter table and its customer's later events go ahead
+        private int maxAttempts = 10;
+    }
+
+    @Getter
+    @Setter
+    public static class Coalescing {
+        // Off: every customer and order event goes to the outbox on its own, in the writer's transaction
+        private boolean enabled = true;
+        // One CUSTOMER_DIRTY event per touched customer is flushed to the outbox per window
+        private long windowMs = 2000;
+    }
+}
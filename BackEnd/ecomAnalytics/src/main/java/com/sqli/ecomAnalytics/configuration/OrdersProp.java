@@ -0,0 +1,13 @@
+package com.sqli.ecomAnalytics.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "orders")
+public class OrdersProp {
+    // Orders accepted by one batch request, the whole batch holds its stock row locks in a single transaction
+    private int maxBatchSize = 500;
+}
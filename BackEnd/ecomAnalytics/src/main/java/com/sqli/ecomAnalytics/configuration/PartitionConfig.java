@@ -0,0 +1,9 @@
+package com.sqli.ecomAnalytics.configuration;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(PartitionProp.class)
+public class PartitionConfig {
+}
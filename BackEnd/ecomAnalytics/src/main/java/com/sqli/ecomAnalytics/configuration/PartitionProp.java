@@ -0,0 +1,16 @@
+package com.sqli.ecomAnalytics.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "partitions")
+public class PartitionProp {
+    // Months of orders / order_items partitions kept ready past the current one, inserts fail without a partition
+    private int monthsAhead = 3;
+    private String cron = "0 0 3 * * *";
+    // Partitions older than this many months are detached for archival, 0 keeps every month attached
+    private int archiveAfterMonths = 0;
+}
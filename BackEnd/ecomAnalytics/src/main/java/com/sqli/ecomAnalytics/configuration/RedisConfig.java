@@ -1,18 +1,36 @@
 package com.sqli.ecomAnalytics.configuration;
 
-import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.sqli.ecomAnalytics.cache.CacheInvalidationListener;
+import com.sqli.ecomAnalytics.cache.CacheInvalidationPublisher;
+import com.sqli.ecomAnalytics.cache.CacheSerializers;
+import com.sqli.ecomAnalytics.cache.DelegatingCache;
+import com.sqli.ecomAnalytics.cache.RefreshAheadCacheManager;
+import com.sqli.ecomAnalytics.cache.SingleFlightCacheManager;
+import com.sqli.ecomAnalytics.cache.TimeWindowTtlFunction;
+import com.sqli.ecomAnalytics.cache.TwoLevelCache;
+import com.sqli.ecomAnalytics.cache.TwoLevelCacheManager;
+import com.sqli.ecomAnalytics.cache.TwoLevelCacheMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.boot.actuate.metrics.cache.CacheMeterBinderProvider;
+import org.springframework.boot.actuate.metrics.cache.RedisCacheMetrics;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.data.redis.cache.RedisCache;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 
-import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 
 import java.time.Duration;
@@ -20,8 +38,12 @@ import java.util.HashMap;
 import java.util.Map;
 
 @Configuration
-@EnableCaching
+@EnableCaching(order = RedisConfig.CACHE_ADVISOR_ORDER)
+@EnableConfigurationProperties(CacheProp.class)
 public class RedisConfig {
+    // Pins the cache interceptor between the outer aspects (refresh-ahead capture, method timing) and the inner ones
+    // (cache miss probe, transactions), otherwise it shares LOWEST_PRECEDENCE with them and the order is arbitrary
+    public static final int CACHE_ADVISOR_ORDER = Ordered.HIGHEST_PRECEDENCE + 10;
 
 //    @Bean
 //    public RedisConnectionFactory redisConnectionFactory() {
@@ -32,13 +54,60 @@ public class RedisConfig {
 //    }
 
     @Bean
-    public CacheManager cacheManager(RedisConnectionFactory connectionFactory) {
-        ObjectMapper objectMapper = new ObjectMapper();
-        objectMapper.registerModule(new JavaTimeModule());
-        objectMapper.activateDefaultTyping(LaissezFaireSubTypeValidator.instance,ObjectMapper.DefaultTyping.NON_FINAL, JsonTypeInfo.As.PROPERTY);
-        GenericJackson2JsonRedisSerializer jsonSerializer = new GenericJackson2JsonRedisSerializer(objectMapper);
+    public CacheInvalidationPublisher cacheInvalidationPublisher(StringRedisTemplate stringRedisTemplate, CacheProp cacheProp) {
+        return new CacheInvalidationPublisher(stringRedisTemplate, new ObjectMapper(), cacheProp.getInvalidationChannel());
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "cache.l1", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                           CacheManager cacheManager,
+                                                                           CacheInvalidationPublisher cacheInvalidationPublisher,
+                                                                           CacheProp cacheProp) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(
+                new CacheInvalidationListener(cacheManager, new ObjectMapper(), cacheInvalidationPublisher.getNodeId()),
+                new ChannelTopic(cacheProp.getInvalidationChannel()));
+        return container;
+    }
+
+    @Bean
+    public CacheMeterBinderProvider<TwoLevelCache> twoLevelCacheMeterBinderProvider() {
+        // Anonymous class rather than a lambda so the generic type survives for provider matching
+        return new CacheMeterBinderProvider<>() {
+            @Override
+            public MeterBinder getMeterBinder(TwoLevelCache cache, Iterable<Tag> tags) {
+                return new TwoLevelCacheMetrics(cache, tags);
+            }
+        };
+    }
+
+    @Bean
+    public CacheMeterBinderProvider<DelegatingCache> delegatingCacheMeterBinderProvider() {
+        // Reports the innermost cache so wrapped caches keep their hit and miss metrics
+        return new CacheMeterBinderProvider<>() {
+            @Override
+            public MeterBinder getMeterBinder(DelegatingCache cache, Iterable<Tag> tags) {
+                if (cache.getTargetCache() instanceof TwoLevelCache twoLevelCache) {
+                    return new TwoLevelCacheMetrics(twoLevelCache, tags);
+                }
+                if (cache.getTargetCache() instanceof RedisCache redisCache) {
+                    return new RedisCacheMetrics(redisCache, tags);
+                }
+                return null;
+            }
+        };
+    }
+
+    @Bean
+    public CacheManager cacheManager(RedisConnectionFactory connectionFactory, CacheProp cacheProp,
+                                     CacheInvalidationPublisher cacheInvalidationPublisher,
+                                     StringRedisTemplate stringRedisTemplate, MeterRegistry meterRegistry) {
+        CacheProp.Serialization serialization = cacheProp.getSerialization();
         RedisCacheConfiguration cacheConfig = RedisCacheConfiguration.defaultCacheConfig()
-                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(jsonSerializer));
+                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(
+                        CacheSerializers.forCache(null, serialization)));
         Map<String, RedisCacheConfiguration> cacheConfigurations = new HashMap<>();
         cacheConfigurations.put("customer", cacheConfig.entryTtl(Duration.ofHours(24)));
         cacheConfigurations.put("analytics", cacheConfig.entryTtl(Duration.ofHours(1)));
@@ -58,9 +127,33 @@ public class RedisConfig {
         cacheConfigurations.put("kpiCache", cacheConfig.entryTtl(Duration.ofHours(1)));
         cacheConfigurations.put("productsPerformanceCache", cacheConfig.entryTtl(Duration.ofHours(1)));
         cacheConfigurations.put("salesTrendCache", cacheConfig.entryTtl(Duration.ofHours(1)));
-        return RedisCacheManager.builder(connectionFactory)
+        cacheConfigurations.put("salesDayBucketsCache", cacheConfig.entryTtl(Duration.ofHours(1)));
+        CacheProp.TimeWindow timeWindow = cacheProp.getTimeWindow();
+        cacheConfigurations.replaceAll((name, config) -> timeWindow.getCaches().contains(name)
+                ? config.entryTtl(new TimeWindowTtlFunction(timeWindow.getClosedTtl(), timeWindow.getOpenTtl(),
+                        config.getTtlFunction()))
+                : config);
+        cacheConfigurations.replaceAll((name, config) -> config.serializeValuesWith(
+                RedisSerializationContext.SerializationPair.fromSerializer(CacheSerializers.forCache(name, serialization))));
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(connectionFactory)
                 .cacheDefaults(cacheConfig)
                 .withInitialCacheConfigurations(cacheConfigurations)
                 .build();
+
+        // Not a bean on its own, so the initial cache configurations have to be loaded here
+        redisCacheManager.afterPropertiesSet();
+        CacheManager cacheManager = cacheProp.getL1().isEnabled()
+                ? new TwoLevelCacheManager(redisCacheManager, cacheProp.getL1(), cacheInvalidationPublisher, stringRedisTemplate)
+                : redisCacheManager;
+
+        if (cacheProp.getSingleFlight().isEnabled()) {
+            cacheManager = new SingleFlightCacheManager(cacheManager, cacheProp.getSingleFlight(), stringRedisTemplate,
+                    meterRegistry);
+        }
+        if (cacheProp.getRefreshAhead().isEnabled()) {
+            cacheManager = new RefreshAheadCacheManager(cacheManager, redisCacheManager, cacheProp.getRefreshAhead(),
+                    stringRedisTemplate, meterRegistry);
+        }
+        return cacheManager;
     }
 }
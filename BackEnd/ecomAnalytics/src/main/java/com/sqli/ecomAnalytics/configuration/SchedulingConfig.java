@@ -0,0 +1,11 @@
+package com.sqli.ecomAnalytics.configuration;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Scheduled jobs share the pool sized by spring.task.scheduling.pool.size: the outbox relay, the coalescing flush,
+// the customer metrics refresh and the partition maintenance. A slow one must not hold the others back
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
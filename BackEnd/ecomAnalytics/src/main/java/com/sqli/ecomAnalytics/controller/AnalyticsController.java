@@ -3,6 +3,7 @@ package com.sqli.ecomAnalytics.controller;
 import com.sqli.ecomAnalytics.Analytics.*;
 import com.sqli.ecomAnalytics.dto.*;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -18,18 +19,21 @@ public class AnalyticsController {
     private final ProductsAnalyticsService productsAnalyticsService;
     private final SalesAnalyticsService salesAnalyticsService;
     private final RecommendationAnalyticsService recommendationAnalyticsService;
+    private final AnalyticsWindowNormalizer windowNormalizer;
 
     public AnalyticsController(
             CustomersAnalyticsService customersAnalyticsService,
             KpiService kpiService,
             ProductsAnalyticsService productsAnalyticsService,
-            SalesAnalyticsService salesAnalyticsService, RecommendationAnalyticsService recommendationAnalyticsService
+            SalesAnalyticsService salesAnalyticsService, RecommendationAnalyticsService recommendationAnalyticsService,
+            AnalyticsWindowNormalizer windowNormalizer
     ) {
         this.customersAnalyticsService = customersAnalyticsService;
         this.kpiService = kpiService;
         this.productsAnalyticsService = productsAnalyticsService;
         this.salesAnalyticsService = salesAnalyticsService;
         this.recommendationAnalyticsService = recommendationAnalyticsService;
+        this.windowNormalizer = windowNormalizer;
     }
 
     @Operation(summary = "Get customers related analytics",
@@ -40,38 +44,49 @@ public class AnalyticsController {
             @RequestParam LocalDateTime end,
             @RequestParam LocalDateTime threshold
     ) {
-        return ResponseEntity.ok(customersAnalyticsService.getAnalytics(start, end, threshold));
+        AnalyticsWindow window = windowNormalizer.normalize(start, end);
+        return ResponseEntity.ok(customersAnalyticsService.getAnalytics(window.start(), window.end(),
+                windowNormalizer.floor(threshold)));
     }
 
     @Operation(summary = "Get KPI",
+            description = "Window figures are computed over whole days: start is moved to the start of its day and end to the end of its day",
             responses = {@ApiResponse(responseCode = "200", description = "KPI dto is returned")})
     @GetMapping("/kpi")
     public ResponseEntity<KpiDto> getKpi(
-            @RequestParam LocalDateTime start,
-            @RequestParam LocalDateTime end
+            @Parameter(description = "Widened to whole days, the figures come from daily rollups") @RequestParam LocalDateTime start,
+            @Parameter(description = "Widened to whole days, the figures come from daily rollups") @RequestParam LocalDateTime end
     ) {
-        return ResponseEntity.ok(kpiService.getKpi(start, end));
+        AnalyticsWindow window = windowNormalizer.normalizeToDays(start, end);
+        return ResponseEntity.ok(kpiService.getKpi(window.start(), window.end()));
     }
 
     @Operation(summary = "Get products performance",
+            description = "Sales figures are computed over whole days: start is moved to the start of its day and end to the end of its day",
             responses = {@ApiResponse(responseCode = "200", description = "Products performance dto is returned")})
     @GetMapping("/productsPerformance")
     public ResponseEntity<ProductPerformanceDto> getProductPerformance(
-            @RequestParam LocalDateTime start,
-            @RequestParam LocalDateTime end,
+            @Parameter(description = "Widened to whole days, the figures come from daily rollups") @RequestParam LocalDateTime start,
+            @Parameter(description = "Widened to whole days, the figures come from daily rollups") @RequestParam LocalDateTime end,
             @RequestParam int threshold
     ) {
-        return ResponseEntity.ok(productsAnalyticsService.getProductPerformance(start, end, threshold));
+        AnalyticsWindow window = windowNormalizer.normalizeToDays(start, end);
+        return ResponseEntity.ok(productsAnalyticsService.getProductPerformance(window.start(), window.end(), threshold));
     }
 
     @Operation(summary = "Get sales analytics",
+            description = "The series covers whole days: start is moved to the start of its day and end to the end of its day, " +
+                    "also for HOUR buckets",
             responses = {@ApiResponse(responseCode = "200", description = "Sales analytics dto is returned")})
     @GetMapping("/salesAnalytics")
     public ResponseEntity<SalesTrendDto> getSalesTrend(
-            @RequestParam LocalDateTime start,
-            @RequestParam LocalDateTime end
+            @Parameter(description = "Widened to whole days, the figures come from daily rollups") @RequestParam LocalDateTime start,
+            @Parameter(description = "Widened to whole days, the figures come from daily rollups") @RequestParam LocalDateTime end,
+            @Parameter(description = "Bucket size of the returned series: HOUR, DAY, WEEK, MONTH or QUARTER")
+            @RequestParam(defaultValue = "DAY") TimeGranularity granularity
     ) {
-        return ResponseEntity.ok(salesAnalyticsService.getsalesTrend(start, end));
+        AnalyticsWindow window = windowNormalizer.normalizeToDays(start, end);
+        return ResponseEntity.ok(salesAnalyticsService.getsalesTrend(window.start(), window.end(), granularity));
     }
 
     @Operation(summary = "Get Recommendations analytics",
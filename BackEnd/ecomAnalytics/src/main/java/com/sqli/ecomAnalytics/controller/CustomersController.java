@@ -1,16 +1,21 @@
 package com.sqli.ecomAnalytics.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.sqli.ecomAnalytics.dto.CustomerRegistrationDto;
 import com.sqli.ecomAnalytics.dto.CustomerUpdateDto;
+import com.sqli.ecomAnalytics.dto.KeysetPageDto;
 import com.sqli.ecomAnalytics.entity.Customers;
 import com.sqli.ecomAnalytics.entity.Segments;
 import com.sqli.ecomAnalytics.service.CustomersService;
+import com.sqli.ecomAnalytics.util.KeysetPagination;
+import com.sqli.ecomAnalytics.util.NdjsonWriter;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.math.BigDecimal;
 import java.util.List;
@@ -21,9 +26,11 @@ import java.util.Optional;
 @Tag(name = "Customers", description = "Customers operations")
 public class CustomersController {
     private final CustomersService customersService;
+    private final ObjectMapper objectMapper;
 
-    public CustomersController(CustomersService customersService) {
+    public CustomersController(CustomersService customersService, ObjectMapper objectMapper) {
         this.customersService = customersService;
+        this.objectMapper = objectMapper;
     }
 
     @Operation(summary = "Get all customers", responses = {
@@ -35,6 +42,27 @@ public class CustomersController {
         return ResponseEntity.ok().body(customers);
     }
 
+    @Operation(summary = "Get a page of customers ordered by id",responses = {
+            @ApiResponse(responseCode = "200", description = "Page of customers returned successfully, nextCursor is null on the last page")
+    })
+    @GetMapping("/page")
+    public ResponseEntity<KeysetPageDto<Customers>> getCustomersPage(
+            @Parameter(description = "Id of the last customer of the previous page, 0 for the first page")
+            @RequestParam(defaultValue = "0") int after,
+            @Parameter(description = "Page size, capped at " + KeysetPagination.MAX_PAGE_SIZE)
+            @RequestParam(defaultValue = "" + KeysetPagination.DEFAULT_PAGE_SIZE) int size) {
+        return ResponseEntity.ok().body(customersService.findCustomersPage(after, size));
+    }
+
+    @Operation(summary = "Export all customers as newline delimited JSON",responses = {
+            @ApiResponse(responseCode = "200", description = "Customers streamed one per line")
+    })
+    @GetMapping(value = "/stream", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> streamCustomers() {
+        StreamingResponseBody body = out -> customersService.streamAllCustomers(NdjsonWriter.to(out, objectMapper));
+        return ResponseEntity.ok().contentType(NdjsonWriter.APPLICATION_NDJSON).body(body);
+    }
+
     @Operation(summary = "Get a customer by Id", responses = {
             @ApiResponse(responseCode = "200", description = "Customer found"),
             @ApiResponse(responseCode = "404",description = "Customer not found")
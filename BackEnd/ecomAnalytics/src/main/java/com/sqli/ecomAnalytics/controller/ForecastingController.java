@@ -1,52 +1,69 @@
 package com.sqli.ecomAnalytics.controller;
 
+import com.sqli.ecomAnalytics.dto.ForecastJobDto;
+import com.sqli.ecomAnalytics.dto.ForecastJobStatus;
 import com.sqli.ecomAnalytics.dto.ForecastRequestDto;
-import com.sqli.ecomAnalytics.dto.ForecastResponse;
 import com.sqli.ecomAnalytics.service.ForecastingResponseService;
-import com.sqli.ecomAnalytics.service.MLEventPublisher;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.web.bind.annotation.PostMapping;
-import org.springframework.web.bind.annotation.RequestBody;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
 
-import java.util.UUID;
+import java.net.URI;
+import java.time.Duration;
 
 @RestController
 @RequestMapping("/api/forecasting")
+@Tag(name = "Forecasting", description = "Sales forecast jobs")
 @Slf4j
 public class ForecastingController {
 
-    private final MLEventPublisher mlEventPublisher;
     private final ForecastingResponseService forecastingService;
 
-    public ForecastingController(MLEventPublisher mlEventPublisher, ForecastingResponseService forecastingService) {
-        this.mlEventPublisher = mlEventPublisher;
+    public ForecastingController(ForecastingResponseService forecastingService) {
         this.forecastingService = forecastingService;
     }
 
+    @Operation(summary = "Submit a forecast job",responses = {
+            @ApiResponse(responseCode = "202",description = "Forecast job accepted, poll it with its requestId"),
+            @ApiResponse(responseCode = "200",description = "An identical forecast already finished, its job is returned")
+    })
     @PostMapping("/generate")
-    public ResponseEntity<ForecastResponse> generateForecast(@RequestBody ForecastRequestDto request) {
-        try {
-            log.info("Generating Forecast Request....");
-            String requestId = UUID.randomUUID().toString();
-            request.setRequestId(requestId);
-
-            forecastingService.registerPendingRequest(requestId);
-
-            mlEventPublisher.publishForecastRequest(request);
-
-            ForecastResponse response = forecastingService.waitForForecastResults(requestId);
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            log.error("Generating Forecast Request Failed...", e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(ForecastResponse.builder()
-                            .success(false)
-                            .error("Failed to generate forecast: " + e.getMessage())
-                            .build());
-        }
+    public ResponseEntity<ForecastJobDto> generateForecast(@RequestBody ForecastRequestDto request) {
+        log.info("Generating Forecast Request....");
+        ForecastJobDto job = forecastingService.submit(request);
+        HttpStatus status = job.getStatus() == ForecastJobStatus.PENDING ? HttpStatus.ACCEPTED : HttpStatus.OK;
+        return ResponseEntity.status(status)
+                .location(URI.create("/api/forecasting/" + job.getRequestId()))
+                .body(job);
+    }
+
+    @Operation(summary = "Get a forecast job",responses = {
+            @ApiResponse(responseCode = "200",description = "Forecast job returned, the result is set once it is completed"),
+            @ApiResponse(responseCode = "404",description = "Forecast job not found or expired")
+    })
+    @GetMapping("/{requestId}")
+    public ResponseEntity<ForecastJobDto> getForecastJob(
+            @Parameter(description = "Forecast job request id")
+            @PathVariable String requestId) {
+        return ResponseEntity.ok(forecastingService.getJob(requestId));
+    }
+
+    @Operation(summary = "Wait for a forecast job to finish",responses = {
+            @ApiResponse(responseCode = "200",description = "Forecast job returned when it finishes, or still pending once the wait times out"),
+            @ApiResponse(responseCode = "404",description = "Forecast job not found or expired")
+    })
+    @GetMapping("/{requestId}/wait")
+    public DeferredResult<ForecastJobDto> awaitForecastJob(
+            @Parameter(description = "Forecast job request id")
+            @PathVariable String requestId,
+            @Parameter(description = "Seconds to wait before returning a pending job, capped by forecast.max-wait")
+            @RequestParam(defaultValue = "25") long timeoutSeconds) {
+        return forecastingService.awaitJob(requestId, Duration.ofSeconds(timeoutSeconds));
     }
 }
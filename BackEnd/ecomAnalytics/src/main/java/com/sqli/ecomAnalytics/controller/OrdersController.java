@@ -1,9 +1,13 @@
 package com.sqli.ecomAnalytics.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sqli.ecomAnalytics.dto.KeysetPageDto;
 import com.sqli.ecomAnalytics.dto.OrderCreateDto;
 import com.sqli.ecomAnalytics.entity.OrderStatus;
 import com.sqli.ecomAnalytics.entity.Orders;
 import com.sqli.ecomAnalytics.service.OrdersService;
+import com.sqli.ecomAnalytics.util.KeysetPagination;
+import com.sqli.ecomAnalytics.util.NdjsonWriter;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -13,6 +17,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.math.BigDecimal;
 import java.util.List;
@@ -23,9 +28,11 @@ import java.util.Optional;
 @Tag(name = "Orders", description = "Orders operations")
 public class OrdersController {
     private final OrdersService ordersService;
+    private final ObjectMapper objectMapper;
 
-    public OrdersController(OrdersService ordersService) {
+    public OrdersController(OrdersService ordersService, ObjectMapper objectMapper) {
         this.ordersService = ordersService;
+        this.objectMapper = objectMapper;
     }
 
     @Operation(summary = "Get a list of all Orders",responses = {
@@ -38,9 +45,30 @@ public class OrdersController {
         return new ResponseEntity<>(orders, HttpStatus.OK);
     }
 
+    @Operation(summary = "Get a page of orders ordered by id",responses = {
+            @ApiResponse(responseCode = "200", description = "Page of orders returned successfully, nextCursor is null on the last page")
+    })
+    @GetMapping("/page")
+    public ResponseEntity<KeysetPageDto<Orders>> getOrdersPage(
+            @Parameter(description = "Id of the last order of the previous page, 0 for the first page")
+            @RequestParam(defaultValue = "0") int after,
+            @Parameter(description = "Page size, capped at " + KeysetPagination.MAX_PAGE_SIZE)
+            @RequestParam(defaultValue = "" + KeysetPagination.DEFAULT_PAGE_SIZE) int size) {
+        return new ResponseEntity<>(ordersService.getOrdersPage(after, size), HttpStatus.OK);
+    }
+
+    @Operation(summary = "Export all orders as newline delimited JSON",responses = {
+            @ApiResponse(responseCode = "200", description = "Orders streamed one per line")
+    })
+    @GetMapping(value = "/stream", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> streamOrders() {
+        StreamingResponseBody body = out -> ordersService.streamOrders(null, NdjsonWriter.to(out, objectMapper));
+        return ResponseEntity.ok().contentType(NdjsonWriter.APPLICATION_NDJSON).body(body);
+    }
+
     @Operation(summary = "Create an order",responses = {
             @ApiResponse(responseCode = "200",description = "Order created successfully"),
-            @ApiResponse(responseCode = "400",description = "Invalid data"),
+            @ApiResponse(responseCode = "400",description = "Invalid data or a product listed twice"),
             @ApiResponse(responseCode = "404",description = "Customer not found")
     })
     @PostMapping("/createOrder")
@@ -51,6 +79,19 @@ public class OrdersController {
         return new ResponseEntity<>(order, HttpStatus.OK);
     }
 
+    @Operation(summary = "Create a batch of orders",responses = {
+            @ApiResponse(responseCode = "200",description = "Orders created successfully"),
+            @ApiResponse(responseCode = "400",description = "Invalid data, duplicate products in an order, batch over orders.max-batch-size or insufficient stock"),
+            @ApiResponse(responseCode = "404",description = "Customer or product not found")
+    })
+    @PostMapping("/batch")
+    public ResponseEntity<List<Orders>> createOrders(
+            @Parameter(description = "Orders creation data, the batch is created atomically",required = true)
+            @RequestBody List<OrderCreateDto> orders) {
+        List<Orders> created = ordersService.createOrders(orders);
+        return new ResponseEntity<>(created, HttpStatus.OK);
+    }
+
     @Operation(summary = "Update an order status",responses = {
             @ApiResponse(responseCode = "200",description = "Order status updated successfully"),
             @ApiResponse(responseCode = "404",description = "Order not found"),
@@ -77,6 +118,31 @@ public class OrdersController {
         return new ResponseEntity<>(orders, HttpStatus.OK);
     }
 
+    @Operation(summary = "Get a page of orders with a status ordered by id",responses = {
+            @ApiResponse(responseCode = "200", description = "Page of orders returned successfully, nextCursor is null on the last page")
+    })
+    @GetMapping("/orderStatus/{status}/page")
+    public ResponseEntity<KeysetPageDto<Orders>> getByOrderStatusPage(
+            @Parameter(description = "Order status")
+            @PathVariable OrderStatus status,
+            @Parameter(description = "Id of the last order of the previous page, 0 for the first page")
+            @RequestParam(defaultValue = "0") int after,
+            @Parameter(description = "Page size, capped at " + KeysetPagination.MAX_PAGE_SIZE)
+            @RequestParam(defaultValue = "" + KeysetPagination.DEFAULT_PAGE_SIZE) int size) {
+        return new ResponseEntity<>(ordersService.findPageByStatus(status, after, size), HttpStatus.OK);
+    }
+
+    @Operation(summary = "Export the orders with a status as newline delimited JSON",responses = {
+            @ApiResponse(responseCode = "200", description = "Orders streamed one per line")
+    })
+    @GetMapping(value = "/orderStatus/{status}/stream", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> streamByOrderStatus(
+            @Parameter(description = "Order status")
+            @PathVariable OrderStatus status) {
+        StreamingResponseBody body = out -> ordersService.streamOrders(status, NdjsonWriter.to(out, objectMapper));
+        return ResponseEntity.ok().contentType(NdjsonWriter.APPLICATION_NDJSON).body(body);
+    }
+
     @Operation(summary = "Get the total amount spent by a customer",responses = {
             @ApiResponse(responseCode = "200",description = "Total amount spent is returned"),
             @ApiResponse(responseCode = "404",description = "Customer not found"),
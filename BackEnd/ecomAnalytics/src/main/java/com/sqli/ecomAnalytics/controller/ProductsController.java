@@ -1,10 +1,14 @@
 package com.sqli.ecomAnalytics.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sqli.ecomAnalytics.dto.KeysetPageDto;
 import com.sqli.ecomAnalytics.dto.ProductCreateDto;
 import com.sqli.ecomAnalytics.dto.ProductUpdateDto;
 import com.sqli.ecomAnalytics.entity.ProductCategory;
 import com.sqli.ecomAnalytics.entity.Products;
 import com.sqli.ecomAnalytics.service.ProductsService;
+import com.sqli.ecomAnalytics.util.KeysetPagination;
+import com.sqli.ecomAnalytics.util.NdjsonWriter;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -12,6 +16,7 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -22,9 +27,11 @@ public class ProductsController {
 
 
     private final ProductsService productsService;
+    private final ObjectMapper objectMapper;
 
-    public ProductsController(ProductsService productsService) {
+    public ProductsController(ProductsService productsService, ObjectMapper objectMapper) {
         this.productsService = productsService;
+        this.objectMapper = objectMapper;
     }
 
     @Operation(summary = "Get all products",responses = {
@@ -36,6 +43,27 @@ public class ProductsController {
         return new ResponseEntity<>(products, HttpStatus.OK);
     }
 
+    @Operation(summary = "Get a page of products ordered by id",responses = {
+            @ApiResponse(responseCode = "200", description = "Page of products returned successfully, nextCursor is null on the last page")
+    })
+    @GetMapping("/page")
+    public ResponseEntity<KeysetPageDto<Products>> getProductsPage(
+            @Parameter(description = "Id of the last product of the previous page, 0 for the first page")
+            @RequestParam(defaultValue = "0") int after,
+            @Parameter(description = "Page size, capped at " + KeysetPagination.MAX_PAGE_SIZE)
+            @RequestParam(defaultValue = "" + KeysetPagination.DEFAULT_PAGE_SIZE) int size) {
+        return ResponseEntity.ok().body(productsService.findProductsPage(after, size));
+    }
+
+    @Operation(summary = "Export all products as newline delimited JSON",responses = {
+            @ApiResponse(responseCode = "200", description = "Products streamed one per line")
+    })
+    @GetMapping(value = "/stream", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> streamProducts() {
+        StreamingResponseBody body = out -> productsService.streamAllProducts(NdjsonWriter.to(out, objectMapper));
+        return ResponseEntity.ok().contentType(NdjsonWriter.APPLICATION_NDJSON).body(body);
+    }
+
     @Operation(summary = "Get product by ID",responses = {
                     @ApiResponse(responseCode = "200",description = "Product found"),
                     @ApiResponse(responseCode = "404",description = "Product not found")
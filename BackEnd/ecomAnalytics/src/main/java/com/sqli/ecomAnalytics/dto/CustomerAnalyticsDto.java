@@ -5,6 +5,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 
@@ -28,6 +29,7 @@ public class CustomerAnalyticsDto {
         private int orderCount;
         private String segment;
         private BigDecimal ltv;
+        private LocalDateTime registrationDate;
     }
 
     @Data
@@ -0,0 +1,9 @@
+package com.sqli.ecomAnalytics.dto;
+
+import java.math.BigDecimal;
+
+public interface CustomerMetricsSummary {
+    BigDecimal getAverageLifetimeValue();
+    Long getChurnedCustomers();
+    Long getTotalCustomers();
+}
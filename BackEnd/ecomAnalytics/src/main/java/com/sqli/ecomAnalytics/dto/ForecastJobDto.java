@@ -0,0 +1,24 @@
+package com.sqli.ecomAnalytics.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ForecastJobDto {
+    private String requestId;
+    private ForecastJobStatus status;
+    private int forecastDays;
+    private boolean includeConfidenceIntervals;
+    private boolean modelComparison;
+    private LocalDateTime submittedAt;
+    private LocalDateTime completedAt;
+    private String error;
+    private ForecastResponse result;
+}
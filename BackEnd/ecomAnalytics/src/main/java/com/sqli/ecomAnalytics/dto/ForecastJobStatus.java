@@ -0,0 +1,7 @@
+package com.sqli.ecomAnalytics.dto;
+
+public enum ForecastJobStatus {
+    PENDING,
+    COMPLETED,
+    FAILED
+}
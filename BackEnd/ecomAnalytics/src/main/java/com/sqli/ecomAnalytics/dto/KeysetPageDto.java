@@ -0,0 +1,17 @@
+package com.sqli.ecomAnalytics.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class KeysetPageDto<T> {
+    private List<T> items;
+    private int size;
+    // Id to pass as "after" for the next page, null on the last page
+    private Integer nextCursor;
+}
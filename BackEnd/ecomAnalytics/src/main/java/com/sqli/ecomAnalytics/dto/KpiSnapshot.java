@@ -0,0 +1,12 @@
+package com.sqli.ecomAnalytics.dto;
+
+import java.math.BigDecimal;
+
+public interface KpiSnapshot {
+    BigDecimal getTotalRevenue();
+    Long getTotalOrders();
+    BigDecimal getAverageOrderValue();
+    Long getTotalCustomers();
+    Long getNewCustomersCount();
+    Long getTotalProducts();
+}
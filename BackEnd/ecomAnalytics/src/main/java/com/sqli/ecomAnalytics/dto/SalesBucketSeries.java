@@ -0,0 +1,18 @@
+package com.sqli.ecomAnalytics.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Revenue and order count per bucket in parallel arrays, revenue is kept in cents so merging stays on primitives
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SalesBucketSeries {
+    private List<LocalDateTime> bucketStarts;
+    private long[] revenueCents;
+    private long[] orderCounts;
+}
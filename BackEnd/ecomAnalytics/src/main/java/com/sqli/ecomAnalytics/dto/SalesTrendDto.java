@@ -6,6 +6,7 @@ import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Data
@@ -15,6 +16,8 @@ public class SalesTrendDto {
     private List<DailySalesData> dailySales;
     private List<MonthlySalesData> monthlySales;
     private String trendDirection;
+    private TimeGranularity granularity;
+    private List<SalesBucketData> buckets;
 
     @Data
     @AllArgsConstructor
@@ -34,4 +37,13 @@ public class SalesTrendDto {
         private BigDecimal revenue;
         private Long orderCount;
     }
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class SalesBucketData {
+        private LocalDateTime bucketStart;
+        private BigDecimal revenue;
+        private Long orderCount;
+    }
 }
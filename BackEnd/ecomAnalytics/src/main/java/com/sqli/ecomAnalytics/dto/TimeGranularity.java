@@ -0,0 +1,26 @@
+package com.sqli.ecomAnalytics.dto;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+
+public enum TimeGranularity {
+    HOUR,
+    DAY,
+    WEEK,
+    MONTH,
+    QUARTER;
+
+    // Start of the bucket holding the given time, weeks follow ISO and start on Monday
+    public LocalDateTime bucketStart(LocalDateTime time) {
+        return switch (this) {
+            case HOUR -> time.truncatedTo(ChronoUnit.HOURS);
+            case DAY -> time.truncatedTo(ChronoUnit.DAYS);
+            case WEEK -> time.truncatedTo(ChronoUnit.DAYS).with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MONTH -> time.truncatedTo(ChronoUnit.DAYS).withDayOfMonth(1);
+            case QUARTER -> time.truncatedTo(ChronoUnit.DAYS).withDayOfMonth(1)
+                    .withMonth((time.getMonthValue() - 1) / 3 * 3 + 1);
+        };
+    }
+}
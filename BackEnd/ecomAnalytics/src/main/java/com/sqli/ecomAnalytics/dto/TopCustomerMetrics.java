@@ -0,0 +1,14 @@
+package com.sqli.ecomAnalytics.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+public interface TopCustomerMetrics {
+    Integer getCustomerId();
+    String getCustomerName();
+    BigDecimal getTotalSpent();
+    Integer getOrderCount();
+    String getSegmentLabel();
+    LocalDateTime getRegistrationDate();
+    BigDecimal getLifetimeValue();
+}
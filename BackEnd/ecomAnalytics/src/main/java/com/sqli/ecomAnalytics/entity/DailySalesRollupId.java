@@ -0,0 +1,33 @@
+package com.sqli.ecomAnalytics.entity;
+
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Embeddable
+public class DailySalesRollupId implements Serializable {
+    private LocalDate salesDate;
+    private OrderStatus status;
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) return false;
+        DailySalesRollupId that = (DailySalesRollupId) o;
+        return Objects.equals(salesDate, that.salesDate) && status == that.status;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(salesDate, status);
+    }
+}
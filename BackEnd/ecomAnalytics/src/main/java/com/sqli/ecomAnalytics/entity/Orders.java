@@ -19,9 +19,13 @@ import java.util.List;
 @Table(name = "orders")
 @JsonIdentityInfo(generator = ObjectIdGenerators.PropertyGenerator.class, property = "orderId")
 public class Orders extends AbstractAudit {
+    // The table's primary key is (order_id, order_date) since the monthly partitioning, a partitioned table cannot
+    // have a unique constraint without its partition key. order_id alone is unique only because every row takes it
+    // from orders_order_id_seq, nothing in the database rejects a duplicate id in another month
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
-    @Column(name = "order_id", nullable = false, unique = true)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq")
+    @SequenceGenerator(name = "orders_seq", sequenceName = "orders_order_id_seq", allocationSize = 50)
+    @Column(name = "order_id", nullable = false)
     private int orderId;
 
     @JsonIgnoreProperties({"orders", "hibernateLazyInitializer", "handler"})
@@ -0,0 +1,33 @@
+package com.sqli.ecomAnalytics.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Entity
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Table(name = "product_daily_stats")
+@IdClass(ProductDailyStatsId.class)
+public class ProductDailyStats extends AbstractAudit {
+    @Id
+    @Column(name = "sales_date")
+    private LocalDate salesDate;
+
+    @Id
+    @Column(name = "product_id")
+    private int productId;
+
+    @Column(name = "qty_sold", nullable = false)
+    private Long qtySold;
+
+    @Column(name = "revenue", nullable = false, precision = 14, scale = 2)
+    private BigDecimal revenue;
+}
@@ -0,0 +1,33 @@
+package com.sqli.ecomAnalytics.entity;
+
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Embeddable
+public class ProductDailyStatsId implements Serializable {
+    private LocalDate salesDate;
+    private int productId;
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) return false;
+        ProductDailyStatsId that = (ProductDailyStatsId) o;
+        return Objects.equals(salesDate, that.salesDate) && productId == that.productId;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(salesDate, productId);
+    }
+}
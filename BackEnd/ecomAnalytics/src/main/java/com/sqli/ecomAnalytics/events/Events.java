@@ -6,5 +6,7 @@ public enum Events {
     ORDER_CREATED,
     ORDER_UPDATED,
     INITIAL_DATA_GENERATED,
-    FORECAST_REQUESTED
+    FORECAST_REQUESTED,
+    // Consolidates the customer and order events of one customer over a coalescing window
+    CUSTOMER_DIRTY
 }
@@ -0,0 +1,7 @@
+package com.sqli.ecomAnalytics.exceptions;
+
+public class ForecastJobNotFoundException extends RuntimeException {
+    public ForecastJobNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -30,7 +30,7 @@ public class GlobalExceptionHandler {
                 HttpStatus.NOT_FOUND, request);
     }
 
-    @ExceptionHandler({ProductNotFoundException.class, OrderNotFoundException.class})
+    @ExceptionHandler({ProductNotFoundException.class, OrderNotFoundException.class, ForecastJobNotFoundException.class})
     public ResponseEntity<ErrorResponseDto> handleResourceNotFound(
             RuntimeException ex, HttpServletRequest request) {
         return buildErrorResponse(ex.getMessage(), "Resource Not Found",
@@ -44,7 +44,7 @@ public class GlobalExceptionHandler {
                 HttpStatus.CONFLICT, request);
     }
 
-    @ExceptionHandler({InvalidCustomerDataException.class, ProductStockInsufficient.class})
+    @ExceptionHandler({InvalidCustomerDataException.class, InvalidOrderDataException.class, ProductStockInsufficient.class})
     public ResponseEntity<ErrorResponseDto> handleBadRequest(
             RuntimeException ex, HttpServletRequest request) {
         return buildErrorResponse(ex.getMessage(), "Bad Request",
@@ -0,0 +1,7 @@
+package com.sqli.ecomAnalytics.exceptions;
+
+public class InvalidOrderDataException extends RuntimeException {
+    public InvalidOrderDataException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,386 @@
+package com.sqli.ecomAnalytics.generator;
+
+import com.github.javafaker.Faker;
+import com.sqli.ecomAnalytics.configuration.DataGenerationProp;
+import com.sqli.ecomAnalytics.dto.CustomerRegistrationDto;
+import com.sqli.ecomAnalytics.dto.ProductCreateDto;
+import com.sqli.ecomAnalytics.entity.OrderStatus;
+import com.sqli.ecomAnalytics.entity.Products;
+import com.sqli.ecomAnalytics.entity.Segments;
+import com.sqli.ecomAnalytics.repository.ProductRepository;
+import com.sqli.ecomAnalytics.service.DailySalesRollupService;
+import com.sqli.ecomAnalytics.service.ProductDailyStatsService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Bulk mode of the startup data generation, sized for load-test datasets. Rows are written straight to the tables in
+ * JDBC batches, which reWriteBatchedInserts turns into multi-row INSERTs, so there is no per-entity lookup, stock
+ * reservation, cache eviction or ML event. Orders are generated one month per task on a worker pool: every month is
+ * its own partition, so the workers never write to the same table. Customer totals, segments and the daily rollups
+ * the services keep up to date per order are rebuilt once in SQL afterwards.
+ */
+@Component
+@Slf4j
+public class BulkDataGenerator {
+    // Matches the allocationSize of Orders and the sequence increment set by V021. Every nextval reserves the block of
+    // ids ending at the returned value, the same blocks Hibernate hands out, so bulk and regular inserts never collide
+    private static final int ORDER_ID_BLOCK = 50;
+    private static final DateTimeFormatter CODE_DATE = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    private static final BigDecimal NEW_CUSTOMER_MAX_PRICE = new BigDecimal("200");
+    private static final BigDecimal CHAMPION_MIN_PRICE = new BigDecimal("500");
+
+    private static final String INSERT_CUSTOMER = "INSERT INTO customers " +
+            "(customer_code, first_name, last_name, age, country, email, phone, registration_date) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?) ON CONFLICT DO NOTHING";
+    private static final String INSERT_PRODUCT = "INSERT INTO products " +
+            "(sku, name, description, category, brand, price, stock_quantity) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?) ON CONFLICT (sku) DO NOTHING";
+    private static final String INSERT_ORDER = "INSERT INTO orders " +
+            "(order_id, customer_id, status, order_date, total_amount) VALUES (?, ?, ?, ?, ?)";
+    private static final String INSERT_ORDER_ITEM = "INSERT INTO order_items " +
+            "(order_id, product_id, order_date, quantity, unit_price) VALUES (?, ?, ?, ?, ?)";
+    private static final String SELECT_CUSTOMER_IDS = "SELECT customer_id FROM customers ORDER BY customer_id";
+    private static final String NEXT_ORDER_ID_BLOCKS = "SELECT nextval('orders_order_id_seq') FROM generate_series(1, ?)";
+
+    // Same figures OrdersService.createOrder accumulates, every order counts whatever its status
+    private static final String UPDATE_CUSTOMER_TOTALS = "UPDATE customers c " +
+            "SET total_spent = t.total_spent, order_count = t.order_count, last_order_date = t.last_order_date " +
+            "FROM (SELECT customer_id, SUM(total_amount) AS total_spent, COUNT(*) AS order_count, " +
+            "             MAX(order_date) AS last_order_date " +
+            "      FROM orders GROUP BY customer_id) t " +
+            "WHERE c.customer_id = t.customer_id";
+    private static final String INSERT_CUSTOMER_SEGMENTS = "INSERT INTO customer_segments " +
+            "(customer_id, segment_label, recency, frequency, monetary, segment_score, last_calculated) " +
+            "SELECT customer_id, 'NEW', 0, 0, 0, 0, NULL FROM customers WHERE order_count > 0 " +
+            "ON CONFLICT (customer_id) DO NOTHING";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CustomerGenerator customerGenerator;
+    private final ProductGenerator productGenerator;
+    private final ProductRepository productRepository;
+    private final DailySalesRollupService dailySalesRollupService;
+    private final ProductDailyStatsService productDailyStatsService;
+    private final DataGenerationProp prop;
+    // Faker is not thread safe and slow to build, each worker keeps its own
+    private final ThreadLocal<Faker> fakers = ThreadLocal.withInitial(Faker::new);
+
+    public BulkDataGenerator(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                             CustomerGenerator customerGenerator, ProductGenerator productGenerator,
+                             ProductRepository productRepository, DailySalesRollupService dailySalesRollupService,
+                             ProductDailyStatsService productDailyStatsService, DataGenerationProp prop) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.customerGenerator = customerGenerator;
+        this.productGenerator = productGenerator;
+        this.productRepository = productRepository;
+        this.dailySalesRollupService = dailySalesRollupService;
+        this.productDailyStatsService = productDailyStatsService;
+        this.prop = prop;
+    }
+
+    // The catalog is written while the customer batches run, it is small enough for a single task
+    public void generateCustomersAndProducts() {
+        int total = prop.getCustomers().getCount();
+        int batchSize = prop.getBulk().getBatchSize();
+
+        List<Supplier<Integer>> tasks = new ArrayList<>();
+        tasks.add(this::insertProducts);
+        for (int from = 0; from < total; from += batchSize) {
+            int batchStart = from;
+            int batchEnd = Math.min(total, from + batchSize);
+            tasks.add(() -> insertCustomers(batchStart, batchEnd));
+        }
+
+        int rows = runAll(tasks).stream().mapToInt(Integer::intValue).sum();
+        log.info("Bulk generation wrote {} customer and product rows in {} batches", rows, tasks.size());
+    }
+
+    public long generateOrders(LocalDate startDate, LocalDate endDate) {
+        OrderCatalog catalog = loadCatalog();
+
+        List<Supplier<Long>> tasks = new ArrayList<>();
+        for (YearMonth month = YearMonth.from(startDate); !month.isAfter(YearMonth.from(endDate)); month = month.plusMonths(1)) {
+            LocalDate from = month.atDay(1).isBefore(startDate) ? startDate : month.atDay(1);
+            LocalDate to = month.atEndOfMonth().isAfter(endDate) ? endDate : month.atEndOfMonth();
+            tasks.add(() -> generateOrders(from, to, catalog));
+        }
+
+        long orders = runAll(tasks).stream().mapToLong(Long::longValue).sum();
+        log.info("Bulk generation wrote {} orders over {} months", orders, tasks.size());
+        return orders;
+    }
+
+    public void rebuildAggregates() {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update(UPDATE_CUSTOMER_TOTALS);
+            jdbcTemplate.update(INSERT_CUSTOMER_SEGMENTS);
+        });
+        dailySalesRollupService.rebuildRollup();
+        productDailyStatsService.rebuildStats();
+        // Planner statistics still describe the empty tables, analytics queries would plan against them until autovacuum
+        jdbcTemplate.execute("ANALYZE customers, products, orders, order_items");
+    }
+
+    private <T> List<T> runAll(List<Supplier<T>> tasks) {
+        try (ExecutorService workers = Executors.newFixedThreadPool(prop.getBulk().getThreads(),
+                Thread.ofPlatform().name("bulk-data-generator-", 0).factory())) {
+            List<CompletableFuture<T>> futures = tasks.stream()
+                    .map(task -> CompletableFuture.supplyAsync(task, workers))
+                    .toList();
+            try {
+                CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+            } catch (CompletionException e) {
+                futures.forEach(future -> future.cancel(false));
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+            return futures.stream().map(CompletableFuture::join).toList();
+        }
+    }
+
+    private int insertProducts() {
+        List<Object[]> rows = productGenerator.generateFullCatalog().stream()
+                .map(BulkDataGenerator::productRow)
+                .toList();
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_PRODUCT, rows));
+        return rows.size();
+    }
+
+    private static Object[] productRow(ProductCreateDto p) {
+        return new Object[]{p.getSku(), p.getProductName(), p.getDescription(), p.getCategory().name(),
+                p.getBrand(), p.getPrice(), p.getStockQuantity()};
+    }
+
+    // The customer's index replaces the random parts of the email and code, so a batch never hits a unique constraint
+    private int insertCustomers(int from, int to) {
+        Faker faker = fakers.get();
+        Random random = ThreadLocalRandom.current();
+
+        List<Object[]> rows = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            CustomerRegistrationDto c = customerGenerator.newCustomer(faker, random);
+            rows.add(new Object[]{customerCode(c, i), c.getFirstName(), c.getLastName(), c.getAge(), c.getCountry(),
+                    uniqueEmail(c, i), c.getPhone(), c.getRegisterDate()});
+        }
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_CUSTOMER, rows));
+        return rows.size();
+    }
+
+    private static String customerCode(CustomerRegistrationDto c, int index) {
+        return "CUST" + codePart(c.getFirstName()) + codePart(c.getLastName())
+                + c.getRegisterDate().format(CODE_DATE) + index;
+    }
+
+    private static String codePart(String name) {
+        return (name.length() >= 3 ? name.substring(0, 3) : name).toUpperCase(Locale.ROOT);
+    }
+
+    private static String uniqueEmail(CustomerRegistrationDto c, int index) {
+        String localPart = (c.getFirstName() + "." + c.getLastName()).toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9.]", "");
+        String domain = c.getEmail().substring(c.getEmail().indexOf('@') + 1);
+        return localPart + "." + index + "@" + domain;
+    }
+
+    private OrderCatalog loadCatalog() {
+        int[] customerIds = jdbcTemplate.queryForList(SELECT_CUSTOMER_IDS, Integer.class).stream()
+                .mapToInt(Integer::intValue)
+                .toArray();
+        if (customerIds.length == 0) {
+            throw new IllegalStateException("No customers found in database");
+        }
+
+        List<Products> products = productRepository.findAll();
+        if (products.isEmpty()) {
+            throw new IllegalStateException("No products found in database");
+        }
+
+        // One search per bundle term up front instead of one per order, ranked like ProductsService.searchProducts
+        Map<String, List<Products>> bundleCandidates = new HashMap<>();
+        OrderDataGenerator.BUNDLE_SEARCH_TERMS.values().stream()
+                .flatMap(List::stream)
+                .distinct()
+                .forEach(term -> bundleCandidates.put(term, productRepository.searchByText(term).stream()
+                        .filter(p -> p.getStockQuantity() > 0)
+                        .toList()));
+
+        return new OrderCatalog(customerIds, products, bundleCandidates);
+    }
+
+    private long generateOrders(LocalDate from, LocalDate to, OrderCatalog catalog) {
+        Random random = ThreadLocalRandom.current();
+        int baseVolume = prop.getOrders().getDailyVolume();
+        int batchSize = prop.getBulk().getBatchSize();
+
+        List<OrderRow> batch = new ArrayList<>(batchSize);
+        long written = 0;
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            int dailyOrderCount = (int) (baseVolume * OrderDataGenerator.getSeasonalMultiplier(day));
+            for (int i = 0; i < dailyOrderCount; i++) {
+                batch.add(catalog.newOrder(day, random));
+                if (batch.size() == batchSize) {
+                    written += writeOrders(batch);
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            written += writeOrders(batch);
+        }
+        log.debug("Bulk generation wrote {} orders between {} and {}", written, from, to);
+        return written;
+    }
+
+    private int writeOrders(List<OrderRow> orders) {
+        List<Object[]> orderRows = new ArrayList<>(orders.size());
+        List<Object[]> itemRows = new ArrayList<>(orders.size() * 2);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            int[] ids = allocateOrderIds(orders.size());
+            for (int i = 0; i < orders.size(); i++) {
+                OrderRow order = orders.get(i);
+                orderRows.add(new Object[]{ids[i], order.customerId(), order.status().name(), order.orderDate(),
+                        order.totalAmount()});
+                for (ItemRow item : order.items()) {
+                    itemRows.add(new Object[]{ids[i], item.productId(), order.orderDate(), item.quantity(),
+                            item.unitPrice()});
+                }
+            }
+            jdbcTemplate.batchUpdate(INSERT_ORDER, orderRows);
+            jdbcTemplate.batchUpdate(INSERT_ORDER_ITEM, itemRows);
+        });
+        return orders.size();
+    }
+
+    private int[] allocateOrderIds(int count) {
+        // One block more than needed: a block ending below ORDER_ID_BLOCK is only partly usable
+        List<Long> blockEnds = jdbcTemplate.queryForList(NEXT_ORDER_ID_BLOCKS, Long.class, count / ORDER_ID_BLOCK + 2);
+
+        int[] ids = new int[count];
+        int next = 0;
+        for (long end : blockEnds) {
+            for (long id = Math.max(1, end - ORDER_ID_BLOCK + 1); id <= end && next < count; id++) {
+                ids[next++] = (int) id;
+            }
+        }
+        if (next < count) {
+            throw new IllegalStateException("Could only allocate " + next + " of " + count + " order ids");
+        }
+        return ids;
+    }
+
+    record OrderRow(int customerId, OrderStatus status, LocalDateTime orderDate, BigDecimal totalAmount,
+                    List<ItemRow> items) {}
+
+    record ItemRow(int productId, int quantity, BigDecimal unitPrice) {}
+
+    /**
+     * Read-only snapshot shared by the workers. Orders follow the same customer, segment, bundle and status
+     * distributions as OrderDataGenerator, except that the main product is drawn at random within the segment's
+     * price band rather than always being the first product of the band.
+     */
+    static final class OrderCatalog {
+        private final int[] customerIds;
+        private final List<Products> available;
+        private final List<Products> newCustomerPicks;
+        private final List<Products> championPicks;
+        private final Map<String, List<Products>> bundleCandidates;
+
+        OrderCatalog(int[] customerIds, List<Products> products, Map<String, List<Products>> bundleCandidates) {
+            this.customerIds = customerIds;
+            List<Products> inStock = products.stream().filter(p -> p.getStockQuantity() > 0).toList();
+            this.available = inStock.isEmpty() ? products : inStock;
+            this.newCustomerPicks = available.stream()
+                    .filter(p -> p.getPrice().compareTo(NEW_CUSTOMER_MAX_PRICE) <= 0)
+                    .toList();
+            this.championPicks = available.stream()
+                    .filter(p -> p.getPrice().compareTo(CHAMPION_MIN_PRICE) > 0)
+                    .toList();
+            this.bundleCandidates = bundleCandidates;
+        }
+
+        OrderRow newOrder(LocalDate day, Random random) {
+            int customerId = customerIds[OrderDataGenerator.selectCustomerIndex(customerIds.length, random)];
+            Segments segment = OrderDataGenerator.getCustomerSegment(customerId, random);
+            Products mainProduct = selectMainProduct(segment, random);
+
+            // Keyed by product, order_items allows a product once per order
+            Map<Integer, ItemRow> items = new LinkedHashMap<>();
+            items.put(mainProduct.getProductId(), new ItemRow(mainProduct.getProductId(),
+                    OrderDataGenerator.getQuantity(segment, random), mainProduct.getPrice()));
+            addBundleItems(mainProduct, segment, random, items);
+
+            BigDecimal totalAmount = items.values().stream()
+                    .map(item -> item.unitPrice().multiply(BigDecimal.valueOf(item.quantity())))
+                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+
+            return new OrderRow(customerId, OrderDataGenerator.getRandomStatus(random),
+                    day.atTime(random.nextInt(24), random.nextInt(60), random.nextInt(60)),
+                    totalAmount, List.copyOf(items.values()));
+        }
+
+        private Products selectMainProduct(Segments segment, Random random) {
+            List<Products> candidates = switch (segment) {
+                case NEW -> newCustomerPicks;
+                case CHAMPION -> championPicks;
+                default -> available;
+            };
+            if (candidates.isEmpty()) {
+                candidates = available;
+            }
+            return candidates.get(random.nextInt(candidates.size()));
+        }
+
+        private void addBundleItems(Products mainProduct, Segments segment, Random random, Map<Integer, ItemRow> items) {
+            List<String> searchTerms = OrderDataGenerator.BUNDLE_SEARCH_TERMS.get(mainProduct.getCategory());
+            if (searchTerms == null) {
+                return;
+            }
+
+            double bundleProbability = OrderDataGenerator.getBundleProbability(segment);
+            int maxBundles = OrderDataGenerator.getMaxBundles(segment);
+            int bundles = 0;
+
+            for (String searchTerm : searchTerms) {
+                if (bundles >= maxBundles) break;
+
+                if (random.nextDouble() < bundleProbability) {
+                    Products bundleProduct = bundleCandidates.getOrDefault(searchTerm, List.of()).stream()
+                            .filter(p -> p.getProductId() != mainProduct.getProductId())
+                            .findFirst()
+                            .orElse(null);
+                    if (bundleProduct != null && items.putIfAbsent(bundleProduct.getProductId(),
+                            new ItemRow(bundleProduct.getProductId(), 1, bundleProduct.getPrice())) == null) {
+                        bundles++;
+                    }
+                }
+            }
+        }
+    }
+}
@@ -35,7 +35,7 @@ public class CustomerGenerator {
     private static final double MEAN_AGE = 35;
     private static final double STD_DEV = 10;
 
-    private int generateAgeNormal() {
+    private static int generateAgeNormal(Random random) {
         int age;
         do {
             age = (int) Math.round(MEAN_AGE + random.nextGaussian() * STD_DEV);
@@ -43,7 +43,7 @@ public class CustomerGenerator {
         return age;
     }
 
-    private String getRandomCountry(){
+    private String getRandomCountry(Faker faker, Random random){
         var geoDist = prop.getCustomers().getGeogDist();
         int roll = random.nextInt(100);
 
@@ -62,7 +62,10 @@ public class CustomerGenerator {
 
 
     public static LocalDateTime generateRandomRegistrationDate(int maxMonths) {
+        return generateRandomRegistrationDate(maxMonths, random);
+    }
 
+    static LocalDateTime generateRandomRegistrationDate(int maxMonths, Random random) {
         double r = random.nextDouble();
         double weighted = Math.pow(r, 2);
         int monthsBack = (int) (weighted * maxMonths);
@@ -82,14 +85,7 @@ public class CustomerGenerator {
     public void generateCustomers() {
         int total = prop.getCustomers().getCount();
         for (int i = 1; i <= total; i++) {
-            CustomerRegistrationDto c = new CustomerRegistrationDto();
-            c.setFirstName(faker.name().firstName());
-            c.setLastName(faker.name().lastName());
-            c.setEmail(faker.internet().emailAddress());
-            c.setAge(generateAgeNormal());
-            c.setCountry(getRandomCountry());
-            c.setPhone(faker.phoneNumber().phoneNumber());
-            c.setRegisterDate(generateRandomRegistrationDate(24));
+            CustomerRegistrationDto c = newCustomer(faker, random);
 
             try {
                 customersService.registerCustomer(c);
@@ -99,4 +95,17 @@ public class CustomerGenerator {
             }
         }
     }
+
+    // Faker and Random are passed in so parallel workers can each use their own
+    CustomerRegistrationDto newCustomer(Faker faker, Random random) {
+        CustomerRegistrationDto c = new CustomerRegistrationDto();
+        c.setFirstName(faker.name().firstName());
+        c.setLastName(faker.name().lastName());
+        c.setEmail(faker.internet().emailAddress());
+        c.setAge(generateAgeNormal(random));
+        c.setCountry(getRandomCountry(faker, random));
+        c.setPhone(faker.phoneNumber().phoneNumber());
+        c.setRegisterDate(generateRandomRegistrationDate(24, random));
+        return c;
+    }
 }
@@ -28,7 +28,7 @@ public class OrderDataGenerator {
             "SUMMER_SALES", 1.2
     );
 
-    private static final Map<ProductCategory, List<String>> BUNDLE_SEARCH_TERMS = Map.of(
+    static final Map<ProductCategory, List<String>> BUNDLE_SEARCH_TERMS = Map.of(
             ProductCategory.SMARTPHONES, List.of("case", "screen protector", "charger"),
             ProductCategory.GAMING_CONSOLES, List.of("controller", "game", "headset"),
             ProductCategory.LAPTOPS, List.of("mouse", "bag", "keyboard"),
@@ -62,15 +62,7 @@ public class OrderDataGenerator {
                     OrderCreateDto orderDto = generateOrderForCustomer(customer, currentDate);
                     Orders createdOrder = ordersService.createOrder(orderDto);
 
-                    double randStatus = random.nextDouble();
-                    OrderStatus status;
-                    if (randStatus < 0.1) {
-                        status = OrderStatus.PENDING;
-                    } else if (randStatus < 0.95) {
-                        status = OrderStatus.DELIVERED;
-                    } else {
-                        status = OrderStatus.CANCELLED;
-                    }
+                    OrderStatus status = getRandomStatus(random);
 
                     if (status != OrderStatus.PENDING) {
                         ordersService.updateOrderStatus(createdOrder.getOrderId(), status);
@@ -85,19 +77,34 @@ public class OrderDataGenerator {
     }
 
     private Customers selectCustomer(List<Customers> customers) {
+        return customers.get(selectCustomerIndex(customers.size(), random));
+    }
+
+    // The lower ids, the older customers, take a larger share of the orders
+    static int selectCustomerIndex(int customerCount, Random random) {
         double rand = random.nextDouble();
 
         if (rand < 0.4) {
-            return customers.get(random.nextInt(Math.min(customers.size(), customers.size() / 2)));
+            return random.nextInt(Math.max(1, customerCount / 2));
         } else if (rand < 0.85) {
-            return customers.get(random.nextInt(customers.size()));
+            return random.nextInt(customerCount);
         } else {
-            return customers.get(random.nextInt(Math.min(customers.size(), customers.size() / 5)));
+            return random.nextInt(Math.max(1, customerCount / 5));
+        }
+    }
+
+    static OrderStatus getRandomStatus(Random random) {
+        double randStatus = random.nextDouble();
+        if (randStatus < 0.1) {
+            return OrderStatus.PENDING;
+        } else if (randStatus < 0.95) {
+            return OrderStatus.DELIVERED;
         }
+        return OrderStatus.CANCELLED;
     }
 
     private OrderCreateDto generateOrderForCustomer(Customers customer, LocalDate orderDate) {
-        Segments segment = getCustomerSegment(customer);
+        Segments segment = getCustomerSegment(customer.getCustomerId(), random);
         List<OrderItemsDto> orderItems = new ArrayList<>();
 
         List<Products> allProducts = productService.findAllProducts();
@@ -106,7 +113,7 @@ public class OrderDataGenerator {
         if (mainProduct != null) {
             orderItems.add(OrderItemsDto.builder()
                     .productId(mainProduct.getProductId())
-                    .quantity(getQuantity(segment))
+                    .quantity(getQuantity(segment, random))
                     .build());
 
             orderItems.addAll(getBundleProducts(mainProduct, segment));
@@ -171,7 +178,7 @@ public class OrderDataGenerator {
         return bundleItems;
     }
 
-    private double getBundleProbability(Segments segment) {
+    static double getBundleProbability(Segments segment) {
         return switch (segment) {
             case CHAMPION -> 0.95;
             case LOYAL -> 0.80;
@@ -180,7 +187,7 @@ public class OrderDataGenerator {
         };
     }
 
-    private int getMaxBundles(Segments segment) {
+    static int getMaxBundles(Segments segment) {
         return switch (segment) {
             case CHAMPION -> 3;
             case LOYAL -> 2;
@@ -189,8 +196,7 @@ public class OrderDataGenerator {
         };
     }
 
-    private Segments getCustomerSegment(Customers customer) {
-        int customerId = customer.getCustomerId();
+    static Segments getCustomerSegment(int customerId, Random random) {
         double rand = random.nextDouble();
 
         if (customerId % 15 == 0) return Segments.CHAMPION;
@@ -199,7 +205,7 @@ public class OrderDataGenerator {
         return Segments.AT_RISK;
     }
 
-    private int getQuantity(Segments segment) {
+    static int getQuantity(Segments segment, Random random) {
         return switch (segment) {
             case NEW -> 1;
             case LOYAL -> 1 + random.nextInt(3);
@@ -208,7 +214,7 @@ public class OrderDataGenerator {
         };
     }
 
-    private double getSeasonalMultiplier(LocalDate date) {
+    static double getSeasonalMultiplier(LocalDate date) {
         int month = date.getMonthValue();
         int day = date.getDayOfMonth();
 
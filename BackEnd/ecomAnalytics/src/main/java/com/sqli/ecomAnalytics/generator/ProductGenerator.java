@@ -8,6 +8,10 @@ import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.function.Supplier;
 
 
@@ -35,6 +39,33 @@ public class ProductGenerator {
         generateAndSaveProducts(categoryDist.getOthers(), OtherProductsGenerator::generateOtherProduct);
     }
 
+    // Same catalog as generateAndSaveFullCatalog with distinct SKUs, for writers that bypass ProductsService
+    public List<ProductCreateDto> generateFullCatalog() {
+        var categoryDist = prop.getProducts().getCategoryDistribution();
+        List<ProductCreateDto> catalog = new ArrayList<>();
+        Set<String> skus = new HashSet<>();
+
+        generateProducts(categoryDist.getSmartphones(), SmartPhonesGenerator::generateSmartphone, catalog, skus);
+        generateProducts(categoryDist.getLaptops(), LaptopGenerator::generateLaptop, catalog, skus);
+        generateProducts(categoryDist.getGaming(), GamingConsoleGenerator::generateGamingProduct, catalog, skus);
+        generateProducts(categoryDist.getTablets(), TabletsGenerator::generateTablet, catalog, skus);
+        generateProducts(categoryDist.getAccessories(), AccessoriesGenerator::generateAccessory, catalog, skus);
+        generateProducts(categoryDist.getOthers(), OtherProductsGenerator::generateOtherProduct, catalog, skus);
+        return catalog;
+    }
+
+    private void generateProducts(int count, Supplier<ProductCreateDto> generator, List<ProductCreateDto> catalog,
+                                  Set<String> skus) {
+        int generated = 0;
+        while (generated < count) {
+            ProductCreateDto productDto = generator.get();
+            if (skus.add(productDto.getSku())) {
+                catalog.add(productDto);
+                generated++;
+            }
+        }
+    }
+
     private void generateAndSaveProducts(int count, Supplier<ProductCreateDto> generator) {
         for (int i = 0; i < count; i++) {
             try {
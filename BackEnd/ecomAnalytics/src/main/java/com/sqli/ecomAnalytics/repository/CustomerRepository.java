@@ -1,9 +1,17 @@
 package com.sqli.ecomAnalytics.repository;
 
+import com.sqli.ecomAnalytics.dto.CustomerMetricsSummary;
+import com.sqli.ecomAnalytics.dto.TopCustomerMetrics;
 import com.sqli.ecomAnalytics.entity.Customers;
 import com.sqli.ecomAnalytics.entity.Segments;
+import com.sqli.ecomAnalytics.util.KeysetPagination;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
@@ -11,6 +19,7 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface CustomerRepository extends JpaRepository<Customers, Integer> {
@@ -28,12 +37,22 @@ public interface CustomerRepository extends JpaRepository<Customers, Integer> {
 
     Optional<Customers> findByFirstNameAndLastName(String firstName, String lastName);
 
-    @Query("SELECT c FROM Customers c WHERE c.totalSpent >= :minSpent ORDER BY c.totalSpent DESC")
+    // Fetch join, the segment is a non-lazy one-to-one and would otherwise cost one select per customer
+    @Query("SELECT c FROM Customers c LEFT JOIN FETCH c.customerSegment WHERE c.totalSpent >= :minSpent ORDER BY c.totalSpent DESC")
     List<Customers> findHighSpendingCustomers(@Param("minSpent") BigDecimal minSpent);
 
     @Query("SELECT c FROM Customers c LEFT JOIN FETCH c.customerSegment WHERE c.customerId = :id")
     Optional<Customers> findWithSegment(@Param("id") Integer id);
 
+    // Keyset pagination on the primary key, the segment is fetched in the same query
+    @Query("SELECT c FROM Customers c LEFT JOIN FETCH c.customerSegment WHERE c.customerId > :afterId ORDER BY c.customerId")
+    List<Customers> findPageAfter(@Param("afterId") int afterId, Limit limit);
+
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = KeysetPagination.STREAM_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    @Query("SELECT c FROM Customers c LEFT JOIN FETCH c.customerSegment ORDER BY c.customerId")
+    Stream<Customers> streamAll();
+
     @Query("SELECT c FROM Customers c JOIN FETCH c.customerSegment cs WHERE cs.segmentLabel = :segmentLabel")
     List<Customers> findCustomersBySegment(@Param("segmentLabel") Segments segmentLabel);
 
@@ -64,5 +83,26 @@ public interface CustomerRepository extends JpaRepository<Customers, Integer> {
 
     @Query("SELECT COUNT(c) FROM Customers c")
     Long countAllCustomers();
-}
 
+    // Reads from customer_metrics_mv, a snapshot as fresh as its last refresh
+    @Query(value = "SELECT segment_label, COUNT(*) FROM customer_metrics_mv " +
+            "WHERE segment_label IS NOT NULL GROUP BY segment_label", nativeQuery = true)
+    List<Object[]> getSegmentDistributionFromMetrics();
+
+    @Query(value = "SELECT customer_id AS \"customerId\", customer_name AS \"customerName\", " +
+            "total_spent AS \"totalSpent\", order_count AS \"orderCount\", " +
+            "segment_label AS \"segmentLabel\", registration_date AS \"registrationDate\", " +
+            "lifetime_value AS \"lifetimeValue\" " +
+            "FROM customer_metrics_mv WHERE total_spent >= :minSpent ORDER BY total_spent DESC LIMIT :limit", nativeQuery = true)
+    List<TopCustomerMetrics> findTopCustomerMetrics(@Param("minSpent") BigDecimal minSpent, @Param("limit") int limit);
+
+    @Query(value = "SELECT AVG(total_spent) AS \"averageLifetimeValue\", " +
+            "COUNT(*) FILTER (WHERE last_order_date < :thresholdDate) AS \"churnedCustomers\", " +
+            "COUNT(*) AS \"totalCustomers\" " +
+            "FROM customer_metrics_mv", nativeQuery = true)
+    CustomerMetricsSummary getCustomerMetricsSummary(@Param("thresholdDate") LocalDateTime thresholdDate);
+
+    @Modifying
+    @Query(value = "REFRESH MATERIALIZED VIEW CONCURRENTLY customer_metrics_mv", nativeQuery = true)
+    void refreshCustomerMetrics();
+}
@@ -0,0 +1,55 @@
+package com.sqli.ecomAnalytics.repository;
+
+import com.sqli.ecomAnalytics.entity.DailySalesRollup;
+import com.sqli.ecomAnalytics.entity.DailySalesRollupId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+public interface DailySalesRollupRepository extends JpaRepository<DailySalesRollup, DailySalesRollupId> {
+
+    // Upsert with relative increments so concurrent orders on the same day never lose an update
+    @Modifying
+    @Query(value = "INSERT INTO daily_sales_rollup (sales_date, status, revenue, order_count) " +
+            "VALUES (:salesDate, :status, :revenue, :orderCount) " +
+            "ON CONFLICT (sales_date, status) DO UPDATE SET " +
+            "revenue = daily_sales_rollup.revenue + EXCLUDED.revenue, " +
+            "order_count = daily_sales_rollup.order_count + EXCLUDED.order_count, " +
+            "updated_at = NOW()", nativeQuery = true)
+    void applyDelta(@Param("salesDate") LocalDate salesDate,
+                    @Param("status") String status,
+                    @Param("revenue") BigDecimal revenue,
+                    @Param("orderCount") long orderCount);
+
+    @Modifying
+    @Query(value = "DELETE FROM daily_sales_rollup", nativeQuery = true)
+    void deleteAllRows();
+
+    @Modifying
+    @Query(value = "INSERT INTO daily_sales_rollup (sales_date, status, revenue, order_count) " +
+            "SELECT DATE(order_date), status, SUM(total_amount), COUNT(*) " +
+            "FROM orders " +
+            "GROUP BY DATE(order_date), status", nativeQuery = true)
+    int backfillFromOrders();
+
+    @Query(value = "SELECT sales_date as orderDate, " +
+            "revenue as dailyRevenue, " +
+            "order_count as orderCount " +
+            "FROM daily_sales_rollup " +
+            "WHERE sales_date BETWEEN :startDate AND :endDate AND status = 'DELIVERED' AND order_count > 0 " +
+            "ORDER BY sales_date", nativeQuery = true)
+    List<Object[]> getDailySalesTrends(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    @Query(value = "SELECT SUM(revenue) FROM daily_sales_rollup WHERE status = 'DELIVERED'", nativeQuery = true)
+    BigDecimal findTotalRevenue();
+
+    @Query(value = "SELECT SUM(revenue) / NULLIF(SUM(order_count), 0) " +
+            "FROM daily_sales_rollup " +
+            "WHERE sales_date BETWEEN :startDate AND :endDate AND status = 'DELIVERED'", nativeQuery = true)
+    BigDecimal getAverageOrderValue(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+}
@@ -1,22 +1,48 @@
 package com.sqli.ecomAnalytics.repository;
 
+import com.sqli.ecomAnalytics.dto.KpiSnapshot;
 import com.sqli.ecomAnalytics.entity.OrderStatus;
 import com.sqli.ecomAnalytics.entity.Orders;
-import org.springframework.cglib.core.Local;
+import com.sqli.ecomAnalytics.util.KeysetPagination;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
-import java.awt.print.Pageable;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Stream;
 
 public interface OrderRepository extends JpaRepository<Orders, Integer> {
     List<Orders> findByStatus(OrderStatus status);
 
+    // Keyset pagination on the primary key, customers are fetched in the same query instead of one select each
+    @Query("SELECT o FROM Orders o JOIN FETCH o.customer c LEFT JOIN FETCH c.customerSegment " +
+            "WHERE o.orderId > :afterId ORDER BY o.orderId")
+    List<Orders> findPageAfter(@Param("afterId") int afterId, Limit limit);
+
+    @Query("SELECT o FROM Orders o JOIN FETCH o.customer c LEFT JOIN FETCH c.customerSegment " +
+            "WHERE o.status = :status AND o.orderId > :afterId ORDER BY o.orderId")
+    List<Orders> findPageByStatusAfter(@Param("status") OrderStatus status, @Param("afterId") int afterId,
+                                       Limit limit);
+
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = KeysetPagination.STREAM_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    @Query("SELECT o FROM Orders o JOIN FETCH o.customer c LEFT JOIN FETCH c.customerSegment ORDER BY o.orderId")
+    Stream<Orders> streamAll();
+
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = KeysetPagination.STREAM_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    @Query("SELECT o FROM Orders o JOIN FETCH o.customer c LEFT JOIN FETCH c.customerSegment " +
+            "WHERE o.status = :status ORDER BY o.orderId")
+    Stream<Orders> streamByStatus(@Param("status") OrderStatus status);
+
     @Query("SELECT SUM(o.totalAmount) FROM Orders o WHERE o.customer.customerId = :customerId AND o.status = 'DELIVERED'")
     Optional<BigDecimal> getTotalSpentByCustomer(@Param("customerId") Integer customerId);
 
@@ -29,6 +55,13 @@ public interface OrderRepository extends JpaRepository<Orders, Integer> {
     @Query("SELECT SUM(o.totalAmount) FROM Orders o WHERE o.status = 'DELIVERED'")
     BigDecimal findTotalRevenue();
 
+    // Finer than the daily rollup, only used for hour buckets
+    @Query(value = "SELECT date_trunc('hour', order_date) AS bucketStart, SUM(total_amount) AS revenue, COUNT(*) AS orderCount " +
+            "FROM orders " +
+            "WHERE order_date BETWEEN :startDate AND :endDate AND status = 'DELIVERED' " +
+            "GROUP BY date_trunc('hour', order_date) ORDER BY bucketStart", nativeQuery = true)
+    List<Object[]> getHourlySales(@Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
+
     @Query("SELECT COUNT(o.orderId) FROM Orders o WHERE o.status = 'DELIVERED'")
     Long findCountOrders();
 
@@ -47,11 +80,36 @@ public interface OrderRepository extends JpaRepository<Orders, Integer> {
     @Query("SELECT o.status, COUNT(o) FROM Orders o WHERE o.orderDate BETWEEN :startDate AND :endDate GROUP BY o.status")
     List<Object[]> getOrderStatusDistribution(@Param("startDate") LocalDateTime startDate,@Param("endDate") LocalDateTime endDate);
 
-    @Query("SELECT o.customer, SUM(o.totalAmount) as totalSpent FROM Orders o " +
+    // Rows are (customerId, name, totalSpent, orderCount, segmentLabel): no customer entity, so no segment select per row
+    @Query("SELECT c.customerId, CONCAT(c.firstName, ' ', c.lastName), SUM(o.totalAmount) AS totalSpent, COUNT(o), cs.segmentLabel " +
+            "FROM Orders o JOIN o.customer c LEFT JOIN c.customerSegment cs " +
             "WHERE o.orderDate BETWEEN :startDate AND :endDate AND o.status = 'DELIVERED' " +
-            "GROUP BY o.customer ORDER BY totalSpent DESC")
-    List<Object[]> getTopCustomersByRevenue(@Param("startDate") LocalDateTime startDate,@Param("endDate") LocalDateTime endDate,Pageable pageable);
+            "GROUP BY c.customerId, c.firstName, c.lastName, cs.segmentLabel ORDER BY totalSpent DESC")
+    List<Object[]> getTopCustomersByRevenue(@Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate,
+                                            Limit limit);
 
     @Query("SELECT COUNT(o) FROM Orders o")
     Long countAllOrders();
+
+    // All dashboard KPIs in one round trip, revenue and order figures come from daily_sales_rollup
+    @Query(value = "WITH sales AS ( " +
+            "SELECT SUM(revenue) FILTER (WHERE status = 'DELIVERED') AS total_revenue, " +
+            "SUM(revenue) FILTER (WHERE status = 'DELIVERED' AND sales_date BETWEEN CAST(:startDate AS DATE) AND CAST(:endDate AS DATE)) AS window_revenue, " +
+            "SUM(order_count) FILTER (WHERE status = 'DELIVERED' AND sales_date BETWEEN CAST(:startDate AS DATE) AND CAST(:endDate AS DATE)) AS window_orders, " +
+            "SUM(order_count) AS total_orders " +
+            "FROM daily_sales_rollup), " +
+            "customer_counts AS ( " +
+            "SELECT COUNT(*) AS total_customers, " +
+            "COUNT(*) FILTER (WHERE registration_date BETWEEN :startDate AND :endDate) AS new_customers " +
+            "FROM customers), " +
+            "product_counts AS ( " +
+            "SELECT COUNT(*) AS total_products FROM products) " +
+            "SELECT s.total_revenue AS \"totalRevenue\", " +
+            "CAST(COALESCE(s.total_orders, 0) AS BIGINT) AS \"totalOrders\", " +
+            "s.window_revenue / NULLIF(s.window_orders, 0) AS \"averageOrderValue\", " +
+            "c.total_customers AS \"totalCustomers\", " +
+            "c.new_customers AS \"newCustomersCount\", " +
+            "p.total_products AS \"totalProducts\" " +
+            "FROM sales s CROSS JOIN customer_counts c CROSS JOIN product_counts p", nativeQuery = true)
+    KpiSnapshot getKpiSnapshot(@Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
 }
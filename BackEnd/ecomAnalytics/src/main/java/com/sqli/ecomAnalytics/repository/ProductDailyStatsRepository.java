@@ -0,0 +1,71 @@
+package com.sqli.ecomAnalytics.repository;
+
+import com.sqli.ecomAnalytics.entity.ProductDailyStats;
+import com.sqli.ecomAnalytics.entity.ProductDailyStatsId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface ProductDailyStatsRepository extends JpaRepository<ProductDailyStats, ProductDailyStatsId> {
+
+    // Adds (sign = 1) or removes (sign = -1) every line of one order, a single upsert whatever the number of lines.
+    // The order date pins the lookup to a single order_items partition
+    @Modifying
+    @Query(value = "INSERT INTO product_daily_stats (sales_date, product_id, qty_sold, revenue) " +
+            "SELECT DATE(oi.order_date), oi.product_id, :sign * oi.quantity, :sign * oi.quantity * oi.unit_price " +
+            "FROM order_items oi " +
+            "WHERE oi.order_id = :orderId AND oi.order_date = :orderDate " +
+            "ON CONFLICT (sales_date, product_id) DO UPDATE SET " +
+            "qty_sold = product_daily_stats.qty_sold + EXCLUDED.qty_sold, " +
+            "revenue = product_daily_stats.revenue + EXCLUDED.revenue, " +
+            "updated_at = NOW()", nativeQuery = true)
+    int applyOrderDelta(@Param("orderId") int orderId, @Param("orderDate") LocalDateTime orderDate,
+                        @Param("sign") int sign);
+
+    @Modifying
+    @Query(value = "DELETE FROM product_daily_stats", nativeQuery = true)
+    void deleteAllRows();
+
+    @Modifying
+    @Query(value = "INSERT INTO product_daily_stats (sales_date, product_id, qty_sold, revenue) " +
+            "SELECT DATE(o.order_date), oi.product_id, SUM(oi.quantity), SUM(oi.quantity * oi.unit_price) " +
+            "FROM order_items oi " +
+            "JOIN orders o ON o.order_id = oi.order_id AND o.order_date = oi.order_date " +
+            "WHERE o.status = 'DELIVERED' " +
+            "GROUP BY DATE(o.order_date), oi.product_id", nativeQuery = true)
+    int backfillFromOrders();
+
+    // Range sums per product first, products are joined once per product rather than once per order line
+    @Query(value = "SELECT p.product_id, p.name, s.qty_sold, s.revenue " +
+            "FROM (SELECT product_id, SUM(qty_sold) AS qty_sold, SUM(revenue) AS revenue " +
+            "      FROM product_daily_stats WHERE sales_date BETWEEN :startDate AND :endDate " +
+            "      GROUP BY product_id HAVING SUM(qty_sold) > 0) s " +
+            "JOIN products p ON p.product_id = s.product_id " +
+            "ORDER BY s.revenue DESC", nativeQuery = true)
+    List<Object[]> getProductPerformanceByRevenue(@Param("startDate") LocalDate startDate,
+                                                  @Param("endDate") LocalDate endDate);
+
+    @Query(value = "SELECT p.category, SUM(s.qty_sold) AS total_quantity_sold, SUM(s.revenue) AS total_revenue, " +
+            "COUNT(p.product_id) AS product_count " +
+            "FROM (SELECT product_id, SUM(qty_sold) AS qty_sold, SUM(revenue) AS revenue " +
+            "      FROM product_daily_stats WHERE sales_date BETWEEN :startDate AND :endDate " +
+            "      GROUP BY product_id HAVING SUM(qty_sold) > 0) s " +
+            "JOIN products p ON p.product_id = s.product_id " +
+            "GROUP BY p.category " +
+            "ORDER BY total_revenue DESC", nativeQuery = true)
+    List<Object[]> getCategoryPerformance(@Param("startDate") LocalDate startDate,
+                                          @Param("endDate") LocalDate endDate);
+
+    @Query(value = "SELECT p.product_id, p.name, p.stock_quantity, s.qty_sold " +
+            "FROM (SELECT product_id, SUM(qty_sold) AS qty_sold " +
+            "      FROM product_daily_stats WHERE sales_date BETWEEN :startDate AND :endDate " +
+            "      GROUP BY product_id HAVING SUM(qty_sold) > 0) s " +
+            "JOIN products p ON p.product_id = s.product_id", nativeQuery = true)
+    List<Object[]> getInventoryTurnoverData(@Param("startDate") LocalDate startDate,
+                                            @Param("endDate") LocalDate endDate);
+}
@@ -2,14 +2,20 @@ package com.sqli.ecomAnalytics.repository;
 
 import com.sqli.ecomAnalytics.entity.ProductCategory;
 import com.sqli.ecomAnalytics.entity.Products;
+import com.sqli.ecomAnalytics.util.KeysetPagination;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface ProductRepository extends JpaRepository<Products, Integer> {
@@ -19,6 +25,20 @@ public interface ProductRepository extends JpaRepository<Products, Integer> {
     List<Products> findByBrandIgnoreCase(String brand);
     List<Products> findByCategoryAndBrandIgnoreCase(ProductCategory category, String brand);
 
+    @Query("SELECT p FROM Products p WHERE p.productId > :afterId ORDER BY p.productId")
+    List<Products> findPageAfter(@Param("afterId") int afterId, Limit limit);
+
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = KeysetPagination.STREAM_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    @Query("SELECT p FROM Products p ORDER BY p.productId")
+    Stream<Products> streamAll();
+
+    // Conditional decrement, returns 0 when the product is missing or does not have enough stock
+    @Modifying
+    @Query(value = "UPDATE products SET stock_quantity = stock_quantity - :quantity, updated_at = NOW() " +
+            "WHERE product_id = :productId AND stock_quantity >= :quantity", nativeQuery = true)
+    int decrementStock(@Param("productId") int productId, @Param("quantity") int quantity);
+
     @Query("SELECT p FROM Products p WHERE p.stockQuantity <= :minQt")
     List<Products> findLowStock(@Param("minQt") int threshold);
 
@@ -27,40 +47,6 @@ public interface ProductRepository extends JpaRepository<Products, Integer> {
             "@@ plainto_tsquery('english', :searchTerm)", nativeQuery = true)
     List<Products> searchByText(@Param("searchTerm") String searchTerm);
 
-    // KPI
-    @Query("SELECT p, SUM(oi.quantity) as totalSold, SUM(oi.quantity * oi.unitPrice) as totalRevenue " +
-            "FROM Products p " +
-            "LEFT JOIN OrderItems oi ON oi.product = p " +
-            "LEFT JOIN Orders o ON oi.order = o " +
-            "WHERE o.orderDate BETWEEN :startDate AND :endDate AND o.status = 'DELIVERED' " +
-            "GROUP BY p " +
-            "ORDER BY totalRevenue DESC")
-    List<Object[]> getProductPerformanceByRevenue(@Param("startDate") LocalDateTime startDate,
-                                                  @Param("endDate") LocalDateTime endDate);
-
-    @Query("SELECT p.category, " +
-            "SUM(oi.quantity) as totalQuantitySold, " +
-            "SUM(oi.quantity * oi.unitPrice) as totalRevenue, " +
-            "COUNT(DISTINCT p) as productCount " +
-            "FROM Products p " +
-            "LEFT JOIN OrderItems oi ON oi.product = p " +
-            "LEFT JOIN Orders o ON oi.order = o " +
-            "WHERE o.orderDate BETWEEN :startDate AND :endDate AND o.status = 'DELIVERED' " +
-            "GROUP BY p.category " +
-            "ORDER BY totalRevenue DESC")
-    List<Object[]> getCategoryPerformance(@Param("startDate") LocalDateTime startDate,
-                                          @Param("endDate") LocalDateTime endDate);
-
-    @Query("SELECT p.productId, p.name, p.stockQuantity, " +
-            "COALESCE(SUM(oi.quantity), 0) as totalSold " +
-            "FROM Products p " +
-            "LEFT JOIN OrderItems oi ON oi.product = p " +
-            "LEFT JOIN Orders o ON oi.order = o " +
-            "WHERE o.orderDate BETWEEN :startDate AND :endDate AND o.status = 'DELIVERED' " +
-            "GROUP BY p.productId, p.name, p.stockQuantity")
-    List<Object[]> getInventoryTurnoverData(@Param("startDate") LocalDateTime startDate,
-                                            @Param("endDate") LocalDateTime endDate);
-
     @Query("SELECT COUNT(p) FROM Products p")
     Long countAllProducts();
 }
@@ -0,0 +1,54 @@
+package com.sqli.ecomAnalytics.service;
+
+import com.sqli.ecomAnalytics.repository.CustomerRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps customer_metrics_mv current. The refresh is concurrent, readers keep seeing the previous snapshot while it
+ * runs, and overlapping triggers on this node are skipped rather than queued.
+ */
+@Service
+@Slf4j
+public class CustomerMetricsService {
+    private final CustomerRepository customerRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ReentrantLock refreshLock = new ReentrantLock();
+
+    public CustomerMetricsService(CustomerRepository customerRepository, PlatformTransactionManager transactionManager) {
+        this.customerRepository = customerRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${analytics.customer-metrics.refresh-cron:0 */5 * * * *}")
+    public void scheduledRefresh() {
+        try {
+            refresh();
+        } catch (Exception e) {
+            log.error("Customer metrics refresh failed: {}", e.getMessage());
+        }
+    }
+
+    public boolean refresh() {
+        if (!refreshLock.tryLock()) {
+            log.debug("Customer metrics refresh already running, skipping");
+            return false;
+        }
+        try {
+            long started = System.nanoTime();
+            transactionTemplate.executeWithoutResult(status -> customerRepository.refreshCustomerMetrics());
+            log.info("Customer metrics refreshed in {} ms", (System.nanoTime() - started) / 1_000_000);
+            return true;
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+}
@@ -1,13 +1,18 @@
 package com.sqli.ecomAnalytics.service;
 
+import com.sqli.ecomAnalytics.cache.CacheTagIndex;
 import com.sqli.ecomAnalytics.dto.CustomerRegistrationDto;
 import com.sqli.ecomAnalytics.dto.CustomerUpdateDto;
+import com.sqli.ecomAnalytics.dto.KeysetPageDto;
 import com.sqli.ecomAnalytics.entity.Customers;
 import com.sqli.ecomAnalytics.entity.Segments;
 import com.sqli.ecomAnalytics.exceptions.CustomerAlreadyExistsException;
 import com.sqli.ecomAnalytics.exceptions.CustomerNotFoundException;
 import com.sqli.ecomAnalytics.exceptions.InvalidCustomerDataException;
 import com.sqli.ecomAnalytics.repository.CustomerRepository;
+import com.sqli.ecomAnalytics.util.KeysetPagination;
+import com.sqli.ecomAnalytics.util.RedisCacheKeys;
+import jakarta.persistence.EntityManager;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.cache.annotation.Caching;
@@ -21,15 +26,22 @@ import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.Optional;
 import java.util.Random;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class CustomersService {
     private final CustomerRepository customerRepository;
     private final MLEventPublisher mlEventPublisher;
+    private final EntityManager entityManager;
+    private final CacheTagIndex cacheTagIndex;
 
-    public CustomersService(CustomerRepository customerRepository, MLEventPublisher mlEventPublisher) {
+    public CustomersService(CustomerRepository customerRepository, MLEventPublisher mlEventPublisher,
+                            EntityManager entityManager, CacheTagIndex cacheTagIndex) {
         this.customerRepository = customerRepository;
         this.mlEventPublisher = mlEventPublisher;
+        this.entityManager = entityManager;
+        this.cacheTagIndex = cacheTagIndex;
     }
 
     @Caching(evict = {
@@ -61,6 +73,7 @@ public class CustomersService {
         c.setRegistrationDate(customer.getRegisterDate());
 
         Customers savedCustomer = customerRepository.save(c);
+        cacheTagIndex.evictTagged(List.of(RedisCacheKeys.customerCountTag()));
 
         mlEventPublisher.publishCustomerCreated(savedCustomer.getCustomerId());
         return savedCustomer;
@@ -127,6 +140,19 @@ public class CustomersService {
         return customerRepository.findAll();
     }
 
+    @Transactional(readOnly = true)
+    public KeysetPageDto<Customers> findCustomersPage(int afterId, int size) {
+        List<Customers> rows = customerRepository.findPageAfter(afterId, KeysetPagination.limit(size));
+        return KeysetPagination.page(rows, size, Customers::getCustomerId);
+    }
+
+    @Transactional(readOnly = true)
+    public void streamAllCustomers(Consumer<Customers> consumer) {
+        try (Stream<Customers> customers = customerRepository.streamAll()) {
+            KeysetPagination.forEachDetached(customers, entityManager, consumer);
+        }
+    }
+
 //    @Cacheable(value = "customerProfileCache", key = "T(com.sqli.ecomAnalytics.util.RedisCacheKeys).customerCodeKey(#customerCode)")
 //    @Transactional(readOnly = true)
 //    public Customers findCustomerByCustomerCode(String customerCode) {
@@ -0,0 +1,87 @@
+package com.sqli.ecomAnalytics.service;
+
+import com.sqli.ecomAnalytics.entity.OrderStatus;
+import com.sqli.ecomAnalytics.entity.Orders;
+import com.sqli.ecomAnalytics.repository.DailySalesRollupRepository;
+import com.sqli.ecomAnalytics.repository.OrderRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+@Service
+@Slf4j
+public class DailySalesRollupService {
+    private final DailySalesRollupRepository rollupRepository;
+    private final OrderRepository orderRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public DailySalesRollupService(DailySalesRollupRepository rollupRepository, OrderRepository orderRepository,
+                                   PlatformTransactionManager transactionManager) {
+        this.rollupRepository = rollupRepository;
+        this.orderRepository = orderRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordOrderCreated(Orders order) {
+        rollupRepository.applyDelta(order.getOrderDate().toLocalDate(), order.getStatus().name(),
+                order.getTotalAmount(), 1);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordOrdersCreated(List<Orders> orders) {
+        Map<LocalDate, Map<OrderStatus, List<Orders>>> buckets = orders.stream()
+                .collect(Collectors.groupingBy(o -> o.getOrderDate().toLocalDate(), TreeMap::new,
+                        Collectors.groupingBy(Orders::getStatus)));
+
+        buckets.forEach((salesDate, byStatus) -> byStatus.forEach((status, bucket) -> {
+            BigDecimal revenue = bucket.stream()
+                    .map(Orders::getTotalAmount)
+                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+            rollupRepository.applyDelta(salesDate, status.name(), revenue, bucket.size());
+        }));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordStatusChange(Orders order, OrderStatus previousStatus) {
+        if (previousStatus == order.getStatus()) {
+            return;
+        }
+        rollupRepository.applyDelta(order.getOrderDate().toLocalDate(), previousStatus.name(),
+                order.getTotalAmount().negate(), -1);
+        rollupRepository.applyDelta(order.getOrderDate().toLocalDate(), order.getStatus().name(),
+                order.getTotalAmount(), 1);
+    }
+
+    @Transactional
+    public int rebuildRollup() {
+        rollupRepository.deleteAllRows();
+        int rows = rollupRepository.backfillFromOrders();
+        log.info("Daily sales rollup rebuilt with {} rows", rows);
+        return rows;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        try {
+            if (rollupRepository.count() == 0 && orderRepository.count() > 0) {
+                log.info("Daily sales rollup is empty while orders exist, running backfill...");
+                transactionTemplate.executeWithoutResult(status -> rebuildRollup());
+            }
+        } catch (Exception e) {
+            log.error("Daily sales rollup backfill failed: {}", e.getMessage());
+        }
+    }
+}
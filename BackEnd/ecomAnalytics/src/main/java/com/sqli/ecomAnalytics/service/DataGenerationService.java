@@ -1,6 +1,7 @@
 package com.sqli.ecomAnalytics.service;
 
 import com.sqli.ecomAnalytics.configuration.DataGenerationProp;
+import com.sqli.ecomAnalytics.generator.BulkDataGenerator;
 import com.sqli.ecomAnalytics.generator.CustomerGenerator;
 import com.sqli.ecomAnalytics.generator.OrderDataGenerator;
 import com.sqli.ecomAnalytics.generator.ProductGenerator;
@@ -13,6 +14,7 @@ import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDate;
+import java.time.YearMonth;
 
 
 @Component
@@ -22,21 +24,27 @@ public class DataGenerationService {
     private final CustomerGenerator customerGenerator;
     private final ProductGenerator productGenerator;
     private final OrderDataGenerator orderGenerator;
+    private final BulkDataGenerator bulkDataGenerator;
     private final DataGenerationProp prop;
     private final CustomerRepository customerRepository;
     private final ProductRepository productRepository;
     private final MLEventPublisher mlEventPublisher;
+    private final OrderPartitionService orderPartitionService;
+    private final CustomerMetricsService customerMetricsService;
 
     private static final Logger logger = LoggerFactory.getLogger(DataGenerationService.class);
 
-    public DataGenerationService(CustomerGenerator customerGenerator, ProductGenerator productGenerator, OrderDataGenerator orderGenerator, DataGenerationProp prop, CustomerRepository customerRepository, CustomersService customersService, ProductsService productsService, ProductRepository productRepository, MLEventPublisher mlEventPublisher) {
+    public DataGenerationService(CustomerGenerator customerGenerator, ProductGenerator productGenerator, OrderDataGenerator orderGenerator, BulkDataGenerator bulkDataGenerator, DataGenerationProp prop, CustomerRepository customerRepository, CustomersService customersService, ProductsService productsService, ProductRepository productRepository, MLEventPublisher mlEventPublisher, OrderPartitionService orderPartitionService, CustomerMetricsService customerMetricsService) {
         this.customerGenerator = customerGenerator;
         this.productGenerator = productGenerator;
         this.orderGenerator = orderGenerator;
+        this.bulkDataGenerator = bulkDataGenerator;
         this.prop = prop;
         this.customerRepository = customerRepository;
         this.productRepository = productRepository;
         this.mlEventPublisher = mlEventPublisher;
+        this.orderPartitionService = orderPartitionService;
+        this.customerMetricsService = customerMetricsService;
     }
 
     @PostConstruct
@@ -49,8 +57,12 @@ public class DataGenerationService {
                 mlEventPublisher.enableEvents();
                 return;
             }
-            generateCustomers();
-            generateProducts();
+            if (isBulk()) {
+                generateCustomersAndProductsInBulk();
+            } else {
+                generateCustomers();
+                generateProducts();
+            }
             generateOrders();
 
             logger.info("Data generation completed successfully");
@@ -73,6 +85,17 @@ public class DataGenerationService {
         return customerCount > 0 && productCount > 0;
     }
 
+    private boolean isBulk() {
+        return prop.getMode() == DataGenerationProp.Mode.BULK;
+    }
+
+    private void generateCustomersAndProductsInBulk() {
+        logger.info("Bulk generating {} customers and {} products on {} threads...",
+                prop.getCustomers().getCount(), prop.getProducts().getCount(), prop.getBulk().getThreads());
+        bulkDataGenerator.generateCustomersAndProducts();
+        logger.info("Customers and products generation completed");
+    }
+
     private void generateCustomers() {
         logger.info("Generating {} customers...", prop.getCustomers().getCount());
         customerGenerator.generateCustomers();
@@ -92,8 +115,18 @@ public class DataGenerationService {
 
         LocalDate endDate = LocalDate.now();
         LocalDate startDate = endDate.minusMonths(prop.getOrders().getMonths());
-
-        orderGenerator.generateOrdersForDateRange(startDate, endDate, prop.getOrders().getDailyVolume());
+        // Generated history can reach further back than the partitions created by the migration
+        orderPartitionService.ensurePartitions(YearMonth.from(startDate), YearMonth.from(endDate));
+
+        if (isBulk()) {
+            bulkDataGenerator.generateOrders(startDate, endDate);
+            // Bulk writes skip the per-order bookkeeping of OrdersService, derive it from the orders in one pass
+            bulkDataGenerator.rebuildAggregates();
+        } else {
+            orderGenerator.generateOrdersForDateRange(startDate, endDate, prop.getOrders().getDailyVolume());
+        }
+        // Customer analytics read the snapshot, do not leave it empty until the next scheduled refresh
+        customerMetricsService.refresh();
         logger.info("Orders generation completed");
     }
 }
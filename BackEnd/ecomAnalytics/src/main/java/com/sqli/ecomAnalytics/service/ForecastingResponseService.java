@@ -1,58 +1,238 @@
 package com.sqli.ecomAnalytics.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sqli.ecomAnalytics.configuration.ForecastProp;
+import com.sqli.ecomAnalytics.dto.ForecastJobDto;
+import com.sqli.ecomAnalytics.dto.ForecastJobStatus;
+import com.sqli.ecomAnalytics.dto.ForecastRequestDto;
 import com.sqli.ecomAnalytics.dto.ForecastResponse;
+import com.sqli.ecomAnalytics.exceptions.ForecastJobNotFoundException;
+import com.sqli.ecomAnalytics.util.RedisCacheKeys;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.support.KafkaHeaders;
 import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.async.DeferredResult;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.CompletableFuture;
+import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
+import java.util.concurrent.CopyOnWriteArrayList;
 
+/**
+ * Forecasts run as jobs: submitting publishes the request and returns right away, the job and its result
+ * are kept in Redis so any node can answer polls, and identical requests reuse the stored job until it expires.
+ */
 @Service
 @Slf4j
 public class ForecastingResponseService {
-    private final Map<String, CompletableFuture<ForecastResponse>> pendingRequests = new ConcurrentHashMap<>();
+    private static final RedisScript<Long> REPLACE_CLAIM = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then redis.call('set', KEYS[1], ARGV[2], 'PX', ARGV[3]) return 1 " +
+                    "else return 0 end", Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final MLEventPublisher mlEventPublisher;
+    private final ForecastProp forecastProp;
+    // Requests parked on this node until their job completes
+    private final Map<String, List<DeferredResult<ForecastJobDto>>> waiters = new ConcurrentHashMap<>();
+
+    public ForecastingResponseService(StringRedisTemplate redisTemplate, ObjectMapper objectMapper,
+                                      MLEventPublisher mlEventPublisher, ForecastProp forecastProp) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.mlEventPublisher = mlEventPublisher;
+        this.forecastProp = forecastProp;
+    }
+
+    public ForecastJobDto submit(ForecastRequestDto request) {
+        String requestKey = requestKey(request.getForecastDays(), request.isIncludeConfidenceIntervals(), request.isModelComparison());
+        String requestId = UUID.randomUUID().toString();
+
+        // Stored before the request key points at it, a concurrent identical request never finds a claim without a job
+        ForecastJobDto job = ForecastJobDto.builder()
+                .requestId(requestId)
+                .status(ForecastJobStatus.PENDING)
+                .forecastDays(request.getForecastDays())
+                .includeConfidenceIntervals(request.isIncludeConfidenceIntervals())
+                .modelComparison(request.isModelComparison())
+                .submittedAt(LocalDateTime.now())
+                .build();
+        saveJob(job);
+
+        ForecastJobDto existing = claimRequest(requestKey, requestId);
+        if (existing != null) {
+            redisTemplate.delete(RedisCacheKeys.forecastJobKey(requestId));
+            log.info("Forecast request served by existing job: {}", existing.getRequestId());
+            return existing;
+        }
+
+        if (!mlEventPublisher.areEventsEnabled()) {
+            return fail(job, "ML events are disabled");
+        }
+        try {
+            request.setRequestId(requestId);
+            mlEventPublisher.publishForecastRequest(request);
+        } catch (Exception e) {
+            log.error("Publishing forecast request {} failed", requestId, e);
+            return fail(job, "Failed to publish forecast request: " + e.getMessage());
+        }
+        log.info("Forecast job submitted: {}", requestId);
+        return job;
+    }
+
+    // Returns the job already serving this request, or null once the request key points at requestId. A failed job is
+    // only replaced if the key still names it, so two requests racing to retry it cannot both publish
+    private ForecastJobDto claimRequest(String requestKey, String requestId) {
+        while (true) {
+            if (Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(requestKey, requestId, forecastProp.getResultTtl()))) {
+                return null;
+            }
+            String existingId = redisTemplate.opsForValue().get(requestKey);
+            if (existingId == null) {
+                continue;
+            }
+            ForecastJobDto existing = findJob(existingId);
+            if (existing != null && existing.getStatus() != ForecastJobStatus.FAILED) {
+                return existing;
+            }
+            Long replaced = redisTemplate.execute(REPLACE_CLAIM, List.of(requestKey), existingId, requestId,
+                    String.valueOf(forecastProp.getResultTtl().toMillis()));
+            if (Long.valueOf(1).equals(replaced)) {
+                return null;
+            }
+        }
+    }
+
+    public ForecastJobDto getJob(String requestId) {
+        ForecastJobDto job = findJob(requestId);
+        if (job == null) {
+            throw new ForecastJobNotFoundException("Forecast job with ID: " + requestId + " not found");
+        }
+        return job;
+    }
+
+    public DeferredResult<ForecastJobDto> awaitJob(String requestId, Duration timeout) {
+        ForecastJobDto job = getJob(requestId);
+        Duration wait = timeout.compareTo(forecastProp.getMaxWait()) > 0 ? forecastProp.getMaxWait() : timeout;
+        DeferredResult<ForecastJobDto> result = new DeferredResult<>(wait.toMillis());
+        if (job.getStatus() != ForecastJobStatus.PENDING) {
+            result.setResult(job);
+            return result;
+        }
+
+        waiters.computeIfAbsent(requestId, id -> new CopyOnWriteArrayList<>()).add(result);
+        result.onTimeout(() -> result.setResult(findJob(requestId)));
+        result.onCompletion(() -> removeWaiter(requestId, result));
+
+        // The job may have completed between the first read and the registration
+        ForecastJobDto latest = findJob(requestId);
+        if (latest != null && latest.getStatus() != ForecastJobStatus.PENDING) {
+            result.setResult(latest);
+        }
+        return result;
+    }
 
     @KafkaListener(topics = "forecast-responses")
     public void listenForForecastResponse(@Payload ForecastResponse response,
                                           @Header(KafkaHeaders.RECEIVED_KEY) String key) {
         log.info("Received forecast response for key: {}", key);
-        CompletableFuture<ForecastResponse> future = pendingRequests.remove(key);
-        if (future != null) {
-            future.complete(response);
-            log.info("Completed future for request: {}", key);
+        ForecastJobDto job = readJob(key);
+        if (job == null) {
+            log.warn("No forecast job found for key: {}", key);
+            return;
+        }
+
+        job.setResult(response);
+        job.setCompletedAt(LocalDateTime.now());
+        if (response.isSuccess()) {
+            job.setStatus(ForecastJobStatus.COMPLETED);
+            job.setError(null);
+            saveJob(job);
         } else {
-            log.warn("No pending request found for key: {}", key);
+            job.setStatus(ForecastJobStatus.FAILED);
+            job.setError(response.getError());
+            saveJob(job);
+            forgetRequest(job);
         }
+        redisTemplate.convertAndSend(forecastProp.getCompletionChannel(), key);
     }
 
-    public void registerPendingRequest(String requestId) {
-        log.info("Registering pending request: {}", requestId);
-        pendingRequests.put(requestId, new CompletableFuture<>());
+    public void onJobCompleted(String requestId) {
+        List<DeferredResult<ForecastJobDto>> parked = waiters.remove(requestId);
+        if (parked == null) {
+            return;
+        }
+        ForecastJobDto job = findJob(requestId);
+        parked.forEach(result -> result.setResult(job));
     }
 
-    public ForecastResponse waitForForecastResults(String requestId) {
-        try {
-            log.info("Waiting for forecast results for request: {}", requestId);
-            CompletableFuture<ForecastResponse> future = pendingRequests.get(requestId);
-            if (future == null) {
-                throw new RuntimeException("No pending request found for ID: " + requestId);
-            }
-            return future.get(30, TimeUnit.SECONDS);
-        } catch (TimeoutException e) {
+    private ForecastJobDto findJob(String requestId) {
+        ForecastJobDto job = readJob(requestId);
+        if (job != null && job.getStatus() == ForecastJobStatus.PENDING
+                && job.getSubmittedAt().plus(forecastProp.getTimeout()).isBefore(LocalDateTime.now())) {
             log.error("Forecast generation timed out for request: {}", requestId);
-            pendingRequests.remove(requestId);
-            throw new RuntimeException("Forecast generation timed out");
-        } catch (Exception e) {
-            log.error("Error waiting for forecast results for request: {}", requestId, e);
-            pendingRequests.remove(requestId);
-            throw new RuntimeException("Error waiting for forecast results", e);
+            return fail(job, "Forecast generation timed out");
+        }
+        return job;
+    }
+
+    private ForecastJobDto readJob(String requestId) {
+        String json = redisTemplate.opsForValue().get(RedisCacheKeys.forecastJobKey(requestId));
+        if (json == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(json, ForecastJobDto.class);
+        } catch (JsonProcessingException e) {
+            log.error("Could not read forecast job: {}", requestId, e);
+            return null;
         }
     }
+
+    private void saveJob(ForecastJobDto job) {
+        try {
+            redisTemplate.opsForValue().set(RedisCacheKeys.forecastJobKey(job.getRequestId()),
+                    objectMapper.writeValueAsString(job), forecastProp.getResultTtl());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not store forecast job " + job.getRequestId(), e);
+        }
+    }
+
+    private ForecastJobDto fail(ForecastJobDto job, String error) {
+        job.setStatus(ForecastJobStatus.FAILED);
+        job.setError(error);
+        job.setCompletedAt(LocalDateTime.now());
+        saveJob(job);
+        forgetRequest(job);
+        return job;
+    }
+
+    // A failed job must not be reused, the next identical request runs the model again
+    private void forgetRequest(ForecastJobDto job) {
+        String requestKey = requestKey(job.getForecastDays(), job.isIncludeConfidenceIntervals(), job.isModelComparison());
+        if (job.getRequestId().equals(redisTemplate.opsForValue().get(requestKey))) {
+            redisTemplate.delete(requestKey);
+        }
+    }
+
+    private void removeWaiter(String requestId, DeferredResult<ForecastJobDto> result) {
+        waiters.computeIfPresent(requestId, (id, parked) -> {
+            parked.remove(result);
+            return parked.isEmpty() ? null : parked;
+        });
+    }
+
+    private static String requestKey(int forecastDays, boolean includeConfidenceIntervals, boolean modelComparison) {
+        return RedisCacheKeys.forecastRequestKey(forecastDays, includeConfidenceIntervals, modelComparison);
+    }
 }
@@ -0,0 +1,332 @@
+package com.sqli.ecomAnalytics.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sqli.ecomAnalytics.configuration.MLEventsProp;
+import com.sqli.ecomAnalytics.events.MLEvents;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Transactional outbox for ML events. Writers append rows in their own transaction, so an event exists exactly when
+ * its change committed and the write path never waits on the broker. A relay drains the rows to Kafka in id order.
+ * Delivery is at least once and order is best effort: a customer whose send failed keeps every later row of the batch
+ * and retries them together after a backoff. Those later rows were usually sent already, so the consumer can see them
+ * again after the retried event, duplicated and out of order, and must tolerate both. An event that cannot be read
+ * back, or is still refused after max-attempts, is moved to ml_event_dead_letter instead of blocking the customer.
+ */
+@Service
+@Slf4j
+public class MLEventOutboxService {
+    // Any constant shared by every node, only one relay drains the outbox at a time
+    private static final long RELAY_LOCK_KEY = 7_310_028_331L;
+
+    private static final String INSERT =
+            "INSERT INTO ml_event_outbox (customer_id, event_type, payload) VALUES (?, ?, ?)";
+    // Customers backing off are skipped entirely, their newer events must wait behind the ones being retried
+    private static final String SELECT_BATCH = "SELECT o.id, o.customer_id, o.payload, o.attempts " +
+            "FROM ml_event_outbox o " +
+            "WHERE NOT EXISTS (SELECT 1 FROM ml_event_outbox b " +
+            "                  WHERE b.customer_id = o.customer_id AND b.next_attempt_at > NOW()) " +
+            "ORDER BY o.id LIMIT ?";
+
+    // Same id so a replayed row can be traced back, attempts includes the one that gave up
+    private static final String MOVE_TO_DEAD_LETTER = "WITH moved AS (DELETE FROM ml_event_outbox " +
+            "WHERE id = ? AND next_attempt_at = ? RETURNING *) " +
+            "INSERT INTO ml_event_dead_letter (id, customer_id, event_type, payload, attempts, reason, created_at) " +
+            "SELECT id, customer_id, event_type, payload, attempts + 1, ?, created_at FROM moved";
+
+    private static final RowMapper<OutboxRecord> ROW_MAPPER = (rs, rowNum) ->
+            new OutboxRecord(rs.getLong("id"), rs.getInt("customer_id"), rs.getString("payload"), rs.getInt("attempts"));
+
+    record OutboxRecord(long id, int customerId, String payload, int attempts) {}
+
+    private final JdbcTemplate jdbcTemplate;
+    private final KafkaTemplate<String, MLEvents> kafkaTemplate;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final MLEventsProp.Outbox outbox;
+    private final MLEventsProp.Producer producer;
+    private final String topic;
+
+    private final AtomicLong lagMillis = new AtomicLong();
+    private final DistributionSummary batchSizes;
+    private final Counter sentEvents;
+    private final Counter failedEvents;
+    private final Counter deadLetteredEvents;
+
+    public MLEventOutboxService(JdbcTemplate jdbcTemplate, KafkaTemplate<String, MLEvents> kafkaTemplate,
+                                ObjectMapper objectMapper, PlatformTransactionManager transactionManager,
+                                MLEventsProp mlEventsProp, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.kafkaTemplate = kafkaTemplate;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.outbox = mlEventsProp.getOutbox();
+        this.producer = mlEventsProp.getProducer();
+        this.topic = mlEventsProp.getTopic();
+
+        TimeGauge.builder("ml.events.outbox.lag", lagMillis, TimeUnit.MILLISECONDS, AtomicLong::get)
+                .description("Age of the oldest ML event still waiting in the outbox")
+                .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("ml.events.outbox.batch.size")
+                .description("Outbox rows picked up per relay batch")
+                .publishPercentileHistogram()
+                .maximumExpectedValue((double) outbox.getBatchSize())
+                .register(meterRegistry);
+        this.sentEvents = Counter.builder("ml.events.outbox.sent")
+                .description("Outbox rows acknowledged by the broker")
+                .register(meterRegistry);
+        this.failedEvents = Counter.builder("ml.events.outbox.failed")
+                .description("Outbox rows kept for retry after a failed or unacknowledged send")
+                .register(meterRegistry);
+        this.deadLetteredEvents = Counter.builder("ml.events.outbox.dead.lettered")
+                .description("Outbox rows given up on and moved to ml_event_dead_letter")
+                .register(meterRegistry);
+    }
+
+    // Joins the caller's transaction, an event for a rolled back change is rolled back with it
+    public void append(MLEvents event) {
+        jdbcTemplate.update(INSERT, event.getCustomerId(), event.getEventType().name(), toJson(event));
+    }
+
+    public void appendAll(List<MLEvents> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT, events, outbox.getBatchSize(), (ps, event) -> {
+            ps.setInt(1, event.getCustomerId());
+            ps.setString(2, event.getEventType().name());
+            ps.setString(3, toJson(event));
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${ml-events.outbox.poll-interval-ms:500}")
+    public void relay() {
+        try {
+            // Keeps draining while batches come back full and clean, a bulk load does not wait a poll per batch
+            int sent;
+            do {
+                sent = relayBatch();
+            } while (sent == outbox.getBatchSize());
+        } catch (Exception e) {
+            log.error("ML event outbox relay failed: {}", e.getMessage());
+        }
+    }
+
+    // Returns the number of rows acknowledged and removed. Rows are claimed and committed first, the broker is awaited
+    // outside any transaction and the outcome is written in a second short one, so no lock is held across a send
+    public int relayBatch() {
+        Claim claim = transactionTemplate.execute(status -> claimBatch());
+        if (claim == null || claim.batch().isEmpty()) {
+            return 0;
+        }
+        List<OutboxRecord> batch = claim.batch();
+        batchSizes.record(batch.size());
+
+        long deadline = System.nanoTime() + outbox.getSendTimeout().toNanos();
+        Settlement settlement = await(batch, send(batch, deadline), deadline);
+        transactionTemplate.executeWithoutResult(status -> settle(claim, settlement));
+        return settlement.acknowledged().size();
+    }
+
+    // The lease uses next_attempt_at, so the claimed customers are skipped by every relay until it is settled or expires.
+    // Its exact value identifies the claim, a relay whose lease ran out and was taken over settles nothing
+    private Claim claimBatch() {
+        Boolean locked = jdbcTemplate.queryForObject("SELECT pg_try_advisory_xact_lock(?)", Boolean.class, RELAY_LOCK_KEY);
+        if (!Boolean.TRUE.equals(locked)) {
+            return new Claim(List.of(), null);
+        }
+        List<OutboxRecord> batch = jdbcTemplate.query(SELECT_BATCH, ROW_MAPPER, outbox.getBatchSize());
+        updateLag();
+        if (batch.isEmpty()) {
+            return new Claim(batch, null);
+        }
+        Timestamp lease = jdbcTemplate.queryForObject("SELECT NOW() + make_interval(secs => ?)", Timestamp.class,
+                claimLease().toMillis() / 1000.0);
+        jdbcTemplate.update("UPDATE ml_event_outbox SET next_attempt_at = ? WHERE id = ANY(?)", lease,
+                batch.stream().map(OutboxRecord::id).toArray(Long[]::new));
+        return new Claim(batch, lease);
+    }
+
+    // Sending stops at send-timeout plus at most one send blocked for max-block-ms, and the producer gives up on a
+    // record after delivery-timeout-ms, so nothing of the batch is still in flight when the lease runs out
+    Duration claimLease() {
+        return outbox.getSendTimeout().plusMillis(producer.getMaxBlockMs()).multipliedBy(2);
+    }
+
+    private List<CompletableFuture<?>> send(List<OutboxRecord> batch, long deadline) {
+        List<CompletableFuture<?>> futures = new ArrayList<>(batch.size());
+        Throwable unreachable = null;
+        for (OutboxRecord record : batch) {
+            MLEvents event;
+            try {
+                event = objectMapper.readValue(record.payload(), MLEvents.class);
+            } catch (Exception e) {
+                futures.add(CompletableFuture.failedFuture(new UnreadablePayloadException(e)));
+                continue;
+            }
+            // Once a send timed out waiting on the broker or the batch ran out of time, the rest is failed without
+            // blocking max-block-ms each, they are retried with their customer
+            if (unreachable == null && System.nanoTime() > deadline) {
+                unreachable = new TimeoutException("outbox batch not sent within " + outbox.getSendTimeout());
+            }
+            if (unreachable != null) {
+                futures.add(CompletableFuture.failedFuture(unreachable));
+                continue;
+            }
+            CompletableFuture<?> future;
+            try {
+                future = kafkaTemplate.send(topic, String.valueOf(record.customerId()), event);
+            } catch (Exception e) {
+                future = CompletableFuture.failedFuture(e);
+            }
+            futures.add(future);
+            if (future.isCompletedExceptionally()) {
+                Throwable failure = failure(future, deadline);
+                if (blockedOnBroker(failure)) {
+                    unreachable = failure;
+                }
+            }
+        }
+        return futures;
+    }
+
+    private static boolean blockedOnBroker(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof org.apache.kafka.common.errors.TimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // A payload that cannot be read back never will, and neither can an event the broker keeps refusing past
+    // max-attempts: both go to the dead letter table so the customer's retries do not stall on them forever
+    private Settlement await(List<OutboxRecord> batch, List<CompletableFuture<?>> futures, long deadline) {
+        List<Long> acknowledged = new ArrayList<>(batch.size());
+        List<Object[]> deadLetters = new ArrayList<>();
+        Map<Integer, OutboxRecord> firstFailure = new HashMap<>();
+        for (int i = 0; i < batch.size(); i++) {
+            OutboxRecord record = batch.get(i);
+            if (firstFailure.containsKey(record.customerId())) {
+                continue;
+            }
+            Throwable failure = failure(futures.get(i), deadline);
+            if (failure == null) {
+                acknowledged.add(record.id());
+            } else if (failure instanceof UnreadablePayloadException) {
+                deadLetters.add(new Object[]{record.id(), "unreadable payload: " + failure.getCause().getMessage()});
+            } else if (record.attempts() + 1 >= outbox.getMaxAttempts()) {
+                deadLetters.add(new Object[]{record.id(), "not acknowledged after " + (record.attempts() + 1) +
+                        " attempts: " + failure.getMessage()});
+            } else {
+                firstFailure.put(record.customerId(), record);
+            }
+        }
+        return new Settlement(acknowledged, deadLetters, firstFailure);
+    }
+
+    // Every statement only touches rows still carrying this claim's lease, rows reclaimed by another relay are theirs
+    private void settle(Claim claim, Settlement settlement) {
+        List<OutboxRecord> batch = claim.batch();
+        if (!settlement.acknowledged().isEmpty()) {
+            int deleted = jdbcTemplate.update("DELETE FROM ml_event_outbox WHERE id = ANY(?) AND next_attempt_at = ?",
+                    settlement.acknowledged().toArray(Long[]::new), claim.lease());
+            if (deleted < settlement.acknowledged().size()) {
+                log.warn("ML event outbox: lease expired before settling, {} acknowledged events will be sent again",
+                        settlement.acknowledged().size() - deleted);
+            }
+        }
+        if (!settlement.deadLetters().isEmpty()) {
+            List<Object[]> moves = settlement.deadLetters().stream()
+                    .map(deadLetter -> new Object[]{deadLetter[0], claim.lease(), deadLetter[1]})
+                    .toList();
+            jdbcTemplate.batchUpdate(MOVE_TO_DEAD_LETTER, moves);
+            log.error("ML event outbox: moved {} events to the dead letter table", settlement.deadLetters().size());
+        }
+        // Only the event that failed counts an attempt, the ones queued behind it just wait with it
+        if (!settlement.firstFailure().isEmpty()) {
+            long lastId = batch.get(batch.size() - 1).id();
+            List<Object[]> backoffs = settlement.firstFailure().values().stream()
+                    .map(record -> new Object[]{record.id(), backoff(record.attempts()).toMillis() / 1000.0,
+                            record.customerId(), lastId, claim.lease()})
+                    .toList();
+            jdbcTemplate.batchUpdate("UPDATE ml_event_outbox SET attempts = attempts + CASE WHEN id = ? THEN 1 ELSE 0 END, " +
+                    "next_attempt_at = NOW() + make_interval(secs => ?) " +
+                    "WHERE customer_id = ? AND id <= ? AND next_attempt_at = ?", backoffs);
+            log.warn("ML event outbox: {} customers backing off after failed sends", settlement.firstFailure().size());
+        }
+
+        sentEvents.increment(settlement.acknowledged().size());
+        deadLetteredEvents.increment(settlement.deadLetters().size());
+        failedEvents.increment(batch.size() - settlement.acknowledged().size() - settlement.deadLetters().size());
+    }
+
+    private static Throwable failure(CompletableFuture<?> future, long deadline) {
+        try {
+            future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return e;
+        } catch (ExecutionException e) {
+            return e.getCause();
+        } catch (Exception e) {
+            return e;
+        }
+    }
+
+    private record Claim(List<OutboxRecord> batch, Timestamp lease) {}
+
+    private record Settlement(List<Long> acknowledged, List<Object[]> deadLetters,
+                              Map<Integer, OutboxRecord> firstFailure) {}
+
+    private static class UnreadablePayloadException extends RuntimeException {
+        UnreadablePayloadException(Throwable cause) {
+            super(cause);
+        }
+    }
+
+    Duration backoff(int attempts) {
+        Duration delay = outbox.getInitialBackoff().multipliedBy(1L << Math.min(attempts, 20));
+        return delay.compareTo(outbox.getMaxBackoff()) > 0 ? outbox.getMaxBackoff() : delay;
+    }
+
+    // Measured by the database, created_at is written with its clock
+    private void updateLag() {
+        List<Long> oldest = jdbcTemplate.queryForList("SELECT CAST(EXTRACT(EPOCH FROM LOCALTIMESTAMP - created_at) * 1000 AS BIGINT) " +
+                "FROM ml_event_outbox ORDER BY id LIMIT 1", Long.class);
+        lagMillis.set(oldest.isEmpty() ? 0 : Math.max(0, oldest.get(0)));
+    }
+
+    private String toJson(MLEvents event) {
+        try {
+            return objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize ML event " + event.getEventType(), e);
+        }
+    }
+}
@@ -1,21 +1,36 @@
 package com.sqli.ecomAnalytics.service;
 
 
+import com.sqli.ecomAnalytics.configuration.MLEventsProp;
 import com.sqli.ecomAnalytics.dto.ForecastRequestDto;
+import com.sqli.ecomAnalytics.entity.Orders;
 import com.sqli.ecomAnalytics.events.Events;
 import com.sqli.ecomAnalytics.events.MLEvents;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 @Slf4j
 public class MLEventPublisher {
     private final KafkaTemplate<String, MLEvents> kafkaTemplate;
-    private static final String TOPIC = "ml-events";
+    private final MLEventOutboxService outboxService;
+    private final String topic;
+    private final boolean coalescing;
+    // customerId -> bit set of the Events ordinals seen since the last flush, swapped out per customer on flush
+    private final ConcurrentHashMap<Integer, Integer> dirtyCustomers = new ConcurrentHashMap<>();
     private boolean eventsEnabled = false;
 
     public void enableEvents () {
@@ -32,10 +47,16 @@ public class MLEventPublisher {
         return eventsEnabled;
     }
 
-    public MLEventPublisher(KafkaTemplate<String, MLEvents> kafkaTemplate) {
+    public MLEventPublisher(KafkaTemplate<String, MLEvents> kafkaTemplate, MLEventOutboxService outboxService,
+                            MLEventsProp mlEventsProp) {
         this.kafkaTemplate = kafkaTemplate;
+        this.outboxService = outboxService;
+        this.topic = mlEventsProp.getTopic();
+        this.coalescing = mlEventsProp.getCoalescing().isEnabled();
     }
 
+    // Domain events go through the outbox in the caller's transaction, a failed insert fails the write itself.
+    // With coalescing they only mark the customer dirty and the flush writes one event per customer instead
     private void publishEvent(MLEvents event) {
 
         if (!eventsEnabled) {
@@ -43,31 +64,72 @@ public class MLEventPublisher {
             return;
         }
 
-        try {
-            CompletableFuture<SendResult<String, MLEvents>> future =
-                    kafkaTemplate.send(TOPIC, String.valueOf(event.getCustomerId()), event);
+        if (coalescing) {
+            markDirtyAfterCommit(List.of(event));
+        } else {
+            outboxService.append(event);
+        }
+    }
 
-            future.whenComplete((result, ex) -> {
-                if (ex == null) {
-                    log.info("Published event: {} for customer: {}",
-                            event.getEventType(),
-                            event.getCustomerId());
-                } else {
-                    log.error("Failed to publish event: {} for customer: {}",
-                            event.getEventType(),
-                            event.getCustomerId(),
-                            ex);
-                }
-            });
+    // Only committed changes make a customer dirty, a rolled back write leaves nothing to flush
+    private void markDirtyAfterCommit(List<MLEvents> events) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            markDirty(events);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                markDirty(events);
+            }
+        });
+    }
 
+    private void markDirty(List<MLEvents> events) {
+        for (MLEvents event : events) {
+            dirtyCustomers.merge(event.getCustomerId(), 1 << event.getEventType().ordinal(), (a, b) -> a | b);
+        }
+    }
+
+    // Marks that land while a flush runs either make this window or start the next one, none is dropped
+    @Scheduled(fixedDelayString = "${ml-events.coalescing.window-ms:2000}")
+    public void flushDirtyCustomers() {
+        if (dirtyCustomers.isEmpty()) {
+            return;
+        }
+        Map<Integer, Integer> drained = new HashMap<>();
+        for (Integer customerId : dirtyCustomers.keySet()) {
+            Integer events = dirtyCustomers.remove(customerId);
+            if (events != null) {
+                drained.put(customerId, events);
+            }
+        }
+
+        try {
+            outboxService.appendAll(drained.entrySet().stream()
+                    .map(entry -> dirtyEvent(entry.getKey(), entry.getValue()))
+                    .toList());
+            log.debug("Flushed {} dirty customers to the ML event outbox", drained.size());
         } catch (Exception e) {
-            log.error("Error publishing event: {} for customer: {}",
-                    event.getEventType(),
-                    event.getCustomerId(),
-                    e);
+            drained.forEach((customerId, events) -> dirtyCustomers.merge(customerId, events, (a, b) -> a | b));
+            log.error("Could not flush {} dirty customers, retrying next window: {}", drained.size(), e.getMessage());
         }
     }
 
+    @PreDestroy
+    public void flushOnShutdown() {
+        flushDirtyCustomers();
+    }
+
+    private static MLEvents dirtyEvent(int customerId, int events) {
+        MLEvents event = new MLEvents(customerId, Events.CUSTOMER_DIRTY);
+        event.setData(Arrays.stream(Events.values())
+                .filter(type -> (events & (1 << type.ordinal())) != 0)
+                .map(Events::name)
+                .toList());
+        return event;
+    }
+
     public void publishCustomerCreated(int customerId) {
         publishEvent(new MLEvents(customerId, Events.CUSTOMER_CREATED));
     }
@@ -82,6 +144,26 @@ public class MLEventPublisher {
         publishEvent(event);
     }
 
+    public void publishOrdersCreated(List<Orders> orders) {
+        if (!eventsEnabled) {
+            log.debug("ML events disabled - skipping {} order created events", orders.size());
+            return;
+        }
+
+        List<MLEvents> events = orders.stream()
+                .map(order -> {
+                    MLEvents event = new MLEvents(order.getCustomer().getCustomerId(), Events.ORDER_CREATED);
+                    event.setData(order.getOrderId());
+                    return event;
+                })
+                .toList();
+        if (coalescing) {
+            markDirtyAfterCommit(events);
+        } else {
+            outboxService.appendAll(events);
+        }
+    }
+
     public void publishOrderUpdated(int customerId, int orderId) {
         MLEvents event = new MLEvents(customerId, Events.ORDER_UPDATED);
         event.setData(orderId);
@@ -99,7 +181,7 @@ public class MLEventPublisher {
 
         try {
             CompletableFuture<SendResult<String, MLEvents>> future =
-                    kafkaTemplate.send(TOPIC, request.getRequestId(), event);
+                    kafkaTemplate.send(topic, request.getRequestId(), event);
 
             future.whenComplete((result, ex) -> {
                 if (ex == null) {
@@ -118,7 +200,7 @@ public class MLEventPublisher {
         MLEvents event = new MLEvents(0, Events.INITIAL_DATA_GENERATED);
         try {
             CompletableFuture<SendResult<String, MLEvents>> future =
-                    kafkaTemplate.send(TOPIC, "0", event);
+                    kafkaTemplate.send(topic, "0", event);
 
             future.whenComplete((result, ex) -> {
                 if (ex == null) {
@@ -0,0 +1,113 @@
+package com.sqli.ecomAnalytics.service;
+
+import com.sqli.ecomAnalytics.configuration.PartitionProp;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps the monthly orders / order_items partitions in place: months ahead are created before any order can land in
+ * them and, when configured, old months are detached so they can be archived and dropped.
+ * Not transactional on purpose, DETACH PARTITION CONCURRENTLY cannot run inside a transaction block.
+ */
+@Service
+@Slf4j
+public class OrderPartitionService {
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("'y'uuuu'm'MM");
+    private static final String ORDERS = "orders";
+    private static final String ORDER_ITEMS = "order_items";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PartitionProp partitionProp;
+
+    public OrderPartitionService(JdbcTemplate jdbcTemplate, PartitionProp partitionProp) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.partitionProp = partitionProp;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${partitions.cron:0 0 3 * * *}")
+    public void maintainPartitions() {
+        try {
+            YearMonth current = YearMonth.now();
+            ensurePartitions(current, current.plusMonths(partitionProp.getMonthsAhead()));
+            if (partitionProp.getArchiveAfterMonths() > 0) {
+                detachPartitionsBefore(current.minusMonths(partitionProp.getArchiveAfterMonths()));
+            }
+        } catch (Exception e) {
+            log.error("Orders partition maintenance failed: {}", e.getMessage());
+        }
+    }
+
+    public int ensurePartitions(YearMonth from, YearMonth to) {
+        Integer created = jdbcTemplate.queryForObject("SELECT create_order_partitions(?, ?)", Integer.class,
+                from.atDay(1), to.atDay(1));
+        if (created != null && created > 0) {
+            log.info("Created {} monthly orders partitions between {} and {}", created, from, to);
+        }
+        return created == null ? 0 : created;
+    }
+
+    public List<YearMonth> detachPartitionsBefore(YearMonth cutoff) {
+        List<YearMonth> detached = new ArrayList<>();
+        for (YearMonth month : attachedMonths()) {
+            if (month.isBefore(cutoff)) {
+                detachPartition(month);
+                detached.add(month);
+            }
+        }
+        return detached;
+    }
+
+    // The detached tables keep their rows for archival, the daily rollups still hold their aggregates
+    public void detachPartition(YearMonth month) {
+        String suffix = month.format(PARTITION_SUFFIX);
+        String itemsPartition = ORDER_ITEMS + "_" + suffix;
+        String ordersPartition = ORDERS + "_" + suffix;
+
+        // Items first: the orders month can only leave once nothing attached references it
+        detach(ORDER_ITEMS, itemsPartition);
+        dropForeignKeys(itemsPartition);
+        detach(ORDERS, ordersPartition);
+        log.info("Detached orders partitions {} and {} for archival", ordersPartition, itemsPartition);
+    }
+
+    private void detach(String parent, String partition) {
+        // CONCURRENTLY only takes a SHARE UPDATE EXCLUSIVE lock on the parent, inserts into other months keep going
+        jdbcTemplate.execute("ALTER TABLE " + parent + " DETACH PARTITION " + partition + " CONCURRENTLY");
+    }
+
+    private void dropForeignKeys(String table) {
+        List<String> constraints = jdbcTemplate.queryForList(
+                "SELECT conname FROM pg_constraint WHERE conrelid = CAST(? AS regclass) AND contype = 'f'",
+                String.class, table);
+        for (String constraint : constraints) {
+            jdbcTemplate.execute("ALTER TABLE " + table + " DROP CONSTRAINT \"" + constraint + "\"");
+        }
+    }
+
+    private List<YearMonth> attachedMonths() {
+        List<String> partitions = jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+                        "WHERE i.inhparent = CAST(? AS regclass) ORDER BY c.relname",
+                String.class, ORDERS);
+        List<YearMonth> months = new ArrayList<>(partitions.size());
+        for (String partition : partitions) {
+            try {
+                months.add(YearMonth.parse(partition.substring(ORDERS.length() + 1), PARTITION_SUFFIX));
+            } catch (DateTimeParseException | StringIndexOutOfBoundsException e) {
+                log.warn("Skipping orders partition with an unexpected name: {}", partition);
+            }
+        }
+        return months;
+    }
+}
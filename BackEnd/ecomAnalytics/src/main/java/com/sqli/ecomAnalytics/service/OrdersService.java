@@ -1,16 +1,22 @@
 package com.sqli.ecomAnalytics.service;
 
+import com.sqli.ecomAnalytics.cache.CacheTagIndex;
+import com.sqli.ecomAnalytics.configuration.OrdersProp;
+import com.sqli.ecomAnalytics.dto.KeysetPageDto;
 import com.sqli.ecomAnalytics.dto.OrderCreateDto;
 import com.sqli.ecomAnalytics.dto.OrderItemsDto;
 import com.sqli.ecomAnalytics.entity.*;
 import com.sqli.ecomAnalytics.exceptions.CustomerNotFoundException;
+import com.sqli.ecomAnalytics.exceptions.InvalidOrderDataException;
 import com.sqli.ecomAnalytics.exceptions.OrderNotFoundException;
 import com.sqli.ecomAnalytics.exceptions.ProductNotFoundException;
 import com.sqli.ecomAnalytics.exceptions.ProductStockInsufficient;
 import com.sqli.ecomAnalytics.repository.CustomerRepository;
-import com.sqli.ecomAnalytics.repository.OrderItemsRepository;
 import com.sqli.ecomAnalytics.repository.OrderRepository;
 import com.sqli.ecomAnalytics.repository.ProductRepository;
+import com.sqli.ecomAnalytics.util.KeysetPagination;
+import com.sqli.ecomAnalytics.util.RedisCacheKeys;
+import jakarta.persistence.EntityManager;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.cache.annotation.Caching;
@@ -19,9 +25,18 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class OrdersService {
@@ -29,18 +44,28 @@ public class OrdersService {
     private final OrderRepository orderRepository;
     private final CustomerRepository customerRepository;
     private final ProductRepository productRepository;
-    private final OrderItemsRepository orderItemsRepository;
     private final CustomerSegmentsService customerSegmentsService;
     private final MLEventPublisher mlEventPublisher;
+    private final DailySalesRollupService dailySalesRollupService;
+    private final ProductDailyStatsService productDailyStatsService;
+    private final EntityManager entityManager;
+    private final CacheTagIndex cacheTagIndex;
+    private final OrdersProp ordersProp;
 
     public OrdersService(OrderRepository orderRepository, ProductRepository productRepository,
-                         CustomerRepository customerRepository, OrderItemsRepository orderItemsRepository, CustomerSegmentsService customerSegmentsService, MLEventPublisher mlEventPublisher) {
+                         CustomerRepository customerRepository, CustomerSegmentsService customerSegmentsService, MLEventPublisher mlEventPublisher,
+                         DailySalesRollupService dailySalesRollupService, ProductDailyStatsService productDailyStatsService,
+                         EntityManager entityManager, CacheTagIndex cacheTagIndex, OrdersProp ordersProp) {
         this.orderRepository = orderRepository;
         this.customerRepository = customerRepository;
         this.productRepository = productRepository;
-        this.orderItemsRepository = orderItemsRepository;
         this.customerSegmentsService = customerSegmentsService;
         this.mlEventPublisher = mlEventPublisher;
+        this.dailySalesRollupService = dailySalesRollupService;
+        this.productDailyStatsService = productDailyStatsService;
+        this.entityManager = entityManager;
+        this.cacheTagIndex = cacheTagIndex;
+        this.ordersProp = ordersProp;
     }
 
 
@@ -51,25 +76,21 @@ public class OrdersService {
 
     @Transactional
     public Orders createOrder(OrderCreateDto order) {
+        validateItems(order);
         Customers customer = customerRepository.findById(order.getCustomerId())
                 .orElseThrow(() -> new CustomerNotFoundException("Customer not found"));
 
-        BigDecimal totalAmount = BigDecimal.ZERO;
+        // Reserve in product id order so concurrent orders on the same products cannot deadlock, then read them once
+        Map<Integer, Integer> quantities = new TreeMap<>();
+        order.getOrderItems().forEach(item -> quantities.merge(item.getProductId(), item.getQuantity(), Integer::sum));
+        quantities.forEach(this::reserveStock);
 
-        for (OrderItemsDto itemDto : order.getOrderItems()) {
-            Products product = productRepository.findById(itemDto.getProductId())
-                    .orElseThrow(() -> new ProductNotFoundException("Product not found"));
-
-            if (product.getStockQuantity() < itemDto.getQuantity()) {
-                throw new ProductStockInsufficient("Not enough stock for product " + product.getSku());
-            }
+        Map<Integer, Products> products = productRepository.findAllById(quantities.keySet()).stream()
+                .collect(Collectors.toMap(Products::getProductId, Function.identity()));
 
-            BigDecimal itemTotal = product.getPrice().multiply(BigDecimal.valueOf(itemDto.getQuantity()));
-            totalAmount = totalAmount.add(itemTotal);
-
-            product.setStockQuantity(product.getStockQuantity() - itemDto.getQuantity());
-            productRepository.save(product);
-        }
+        BigDecimal totalAmount = order.getOrderItems().stream()
+                .map(item -> products.get(item.getProductId()).getPrice().multiply(BigDecimal.valueOf(item.getQuantity())))
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
 
         Orders o = new Orders();
 
@@ -90,13 +111,14 @@ public class OrdersService {
         o.setOrderDate(order.getOrderDate());
 
         Orders savedOrder = orderRepository.save(o);
+        dailySalesRollupService.recordOrderCreated(savedOrder);
 
         customerSegmentsService.initializeCustomerSegments(customer.getCustomerId());
 
         List<OrderItems> orderItemsList = new ArrayList<>();
 
         for (OrderItemsDto itemDto : order.getOrderItems()) {
-            Products product = productRepository.findById(itemDto.getProductId()).get();
+            Products product = products.get(itemDto.getProductId());
 
             OrderItems orderItem = new OrderItems();
             orderItem.setOrderId(savedOrder.getOrderId());
@@ -106,11 +128,13 @@ public class OrdersService {
             orderItem.setQuantity(itemDto.getQuantity());
             orderItem.setUnitPrice(product.getPrice());
 
-            OrderItems savedOrderItem = orderItemsRepository.save(orderItem);
-            orderItemsList.add(savedOrderItem);
+            // persist directly, save() would merge and issue a select per item because of the assigned composite key
+            entityManager.persist(orderItem);
+            orderItemsList.add(orderItem);
         }
 
         savedOrder.setOrderItems(orderItemsList);
+        cacheTagIndex.evictTagged(orderTags(List.of(savedOrder)));
 
         mlEventPublisher.publishOrderCreated(savedOrder.getCustomer().getCustomerId(), savedOrder.getOrderId());
 
@@ -118,17 +142,136 @@ public class OrdersService {
     }
 
 
-    @Caching(evict = {
-            @CacheEvict(value = "customerSpentCache", allEntries = true),
-            @CacheEvict(value = "customerOrderCountCache", allEntries = true)
-    })
+    // Single conditional UPDATE, the row lock it takes keeps concurrent reservations on a hot SKU from overselling
+    private void reserveStock(int productId, int quantity) {
+        if (productRepository.decrementStock(productId, quantity) == 0) {
+            Products product = productRepository.findById(productId)
+                    .orElseThrow(() -> new ProductNotFoundException("Product not found"));
+            throw new ProductStockInsufficient("Not enough stock for product " + product.getSku());
+        }
+    }
+
+    // order_items is keyed by (order_id, product_id), a product listed twice would fail on insert after stock was taken
+    private void validateItems(OrderCreateDto order) {
+        if (order.getOrderItems() == null || order.getOrderItems().isEmpty()) {
+            throw new InvalidOrderDataException("Order must contain at least one item");
+        }
+        Set<Integer> productIds = new HashSet<>();
+        for (OrderItemsDto item : order.getOrderItems()) {
+            if (!productIds.add(item.getProductId())) {
+                throw new InvalidOrderDataException("Product " + item.getProductId() +
+                        " is listed more than once in the order, merge its quantities into one item");
+            }
+        }
+    }
+
+    @Transactional
+    public List<Orders> createOrders(List<OrderCreateDto> orders) {
+        if (orders.isEmpty()) {
+            return List.of();
+        }
+        if (orders.size() > ordersProp.getMaxBatchSize()) {
+            throw new InvalidOrderDataException("A batch can contain at most " + ordersProp.getMaxBatchSize() +
+                    " orders, got " + orders.size());
+        }
+        orders.forEach(this::validateItems);
+
+        Set<Integer> customerIds = orders.stream()
+                .map(OrderCreateDto::getCustomerId)
+                .collect(Collectors.toSet());
+
+        Map<Integer, Customers> customers = customerRepository.findAllById(customerIds).stream()
+                .collect(Collectors.toMap(Customers::getCustomerId, Function.identity()));
+        if (customers.size() != customerIds.size()) {
+            throw new CustomerNotFoundException("Customer not found");
+        }
+
+        // Reserve per product in id order so concurrent batches touching the same products cannot deadlock
+        Map<Integer, Integer> quantities = new TreeMap<>();
+        orders.stream()
+                .flatMap(o -> o.getOrderItems().stream())
+                .forEach(item -> quantities.merge(item.getProductId(), item.getQuantity(), Integer::sum));
+        quantities.forEach(this::reserveStock);
+
+        Map<Integer, Products> products = productRepository.findAllById(quantities.keySet()).stream()
+                .collect(Collectors.toMap(Products::getProductId, Function.identity()));
+
+        List<Orders> newOrders = new ArrayList<>(orders.size());
+        for (OrderCreateDto order : orders) {
+            Customers customer = customers.get(order.getCustomerId());
+
+            BigDecimal totalAmount = order.getOrderItems().stream()
+                    .map(item -> products.get(item.getProductId()).getPrice().multiply(BigDecimal.valueOf(item.getQuantity())))
+                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+
+            if (customer.getLastOrderDate() == null || customer.getLastOrderDate().isBefore(order.getOrderDate())) {
+                customer.setLastOrderDate(order.getOrderDate());
+            }
+            customer.setTotalSpent(customer.getTotalSpent().add(totalAmount));
+            customer.setOrderCount(customer.getOrderCount() + 1);
+
+            Orders o = new Orders();
+            o.setCustomer(customer);
+            o.setStatus(OrderStatus.PENDING);
+            o.setTotalAmount(totalAmount);
+            o.setOrderDate(order.getOrderDate());
+            newOrders.add(o);
+        }
+
+        customerRepository.saveAll(customers.values());
+        List<Orders> savedOrders = orderRepository.saveAll(newOrders);
+
+        for (int i = 0; i < savedOrders.size(); i++) {
+            Orders savedOrder = savedOrders.get(i);
+            List<OrderItems> orderItemsList = new ArrayList<>();
+
+            for (OrderItemsDto itemDto : orders.get(i).getOrderItems()) {
+                Products product = products.get(itemDto.getProductId());
+
+                OrderItems orderItem = new OrderItems();
+                orderItem.setOrderId(savedOrder.getOrderId());
+                orderItem.setOrder(savedOrder);
+                orderItem.setProductId(itemDto.getProductId());
+                orderItem.setProduct(product);
+                orderItem.setQuantity(itemDto.getQuantity());
+                orderItem.setUnitPrice(product.getPrice());
+
+                // persist directly, save() would merge and issue a select per item because of the assigned composite key
+                entityManager.persist(orderItem);
+                orderItemsList.add(orderItem);
+            }
+            savedOrder.setOrderItems(orderItemsList);
+        }
+
+        dailySalesRollupService.recordOrdersCreated(savedOrders);
+        customerIds.forEach(customerSegmentsService::initializeCustomerSegments);
+        cacheTagIndex.evictTagged(Stream.concat(customerIds.stream().map(RedisCacheKeys::customerTag),
+                orderTags(savedOrders).stream()).toList());
+        mlEventPublisher.publishOrdersCreated(savedOrders);
+
+        return savedOrders;
+    }
+
+    // Analytics windows over the orders' months, closed ones included since orders can be dated or updated in the past
+    private static List<String> orderTags(List<Orders> orders) {
+        return Stream.concat(Stream.of(RedisCacheKeys.allOrdersTag()),
+                orders.stream().map(o -> RedisCacheKeys.orderMonthTag(YearMonth.from(o.getOrderDate()))).distinct())
+                .toList();
+    }
+
     @Transactional
     public Orders updateOrderStatus(int orderId, OrderStatus orderStatus) {
         Orders updatedOrder = orderRepository.findById(orderId)
                 .orElseThrow(() -> new OrderNotFoundException("Order with ID:" + orderId + " not found"));
 
+        OrderStatus previousStatus = updatedOrder.getStatus();
         updatedOrder.setStatus(orderStatus);
-        return orderRepository.save(updatedOrder);
+        Orders savedOrder = orderRepository.save(updatedOrder);
+        dailySalesRollupService.recordStatusChange(savedOrder, previousStatus);
+        productDailyStatsService.recordStatusChange(savedOrder, previousStatus);
+        cacheTagIndex.evictTagged(Stream.concat(Stream.of(RedisCacheKeys.customerTag(savedOrder.getCustomer().getCustomerId())),
+                orderTags(List.of(savedOrder)).stream()).toList());
+        return savedOrder;
     }
 
     @Transactional(readOnly = true)
@@ -141,6 +284,26 @@ public class OrdersService {
         return orderRepository.findByStatus(status);
     }
 
+    @Transactional(readOnly = true)
+    public KeysetPageDto<Orders> getOrdersPage(int afterId, int size) {
+        List<Orders> rows = orderRepository.findPageAfter(afterId, KeysetPagination.limit(size));
+        return KeysetPagination.page(rows, size, Orders::getOrderId);
+    }
+
+    @Transactional(readOnly = true)
+    public KeysetPageDto<Orders> findPageByStatus(OrderStatus status, int afterId, int size) {
+        List<Orders> rows = orderRepository.findPageByStatusAfter(status, afterId, KeysetPagination.limit(size));
+        return KeysetPagination.page(rows, size, Orders::getOrderId);
+    }
+
+    // The consumer runs inside the read-only transaction so lazy order items can still be loaded
+    @Transactional(readOnly = true)
+    public void streamOrders(OrderStatus status, Consumer<Orders> consumer) {
+        try (Stream<Orders> orders = status == null ? orderRepository.streamAll() : orderRepository.streamByStatus(status)) {
+            KeysetPagination.forEachDetached(orders, entityManager, consumer);
+        }
+    }
+
     @Cacheable(value = "customerSpentCache",key = "T(com.sqli.ecomAnalytics.util.RedisCacheKeys).customerSpentKey(#customerId)"
     )
     @Transactional(readOnly = true)
@@ -148,6 +311,8 @@ public class OrdersService {
         BigDecimal totalAmount = orderRepository.getTotalSpentByCustomer(customerId).
                 orElseThrow(() ->
                         new CustomerNotFoundException("Customer not found"));
+        cacheTagIndex.tag("customerSpentCache", RedisCacheKeys.customerSpentKey(customerId),
+                List.of(RedisCacheKeys.customerTag(customerId)));
         return Optional.of(totalAmount);
     }
 
@@ -158,6 +323,9 @@ public class OrdersService {
         if (!customerRepository.existsById(customerId)) {
             throw new CustomerNotFoundException("Customer not found");
         }
-        return orderRepository.getOrderCountByCustomer(customerId);
+        int orderCount = orderRepository.getOrderCountByCustomer(customerId);
+        cacheTagIndex.tag("customerOrderCountCache", RedisCacheKeys.customerOrderCountKey(customerId),
+                List.of(RedisCacheKeys.customerTag(customerId)));
+        return orderCount;
     }
 }
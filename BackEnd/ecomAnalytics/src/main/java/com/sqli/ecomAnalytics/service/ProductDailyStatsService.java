@@ -0,0 +1,60 @@
+package com.sqli.ecomAnalytics.service;
+
+import com.sqli.ecomAnalytics.entity.OrderStatus;
+import com.sqli.ecomAnalytics.entity.Orders;
+import com.sqli.ecomAnalytics.repository.OrderRepository;
+import com.sqli.ecomAnalytics.repository.ProductDailyStatsRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Service
+@Slf4j
+public class ProductDailyStatsService {
+    private final ProductDailyStatsRepository statsRepository;
+    private final OrderRepository orderRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public ProductDailyStatsService(ProductDailyStatsRepository statsRepository, OrderRepository orderRepository,
+                                    PlatformTransactionManager transactionManager) {
+        this.statsRepository = statsRepository;
+        this.orderRepository = orderRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // Only delivered orders count as sold, so the stats move when an order enters or leaves DELIVERED
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordStatusChange(Orders order, OrderStatus previousStatus) {
+        boolean wasDelivered = previousStatus == OrderStatus.DELIVERED;
+        boolean isDelivered = order.getStatus() == OrderStatus.DELIVERED;
+        if (wasDelivered == isDelivered) {
+            return;
+        }
+        statsRepository.applyOrderDelta(order.getOrderId(), order.getOrderDate(), isDelivered ? 1 : -1);
+    }
+
+    @Transactional
+    public int rebuildStats() {
+        statsRepository.deleteAllRows();
+        int rows = statsRepository.backfillFromOrders();
+        log.info("Product daily stats rebuilt with {} rows", rows);
+        return rows;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        try {
+            if (statsRepository.count() == 0 && orderRepository.count() > 0) {
+                log.info("Product daily stats are empty while orders exist, running backfill...");
+                transactionTemplate.executeWithoutResult(status -> rebuildStats());
+            }
+        } catch (Exception e) {
+            log.error("Product daily stats backfill failed: {}", e.getMessage());
+        }
+    }
+}
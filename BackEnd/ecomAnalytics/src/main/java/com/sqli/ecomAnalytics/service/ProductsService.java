@@ -1,5 +1,7 @@
 package com.sqli.ecomAnalytics.service;
 
+import com.sqli.ecomAnalytics.cache.CacheTagIndex;
+import com.sqli.ecomAnalytics.dto.KeysetPageDto;
 import com.sqli.ecomAnalytics.dto.ProductCreateDto;
 import com.sqli.ecomAnalytics.dto.ProductUpdateDto;
 import com.sqli.ecomAnalytics.entity.ProductCategory;
@@ -8,20 +10,31 @@ import com.sqli.ecomAnalytics.exceptions.ProductAlreadyExistsException;
 import com.sqli.ecomAnalytics.exceptions.ProductNotFoundException;
 import com.sqli.ecomAnalytics.exceptions.ProductStockInsufficient;
 import com.sqli.ecomAnalytics.repository.ProductRepository;
+import com.sqli.ecomAnalytics.util.KeysetPagination;
+import com.sqli.ecomAnalytics.util.RedisCacheKeys;
+import jakarta.persistence.EntityManager;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class ProductsService {
     private final ProductRepository productRepository;
+    private final CacheTagIndex cacheTagIndex;
+    private final EntityManager entityManager;
 
-    public ProductsService(ProductRepository productRepository) {
+    public ProductsService(ProductRepository productRepository, CacheTagIndex cacheTagIndex, EntityManager entityManager) {
         this.productRepository = productRepository;
+        this.cacheTagIndex = cacheTagIndex;
+        this.entityManager = entityManager;
     }
 
 
@@ -30,15 +43,20 @@ public class ProductsService {
                 .orElseThrow(() -> new ProductNotFoundException("Product with id:" + productId + " not found"));
     }
 
+    private static List<String> productTags(List<Products> products) {
+        return products.stream()
+                .map(p -> RedisCacheKeys.productTag(p.getProductId()))
+                .collect(Collectors.toCollection(ArrayList::new));
+    }
+
     private Products getProductBySku(String sku) {
         return productRepository.findBySku(sku)
                 .orElseThrow(() -> new ProductNotFoundException("Product with SKU:" + sku + " not found"));
     }
 
+    // A new product can match any search term, so search results are still cleared as a whole
     @Caching(evict = {
             @CacheEvict(value = "productCatalogCache", key = "'products:all'"),
-            @CacheEvict(value = "productByCategoryCache", allEntries = true),
-            @CacheEvict(value = "productByBrandCache", allEntries = true),
             @CacheEvict(value = "productSearchCache", allEntries = true)
     })
     @Transactional
@@ -55,19 +73,27 @@ public class ProductsService {
         p.setCategory(product.getCategory());
         p.setDescription(product.getDescription());
         p.setStockQuantity(product.getStockQuantity());
-        return productRepository.save(p);
+        Products saved = productRepository.save(p);
+        cacheTagIndex.evictTagged(List.of(
+                RedisCacheKeys.categoryTag(product.getCategory().name()),
+                RedisCacheKeys.brandTag(product.getBrand()),
+                RedisCacheKeys.productCountTag()));
+        return saved;
     }
 
+    // The description feeds the full text search, so search results are still cleared as a whole
     @Caching(evict = {
             @CacheEvict(value = "productByIdCache", key = "T(com.sqli.ecomAnalytics.util.RedisCacheKeys).productIdKey(#productId)"),
             @CacheEvict(value = "productCatalogCache", key = "'products:all'"),
-            @CacheEvict(value = "productByCategoryCache", allEntries = true),
-            @CacheEvict(value = "productByBrandCache", allEntries = true),
             @CacheEvict(value = "productSearchCache", allEntries = true)
     })
     @Transactional
     public Products updateProduct(int productId, ProductUpdateDto product) {
         Products p = getProductById(productId);
+        cacheTagIndex.evictTagged(List.of(
+                RedisCacheKeys.productTag(productId),
+                RedisCacheKeys.categoryTag(product.getCategory().name()),
+                RedisCacheKeys.brandTag(product.getBrand())));
 
         p.setPrice(product.getPrice());
         p.setBrand(product.getBrand());
@@ -80,36 +106,30 @@ public class ProductsService {
 
     @Caching(evict = {
             @CacheEvict(value = "productByIdCache", key = "T(com.sqli.ecomAnalytics.util.RedisCacheKeys).productIdKey(#productId)"),
-            @CacheEvict(value = "productCatalogCache", key = "'products:all'"),
-            @CacheEvict(value = "productByCategoryCache", allEntries = true),
-            @CacheEvict(value = "productByBrandCache", allEntries = true),
-            @CacheEvict(value = "productSearchCache", allEntries = true)
+            @CacheEvict(value = "productCatalogCache", key = "'products:all'")
     })
     @Transactional
     public Products increaseStock(int productId, int quantity) {
         Products p = getProductById(productId);
+        cacheTagIndex.evictTagged(List.of(RedisCacheKeys.productTag(productId)));
         p.setStockQuantity(p.getStockQuantity() + quantity);
         return productRepository.save(p);
     }
 
     @Caching(evict = {
             @CacheEvict(value = "productByIdCache", key = "T(com.sqli.ecomAnalytics.util.RedisCacheKeys).productIdKey(#productId)"),
-            @CacheEvict(value = "productCatalogCache", key = "'products:all'"),
-            @CacheEvict(value = "productByCategoryCache", allEntries = true),
-            @CacheEvict(value = "productByBrandCache", allEntries = true),
-            @CacheEvict(value = "productSearchCache", allEntries = true)
+            @CacheEvict(value = "productCatalogCache", key = "'products:all'")
     })
     @Transactional
     public Products decreaseStock(int productId, int quantity) {
-        Products p = getProductById(productId);
-
-        if (p.getStockQuantity() < quantity) {
+        cacheTagIndex.evictTagged(List.of(RedisCacheKeys.productTag(productId)));
+        if (productRepository.decrementStock(productId, quantity) == 0) {
+            Products p = getProductById(productId);
             throw new ProductStockInsufficient("Product with Id:" + productId + " has only "
                     + p.getStockQuantity() + " and can't be reduced by " + quantity);
         }
 
-        p.setStockQuantity(p.getStockQuantity() - quantity);
-        return productRepository.save(p);
+        return getProductById(productId);
     }
 
     @Transactional(readOnly = true)
@@ -121,7 +141,9 @@ public class ProductsService {
     @Cacheable(value = "productSearchCache", key = "T(com.sqli.ecomAnalytics.util.RedisCacheKeys).productSearchKey(#searchTerm)")
     @Transactional(readOnly = true)
     public List<Products> searchProducts(String searchTerm) {
-        return productRepository.searchByText(searchTerm);
+        List<Products> products = productRepository.searchByText(searchTerm);
+        cacheTagIndex.tag("productSearchCache", RedisCacheKeys.productSearchKey(searchTerm), productTags(products));
+        return products;
     }
 
     @Cacheable(value = "productCatalogCache", key = "'products:all'")
@@ -130,6 +152,19 @@ public class ProductsService {
         return productRepository.findAll();
     }
 
+    @Transactional(readOnly = true)
+    public KeysetPageDto<Products> findProductsPage(int afterId, int size) {
+        List<Products> rows = productRepository.findPageAfter(afterId, KeysetPagination.limit(size));
+        return KeysetPagination.page(rows, size, Products::getProductId);
+    }
+
+    @Transactional(readOnly = true)
+    public void streamAllProducts(Consumer<Products> consumer) {
+        try (Stream<Products> products = productRepository.streamAll()) {
+            KeysetPagination.forEachDetached(products, entityManager, consumer);
+        }
+    }
+
     @Cacheable(value = "productByIdCache", key = "T(com.sqli.ecomAnalytics.util.RedisCacheKeys).productIdKey(#productId)")
     @Transactional(readOnly = true)
     public Products findProductById(int productId) {
@@ -144,13 +179,21 @@ public class ProductsService {
     @Cacheable(value = "productByCategoryCache", key = "T(com.sqli.ecomAnalytics.util.RedisCacheKeys).productCategoryKey(#category.name())")
     @Transactional(readOnly = true)
     public List<Products> findAllProductsByCategory(ProductCategory category) {
-        return productRepository.findByCategory(category);
+        List<Products> products = productRepository.findByCategory(category);
+        List<String> tags = productTags(products);
+        tags.add(RedisCacheKeys.categoryTag(category.name()));
+        cacheTagIndex.tag("productByCategoryCache", RedisCacheKeys.productCategoryKey(category.name()), tags);
+        return products;
     }
 
     @Cacheable(value = "productByBrandCache", key = "T(com.sqli.ecomAnalytics.util.RedisCacheKeys).productBrandKey(#brand)")
     @Transactional(readOnly = true)
     public List<Products> findAllProductsByBrand(String brand) {
-        return productRepository.findByBrandIgnoreCase(brand);
+        List<Products> products = productRepository.findByBrandIgnoreCase(brand);
+        List<String> tags = productTags(products);
+        tags.add(RedisCacheKeys.brandTag(brand));
+        cacheTagIndex.tag("productByBrandCache", RedisCacheKeys.productBrandKey(brand), tags);
+        return products;
     }
 
     @Transactional(readOnly = true)
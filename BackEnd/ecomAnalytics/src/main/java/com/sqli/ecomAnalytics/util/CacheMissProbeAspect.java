@@ -0,0 +1,19 @@
+package com.sqli.ecomAnalytics.util;
+
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Before;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+// Runs inside the cache interceptor, so it is only reached when a @Cacheable method misses and executes its body
+@Aspect
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE)
+public class CacheMissProbeAspect {
+
+    @Before("@annotation(org.springframework.cache.annotation.Cacheable)")
+    public void markInvoked() {
+        MethodTimingContext.markInvoked();
+    }
+}
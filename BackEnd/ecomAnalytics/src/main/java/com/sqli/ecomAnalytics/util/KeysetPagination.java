@@ -0,0 +1,52 @@
+package com.sqli.ecomAnalytics.util;
+
+import com.sqli.ecomAnalytics.dto.KeysetPageDto;
+import jakarta.persistence.EntityManager;
+import org.springframework.data.domain.Limit;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+import java.util.stream.Stream;
+
+public final class KeysetPagination {
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    public static final int MAX_PAGE_SIZE = 1000;
+    // Used as a query hint, so it has to be a constant String
+    public static final String STREAM_FETCH_SIZE = "500";
+
+    private static final int CLEAR_EVERY = Integer.parseInt(STREAM_FETCH_SIZE);
+
+    private KeysetPagination() {}
+
+    public static int pageSize(int requested) {
+        return Math.max(1, Math.min(requested, MAX_PAGE_SIZE));
+    }
+
+    // One extra row tells whether there is a next page without a count query
+    public static Limit limit(int requested) {
+        return Limit.of(pageSize(requested) + 1);
+    }
+
+    public static <T> KeysetPageDto<T> page(List<T> rows, int requested, ToIntFunction<T> idOf) {
+        int size = pageSize(requested);
+        if (rows.size() <= size) {
+            return new KeysetPageDto<>(rows, rows.size(), null);
+        }
+        List<T> items = rows.subList(0, size);
+        return new KeysetPageDto<>(List.copyOf(items), size, idOf.applyAsInt(items.get(size - 1)));
+    }
+
+    // Clears the persistence context as rows are consumed so a long export does not keep every entity managed
+    public static <T> void forEachDetached(Stream<T> rows, EntityManager entityManager, Consumer<T> consumer) {
+        int count = 0;
+        Iterator<T> iterator = rows.iterator();
+        while (iterator.hasNext()) {
+            consumer.accept(iterator.next());
+            if (++count % CLEAR_EVERY == 0) {
+                entityManager.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.sqli.ecomAnalytics.util;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times service and analytics methods with a percentile histogram per method. Cached methods are split into hit and
+ * miss: the aspect sits outside the cache interceptor and CacheMissProbeAspect, inside it, tells whether the body ran.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class MethodTimingAspect {
+    public static final String TIMER_NAME = "service.method.duration";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<Method, MethodTags> methodTags = new ConcurrentHashMap<>();
+    private final Map<TimerKey, Timer> timers = new ConcurrentHashMap<>();
+
+    public MethodTimingAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    private record MethodTags(String className, String methodName, String cacheName, boolean cacheable, boolean evicting) {}
+
+    private record TimerKey(Method method, String result, String exception) {}
+
+    @Around("execution(public * com.sqli.ecomAnalytics.Analytics..*(..)) " +
+            "|| execution(public * com.sqli.ecomAnalytics.service..*(..)) " +
+            "|| @annotation(org.springframework.cache.annotation.Cacheable) " +
+            "|| @annotation(org.springframework.cache.annotation.CacheEvict)")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        Method method = AopUtils.getMostSpecificMethod(((MethodSignature) joinPoint.getSignature()).getMethod(),
+                AopUtils.getTargetClass(joinPoint.getTarget()));
+        MethodTimingContext.Frame previous = MethodTimingContext.enter();
+        String exception = "none";
+        long start = System.nanoTime();
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            long duration = System.nanoTime() - start;
+            boolean invoked = MethodTimingContext.exit(previous);
+            timer(method, result(tags(method), invoked), exception).record(duration, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static String result(MethodTags tags, boolean invoked) {
+        if (tags.cacheable()) {
+            return invoked ? "miss" : "hit";
+        }
+        return tags.evicting() ? "evict" : "none";
+    }
+
+    private MethodTags tags(Method method) {
+        return methodTags.computeIfAbsent(method, m -> {
+            Set<String> cacheNames = new LinkedHashSet<>();
+            Set<Cacheable> cacheables = AnnotatedElementUtils.findAllMergedAnnotations(m, Cacheable.class);
+            Set<CacheEvict> evicts = AnnotatedElementUtils.findAllMergedAnnotations(m, CacheEvict.class);
+            cacheables.forEach(c -> cacheNames.addAll(Arrays.asList(c.cacheNames())));
+            evicts.forEach(e -> cacheNames.addAll(Arrays.asList(e.cacheNames())));
+            return new MethodTags(m.getDeclaringClass().getSimpleName(), m.getName(),
+                    cacheNames.isEmpty() ? "none" : String.join(",", cacheNames), !cacheables.isEmpty(), !evicts.isEmpty());
+        });
+    }
+
+    private Timer timer(Method method, String result, String exception) {
+        return timers.computeIfAbsent(new TimerKey(method, result, exception), key -> {
+            MethodTags tags = tags(method);
+            return Timer.builder(TIMER_NAME)
+                    .description("Service method latency, cached methods split by hit and miss")
+                    .tags("class", tags.className(), "method", tags.methodName(), "cache", tags.cacheName(),
+                            "result", result, "exception", exception)
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofNanos(50_000))
+                    .maximumExpectedValue(Duration.ofSeconds(30))
+                    .register(meterRegistry);
+        });
+    }
+}
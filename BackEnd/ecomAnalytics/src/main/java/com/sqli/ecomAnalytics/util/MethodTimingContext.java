@@ -0,0 +1,36 @@
+package com.sqli.ecomAnalytics.util;
+
+// One frame per timed call on the thread, the cache miss probe marks the frame whose method body actually ran
+final class MethodTimingContext {
+    private static final ThreadLocal<Frame> CURRENT = new ThreadLocal<>();
+
+    private MethodTimingContext() {}
+
+    static final class Frame {
+        private boolean invoked;
+    }
+
+    static Frame enter() {
+        Frame previous = CURRENT.get();
+        CURRENT.set(new Frame());
+        return previous;
+    }
+
+    // Restores the caller's frame and tells whether the method body ran
+    static boolean exit(Frame previous) {
+        Frame frame = CURRENT.get();
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+        return frame != null && frame.invoked;
+    }
+
+    static void markInvoked() {
+        Frame frame = CURRENT.get();
+        if (frame != null) {
+            frame.invoked = true;
+        }
+    }
+}
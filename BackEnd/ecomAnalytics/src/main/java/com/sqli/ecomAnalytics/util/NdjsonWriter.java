@@ -0,0 +1,33 @@
+package com.sqli.ecomAnalytics.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+public final class NdjsonWriter {
+    public static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private static final int FLUSH_EVERY = 500;
+
+    private NdjsonWriter() {}
+
+    // Writes one JSON document per line, flushing regularly so clients receive rows while the export is running
+    public static <T> Consumer<T> to(OutputStream out, ObjectMapper objectMapper) {
+        int[] written = {0};
+        return value -> {
+            try {
+                out.write(objectMapper.writeValueAsBytes(value));
+                out.write('\n');
+                if (++written[0] % FLUSH_EVERY == 0) {
+                    out.flush();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+}
@@ -1,9 +1,17 @@
 package com.sqli.ecomAnalytics.util;
 
+import com.sqli.ecomAnalytics.dto.TimeGranularity;
 
 import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
 
 public final class RedisCacheKeys {
+    // Time-window keys end with the window state, which decides the entry's TTL
+    public static final String OPEN_WINDOW_SUFFIX = ":window:open";
+    public static final String CLOSED_WINDOW_SUFFIX = ":window:closed";
 
     private RedisCacheKeys() {}
 
@@ -51,18 +59,77 @@ public final class RedisCacheKeys {
     }
 
     public static String customerAnalyticsKey(LocalDateTime start, LocalDateTime end, LocalDateTime thresholdDate) {
-        return String.format("customer:analytics:start:%s:end:%s:threshold:%s", start, end, thresholdDate);
+        return String.format("customer:analytics:start:%s:end:%s:threshold:%s", start, end, thresholdDate) + windowState(end);
     }
 
     public static String kpiKeys(LocalDateTime start, LocalDateTime end) {
-        return String.format("kpi:start:%s:end:%s", start, end);
+        return String.format("kpi:start:%s:end:%s", start, end) + windowState(end);
     }
 
-    public static String productPerformanceKeys(LocalDateTime start, LocalDateTime end, int lowStockThreshold) {
-        return String.format("customer:analytics:start:%s:end:%s:lowStockThreshold:%s", start, end, lowStockThreshold);
+    public static String productPerformanceKeys(LocalDateTime start, LocalDateTime end) {
+        return String.format("product:performance:start:%s:end:%s", start, end) + windowState(end);
     }
 
-    public static String salesTrendKeys(LocalDateTime start, LocalDateTime end) {
-        return String.format("sales:start:%s:end:%s", start, end);
+    public static String salesTrendKeys(LocalDateTime start, LocalDateTime end, TimeGranularity granularity) {
+        return String.format("sales:start:%s:end:%s:granularity:%s", start, end, granularity) + windowState(end);
+    }
+
+    public static String salesDayBucketsKey(YearMonth month) {
+        return String.format("sales:days:%s", month) + windowState(month.atEndOfMonth().atTime(LocalTime.MAX));
+    }
+
+    private static String windowState(LocalDateTime end) {
+        return end.isBefore(LocalDateTime.now()) ? CLOSED_WINDOW_SUFFIX : OPEN_WINDOW_SUFFIX;
+    }
+
+    public static String productTag(int productId) {
+        return String.format("product:%d", productId);
+    }
+
+    public static String categoryTag(String category) {
+        return String.format("category:%s", category.toUpperCase());
+    }
+
+    public static String brandTag(String brand) {
+        return String.format("brand:%s", brand.toLowerCase());
+    }
+
+    public static String customerTag(int customerId) {
+        return String.format("customer:%d", customerId);
+    }
+
+    // Entries built from whole-history order totals, stale after any order change
+    public static String allOrdersTag() {
+        return "orders:all";
+    }
+
+    // Entries holding the number of customers or products, stale once one is added
+    public static String customerCountTag() {
+        return "customers:count";
+    }
+
+    public static String productCountTag() {
+        return "products:count";
+    }
+
+    public static String orderMonthTag(YearMonth month) {
+        return String.format("orders:month:%s", month);
+    }
+
+    // Every month a time window touches: a past order changing in any of them changes the window, even a closed one
+    public static List<String> orderMonthTags(LocalDateTime start, LocalDateTime end) {
+        List<String> tags = new ArrayList<>();
+        for (YearMonth month = YearMonth.from(start); !month.isAfter(YearMonth.from(end)); month = month.plusMonths(1)) {
+            tags.add(orderMonthTag(month));
+        }
+        return tags;
+    }
+
+    public static String forecastJobKey(String requestId) {
+        return String.format("forecast:job:%s", requestId);
+    }
+
+    public static String forecastRequestKey(int forecastDays, boolean includeConfidenceIntervals, boolean modelComparison) {
+        return String.format("forecast:request:%d:%b:%b", forecastDays, includeConfidenceIntervals, modelComparison);
     }
 }
@@ -0,0 +1,70 @@
+package com.sqli.ecomAnalytics.util;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.annotation.AfterReturning;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Rows returned per repository query. Query time is already recorded by Spring Boot as spring.data.repository.invocations.
+ */
+@Aspect
+@Component
+public class RepositoryMetricsAspect {
+    public static final String ROWS_NAME = "repository.query.rows";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<Method, DistributionSummary> summaries = new ConcurrentHashMap<>();
+
+    public RepositoryMetricsAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @AfterReturning(pointcut = "execution(* com.sqli.ecomAnalytics.repository..*(..))", returning = "result")
+    public void recordRows(JoinPoint joinPoint, Object result) {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        Long rows = rowCount(method.getReturnType(), result);
+        if (rows != null) {
+            summary(method).record(rows);
+        }
+    }
+
+    // Counts and modifying queries return numbers, those are not rows. Streams are left out, counting would consume them
+    private static Long rowCount(Class<?> returnType, Object result) {
+        if (returnType == void.class || returnType.isPrimitive() || Number.class.isAssignableFrom(returnType)
+                || returnType == Boolean.class || Stream.class.isAssignableFrom(returnType)) {
+            return null;
+        }
+        if (result instanceof Collection<?> collection) {
+            return (long) collection.size();
+        }
+        if (result instanceof Slice<?> slice) {
+            return (long) slice.getNumberOfElements();
+        }
+        if (result instanceof Optional<?> optional) {
+            return optional.isPresent() ? 1L : 0L;
+        }
+        return result == null ? 0L : 1L;
+    }
+
+    private DistributionSummary summary(Method method) {
+        return summaries.computeIfAbsent(method, m -> DistributionSummary.builder(ROWS_NAME)
+                .description("Rows returned by a repository query")
+                .baseUnit("rows")
+                .tags("repository", m.getDeclaringClass().getSimpleName(), "method", m.getName())
+                .publishPercentileHistogram()
+                .maximumExpectedValue(100_000.0)
+                .register(meterRegistry));
+    }
+}
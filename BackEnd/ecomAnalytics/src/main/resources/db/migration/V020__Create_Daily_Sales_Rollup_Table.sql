@@ -0,0 +1,16 @@
+--V020__Create_Daily_Sales_Rollup_Table
+
+CREATE TABLE daily_sales_rollup(
+    sales_date DATE NOT NULL ,
+    status VARCHAR(30) NOT NULL CHECK ( status IN ('PENDING','DELIVERED','CANCELLED')),
+    revenue DECIMAL(14,2) NOT NULL DEFAULT 0,
+    order_count BIGINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (sales_date, status),
+    created_at TIMESTAMP NOT NULL DEFAULT NOW(),
+    updated_at TIMESTAMP NULL
+);
+
+INSERT INTO daily_sales_rollup (sales_date, status, revenue, order_count)
+SELECT DATE(order_date), status, SUM(total_amount), COUNT(*)
+FROM orders
+GROUP BY DATE(order_date), status;
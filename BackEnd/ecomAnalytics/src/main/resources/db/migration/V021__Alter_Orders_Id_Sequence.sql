@@ -0,0 +1,4 @@
+--V021__Alter_Orders_Id_Sequence
+
+-- Orders ids are now drawn from the sequence in blocks so inserts can be batched by Hibernate
+ALTER SEQUENCE orders_order_id_seq INCREMENT BY 50;
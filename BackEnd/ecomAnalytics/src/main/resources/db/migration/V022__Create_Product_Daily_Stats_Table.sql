@@ -0,0 +1,20 @@
+--V022__Create_Product_Daily_Stats_Table
+
+-- Delivered quantity and revenue per product and day, maintained by OrdersService when an order enters or leaves DELIVERED
+CREATE TABLE product_daily_stats(
+    sales_date DATE NOT NULL ,
+    product_id INT NOT NULL ,
+    qty_sold BIGINT NOT NULL DEFAULT 0,
+    revenue DECIMAL(14,2) NOT NULL DEFAULT 0,
+    PRIMARY KEY (sales_date, product_id),
+    FOREIGN KEY (product_id) REFERENCES products(product_id),
+    created_at TIMESTAMP NOT NULL DEFAULT NOW(),
+    updated_at TIMESTAMP NULL
+);
+
+INSERT INTO product_daily_stats (sales_date, product_id, qty_sold, revenue)
+SELECT DATE(o.order_date), oi.product_id, SUM(oi.quantity), SUM(oi.quantity * oi.unit_price)
+FROM order_items oi
+JOIN orders o ON o.order_id = oi.order_id
+WHERE o.status = 'DELIVERED'
+GROUP BY DATE(o.order_date), oi.product_id;
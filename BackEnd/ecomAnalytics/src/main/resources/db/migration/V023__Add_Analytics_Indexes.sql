@@ -0,0 +1,25 @@
+--V023__Add_Analytics_Indexes
+
+-- Revenue, average order value, sales trends and top customers all filter on delivered orders in a date range
+CREATE INDEX idx_orders_delivered_date
+    ON orders(order_date) INCLUDE (customer_id, total_amount)
+    WHERE status = 'DELIVERED';
+
+-- Per customer totals (getTotalSpentByCustomer, getOrderCountByCustomer)
+CREATE INDEX idx_orders_delivered_customer
+    ON orders(customer_id) INCLUDE (total_amount)
+    WHERE status = 'DELIVERED';
+
+-- The primary key leads with order_id, so lookups and joins by product had no index
+CREATE INDEX idx_order_items_product
+    ON order_items(product_id) INCLUDE (quantity, unit_price);
+
+CREATE INDEX idx_customers_total_spent
+    ON customers(total_spent DESC);
+
+CREATE INDEX idx_customers_last_order_date
+    ON customers(last_order_date);
+
+ANALYZE orders;
+ANALYZE order_items;
+ANALYZE customers;
@@ -0,0 +1,109 @@
+--V024__Partition_Orders_By_Month
+
+-- orders and order_items become monthly range partitions on order_date, order_items carries its order's date
+-- so both tables prune on the same windows. There is no default partition: it would rule out DETACH CONCURRENTLY,
+-- months are created ahead of time by create_order_partitions instead.
+-- A unique constraint on a partitioned table must include order_date, so order_id on its own is no longer enforced
+-- unique: it stays unique because every order takes its id from orders_order_id_seq. Rows must never be written with
+-- a hand-picked order_id, the Orders entity and the bulk generator both draw from the sequence.
+
+ALTER TABLE order_items RENAME TO order_items_unpartitioned;
+ALTER INDEX order_items_pkey RENAME TO order_items_unpartitioned_pkey;
+DROP INDEX idx_order_items_product;
+
+ALTER TABLE orders RENAME TO orders_unpartitioned;
+ALTER INDEX orders_pkey RENAME TO orders_unpartitioned_pkey;
+DROP INDEX idx_orders_customer_id;
+DROP INDEX idx_orders_date;
+DROP INDEX idx_orders_delivered_date;
+DROP INDEX idx_orders_delivered_customer;
+
+-- Keep the id sequence alive when the old table is dropped
+ALTER SEQUENCE orders_order_id_seq OWNED BY NONE;
+
+CREATE TABLE orders(
+    order_id INT NOT NULL DEFAULT nextval('orders_order_id_seq'),
+    customer_id INT REFERENCES customers(customer_id) ON DELETE CASCADE NOT NULL ,
+    status VARCHAR(30) NOT NULL CHECK ( status IN ('PENDING','DELIVERED','CANCELLED')),
+    order_date TIMESTAMP NOT NULL DEFAULT NOW(),
+    total_amount DECIMAL(10,2) NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT NOW(),
+    updated_at TIMESTAMP NOT NULL DEFAULT NOW(),
+    PRIMARY KEY (order_id, order_date)
+) PARTITION BY RANGE (order_date);
+
+ALTER SEQUENCE orders_order_id_seq OWNED BY orders.order_id;
+
+CREATE TABLE order_items(
+    order_id INT NOT NULL ,
+    product_id INT NOT NULL ,
+    order_date TIMESTAMP NOT NULL ,
+    quantity INT NOT NULL CHECK ( quantity > 0 ) ,
+    unit_price DECIMAL(10,2) NOT NULL CHECK ( unit_price >= 0 ),
+    created_at TIMESTAMP NOT NULL DEFAULT NOW(),
+    updated_at TIMESTAMP NULL,
+    PRIMARY KEY (order_id, product_id, order_date) ,
+    FOREIGN KEY (order_id, order_date) REFERENCES orders(order_id, order_date) ON DELETE CASCADE ,
+    FOREIGN KEY (product_id) REFERENCES products(product_id)
+) PARTITION BY RANGE (order_date);
+
+-- Creates the orders and order_items partitions of every month in [from_month, to_month], returns how many were new
+CREATE OR REPLACE FUNCTION create_order_partitions(from_month DATE, to_month DATE) RETURNS INT AS $$
+DECLARE
+    month_start DATE := date_trunc('month', from_month);
+    last_month DATE := date_trunc('month', to_month);
+    suffix TEXT;
+    created INT := 0;
+BEGIN
+    WHILE month_start <= last_month LOOP
+        suffix := to_char(month_start, '"y"YYYY"m"MM');
+        IF to_regclass('orders_' || suffix) IS NULL THEN
+            EXECUTE format('CREATE TABLE %I PARTITION OF orders FOR VALUES FROM (%L) TO (%L)',
+                           'orders_' || suffix, month_start, (month_start + INTERVAL '1 month')::DATE);
+            created := created + 1;
+        END IF;
+        IF to_regclass('order_items_' || suffix) IS NULL THEN
+            EXECUTE format('CREATE TABLE %I PARTITION OF order_items FOR VALUES FROM (%L) TO (%L)',
+                           'order_items_' || suffix, month_start, (month_start + INTERVAL '1 month')::DATE);
+        END IF;
+        month_start := (month_start + INTERVAL '1 month')::DATE;
+    END LOOP;
+    RETURN created;
+END;
+$$ LANGUAGE plpgsql;
+
+SELECT create_order_partitions(
+    LEAST(COALESCE((SELECT MIN(order_date) FROM orders_unpartitioned)::DATE, CURRENT_DATE),
+          (CURRENT_DATE - INTERVAL '24 months')::DATE),
+    GREATEST(COALESCE((SELECT MAX(order_date) FROM orders_unpartitioned)::DATE, CURRENT_DATE),
+             (CURRENT_DATE + INTERVAL '3 months')::DATE));
+
+INSERT INTO orders (order_id, customer_id, status, order_date, total_amount, created_at, updated_at)
+SELECT order_id, customer_id, status, COALESCE(order_date, created_at), total_amount, created_at, updated_at
+FROM orders_unpartitioned;
+
+INSERT INTO order_items (order_id, product_id, order_date, quantity, unit_price, created_at, updated_at)
+SELECT oi.order_id, oi.product_id, o.order_date, oi.quantity, oi.unit_price, oi.created_at, oi.updated_at
+FROM order_items_unpartitioned oi
+JOIN orders o ON o.order_id = oi.order_id;
+
+DROP TABLE order_items_unpartitioned;
+DROP TABLE orders_unpartitioned;
+
+-- Indexes are declared on the parents and cascade to every partition, current and future
+CREATE INDEX idx_orders_customer_id ON orders(customer_id);
+CREATE INDEX idx_orders_date ON orders(order_date);
+
+CREATE INDEX idx_orders_delivered_date
+    ON orders(order_date) INCLUDE (customer_id, total_amount)
+    WHERE status = 'DELIVERED';
+
+CREATE INDEX idx_orders_delivered_customer
+    ON orders(customer_id) INCLUDE (total_amount)
+    WHERE status = 'DELIVERED';
+
+CREATE INDEX idx_order_items_product
+    ON order_items(product_id) INCLUDE (quantity, unit_price);
+
+ANALYZE orders;
+ANALYZE order_items;
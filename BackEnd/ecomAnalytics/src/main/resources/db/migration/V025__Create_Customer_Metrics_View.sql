@@ -0,0 +1,32 @@
+--V025__Create_Customer_Metrics_View
+
+-- One row per customer with everything the customer analytics read: spend, RFM, segment and lifetime value.
+-- Lifetime value is avg purchase value * purchase frequency * years active, which reduces to avg * order count.
+CREATE MATERIALIZED VIEW customer_metrics_mv AS
+SELECT c.customer_id,
+       c.first_name || ' ' || c.last_name AS customer_name,
+       COALESCE(c.total_spent, 0) AS total_spent,
+       COALESCE(c.order_count, 0) AS order_count,
+       c.registration_date,
+       c.last_order_date,
+       cs.recency,
+       cs.frequency,
+       cs.monetary,
+       cs.segment_score,
+       cs.segment_label,
+       CASE WHEN COALESCE(c.order_count, 0) = 0 OR COALESCE(c.total_spent, 0) = 0 THEN 0
+            ELSE ROUND(c.total_spent / c.order_count, 2) * c.order_count
+       END AS lifetime_value,
+       NOW() AS refreshed_at
+FROM customers c
+LEFT JOIN customer_segments cs ON cs.customer_id = c.customer_id;
+
+-- REFRESH ... CONCURRENTLY needs a unique index covering every row
+CREATE UNIQUE INDEX idx_customer_metrics_customer ON customer_metrics_mv(customer_id);
+
+CREATE INDEX idx_customer_metrics_total_spent
+    ON customer_metrics_mv(total_spent DESC) INCLUDE (customer_name, order_count, segment_label, lifetime_value);
+
+CREATE INDEX idx_customer_metrics_last_order_date ON customer_metrics_mv(last_order_date);
+
+CREATE INDEX idx_customer_metrics_segment ON customer_metrics_mv(segment_label);
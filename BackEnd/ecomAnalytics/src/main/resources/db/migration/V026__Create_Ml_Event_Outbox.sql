@@ -0,0 +1,15 @@
+--V026__Create_Ml_Event_Outbox
+
+-- ML events written in the same transaction as the change they describe, drained to Kafka by MLEventOutboxService.
+-- Rows are deleted once the broker acknowledged them, next_attempt_at is only set while a customer is backing off.
+CREATE TABLE ml_event_outbox(
+    id BIGSERIAL PRIMARY KEY,
+    customer_id INT NOT NULL,
+    event_type VARCHAR(40) NOT NULL,
+    payload TEXT NOT NULL,
+    attempts INT NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT NOW()
+);
+
+CREATE INDEX idx_ml_event_outbox_backoff ON ml_event_outbox(customer_id) WHERE next_attempt_at IS NOT NULL;
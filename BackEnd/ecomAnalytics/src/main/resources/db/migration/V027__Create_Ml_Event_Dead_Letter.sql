@@ -0,0 +1,17 @@
+--V027__Create_Ml_Event_Dead_Letter
+
+-- Outbox rows the relay gave up on: a payload that no longer deserializes, or an event the broker still refused
+-- after ml-events.outbox.max-attempts. Moved here so the customer's later events are no longer held behind them,
+-- the original id is kept so a row can be traced and replayed by hand.
+CREATE TABLE ml_event_dead_letter(
+    id BIGINT PRIMARY KEY,
+    customer_id INT NOT NULL,
+    event_type VARCHAR(40) NOT NULL,
+    payload TEXT NOT NULL,
+    attempts INT NOT NULL,
+    reason TEXT NOT NULL,
+    created_at TIMESTAMP NOT NULL,
+    dead_lettered_at TIMESTAMP NOT NULL DEFAULT NOW()
+);
+
+CREATE INDEX idx_ml_event_dead_letter_customer ON ml_event_dead_letter(customer_id);
@@ -0,0 +1,33 @@
+--V028__Update_Rollups_On_Order_Delete
+
+-- Orders are removed by the customers ON DELETE CASCADE, a path no service sees, so daily_sales_rollup and
+-- product_daily_stats are kept in step by the database. BEFORE DELETE runs ahead of the order_items cascade,
+-- the lines of a delivered order can still be read when its product figures are taken back.
+
+CREATE OR REPLACE FUNCTION remove_order_from_rollups() RETURNS TRIGGER AS $$
+BEGIN
+    UPDATE daily_sales_rollup
+    SET revenue = revenue - OLD.total_amount,
+        order_count = order_count - 1,
+        updated_at = NOW()
+    WHERE sales_date = OLD.order_date::DATE AND status = OLD.status;
+
+    IF OLD.status = 'DELIVERED' THEN
+        UPDATE product_daily_stats pds
+        SET qty_sold = pds.qty_sold - lines.quantity,
+            revenue = pds.revenue - lines.revenue,
+            updated_at = NOW()
+        FROM (SELECT oi.product_id, SUM(oi.quantity) AS quantity, SUM(oi.quantity * oi.unit_price) AS revenue
+              FROM order_items oi
+              WHERE oi.order_id = OLD.order_id AND oi.order_date = OLD.order_date
+              GROUP BY oi.product_id) lines
+        WHERE pds.sales_date = OLD.order_date::DATE AND pds.product_id = lines.product_id;
+    END IF;
+
+    RETURN OLD;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_orders_remove_from_rollups
+    BEFORE DELETE ON orders
+    FOR EACH ROW EXECUTE FUNCTION remove_order_from_rollups();
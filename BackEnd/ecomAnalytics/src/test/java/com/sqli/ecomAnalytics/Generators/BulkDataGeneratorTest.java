@@ -0,0 +1,177 @@
+package com.sqli.ecomAnalytics.Generators;
+
+import com.sqli.ecomAnalytics.configuration.DataGenerationProp;
+import com.sqli.ecomAnalytics.dto.ProductCreateDto;
+import com.sqli.ecomAnalytics.entity.ProductCategory;
+import com.sqli.ecomAnalytics.entity.Products;
+import com.sqli.ecomAnalytics.generator.BulkDataGenerator;
+import com.sqli.ecomAnalytics.generator.CustomerGenerator;
+import com.sqli.ecomAnalytics.generator.ProductGenerator;
+import com.sqli.ecomAnalytics.repository.ProductRepository;
+import com.sqli.ecomAnalytics.service.DailySalesRollupService;
+import com.sqli.ecomAnalytics.service.ProductDailyStatsService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class BulkDataGeneratorTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ProductGenerator productGenerator;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private DailySalesRollupService dailySalesRollupService;
+
+    @Mock
+    private ProductDailyStatsService productDailyStatsService;
+
+    private final List<Object[]> customerRows = Collections.synchronizedList(new ArrayList<>());
+    private final List<Object[]> productRows = Collections.synchronizedList(new ArrayList<>());
+    private final List<Object[]> orderRows = Collections.synchronizedList(new ArrayList<>());
+    private final List<Object[]> itemRows = Collections.synchronizedList(new ArrayList<>());
+
+    private DataGenerationProp prop;
+    private BulkDataGenerator generator;
+
+    @BeforeEach
+    void setUp() {
+        prop = new DataGenerationProp();
+        prop.getBulk().setThreads(3);
+        prop.getBulk().setBatchSize(100);
+
+        CustomerGenerator customerGenerator = new CustomerGenerator(null, null, prop);
+        generator = new BulkDataGenerator(jdbcTemplate, transactionManager, customerGenerator, productGenerator,
+                productRepository, dailySalesRollupService, productDailyStatsService, prop);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void captureBatch(String table, List<Object[]> rows) {
+        when(jdbcTemplate.batchUpdate(startsWith("INSERT INTO " + table + " "), anyList())).thenAnswer(invocation -> {
+            rows.addAll(invocation.getArgument(1, List.class));
+            return new int[0];
+        });
+    }
+
+    private Products product(int id, ProductCategory category, String name, String price) {
+        Products product = new Products();
+        product.setProductId(id);
+        product.setName(name);
+        product.setCategory(category);
+        product.setPrice(new BigDecimal(price));
+        product.setStockQuantity(50);
+        return product;
+    }
+
+    @Test
+    void customersAndProductsAreWrittenInBatchesWithUniqueKeys() {
+        prop.getCustomers().setCount(250);
+        captureBatch("customers", customerRows);
+        captureBatch("products", productRows);
+        when(productGenerator.generateFullCatalog()).thenReturn(List.of(
+                new ProductCreateDto("APL-1", "iPhone", ProductCategory.SMARTPHONES, "Apple",
+                        new BigDecimal("999.99"), "Phone", 10)));
+
+        generator.generateCustomersAndProducts();
+
+        assertThat(customerRows).hasSize(250);
+        assertThat(customerRows.stream().map(row -> (String) row[0]).distinct()).hasSize(250);
+        assertThat(customerRows.stream().map(row -> (String) row[5]).distinct()).hasSize(250);
+        assertThat(customerRows).allSatisfy(row -> {
+            assertThat((String) row[0]).startsWith("CUST").hasSizeLessThanOrEqualTo(50);
+            assertThat((String) row[5]).matches("^[a-zA-Z0-9._%+-]+@[a-zA-Z0-9.-]+\\.[a-zA-Z]{2,}$");
+        });
+        assertThat(productRows).hasSize(1);
+        assertThat(productRows.getFirst()).containsExactly("APL-1", "iPhone", "Phone", "SMARTPHONES", "Apple",
+                new BigDecimal("999.99"), 10);
+    }
+
+    @Test
+    void ordersArePartitionedByMonthWithConsistentItemsAndTotals() {
+        prop.getOrders().setDailyVolume(10);
+        when(jdbcTemplate.queryForList(startsWith("SELECT customer_id"), eq(Integer.class)))
+                .thenReturn(IntStream.rangeClosed(1, 1000).boxed().toList());
+        when(productRepository.findAll()).thenReturn(List.of(
+                product(1, ProductCategory.SMARTPHONES, "iPhone 15 Pro", "999.99"),
+                product(2, ProductCategory.LAPTOPS, "MacBook Pro", "1999.99"),
+                product(3, ProductCategory.ACCESSORIES, "Phone case", "29.99")));
+        when(productRepository.searchByText(anyString()))
+                .thenReturn(List.of(product(3, ProductCategory.ACCESSORIES, "Phone case", "29.99")));
+        // Sequence starting at 1 with an increment of 50, like orders_order_id_seq
+        AtomicLong sequence = new AtomicLong(1 - 50);
+        when(jdbcTemplate.queryForList(startsWith("SELECT nextval"), eq(Long.class), anyInt()))
+                .thenAnswer(invocation -> LongStream.range(0, invocation.getArgument(2, Integer.class))
+                        .mapToObj(i -> sequence.addAndGet(50))
+                        .toList());
+        captureBatch("orders", orderRows);
+        captureBatch("order_items", itemRows);
+
+        long written = generator.generateOrders(LocalDate.of(2025, 6, 1), LocalDate.of(2025, 8, 31));
+
+        // June 1-14 at 10 a day, June 15 to July 15 summer sales at 12, July 16-31 at 10, August back to school at 15
+        assertThat(written).isEqualTo(14 * 10 + 16 * 12 + 15 * 12 + 16 * 10 + 31 * 15);
+        assertThat(orderRows).hasSize((int) written);
+        assertThat(orderRows.stream().map(row -> row[0]).distinct()).hasSize((int) written);
+        assertThat(orderRows.stream().map(row -> YearMonth.from((LocalDateTime) row[3])).distinct())
+                .containsExactlyInAnyOrder(YearMonth.of(2025, 6), YearMonth.of(2025, 7), YearMonth.of(2025, 8));
+
+        Map<Object, List<Object[]>> itemsByOrder = itemRows.stream().collect(Collectors.groupingBy(row -> row[0]));
+        assertThat(orderRows).allSatisfy(order -> {
+            assertThat((int) order[0]).isPositive();
+            List<Object[]> items = itemsByOrder.get(order[0]);
+            assertThat(items).isNotEmpty();
+            assertThat(items.stream().map(item -> item[1]).distinct()).hasSameSizeAs(items);
+            assertThat(items).allSatisfy(item -> assertThat(item[2]).isEqualTo(order[3]));
+            BigDecimal total = items.stream()
+                    .map(item -> ((BigDecimal) item[4]).multiply(BigDecimal.valueOf((int) item[3])))
+                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+            assertThat((BigDecimal) order[4]).isEqualByComparingTo(total);
+        });
+        assertThat(itemRows.size()).isGreaterThan(orderRows.size());
+    }
+
+    @Test
+    void ordersNeedCustomers() {
+        when(jdbcTemplate.queryForList(startsWith("SELECT customer_id"), eq(Integer.class))).thenReturn(List.of());
+
+        assertThatThrownBy(() ->
+                        generator.generateOrders(LocalDate.of(2025, 6, 1), LocalDate.of(2025, 6, 30)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("No customers");
+    }
+}
@@ -0,0 +1,188 @@
+package com.sqli.ecomAnalytics.Integration;
+
+import com.sqli.ecomAnalytics.repository.CustomerRepository;
+import com.sqli.ecomAnalytics.repository.OrderItemsRepository;
+import com.sqli.ecomAnalytics.repository.OrderRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=" +
+        "com.sqli.ecomAnalytics.Integration.AnalyticsIndexesIntegrationTest$SqlCapture")
+@Testcontainers
+public class AnalyticsIndexesIntegrationTest {
+    private static final int CUSTOMERS = 20_000;
+    private static final int PRODUCTS = 200;
+    private static final int ORDERS = 100_000;
+
+    @Container
+    static PostgreSQLContainer<?> postgresContainer = new PostgreSQLContainer<>("postgres:15")
+            .withDatabaseName("ecom_analytics_test")
+            .withUsername("user")
+            .withPassword("password");
+
+    @DynamicPropertySource
+    static void configureTestDatabase(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgresContainer::getJdbcUrl);
+        registry.add("spring.datasource.username", postgresContainer::getUsername);
+        registry.add("spring.datasource.password", postgresContainer::getPassword);
+        registry.add("spring.flyway.url", postgresContainer::getJdbcUrl);
+        registry.add("spring.flyway.user", postgresContainer::getUsername);
+        registry.add("spring.flyway.password", postgresContainer::getPassword);
+    }
+
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private OrderItemsRepository orderItemsRepository;
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    private int firstCustomerId;
+    private int firstProductId;
+
+    // Enough rows that the planner only picks an index where it pays off, the year of orders spans every partition
+    @BeforeEach
+    void seed() {
+        entityManager.createNativeQuery("INSERT INTO customers (customer_code, first_name, last_name, age, country, email, " +
+                "total_spent, order_count, last_order_date) " +
+                "SELECT 'IDX' || n, 'First', 'Last', 30, 'France', 'idx' || n || '@example.com', n % 2000, 5, " +
+                "CURRENT_DATE - (n % 730) * INTERVAL '1 day' FROM generate_series(1, " + CUSTOMERS + ") n").executeUpdate();
+        entityManager.createNativeQuery("INSERT INTO products (sku, name, category, brand, price, stock_quantity) " +
+                "SELECT 'IDX-' || n, 'Product ' || n, 'OTHERS', 'Brand', 10, 100 FROM generate_series(1, " + PRODUCTS + ") n")
+                .executeUpdate();
+        firstCustomerId = ((Number) entityManager.createNativeQuery(
+                "SELECT MIN(customer_id) FROM customers WHERE customer_code LIKE 'IDX%'").getSingleResult()).intValue();
+        firstProductId = ((Number) entityManager.createNativeQuery(
+                "SELECT MIN(product_id) FROM products WHERE sku LIKE 'IDX-%'").getSingleResult()).intValue();
+
+        entityManager.createNativeQuery("INSERT INTO orders (customer_id, status, order_date, total_amount) " +
+                "SELECT :firstCustomer + n % " + CUSTOMERS + ", " +
+                "(ARRAY['DELIVERED', 'PENDING', 'CANCELLED'])[n % 3 + 1], " +
+                "CURRENT_DATE - (n % 360) * INTERVAL '1 day' + (n % 24) * INTERVAL '1 hour', 10 + n % 500 " +
+                "FROM generate_series(1, " + ORDERS + ") n")
+                .setParameter("firstCustomer", firstCustomerId)
+                .executeUpdate();
+        entityManager.createNativeQuery("INSERT INTO order_items (order_id, product_id, order_date, quantity, unit_price) " +
+                "SELECT order_id, :firstProduct + order_id % " + PRODUCTS + ", order_date, 1, 10 FROM orders")
+                .setParameter("firstProduct", firstProductId)
+                .executeUpdate();
+        entityManager.createNativeQuery("ANALYZE customers, products, orders, order_items").executeUpdate();
+    }
+
+    @Test
+    void deliveredRevenueByDateRangeUsesPartialIndex() {
+        LocalDateTime start = LocalDate.now().minusDays(10).atStartOfDay();
+        String plan = explainRepositoryCall(() -> orderRepository.getTotalRevenueByDateRange(start, start.plusDays(1)),
+                start, start.plusDays(1));
+
+        assertThat(plan).containsAnyOf(indexAndPartitions("idx_orders_delivered_date"));
+    }
+
+    @Test
+    void topCustomersUsesPartialIndex() {
+        LocalDateTime start = LocalDate.now().minusDays(10).atStartOfDay();
+        String plan = explainRepositoryCall(() -> orderRepository.getTopCustomersByRevenue(start, start.plusDays(1), Limit.of(10)),
+                start, start.plusDays(1), 10);
+
+        assertThat(plan).containsAnyOf(indexAndPartitions("idx_orders_delivered_date"));
+    }
+
+    @Test
+    void customerTotalSpentUsesPartialIndex() {
+        String plan = explainRepositoryCall(() -> orderRepository.getTotalSpentByCustomer(firstCustomerId), firstCustomerId);
+
+        assertThat(plan).containsAnyOf(indexAndPartitions("idx_orders_delivered_customer"));
+    }
+
+    @Test
+    void orderItemsByProductUsesProductIndex() {
+        String plan = explainRepositoryCall(() -> orderItemsRepository.findByProductId(firstProductId), firstProductId);
+
+        assertThat(plan).containsAnyOf(indexAndPartitions("idx_order_items_product"));
+    }
+
+    @Test
+    void highSpendingCustomersUsesTotalSpentIndex() {
+        BigDecimal minSpent = BigDecimal.valueOf(1990);
+        String plan = explainRepositoryCall(() -> customerRepository.findHighSpendingCustomers(minSpent), minSpent);
+
+        assertThat(plan).contains("idx_customers_total_spent");
+    }
+
+    @Test
+    void churnedCustomersUsesLastOrderDateIndex() {
+        LocalDateTime threshold = LocalDate.now().minusDays(720).atStartOfDay();
+        String plan = explainRepositoryCall(() -> customerRepository.countChurnedCustomers(threshold), threshold);
+
+        assertThat(plan).contains("idx_customers_last_order_date");
+    }
+
+    // Indexes on the partitioned orders tables show up in plans under the name of each partition's copy
+    @SuppressWarnings("unchecked")
+    private String[] indexAndPartitions(String index) {
+        List<Object> names = entityManager.createNativeQuery("SELECT c.relname FROM pg_inherits i " +
+                        "JOIN pg_class c ON c.oid = i.inhrelid WHERE i.inhparent = CAST(:index AS regclass)")
+                .setParameter("index", index)
+                .getResultList();
+        return Stream.concat(Stream.of(index), names.stream().map(Object::toString)).toArray(String[]::new);
+    }
+
+    // EXPLAINs the SQL Hibernate generated for the repository's @Query, bound to the arguments it was called with
+    @SuppressWarnings("unchecked")
+    private String explainRepositoryCall(Runnable call, Object... parameters) {
+        SqlCapture.STATEMENTS.clear();
+        call.run();
+        assertThat(SqlCapture.STATEMENTS).isNotEmpty();
+
+        Matcher placeholders = Pattern.compile("\\?").matcher(SqlCapture.STATEMENTS.getLast());
+        StringBuilder sql = new StringBuilder("EXPLAIN ");
+        int position = 0;
+        while (placeholders.find()) {
+            placeholders.appendReplacement(sql, "?" + ++position);
+        }
+        placeholders.appendTail(sql);
+        assertThat(position).isEqualTo(parameters.length);
+
+        Query explain = entityManager.createNativeQuery(sql.toString());
+        for (int i = 0; i < parameters.length; i++) {
+            explain.setParameter(i + 1, parameters[i]);
+        }
+        List<Object> lines = explain.getResultList();
+        return lines.stream().map(Object::toString).collect(Collectors.joining("\n"));
+    }
+
+    public static class SqlCapture implements StatementInspector {
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.sqli.ecomAnalytics.Integration;
 
+import com.sqli.ecomAnalytics.dto.TopCustomerMetrics;
 import com.sqli.ecomAnalytics.entity.CustomerSegments;
 import com.sqli.ecomAnalytics.entity.Customers;
 import com.sqli.ecomAnalytics.entity.Segments;
@@ -122,4 +123,22 @@ public class CustomerAnalyticsIntegrationTest {
         assertThat(r.get(0).getTotalSpent()).isGreaterThanOrEqualTo(threshold);
     }
 
+    @Test
+    void customerMetricsViewServesTopCustomersAfterRefresh(){
+        Customers highSpender = createCustomerWithSegment("CUST-Metrics","metrics@email.com",Segments.CHAMPION);
+        highSpender.setTotalSpent(new BigDecimal("1500.00"));
+        highSpender.setOrderCount(4);
+        customerRepository.saveAndFlush(highSpender);
+
+        assertThat(customerRepository.findTopCustomerMetrics(new BigDecimal("1000.00"), 10)).isEmpty();
+
+        customerRepository.refreshCustomerMetrics();
+        List<TopCustomerMetrics> r = customerRepository.findTopCustomerMetrics(new BigDecimal("1000.00"), 10);
+
+        assertThat(r).hasSize(1);
+        assertThat(r.get(0).getCustomerName()).isEqualTo("First Last");
+        assertThat(r.get(0).getSegmentLabel()).isEqualTo("CHAMPION");
+        assertThat(r.get(0).getLifetimeValue()).isEqualByComparingTo("1500.00");
+        assertThat(customerRepository.getCustomerMetricsSummary(LocalDateTime.now()).getTotalCustomers()).isEqualTo(1L);
+    }
 }
@@ -0,0 +1,112 @@
+package com.sqli.ecomAnalytics.Integration;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sqli.ecomAnalytics.configuration.KafkaConfig;
+import com.sqli.ecomAnalytics.configuration.MLEventsProp;
+import com.sqli.ecomAnalytics.events.Events;
+import com.sqli.ecomAnalytics.events.MLEvents;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Bulk import shaped load (many orders over a few hundred customers) sent the way the outbox relay sends them,
+// against an in-process broker. The events/second figures are printed for the untuned and the tuned producer
+@EmbeddedKafka(partitions = 6, topics = {"ml-events", "ml-events-baseline"})
+public class MLEventThroughputIntegrationTest {
+    private static final int EVENTS = 50_000;
+    private static final int CUSTOMERS = 500;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private Map<String, Object> producerConfigs(EmbeddedKafkaBroker broker) {
+        Map<String, Object> configs = new HashMap<>();
+        configs.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString());
+        configs.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        configs.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
+        return configs;
+    }
+
+    private double publish(Map<String, Object> configs, String topic) {
+        DefaultKafkaProducerFactory<String, MLEvents> producerFactory = new DefaultKafkaProducerFactory<>(configs);
+        KafkaTemplate<String, MLEvents> template = new KafkaTemplate<>(producerFactory);
+        try {
+            // Warms up the connection and metadata so the timing covers sending only
+            template.send(topic, "0", new MLEvents(0, Events.CUSTOMER_CREATED));
+            template.flush();
+
+            long start = System.nanoTime();
+            for (int i = 1; i <= EVENTS; i++) {
+                int customerId = i % CUSTOMERS + 1;
+                MLEvents event = new MLEvents(customerId, Events.ORDER_CREATED);
+                event.setData(i);
+                template.send(topic, String.valueOf(customerId), event);
+            }
+            template.flush();
+            return EVENTS / ((System.nanoTime() - start) / 1_000_000_000.0);
+        } finally {
+            producerFactory.destroy();
+        }
+    }
+
+    @Test
+    void tunedProducerKeepsPerCustomerOrdering(EmbeddedKafkaBroker broker) throws Exception {
+        double baseline = publish(producerConfigs(broker), "ml-events-baseline");
+
+        Map<String, Object> tuned = producerConfigs(broker);
+        tuned.putAll(KafkaConfig.producerTuning(new MLEventsProp().getProducer()));
+        double throughput = publish(tuned, "ml-events");
+
+        System.out.printf("ml-events producer: %.0f events/s untuned, %.0f events/s tuned (%d events, %d customers)%n",
+                baseline, throughput, EVENTS, CUSTOMERS);
+
+        Map<String, Object> consumerConfigs = KafkaTestUtils.consumerProps("throughput-check", "false", broker);
+        consumerConfigs.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        consumerConfigs.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 5000);
+        Map<Integer, Integer> lastOrderByCustomer = new HashMap<>();
+        Map<String, Integer> partitionByKey = new HashMap<>();
+        int received = 0;
+        try (Consumer<String, String> consumer = new DefaultKafkaConsumerFactory<>(consumerConfigs,
+                new StringDeserializer(), new StringDeserializer()).createConsumer()) {
+            broker.consumeFromAnEmbeddedTopic(consumer, "ml-events");
+            long deadline = System.currentTimeMillis() + 60_000;
+            while (received < EVENTS + 1 && System.currentTimeMillis() < deadline) {
+                for (ConsumerRecord<String, String> record : consumer.poll(Duration.ofMillis(500))) {
+                    received++;
+                    assertThat(partitionByKey.putIfAbsent(record.key(), record.partition()))
+                            .isIn(null, record.partition());
+                    JsonNode event = objectMapper.readTree(record.value());
+                    if (!"ORDER_CREATED".equals(event.get("eventType").asText())) {
+                        continue;
+                    }
+                    int orderId = event.get("data").asInt();
+                    Integer previous = lastOrderByCustomer.put(event.get("customerId").asInt(), orderId);
+                    assertThat(previous == null || previous < orderId)
+                            .as("order %d of customer %s arrived after %d", orderId, record.key(), previous)
+                            .isTrue();
+                }
+            }
+        }
+
+        assertThat(received).isEqualTo(EVENTS + 1);
+        assertThat(lastOrderByCustomer).hasSize(CUSTOMERS);
+        assertThat(partitionByKey.values()).hasSizeGreaterThan(1);
+    }
+}
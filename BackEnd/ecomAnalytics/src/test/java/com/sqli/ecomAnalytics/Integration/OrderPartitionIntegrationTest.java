@@ -0,0 +1,96 @@
+package com.sqli.ecomAnalytics.Integration;
+
+import com.sqli.ecomAnalytics.configuration.PartitionConfig;
+import com.sqli.ecomAnalytics.service.OrderPartitionService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@Testcontainers
+@Import({OrderPartitionService.class, PartitionConfig.class})
+// DETACH PARTITION CONCURRENTLY refuses to run inside the test transaction
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class OrderPartitionIntegrationTest {
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("'y'uuuu'm'MM");
+
+    @Container
+    static PostgreSQLContainer<?> postgresContainer = new PostgreSQLContainer<>("postgres:15")
+            .withDatabaseName("ecom_analytics_test")
+            .withUsername("user")
+            .withPassword("password");
+
+    @DynamicPropertySource
+    static void configureTestDatabase(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgresContainer::getJdbcUrl);
+        registry.add("spring.datasource.username", postgresContainer::getUsername);
+        registry.add("spring.datasource.password", postgresContainer::getPassword);
+        registry.add("spring.flyway.url", postgresContainer::getJdbcUrl);
+        registry.add("spring.flyway.user", postgresContainer::getUsername);
+        registry.add("spring.flyway.password", postgresContainer::getPassword);
+    }
+
+    @Autowired
+    private OrderPartitionService orderPartitionService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void ensurePartitionsCreatesOnlyMissingMonths() {
+        YearMonth from = YearMonth.now().plusMonths(20);
+
+        assertThat(orderPartitionService.ensurePartitions(from, from.plusMonths(1))).isEqualTo(2);
+        assertThat(orderPartitionService.ensurePartitions(from, from.plusMonths(1))).isZero();
+        assertThat(partitionsOf("order_items")).contains("order_items_" + from.format(SUFFIX));
+    }
+
+    @Test
+    void windowQueryOnlyScansPartitionsOfTheWindow() {
+        YearMonth current = YearMonth.now();
+
+        String plan = String.join("\n", jdbcTemplate.queryForList(
+                "EXPLAIN SELECT DATE(order_date), SUM(total_amount) FROM orders " +
+                        "WHERE order_date BETWEEN '" + current.atDay(1) + "' AND '" + current.atEndOfMonth() + "' " +
+                        "AND status = 'DELIVERED' GROUP BY DATE(order_date)", String.class));
+
+        assertThat(plan).contains("orders_" + current.format(SUFFIX));
+        assertThat(plan).doesNotContain("orders_" + current.minusMonths(1).format(SUFFIX));
+    }
+
+    @Test
+    void detachedMonthIsKeptAsStandaloneTable() {
+        YearMonth month = YearMonth.now().plusMonths(30);
+        orderPartitionService.ensurePartitions(month, month);
+
+        orderPartitionService.detachPartition(month);
+
+        String ordersPartition = "orders_" + month.format(SUFFIX);
+        String itemsPartition = "order_items_" + month.format(SUFFIX);
+        assertThat(partitionsOf("orders")).doesNotContain(ordersPartition);
+        assertThat(partitionsOf("order_items")).doesNotContain(itemsPartition);
+        assertThat(jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, ordersPartition)).isTrue();
+
+        jdbcTemplate.execute("DROP TABLE " + itemsPartition + ", " + ordersPartition);
+    }
+
+    private List<String> partitionsOf(String table) {
+        return jdbcTemplate.queryForList("SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+                "WHERE i.inhparent = CAST(? AS regclass)", String.class, table);
+    }
+}
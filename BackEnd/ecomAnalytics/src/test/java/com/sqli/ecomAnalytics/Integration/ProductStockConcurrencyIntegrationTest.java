@@ -0,0 +1,120 @@
+package com.sqli.ecomAnalytics.Integration;
+
+import com.sqli.ecomAnalytics.entity.ProductCategory;
+import com.sqli.ecomAnalytics.entity.Products;
+import com.sqli.ecomAnalytics.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@Testcontainers
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class ProductStockConcurrencyIntegrationTest {
+    @Container
+    static PostgreSQLContainer<?> postgresContainer = new PostgreSQLContainer<>("postgres:15")
+            .withDatabaseName("ecom_analytics_test")
+            .withUsername("user")
+            .withPassword("password");
+
+    @DynamicPropertySource
+    static void configureTestDatabase(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgresContainer::getJdbcUrl);
+        registry.add("spring.datasource.username", postgresContainer::getUsername);
+        registry.add("spring.datasource.password", postgresContainer::getPassword);
+        registry.add("spring.flyway.url", postgresContainer::getJdbcUrl);
+        registry.add("spring.flyway.user", postgresContainer::getUsername);
+        registry.add("spring.flyway.password", postgresContainer::getPassword);
+    }
+
+    private static final int THREADS = 8;
+    private static final int ATTEMPTS = 200;
+    private static final int INITIAL_STOCK = 100;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void cleanup() {
+        productRepository.deleteAll();
+    }
+
+    @Test
+    void concurrentDecrementsNeverOversell() throws Exception {
+        Products product = new Products();
+        product.setName("Hot Phone");
+        product.setSku("SKU-HOT");
+        product.setPrice(new BigDecimal("999.00"));
+        product.setStockQuantity(INITIAL_STOCK);
+        product.setCategory(ProductCategory.SMARTPHONES);
+        product.setBrand("BrandA");
+        int productId = productRepository.saveAndFlush(product).getProductId();
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        AtomicInteger reserved = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(THREADS)) {
+            for (int i = 0; i < ATTEMPTS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    Integer updated = transactionTemplate.execute(status -> productRepository.decrementStock(productId, 1));
+                    if (updated != null && updated == 1) {
+                        reserved.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+
+        assertThat(reserved.get()).isEqualTo(INITIAL_STOCK);
+        assertThat(productRepository.findById(productId).orElseThrow().getStockQuantity()).isZero();
+    }
+
+    @Test
+    void decrementRejectsQuantityAboveStock() {
+        Products product = new Products();
+        product.setName("Tablet");
+        product.setSku("SKU-TAB");
+        product.setPrice(new BigDecimal("400.00"));
+        product.setStockQuantity(3);
+        product.setCategory(ProductCategory.TABLETS);
+        product.setBrand("BrandB");
+        int productId = productRepository.saveAndFlush(product).getProductId();
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        Integer updated = transactionTemplate.execute(status -> productRepository.decrementStock(productId, 5));
+
+        assertThat(updated).isZero();
+        assertThat(productRepository.findById(productId).orElseThrow().getStockQuantity()).isEqualTo(3);
+    }
+}
@@ -4,6 +4,7 @@ import com.sqli.ecomAnalytics.entity.*;
 import com.sqli.ecomAnalytics.repository.CustomerRepository;
 import com.sqli.ecomAnalytics.repository.OrderItemsRepository;
 import com.sqli.ecomAnalytics.repository.OrderRepository;
+import com.sqli.ecomAnalytics.repository.ProductDailyStatsRepository;
 import com.sqli.ecomAnalytics.repository.ProductRepository;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
@@ -16,6 +17,7 @@ import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -52,8 +54,12 @@ public class ProductsIntegrationTest {
     @Autowired
     private OrderItemsRepository orderItemRepository;
 
+    @Autowired
+    private ProductDailyStatsRepository productDailyStatsRepository;
+
     @AfterEach
     void cleanup() {
+        productDailyStatsRepository.deleteAllRows();
         orderItemRepository.deleteAll();
         orderRepository.deleteAll();
         customerRepository.deleteAll();
@@ -100,30 +106,32 @@ public class ProductsIntegrationTest {
         orderItem.setQuantity(1);
         orderItem.setUnitPrice(new BigDecimal("1500.00"));
         orderItemRepository.saveAndFlush(orderItem);
+        productDailyStatsRepository.backfillFromOrders();
 
-        List<Object[]> performance = productRepository.getProductPerformanceByRevenue(
-                LocalDateTime.now().minusDays(30), LocalDateTime.now());
+        List<Object[]> performance = productDailyStatsRepository.getProductPerformanceByRevenue(
+                LocalDate.now().minusDays(30), LocalDate.now());
 
         assertThat(performance).isNotNull();
         assertThat(performance).isNotEmpty();
 
         Object[] first = performance.get(0);
-        Products productFromQuery = (Products) first[0];
-        assertThat(productFromQuery.getName()).isEqualTo("Laptop");
+        assertThat(first[1]).isEqualTo("Laptop");
+        assertThat(((Number) first[2]).longValue()).isEqualTo(1L);
+        assertThat(new BigDecimal(first[3].toString())).isEqualByComparingTo("1500.00");
     }
 
     @Test
     void getCategoryPerformance() {
-        List<Object[]> categoryPerf = productRepository.getCategoryPerformance(
-                LocalDateTime.now().minusDays(30), LocalDateTime.now());
+        List<Object[]> categoryPerf = productDailyStatsRepository.getCategoryPerformance(
+                LocalDate.now().minusDays(30), LocalDate.now());
 
         assertThat(categoryPerf).isNotNull();
     }
 
     @Test
     void getInventoryTurnoverData() {
-        List<Object[]> inventoryData = productRepository.getInventoryTurnoverData(
-                LocalDateTime.now().minusDays(30), LocalDateTime.now());
+        List<Object[]> inventoryData = productDailyStatsRepository.getInventoryTurnoverData(
+                LocalDate.now().minusDays(30), LocalDate.now());
 
         assertThat(inventoryData).isNotNull();
     }
@@ -0,0 +1,153 @@
+package com.sqli.ecomAnalytics.Integration;
+
+import com.sqli.ecomAnalytics.entity.CustomerSegments;
+import com.sqli.ecomAnalytics.entity.Customers;
+import com.sqli.ecomAnalytics.entity.OrderStatus;
+import com.sqli.ecomAnalytics.entity.Orders;
+import com.sqli.ecomAnalytics.entity.Segments;
+import com.sqli.ecomAnalytics.repository.CustomerRepository;
+import com.sqli.ecomAnalytics.repository.OrderRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The top customer reads must cost the same number of statements whatever the number of rows they return
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Testcontainers
+public class TopCustomersQueryCountIntegrationTest {
+    @Container
+    static PostgreSQLContainer<?> postgresContainer = new PostgreSQLContainer<>("postgres:15")
+            .withDatabaseName("ecom_analytics_test")
+            .withUsername("user")
+            .withPassword("password");
+
+    @DynamicPropertySource
+    static void configureTestDatabase(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgresContainer::getJdbcUrl);
+        registry.add("spring.datasource.username", postgresContainer::getUsername);
+        registry.add("spring.datasource.password", postgresContainer::getPassword);
+        registry.add("spring.flyway.url", postgresContainer::getJdbcUrl);
+        registry.add("spring.flyway.user", postgresContainer::getUsername);
+        registry.add("spring.flyway.password", postgresContainer::getPassword);
+    }
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void highSpendingCustomersLoadSegmentsInTheSameQuery() {
+        createCustomers(0, 3);
+        long few = statementsFor(() -> customerRepository.findHighSpendingCustomers(new BigDecimal("100"))
+                .forEach(c -> c.getCustomerSegment().getSegmentLabel()));
+
+        createCustomers(3, 12);
+        long many = statementsFor(() -> customerRepository.findHighSpendingCustomers(new BigDecimal("100"))
+                .forEach(c -> c.getCustomerSegment().getSegmentLabel()));
+
+        assertThat(few).isEqualTo(1);
+        assertThat(many).isEqualTo(few);
+    }
+
+    @Test
+    void topCustomerMetricsIsASingleQuery() {
+        createCustomers(0, 3);
+        customerRepository.refreshCustomerMetrics();
+        long few = statementsFor(() -> customerRepository.findTopCustomerMetrics(new BigDecimal("100"), 50));
+
+        createCustomers(3, 12);
+        customerRepository.refreshCustomerMetrics();
+        long many = statementsFor(() -> assertThat(customerRepository.findTopCustomerMetrics(new BigDecimal("100"), 50))
+                .hasSize(15));
+
+        assertThat(few).isEqualTo(1);
+        assertThat(many).isEqualTo(few);
+    }
+
+    @Test
+    void topCustomersByRevenueIsASingleQuery() {
+        LocalDateTime now = LocalDateTime.now();
+        createOrders(createCustomers(0, 3), now);
+        long few = statementsFor(() -> orderRepository.getTopCustomersByRevenue(now.minusDays(1), now.plusDays(1), Limit.of(10)));
+
+        createOrders(createCustomers(3, 12), now);
+        long many = statementsFor(() -> assertThat(orderRepository.getTopCustomersByRevenue(now.minusDays(1), now.plusDays(1),
+                Limit.of(10))).hasSize(10));
+
+        assertThat(few).isEqualTo(1);
+        assertThat(many).isEqualTo(few);
+    }
+
+    private long statementsFor(Runnable query) {
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        query.run();
+        return statistics.getPrepareStatementCount();
+    }
+
+    private List<Customers> createCustomers(int from, int count) {
+        return IntStream.range(from, from + count).mapToObj(i -> {
+            Customers customer = new Customers();
+            customer.setCustomerCode("CUST-TOP-" + i);
+            customer.setFirstName("First" + i);
+            customer.setLastName("Last" + i);
+            customer.setEmail("top" + i + "@email.com");
+            customer.setAge(30);
+            customer.setCountry("France");
+            customer.setRegistrationDate(LocalDateTime.now().minusYears(2));
+            customer.setTotalSpent(new BigDecimal("500.00").add(BigDecimal.valueOf(i)));
+            customer.setOrderCount(5);
+
+            CustomerSegments segment = new CustomerSegments();
+            segment.setSegmentLabel(Segments.LOYAL);
+            segment.setFrequency(BigDecimal.ONE);
+            segment.setMonetary(BigDecimal.TEN);
+            segment.setRecency(10);
+            segment.setSegmentScore(3);
+            segment.setLastCalculated(LocalDateTime.now());
+            segment.setCustomer(customer);
+            customer.setCustomerSegment(segment);
+
+            return customerRepository.saveAndFlush(customer);
+        }).toList();
+    }
+
+    private void createOrders(List<Customers> customers, LocalDateTime orderDate) {
+        for (Customers customer : customers) {
+            Orders order = new Orders();
+            order.setCustomer(customer);
+            order.setStatus(OrderStatus.DELIVERED);
+            order.setOrderDate(orderDate);
+            order.setTotalAmount(customer.getTotalSpent());
+            orderRepository.save(order);
+        }
+        orderRepository.flush();
+    }
+}
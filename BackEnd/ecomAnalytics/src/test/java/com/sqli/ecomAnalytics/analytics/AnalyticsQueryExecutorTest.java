@@ -0,0 +1,98 @@
+package com.sqli.ecomAnalytics.analytics;
+
+import com.sqli.ecomAnalytics.Analytics.AnalyticsQueryExecutor;
+import com.sqli.ecomAnalytics.configuration.AnalyticsProp;
+import com.sqli.ecomAnalytics.exceptions.CustomerNotFoundException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class AnalyticsQueryExecutorTest {
+
+    private final ExecutorService executorService = Executors.newVirtualThreadPerTaskExecutor();
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+
+    @AfterEach
+    void tearDown() {
+        executorService.close();
+    }
+
+    private AnalyticsQueryExecutor createExecutor(boolean parallel, int maxConcurrency) {
+        AnalyticsProp prop = new AnalyticsProp();
+        prop.getParallel().setEnabled(parallel);
+        prop.getParallel().setMaxConcurrency(maxConcurrency);
+        return new AnalyticsQueryExecutor(prop, executorService, transactionManager, null);
+    }
+
+    @Test
+    void parallelModeRunsQueriesConcurrently() {
+        AnalyticsQueryExecutor executor = createExecutor(true, 3);
+        CountDownLatch allStarted = new CountDownLatch(3);
+        Runnable query = () -> {
+            allStarted.countDown();
+            try {
+                assertThat(allStarted.await(5, TimeUnit.SECONDS)).isTrue();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+
+        executor.runAll(List.of(query, query, query));
+
+        assertThat(allStarted.getCount()).isZero();
+        verify(transactionManager, times(3)).getTransaction(any());
+    }
+
+    @Test
+    void parallelModeRespectsMaxConcurrency() {
+        AnalyticsQueryExecutor executor = createExecutor(true, 2);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        Runnable query = () -> {
+            peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            running.decrementAndGet();
+        };
+
+        executor.runAll(List.of(query, query, query, query, query, query));
+
+        assertThat(peak.get()).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void parallelModePropagatesQueryException() {
+        AnalyticsQueryExecutor executor = createExecutor(true, 4);
+
+        assertThatThrownBy(() -> executor.runAll(List.of(
+                () -> {},
+                () -> { throw new CustomerNotFoundException("Customer not found"); }
+        ))).isInstanceOf(CustomerNotFoundException.class);
+    }
+
+    @Test
+    void sequentialModeUsesSingleTransaction() {
+        AnalyticsQueryExecutor executor = createExecutor(false, 4);
+        AtomicInteger calls = new AtomicInteger();
+
+        executor.runAll(List.of(calls::incrementAndGet, calls::incrementAndGet, calls::incrementAndGet));
+
+        assertThat(calls.get()).isEqualTo(3);
+        verify(transactionManager, times(1)).getTransaction(any());
+    }
+}
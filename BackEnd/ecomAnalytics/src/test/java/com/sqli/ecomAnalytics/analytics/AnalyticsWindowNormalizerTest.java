@@ -0,0 +1,70 @@
+package com.sqli.ecomAnalytics.analytics;
+
+import com.sqli.ecomAnalytics.Analytics.AnalyticsWindow;
+import com.sqli.ecomAnalytics.Analytics.AnalyticsWindowNormalizer;
+import com.sqli.ecomAnalytics.cache.TimeWindowTtlFunction;
+import com.sqli.ecomAnalytics.configuration.AnalyticsProp;
+import com.sqli.ecomAnalytics.dto.TimeGranularity;
+import com.sqli.ecomAnalytics.util.RedisCacheKeys;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AnalyticsWindowNormalizerTest {
+
+    private final AnalyticsProp analyticsProp = new AnalyticsProp();
+    private final AnalyticsWindowNormalizer normalizer = new AnalyticsWindowNormalizer(analyticsProp);
+
+    @Test
+    void requestsWithinTheSameDaysShareOneWindow() {
+        AnalyticsWindow first = normalizer.normalize(LocalDateTime.of(2025, 8, 10, 13, 42, 17), LocalDateTime.of(2025, 9, 22, 8, 5));
+        AnalyticsWindow second = normalizer.normalize(LocalDateTime.of(2025, 8, 10, 13, 43, 2), LocalDateTime.of(2025, 9, 22, 8, 6));
+
+        assertThat(first).isEqualTo(second);
+        assertThat(first.start()).isEqualTo(LocalDateTime.of(2025, 8, 10, 0, 0));
+        assertThat(first.end()).isEqualTo(LocalDateTime.of(2025, 9, 22, 23, 59, 59, 999_999_000));
+        assertThat(RedisCacheKeys.kpiKeys(first.start(), first.end()))
+                .isEqualTo(RedisCacheKeys.kpiKeys(second.start(), second.end()));
+    }
+
+    @Test
+    void hourGranularitySnapsToHours() {
+        analyticsProp.getWindow().setGranularity(AnalyticsProp.WindowGranularity.HOUR);
+
+        AnalyticsWindow window = normalizer.normalize(LocalDateTime.of(2025, 8, 10, 13, 42), LocalDateTime.of(2025, 8, 10, 15, 5));
+
+        assertThat(window.start()).isEqualTo(LocalDateTime.of(2025, 8, 10, 13, 0));
+        assertThat(window.end()).isEqualTo(LocalDateTime.of(2025, 8, 10, 15, 59, 59, 999_999_000));
+    }
+
+    @Test
+    void rollupWindowsAreWholeDaysEvenWithHourGranularity() {
+        analyticsProp.getWindow().setGranularity(AnalyticsProp.WindowGranularity.HOUR);
+
+        AnalyticsWindow window = normalizer.normalizeToDays(LocalDateTime.of(2025, 8, 10, 13, 42), LocalDateTime.of(2025, 8, 12, 9, 5));
+
+        assertThat(window.start()).isEqualTo(LocalDateTime.of(2025, 8, 10, 0, 0));
+        assertThat(window.end()).isEqualTo(LocalDateTime.of(2025, 8, 12, 23, 59, 59, 999_999_000));
+    }
+
+    @Test
+    void closedWindowsAreKeptLongerThanTheOpenOne() {
+        TimeWindowTtlFunction ttlFunction = new TimeWindowTtlFunction(Duration.ofHours(24), Duration.ofMinutes(5),
+                RedisCacheWriter.TtlFunction.just(Duration.ofHours(1)));
+        AnalyticsWindow past = normalizer.normalize(LocalDateTime.of(2025, 8, 1, 0, 0), LocalDateTime.of(2025, 8, 31, 0, 0));
+        AnalyticsWindow current = normalizer.normalize(LocalDateTime.now().minusDays(30), LocalDateTime.now());
+
+        String pastKey = RedisCacheKeys.salesTrendKeys(past.start(), past.end(), TimeGranularity.DAY);
+        String currentKey = RedisCacheKeys.salesTrendKeys(current.start(), current.end(), TimeGranularity.DAY);
+
+        assertThat(pastKey).endsWith(RedisCacheKeys.CLOSED_WINDOW_SUFFIX);
+        assertThat(currentKey).endsWith(RedisCacheKeys.OPEN_WINDOW_SUFFIX);
+        assertThat(ttlFunction.getTimeToLive(pastKey, null)).isEqualTo(Duration.ofHours(24));
+        assertThat(ttlFunction.getTimeToLive(currentKey, null)).isEqualTo(Duration.ofMinutes(5));
+        assertThat(ttlFunction.getTimeToLive("customer:profile:1", null)).isEqualTo(Duration.ofHours(1));
+    }
+}
@@ -1,42 +1,55 @@
 package com.sqli.ecomAnalytics.analytics;
 
+import com.sqli.ecomAnalytics.Analytics.AnalyticsQueryExecutor;
 import com.sqli.ecomAnalytics.Analytics.CustomersAnalyticsService;
+import com.sqli.ecomAnalytics.configuration.AnalyticsProp;
 import com.sqli.ecomAnalytics.dto.CustomerAnalyticsDto;
-import com.sqli.ecomAnalytics.entity.Customers;
-import com.sqli.ecomAnalytics.entity.Segments;
+import com.sqli.ecomAnalytics.dto.CustomerMetricsSummary;
+import com.sqli.ecomAnalytics.dto.TopCustomerMetrics;
 import com.sqli.ecomAnalytics.repository.CustomerRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Executors;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.mock;
 
 @ExtendWith(MockitoExtension.class)
 public class CustomerAnalyticsTest {
     @Mock
     private CustomerRepository customerRepository;
+    @Spy
+    private AnalyticsQueryExecutor queryExecutor = new AnalyticsQueryExecutor(new AnalyticsProp(),
+            Executors.newVirtualThreadPerTaskExecutor(), mock(PlatformTransactionManager.class), null);
+
+    @Spy
+    private AnalyticsProp analyticsProp = new AnalyticsProp();
+
     @InjectMocks
     private CustomersAnalyticsService analyticsService;
 
-    private Customers createMockCustomer() {
-        Customers c = new Customers();
-        c.setCustomerId(1);
-        c.setFirstName("John");
-        c.setLastName("Doe");
-        c.setAge(22);
-        c.setCountry("Morocco");
-        c.setTotalSpent(new BigDecimal("2500.00"));
-        c.setOrderCount(15);
-        c.setRegistrationDate(LocalDateTime.of(2022, 1, 1, 0, 0));
+    private TopCustomerMetrics createMockTopCustomer() {
+        TopCustomerMetrics c = mock(TopCustomerMetrics.class);
+        when(c.getCustomerId()).thenReturn(1);
+        when(c.getCustomerName()).thenReturn("John Doe");
+        when(c.getTotalSpent()).thenReturn(new BigDecimal("2500.00"));
+        when(c.getOrderCount()).thenReturn(15);
+        when(c.getSegmentLabel()).thenReturn("CHAMPION");
+        when(c.getLifetimeValue()).thenReturn(new BigDecimal("2499.90"));
+        when(c.getRegistrationDate()).thenReturn(LocalDateTime.of(2022, 1, 1, 0, 0));
         return c;
     }
 
@@ -53,22 +66,27 @@ public class CustomerAnalyticsTest {
         LocalDateTime end = LocalDateTime.of(2025, 9, 20, 0, 0);
         LocalDateTime threshold = LocalDateTime.of(2025, 8, 30, 0, 0);
 
-        Object[] row = new Object[]{Segments.CHAMPION, 100L};
+        Object[] row = new Object[]{"CHAMPION", 100L};
         List<Object[]> segmentList = Collections.singletonList(row);
-        when(customerRepository.getCustomerCountBySegment()).thenReturn(segmentList);
+        when(customerRepository.getSegmentDistributionFromMetrics()).thenReturn(segmentList);
 
-        Customers c = createMockCustomer();
-        when(customerRepository.findHighSpendingCustomers(any(BigDecimal.class))).thenReturn(List.of(c));
-        when(customerRepository.getAverageLifetimeValue()).thenReturn(new BigDecimal("1500.00"));
+        TopCustomerMetrics c = createMockTopCustomer();
+        when(customerRepository.findTopCustomerMetrics(any(BigDecimal.class), eq(50))).thenReturn(List.of(c));
+        CustomerMetricsSummary summary = mock(CustomerMetricsSummary.class);
+        when(summary.getAverageLifetimeValue()).thenReturn(new BigDecimal("1500.00"));
+        when(summary.getChurnedCustomers()).thenReturn(50L);
+        when(summary.getTotalCustomers()).thenReturn(1000L);
+        when(customerRepository.getCustomerMetricsSummary(threshold)).thenReturn(summary);
         when(customerRepository.getMonthlyRegistrationTrends(start, end)).thenReturn(createMockRegistrationTrends());
-        when(customerRepository.countChurnedCustomers(threshold)).thenReturn(50L);
-        when(customerRepository.countAllCustomers()).thenReturn(1000L);
 
         CustomerAnalyticsDto r = analyticsService.getAnalytics(start, end, threshold);
 
         assertThat(r).isNotNull();
         assertThat(r.getSegmentDistribution()).containsEntry("CHAMPION", 100L);
         assertThat(r.getTopCustomers()).hasSize(1);
+        assertThat(r.getTopCustomers().get(0).getCustomerName()).isEqualTo("John Doe");
+        assertThat(r.getTopCustomers().get(0).getSegment()).isEqualTo("CHAMPION");
+        assertThat(r.getTopCustomers().get(0).getLtv()).isEqualTo(new BigDecimal("2499.90"));
         assertThat(r.getAverageCustomerLifetimeValue()).isEqualTo(new BigDecimal("1500.00"));
         assertThat(r.getChurnRate()).isEqualTo(new BigDecimal("5.00"));
         assertThat(r.getRegistrationTrends()).isNotEmpty();
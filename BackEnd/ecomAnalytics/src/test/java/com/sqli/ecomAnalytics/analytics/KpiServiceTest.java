@@ -1,21 +1,29 @@
 package com.sqli.ecomAnalytics.analytics;
 
+import com.sqli.ecomAnalytics.Analytics.AnalyticsQueryExecutor;
 import com.sqli.ecomAnalytics.Analytics.KpiService;
+import com.sqli.ecomAnalytics.cache.CacheTagIndex;
+import com.sqli.ecomAnalytics.configuration.AnalyticsProp;
 import com.sqli.ecomAnalytics.dto.KpiDto;
+import com.sqli.ecomAnalytics.dto.KpiSnapshot;
 import com.sqli.ecomAnalytics.repository.CustomerRepository;
+import com.sqli.ecomAnalytics.repository.DailySalesRollupRepository;
 import com.sqli.ecomAnalytics.repository.OrderRepository;
 import com.sqli.ecomAnalytics.repository.ProductRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.concurrent.Executors;
 
 import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 public class KpiServiceTest {
@@ -29,6 +37,19 @@ public class KpiServiceTest {
     @Mock
     private ProductRepository  productRepository;
 
+    @Mock
+    private DailySalesRollupRepository dailySalesRollupRepository;
+
+    @Spy
+    private AnalyticsProp analyticsProp = new AnalyticsProp();
+
+    @Spy
+    private AnalyticsQueryExecutor queryExecutor = new AnalyticsQueryExecutor(new AnalyticsProp(),
+            Executors.newVirtualThreadPerTaskExecutor(), mock(PlatformTransactionManager.class), null);
+
+    @Mock
+    private CacheTagIndex cacheTagIndex;
+
     @InjectMocks
     private KpiService kpiService;
 
@@ -36,9 +57,10 @@ public class KpiServiceTest {
     void getKpi() {
         LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
         LocalDateTime end = LocalDateTime.of(2024, 12, 31, 23, 59);
+        analyticsProp.getKpi().setQueryMode(AnalyticsProp.KpiQueryMode.PER_METRIC);
 
-        when(orderRepository.findTotalRevenue()).thenReturn(new BigDecimal("100000.00"));
-        when(orderRepository.getAverageOrderValue(start, end)).thenReturn(new BigDecimal("75.50"));
+        when(dailySalesRollupRepository.findTotalRevenue()).thenReturn(new BigDecimal("100000.00"));
+        when(dailySalesRollupRepository.getAverageOrderValue(start.toLocalDate(), end.toLocalDate())).thenReturn(new BigDecimal("75.50"));
         when(orderRepository.countAllOrders()).thenReturn(5000L);
         when(customerRepository.countAllCustomers()).thenReturn(1500L);
         when(customerRepository.countCustomersRegisteredBetween(start, end)).thenReturn(300L);
@@ -53,4 +75,32 @@ public class KpiServiceTest {
         assertThat(result.getPeriodStart()).isEqualTo(start);
         assertThat(result.getPeriodEnd()).isEqualTo(end);
     }
+
+    @Test
+    void getKpiConsolidated() {
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+        LocalDateTime end = LocalDateTime.of(2024, 12, 31, 23, 59);
+
+        KpiSnapshot snapshot = mock(KpiSnapshot.class);
+        when(snapshot.getTotalRevenue()).thenReturn(new BigDecimal("100000.00"));
+        when(snapshot.getAverageOrderValue()).thenReturn(new BigDecimal("75.50"));
+        when(snapshot.getTotalOrders()).thenReturn(5000L);
+        when(snapshot.getTotalCustomers()).thenReturn(1500L);
+        when(snapshot.getNewCustomersCount()).thenReturn(300L);
+        when(snapshot.getTotalProducts()).thenReturn(120L);
+        when(orderRepository.getKpiSnapshot(start, end)).thenReturn(snapshot);
+
+        KpiDto result = kpiService.getKpi(start, end);
+
+        assertThat(result.getTotalRevenue()).isEqualTo("100000.00");
+        assertThat(result.getAverageOrderValue()).isEqualTo("75.50");
+        assertThat(result.getTotalOrders()).isEqualTo(5000L);
+        assertThat(result.getTotalCustomers()).isEqualTo(1500L);
+        assertThat(result.getNewCustomersCount()).isEqualTo(300L);
+        assertThat(result.getTotalProducts()).isEqualTo(120L);
+        assertThat(result.getPeriodStart()).isEqualTo(start);
+        assertThat(result.getPeriodEnd()).isEqualTo(end);
+
+        verifyNoInteractions(customerRepository, productRepository, dailySalesRollupRepository);
+    }
 }
@@ -1,23 +1,32 @@
 package com.sqli.ecomAnalytics.analytics;
 
+import com.sqli.ecomAnalytics.Analytics.AnalyticsQueryExecutor;
+import com.sqli.ecomAnalytics.Analytics.ProductSalesStore;
 import com.sqli.ecomAnalytics.Analytics.ProductsAnalyticsService;
+import com.sqli.ecomAnalytics.cache.CacheTagIndex;
+import com.sqli.ecomAnalytics.configuration.AnalyticsProp;
 import com.sqli.ecomAnalytics.dto.ProductPerformanceDto;
 import com.sqli.ecomAnalytics.entity.ProductCategory;
 import com.sqli.ecomAnalytics.entity.Products;
+import com.sqli.ecomAnalytics.repository.ProductDailyStatsRepository;
 import com.sqli.ecomAnalytics.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Executors;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.mock;
 
 @ExtendWith(MockitoExtension.class)
 public class ProductAnalyticsServiceTest {
@@ -25,9 +34,24 @@ public class ProductAnalyticsServiceTest {
     @Mock
     private ProductRepository productRepository;
 
-    @InjectMocks
+    @Mock
+    private ProductDailyStatsRepository productDailyStatsRepository;
+
+    @Spy
+    private AnalyticsQueryExecutor queryExecutor = new AnalyticsQueryExecutor(new AnalyticsProp(),
+            Executors.newVirtualThreadPerTaskExecutor(), mock(PlatformTransactionManager.class), null);
+
+    @Mock
+    private CacheTagIndex cacheTagIndex;
+
     private ProductsAnalyticsService productsAnalyticsService;
 
+    @BeforeEach
+    void setUp() {
+        productsAnalyticsService = new ProductsAnalyticsService(productRepository,
+                new ProductSalesStore(productDailyStatsRepository, queryExecutor, cacheTagIndex));
+    }
+
     private Products createMockProduct(int id, String name, BigDecimal price) {
         Products product = new Products();
         product.setProductId(id);
@@ -36,6 +60,11 @@ public class ProductAnalyticsServiceTest {
         return product;
     }
 
+    private Products withStock(Products product, int stock) {
+        product.setStockQuantity(stock);
+        return product;
+    }
+
     @Test
     void getProductPerformance_ShouldReturnCompleteProductPerformanceDto() {
 
@@ -43,23 +72,25 @@ public class ProductAnalyticsServiceTest {
         LocalDateTime end = LocalDateTime.of(2024, 12, 31, 23, 59);
         int lowStockThreshold = 10;
 
-        Products product = createMockProduct(1, "Laptop", new BigDecimal("999.99"));
-        Object[] topProductData = new Object[] { product, 50L, new BigDecimal("49999.50") };
+        // SUM over BIGINT comes back as NUMERIC from the native queries
+        Object[] topProductData = new Object[] { 1, "Laptop", new BigDecimal("50"), new BigDecimal("49999.50") };
         List<Object[]> topProducts = Collections.singletonList(topProductData);
-        when(productRepository.getProductPerformanceByRevenue(start, end)).thenReturn(topProducts);
+        when(productDailyStatsRepository.getProductPerformanceByRevenue(start.toLocalDate(), end.toLocalDate())).thenReturn(topProducts);
 
 
-        Object[] categoryData = new Object[] {ProductCategory.LAPTOPS, 100L, new BigDecimal("75000.00"), 5};
+        Object[] categoryData = new Object[] {ProductCategory.LAPTOPS.name(), new BigDecimal("100"), new BigDecimal("75000.00"), 5L};
         List<Object[]> categoryList = Collections.singletonList(categoryData);
-        when(productRepository.getCategoryPerformance(start, end)).thenReturn(categoryList);
+        when(productDailyStatsRepository.getCategoryPerformance(start.toLocalDate(), end.toLocalDate())).thenReturn(categoryList);
 
-        Object[] inventoryData = new Object[] {1, "Laptop", 25, 50L};
+        Object[] inventoryData = new Object[] {1, "Laptop", 25, new BigDecimal("50")};
         List<Object[]> inventoryList = Collections.singletonList(inventoryData);
-        when(productRepository.getInventoryTurnoverData(start, end)).thenReturn(inventoryList);
+        when(productDailyStatsRepository.getInventoryTurnoverData(start.toLocalDate(), end.toLocalDate())).thenReturn(inventoryList);
 
         Products lowStockProduct = createMockProduct(2, "Mouse", new BigDecimal("29.99"));
         when(productRepository.findLowStock(lowStockThreshold))
                 .thenReturn(List.of(lowStockProduct));
+        when(productRepository.findAllById(List.of(1)))
+                .thenReturn(List.of(withStock(createMockProduct(1, "Laptop", new BigDecimal("999.99")), 25)));
 
         ProductPerformanceDto result = productsAnalyticsService.getProductPerformance(start, end, lowStockThreshold);
 
@@ -78,4 +109,22 @@ public class ProductAnalyticsServiceTest {
         assertThat(result.getLowStockAlerts()).hasSize(1);
         assertThat(result.getLowStockAlerts().get(0).getName()).isEqualTo("Mouse");
     }
+
+    @Test
+    void inventoryUsesCurrentStockRatherThanTheStockOfTheCachedWindow() {
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+        LocalDateTime end = LocalDateTime.of(2024, 1, 31, 23, 59);
+        when(productDailyStatsRepository.getInventoryTurnoverData(start.toLocalDate(), end.toLocalDate()))
+                .thenReturn(Collections.singletonList(new Object[] {1, "Laptop", 25, new BigDecimal("50")}));
+        when(productRepository.findAllById(List.of(1)))
+                .thenReturn(List.of(withStock(createMockProduct(1, "Laptop", new BigDecimal("999.99")), 10)));
+
+        ProductPerformanceDto result = productsAnalyticsService.getProductPerformance(start, end, 10);
+
+        assertThat(result.getInventoryAnalysis()).singleElement().satisfies(item -> {
+            assertThat(item.getCurrentStock()).isEqualTo(10);
+            assertThat(item.getTotalSold()).isEqualTo(50L);
+            assertThat(item.getTurnoverRate()).isEqualTo(5.0);
+        });
+    }
 }
@@ -1,48 +1,74 @@
 package com.sqli.ecomAnalytics.analytics;
 
 import com.sqli.ecomAnalytics.Analytics.SalesAnalyticsService;
+import com.sqli.ecomAnalytics.Analytics.SalesBucketStore;
+import com.sqli.ecomAnalytics.cache.CacheTagIndex;
 import com.sqli.ecomAnalytics.dto.SalesTrendDto;
+import com.sqli.ecomAnalytics.dto.TimeGranularity;
+import com.sqli.ecomAnalytics.repository.DailySalesRollupRepository;
 import com.sqli.ecomAnalytics.repository.OrderRepository;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
 import java.sql.Date;
+import java.sql.Timestamp;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 public class SalesTrendServiceTest {
 
+    @Mock
+    private DailySalesRollupRepository dailySalesRollupRepository;
+
     @Mock
     private OrderRepository orderRepository;
 
-    @InjectMocks
-    private SalesAnalyticsService  salesAnalyticsService;
+    @Mock
+    private CacheTagIndex cacheTagIndex;
 
-    @Test
-    void getSalesTrend(){
-        LocalDateTime start = LocalDateTime.of(2025, 8, 1, 0, 0);
-        LocalDateTime end = LocalDateTime.of(2025, 10, 20, 23, 59);
+    private SalesAnalyticsService salesAnalyticsService;
+
+    private final LocalDateTime start = LocalDateTime.of(2025, 8, 1, 0, 0);
+    private final LocalDateTime end = LocalDateTime.of(2025, 10, 20, 23, 59);
 
+    @BeforeEach
+    void setup() {
+        salesAnalyticsService = new SalesAnalyticsService(
+                new SalesBucketStore(dailySalesRollupRepository, orderRepository, cacheTagIndex), cacheTagIndex);
+    }
+
+    private void stubDays() {
         Object[] aug1 = new Object[] {Date.valueOf("2025-08-01"), new BigDecimal("1000.00"), 10L};
         Object[] aug15 = new Object[] {Date.valueOf("2025-08-15"), new BigDecimal("1500.00"), 15L};
         Object[] sep1 = new Object[] {Date.valueOf("2025-09-01"), new BigDecimal("2000.00"), 20L};
         Object[] oct1 = new Object[] {Date.valueOf("2025-10-01"), new BigDecimal("1800.00"), 18L};
         Object[] oct15 = new Object[] {Date.valueOf("2025-10-15"), new BigDecimal("2200.00"), 22L};
+        // Whole months are read, the days after the window end must be left out
+        Object[] oct25 = new Object[] {Date.valueOf("2025-10-25"), new BigDecimal("900.00"), 9L};
+
+        when(dailySalesRollupRepository.getDailySalesTrends(LocalDate.of(2025, 8, 1), LocalDate.of(2025, 8, 31)))
+                .thenReturn(List.of(aug1, aug15));
+        when(dailySalesRollupRepository.getDailySalesTrends(LocalDate.of(2025, 9, 1), LocalDate.of(2025, 9, 30)))
+                .thenReturn(List.<Object[]>of(sep1));
+        when(dailySalesRollupRepository.getDailySalesTrends(LocalDate.of(2025, 10, 1), LocalDate.of(2025, 10, 31)))
+                .thenReturn(List.of(oct1, oct15, oct25));
+    }
 
-        List<Object[]> data = List.of(aug1, aug15, sep1, oct1, oct15);
-
-        when(orderRepository.getDailySalesTrends(start,end)).thenReturn(data);
+    @Test
+    void getSalesTrend(){
+        stubDays();
 
-        SalesTrendDto r = salesAnalyticsService.getsalesTrend(start,end);
+        SalesTrendDto r = salesAnalyticsService.getsalesTrend(start, end, TimeGranularity.DAY);
 
         assertThat(r.getDailySales()).hasSize(5);
         assertThat(r.getDailySales().get(0).getDate()).isEqualTo(LocalDate.of(2025, 8, 1));
@@ -64,7 +90,51 @@ public class SalesTrendServiceTest {
         assertThat(octData.getOrderCount()).isEqualTo(40L);
 
         assertThat(r.getTrendDirection()).isEqualTo("UP");
+        assertThat(r.getBuckets()).hasSize(5);
+
+        verify(dailySalesRollupRepository, times(3)).getDailySalesTrends(any(), any());
+    }
+
+    @Test
+    void trendAndMonthsAreTaggedWithTheMonthsTheyCover() {
+        stubDays();
+
+        salesAnalyticsService.getsalesTrend(start, end, TimeGranularity.DAY);
 
-        verify(orderRepository, times(1)).getDailySalesTrends(start, end);
+        verify(cacheTagIndex).tag(eq("salesTrendCache"), anyString(),
+                eq(List.of("orders:month:2025-08", "orders:month:2025-09", "orders:month:2025-10")));
+        verify(cacheTagIndex).tag(eq("salesDayBucketsCache"), startsWith("sales:days:2025-09"),
+                eq(List.of("orders:month:2025-09")));
+    }
+
+    @Test
+    void weeklyAndQuarterlyBucketsAreMergedFromDays() {
+        stubDays();
+
+        SalesTrendDto weekly = salesAnalyticsService.getsalesTrend(start, end, TimeGranularity.WEEK);
+        SalesTrendDto quarterly = salesAnalyticsService.getsalesTrend(start, end, TimeGranularity.QUARTER);
+
+        // 2025-08-01 is a Friday, its ISO week starts on Monday 2025-07-28
+        assertThat(weekly.getBuckets().get(0).getBucketStart()).isEqualTo(LocalDateTime.of(2025, 7, 28, 0, 0));
+        assertThat(weekly.getBuckets()).hasSize(5);
+        assertThat(quarterly.getBuckets()).extracting(SalesTrendDto.SalesBucketData::getBucketStart)
+                .containsExactly(LocalDateTime.of(2025, 7, 1, 0, 0), LocalDateTime.of(2025, 10, 1, 0, 0));
+        assertThat(quarterly.getBuckets().get(0).getRevenue()).isEqualByComparingTo("4500.00");
+        assertThat(quarterly.getBuckets().get(0).getOrderCount()).isEqualTo(45L);
+        assertThat(quarterly.getBuckets().get(1).getRevenue()).isEqualByComparingTo("4000.00");
+    }
+
+    @Test
+    void hourBucketsAreReadFromOrders() {
+        stubDays();
+        Object[] hour = new Object[] {Timestamp.valueOf("2025-08-01 10:00:00"), new BigDecimal("120.50"), 2L};
+        when(orderRepository.getHourlySales(start, end)).thenReturn(List.<Object[]>of(hour));
+
+        SalesTrendDto r = salesAnalyticsService.getsalesTrend(start, end, TimeGranularity.HOUR);
+
+        assertThat(r.getBuckets()).hasSize(1);
+        assertThat(r.getBuckets().get(0).getBucketStart()).isEqualTo(LocalDateTime.of(2025, 8, 1, 10, 0));
+        assertThat(r.getBuckets().get(0).getRevenue()).isEqualByComparingTo("120.50");
+        assertThat(r.getDailySales()).hasSize(5);
     }
 }
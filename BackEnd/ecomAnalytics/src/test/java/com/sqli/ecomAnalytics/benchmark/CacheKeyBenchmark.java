@@ -0,0 +1,60 @@
+package com.sqli.ecomAnalytics.benchmark;
+
+import com.sqli.ecomAnalytics.dto.TimeGranularity;
+import com.sqli.ecomAnalytics.util.RedisCacheKeys;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Key building on every cached call. RedisCacheKeys goes through String.format, the concat benchmark is the
+ * baseline it is measured against.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheKeyBenchmark {
+
+    private int productId;
+    private LocalDateTime start;
+    private LocalDateTime end;
+    private YearMonth month;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        productId = 4242;
+        start = LocalDateTime.of(2025, 1, 1, 0, 0);
+        end = LocalDateTime.of(2025, 3, 31, 23, 59, 59, 999_999_000);
+        month = YearMonth.of(2025, 2);
+    }
+
+    @Benchmark
+    public String productIdKey() {
+        return RedisCacheKeys.productIdKey(productId);
+    }
+
+    @Benchmark
+    public String productIdKeyConcat() {
+        return "product:id:" + productId;
+    }
+
+    @Benchmark
+    public String productPerformanceKey() {
+        return RedisCacheKeys.productPerformanceKeys(start, end);
+    }
+
+    @Benchmark
+    public String salesTrendKey() {
+        return RedisCacheKeys.salesTrendKeys(start, end, TimeGranularity.MONTH);
+    }
+
+    @Benchmark
+    public String salesDayBucketsKey() {
+        return RedisCacheKeys.salesDayBucketsKey(month);
+    }
+}
@@ -0,0 +1,153 @@
+package com.sqli.ecomAnalytics.benchmark;
+
+import com.sqli.ecomAnalytics.cache.CacheSerializers;
+import com.sqli.ecomAnalytics.configuration.CacheProp;
+import com.sqli.ecomAnalytics.dto.CustomerAnalyticsDto;
+import com.sqli.ecomAnalytics.dto.ProductPerformanceDto;
+import com.sqli.ecomAnalytics.dto.SalesTrendDto;
+import com.sqli.ecomAnalytics.dto.TimeGranularity;
+import com.sqli.ecomAnalytics.entity.ProductCategory;
+import com.sqli.ecomAnalytics.entity.Products;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the JSON cache serializer with the binary one, with and without compression, on the cached DTOs.
+ * Payload sizes are printed once per trial, times come from JMH.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheSerializerBenchmark {
+
+    @Param({"productPerformance", "salesTrend", "customerAnalytics", "productCatalog"})
+    private String payload;
+
+    @Param({"json", "binary", "binary-lz4", "binary-zstd"})
+    private String serializer;
+
+    private RedisSerializer<Object> redisSerializer;
+    private Object value;
+    private byte[] encoded;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        redisSerializer = switch (serializer) {
+            case "json" -> CacheSerializers.json();
+            case "binary" -> CacheSerializers.binary(CacheProp.Compression.NONE, 0);
+            case "binary-lz4" -> CacheSerializers.binary(CacheProp.Compression.LZ4, 0);
+            case "binary-zstd" -> CacheSerializers.binary(CacheProp.Compression.ZSTD, 0);
+            default -> throw new IllegalArgumentException(serializer);
+        };
+        value = switch (payload) {
+            case "productPerformance" -> productPerformance();
+            case "salesTrend" -> salesTrend();
+            case "customerAnalytics" -> customerAnalytics();
+            case "productCatalog" -> products(300);
+            default -> throw new IllegalArgumentException(payload);
+        };
+        encoded = redisSerializer.serialize(value);
+        System.out.printf("%n[payload size] %s / %s: %d bytes%n", payload, serializer, encoded.length);
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return redisSerializer.serialize(value);
+    }
+
+    @Benchmark
+    public Object deserialize() {
+        return redisSerializer.deserialize(encoded);
+    }
+
+    // A cache miss followed by a hit on another node: write then read back
+    @Benchmark
+    public Object roundTrip() {
+        return redisSerializer.deserialize(redisSerializer.serialize(value));
+    }
+
+    private static List<Products> products(int count) {
+        ProductCategory[] categories = ProductCategory.values();
+        List<Products> products = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            Products p = new Products();
+            p.setProductId(i);
+            p.setSku("SKU-" + i);
+            p.setName("Product " + i);
+            p.setDescription("Reliable everyday device with a long lasting battery, model " + i);
+            p.setCategory(categories[i % categories.length]);
+            p.setBrand("Brand" + (i % 12));
+            p.setPrice(BigDecimal.valueOf(100 + i, 2));
+            p.setStockQuantity(i % 50);
+            products.add(p);
+        }
+        return products;
+    }
+
+    private static ProductPerformanceDto productPerformance() {
+        List<ProductPerformanceDto.TopProductData> top = new ArrayList<>();
+        List<ProductPerformanceDto.InventoryTurnoverData> inventory = new ArrayList<>();
+        for (int i = 1; i <= 100; i++) {
+            top.add(new ProductPerformanceDto.TopProductData(i, "Product " + i, 500L - i, BigDecimal.valueOf(99_000 - i * 13L, 2)));
+            inventory.add(new ProductPerformanceDto.InventoryTurnoverData(i, "Product " + i, i % 50, 300L - i, 1.5 + i / 100.0));
+        }
+        List<ProductPerformanceDto.CategoryPerformanceData> categories = new ArrayList<>();
+        for (ProductCategory category : ProductCategory.values()) {
+            categories.add(new ProductPerformanceDto.CategoryPerformanceData(category.name(), 1200L, new BigDecimal("250000.00"), 50, new BigDecimal("499.99")));
+        }
+        return new ProductPerformanceDto(top, categories, inventory, products(20));
+    }
+
+    private static SalesTrendDto salesTrend() {
+        List<SalesTrendDto.DailySalesData> daily = new ArrayList<>();
+        for (int i = 0; i < 365; i++) {
+            daily.add(new SalesTrendDto.DailySalesData(LocalDate.of(2025, 1, 1).plusDays(i), BigDecimal.valueOf(125_050 + i, 2), 12L + i % 7));
+        }
+        List<SalesTrendDto.MonthlySalesData> monthly = new ArrayList<>();
+        for (int m = 1; m <= 12; m++) {
+            monthly.add(new SalesTrendDto.MonthlySalesData(2025, m, new BigDecimal("38765.50"), 372L));
+        }
+        return new SalesTrendDto(daily, monthly, "UP", TimeGranularity.DAY, List.of());
+    }
+
+    private static CustomerAnalyticsDto customerAnalytics() {
+        Map<String, Long> segments = new LinkedHashMap<>();
+        segments.put("CHAMPIONS", 120L);
+        segments.put("LOYAL", 340L);
+        segments.put("AT_RISK", 90L);
+        segments.put("NEW", 450L);
+        List<CustomerAnalyticsDto.TopCustomerData> top = new ArrayList<>();
+        for (int i = 1; i <= 100; i++) {
+            top.add(new CustomerAnalyticsDto.TopCustomerData(i, "Customer " + i, BigDecimal.valueOf(500_000 - i * 97L, 2), 40 - i % 30, "LOYAL", BigDecimal.valueOf(900_000 - i * 97L, 2),
+                    LocalDateTime.of(2023, 1, 1, 0, 0).plusDays(i)));
+        }
+        List<CustomerAnalyticsDto.CustomerRegistrationTrendData> registrations = new ArrayList<>();
+        for (int m = 1; m <= 24; m++) {
+            registrations.add(new CustomerAnalyticsDto.CustomerRegistrationTrendData(2024 + (m - 1) / 12, (m - 1) % 12 + 1, 40L + m));
+        }
+        return new CustomerAnalyticsDto(segments, top, new BigDecimal("1843.22"), registrations, new BigDecimal("0.12"));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(CacheSerializerBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,50 @@
+package com.sqli.ecomAnalytics.benchmark;
+
+import com.sqli.ecomAnalytics.entity.Customers;
+import com.sqli.ecomAnalytics.service.CustomersService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LTV as computed per customer by CustomersService, on a page of customers with varied spend and tenure.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CustomerLtvBenchmark {
+
+    @Param({"100", "1000"})
+    private int customers;
+
+    private List<Customers> page;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        page = new ArrayList<>(customers);
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < customers; i++) {
+            Customers c = new Customers();
+            c.setCustomerId(i);
+            c.setTotalSpent(BigDecimal.valueOf(10_000 + i * 731L, 2));
+            c.setOrderCount(i % 40);
+            c.setRegistrationDate(now.minusDays(30L + i % 1500));
+            page.add(c);
+        }
+    }
+
+    @Benchmark
+    public void calculateLtv(Blackhole blackhole) {
+        for (Customers c : page) {
+            blackhole.consume(CustomersService.calculateLTV(c));
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.sqli.ecomAnalytics.benchmark;
+
+import com.sqli.ecomAnalytics.Analytics.ProductSalesStore;
+import com.sqli.ecomAnalytics.dto.ProductPerformanceDto;
+import com.sqli.ecomAnalytics.entity.ProductCategory;
+import com.sqli.ecomAnalytics.repository.ProductDailyStatsRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Object[] rows to DTOs in ProductSalesStore. The repository is a plain proxy returning prebuilt rows, so
+ * only the mapping is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProductRowMappingBenchmark {
+
+    @Param({"100", "1000"})
+    private int products;
+
+    private ProductSalesStore service;
+    private LocalDateTime start;
+    private LocalDateTime end;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        List<Object[]> inventoryRows = new ArrayList<>(products);
+        for (int i = 1; i <= products; i++) {
+            inventoryRows.add(new Object[]{i, "Product " + i, i % 50, 300L - i % 300});
+        }
+        List<Object[]> categoryRows = new ArrayList<>();
+        for (ProductCategory category : ProductCategory.values()) {
+            categoryRows.add(new Object[]{category.name(), 1200L, new BigDecimal("250000.00"), products / 6});
+        }
+
+        ProductDailyStatsRepository repository = (ProductDailyStatsRepository) Proxy.newProxyInstance(
+                ProductDailyStatsRepository.class.getClassLoader(),
+                new Class<?>[]{ProductDailyStatsRepository.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getInventoryTurnoverData" -> inventoryRows;
+                    case "getCategoryPerformance" -> categoryRows;
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+        service = new ProductSalesStore(repository, null, null);
+        start = LocalDateTime.of(2025, 1, 1, 0, 0);
+        end = LocalDateTime.of(2025, 12, 31, 23, 59);
+    }
+
+    @Benchmark
+    public List<ProductPerformanceDto.InventoryTurnoverData> inventoryTurnover() {
+        return service.getInventoryTurnover(start, end);
+    }
+
+    @Benchmark
+    public List<ProductPerformanceDto.CategoryPerformanceData> categoryPerformance() {
+        return service.getCategoryPerformance(start, end);
+    }
+}
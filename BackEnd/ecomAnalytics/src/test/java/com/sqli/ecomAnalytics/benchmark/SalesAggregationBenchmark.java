@@ -0,0 +1,62 @@
+package com.sqli.ecomAnalytics.benchmark;
+
+import com.sqli.ecomAnalytics.Analytics.TimeBucketAggregator;
+import com.sqli.ecomAnalytics.dto.SalesBucketSeries;
+import com.sqli.ecomAnalytics.dto.TimeGranularity;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The sales trend path: rollup rows to a day series, then rolled up to the requested granularity.
+ * This replaced the per-request monthly aggregation of SalesAnalyticsService.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SalesAggregationBenchmark {
+
+    @Param({"365", "1460"})
+    private int days;
+
+    private List<Object[]> rows;
+    private SalesBucketSeries daySeries;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        rows = new ArrayList<>(days);
+        LocalDate start = LocalDate.of(2022, 1, 1);
+        for (int i = 0; i < days; i++) {
+            rows.add(new Object[]{Date.valueOf(start.plusDays(i)), BigDecimal.valueOf(1_250_050 + i * 17L, 2), 12L + i % 7});
+        }
+        daySeries = TimeBucketAggregator.fromRows(rows);
+    }
+
+    @Benchmark
+    public SalesBucketSeries fromRows() {
+        return TimeBucketAggregator.fromRows(rows);
+    }
+
+    @Benchmark
+    public SalesBucketSeries rollUpWeek() {
+        return TimeBucketAggregator.rollUp(daySeries, TimeGranularity.WEEK);
+    }
+
+    @Benchmark
+    public SalesBucketSeries rollUpMonth() {
+        return TimeBucketAggregator.rollUp(daySeries, TimeGranularity.MONTH);
+    }
+
+    @Benchmark
+    public SalesBucketSeries rollUpQuarter() {
+        return TimeBucketAggregator.rollUp(daySeries, TimeGranularity.QUARTER);
+    }
+}
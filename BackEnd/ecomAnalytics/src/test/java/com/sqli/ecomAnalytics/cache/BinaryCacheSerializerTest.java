@@ -0,0 +1,84 @@
+package com.sqli.ecomAnalytics.cache;
+
+import com.sqli.ecomAnalytics.configuration.CacheProp;
+import com.sqli.ecomAnalytics.dto.SalesTrendDto;
+import com.sqli.ecomAnalytics.dto.TimeGranularity;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class BinaryCacheSerializerTest {
+
+    private SalesTrendDto salesTrend(int days) {
+        List<SalesTrendDto.DailySalesData> daily = new ArrayList<>();
+        for (int i = 0; i < days; i++) {
+            daily.add(new SalesTrendDto.DailySalesData(LocalDate.of(2025, 1, 1).plusDays(i), new BigDecimal("1250.50"), 12L));
+        }
+        return new SalesTrendDto(daily, List.of(new SalesTrendDto.MonthlySalesData(2025, 1, new BigDecimal("38765.50"), 372L)), "UP", TimeGranularity.DAY, List.of());
+    }
+
+    @Test
+    void roundTripsDtoWithoutCompression() {
+        RedisSerializer<Object> serializer = CacheSerializers.binary(CacheProp.Compression.NONE, 0);
+        SalesTrendDto dto = salesTrend(5);
+
+        assertThat(serializer.deserialize(serializer.serialize(dto))).isEqualTo(dto);
+    }
+
+    @Test
+    void compressesAboveThreshold() {
+        SalesTrendDto dto = salesTrend(365);
+        byte[] plain = CacheSerializers.binary(CacheProp.Compression.NONE, 0).serialize(dto);
+
+        for (CacheProp.Compression compression : List.of(CacheProp.Compression.LZ4, CacheProp.Compression.ZSTD)) {
+            RedisSerializer<Object> serializer = CacheSerializers.binary(compression, 512);
+            byte[] compressed = serializer.serialize(dto);
+
+            assertThat(compressed.length).isLessThan(plain.length);
+            assertThat(serializer.deserialize(compressed)).isEqualTo(dto);
+        }
+    }
+
+    @Test
+    void binaryIsSmallerThanJson() {
+        SalesTrendDto dto = salesTrend(90);
+
+        assertThat(CacheSerializers.binary(CacheProp.Compression.NONE, 0).serialize(dto).length)
+                .isLessThan(CacheSerializers.json().serialize(dto).length);
+    }
+
+    @Test
+    void readsValuesWrittenAsJson() {
+        SalesTrendDto dto = salesTrend(3);
+        byte[] legacy = CacheSerializers.json().serialize(dto);
+
+        assertThat(CacheSerializers.binary(CacheProp.Compression.LZ4, 0).deserialize(legacy)).isEqualTo(dto);
+    }
+
+    @Test
+    void codecIdsAreStable() {
+        SalesTrendDto dto = salesTrend(365);
+
+        assertThat(CacheSerializers.binary(CacheProp.Compression.NONE, 0).serialize(dto)[1]).isEqualTo((byte) 0);
+        assertThat(CacheSerializers.binary(CacheProp.Compression.LZ4, 0).serialize(dto)[1]).isEqualTo((byte) 1);
+        assertThat(CacheSerializers.binary(CacheProp.Compression.ZSTD, 0).serialize(dto)[1]).isEqualTo((byte) 2);
+    }
+
+    @Test
+    void unknownCodecIsASerializationError() {
+        byte[] stored = CacheSerializers.binary(CacheProp.Compression.NONE, 0).serialize(salesTrend(3));
+        stored[1] = 9;
+
+        assertThatThrownBy(() -> CacheSerializers.binary(CacheProp.Compression.NONE, 0).deserialize(stored))
+                .isInstanceOf(SerializationException.class)
+                .hasMessageContaining("codec 9");
+    }
+}
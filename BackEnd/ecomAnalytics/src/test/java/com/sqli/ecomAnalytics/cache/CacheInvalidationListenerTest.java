@@ -0,0 +1,60 @@
+package com.sqli.ecomAnalytics.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sqli.ecomAnalytics.configuration.CacheProp;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.data.redis.connection.DefaultMessage;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class CacheInvalidationListenerTest {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private TwoLevelCache cache;
+    private CacheInvalidationListener listener;
+
+    @BeforeEach
+    void setup() {
+        cache = new TwoLevelCache("productByIdCache", Caffeine.newBuilder().maximumSize(100).build(),
+                new ConcurrentMapCache("productByIdCache"), CacheSerializers.binary(CacheProp.Compression.NONE, 0),
+                mock(CacheInvalidationPublisher.class), TwoLevelCache.EntryTtl.fixed(Duration.ofMinutes(5)), false);
+        CacheManager cacheManager = mock(CacheManager.class);
+        when(cacheManager.getCache("productByIdCache")).thenReturn(cache);
+        listener = new CacheInvalidationListener(cacheManager, objectMapper, "local-node");
+
+        cache.put("product:1", "phone");
+        cache.put("product:2", "laptop");
+    }
+
+    private void receive(CacheInvalidationMessage message) throws Exception {
+        listener.onMessage(new DefaultMessage("cache:invalidation".getBytes(), objectMapper.writeValueAsBytes(message)), null);
+    }
+
+    @Test
+    void remoteEvictDropsOnlyThatKey() throws Exception {
+        receive(new CacheInvalidationMessage("other-node", "productByIdCache", "product:1"));
+
+        assertThat(cache.localSize()).isEqualTo(1);
+    }
+
+    @Test
+    void remoteClearDropsWholeL1() throws Exception {
+        receive(new CacheInvalidationMessage("other-node", "productByIdCache", null));
+
+        assertThat(cache.localSize()).isZero();
+    }
+
+    @Test
+    void ownMessagesAreIgnored() throws Exception {
+        receive(new CacheInvalidationMessage("local-node", "productByIdCache", null));
+
+        assertThat(cache.localSize()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,103 @@
+package com.sqli.ecomAnalytics.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.SetOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class CacheTagIndexTest {
+    private StringRedisTemplate redisTemplate;
+    private SetOperations<String, String> setOperations;
+    private ConcurrentMapCache categoryCache;
+    private ConcurrentMapCache searchCache;
+    private SimpleMeterRegistry meterRegistry;
+    private CacheTagIndex cacheTagIndex;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setup() {
+        redisTemplate = mock(StringRedisTemplate.class);
+        setOperations = mock(SetOperations.class);
+        when(redisTemplate.opsForSet()).thenReturn(setOperations);
+
+        categoryCache = new ConcurrentMapCache("productByCategoryCache");
+        searchCache = new ConcurrentMapCache("productSearchCache");
+        CacheManager cacheManager = mock(CacheManager.class);
+        when(cacheManager.getCache("productByCategoryCache")).thenReturn(categoryCache);
+        when(cacheManager.getCache("productSearchCache")).thenReturn(searchCache);
+
+        meterRegistry = new SimpleMeterRegistry();
+        cacheTagIndex = new CacheTagIndex(redisTemplate, cacheManager, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void tagAddsEntryToEveryTagSetInOnePipeline() {
+        StringRedisConnection connection = mock(StringRedisConnection.class);
+        when(redisTemplate.executePipelined(any(RedisCallback.class))).thenAnswer(invocation -> {
+            invocation.getArgument(0, RedisCallback.class).doInRedis(connection);
+            return List.of();
+        });
+
+        cacheTagIndex.tag("productByCategoryCache", "product:category:laptops", List.of("category:LAPTOPS", "product:42"));
+
+        verify(redisTemplate, times(1)).executePipelined(any(RedisCallback.class));
+        verify(connection).sAdd("cache:tag:category:LAPTOPS", "productByCategoryCache|product:category:laptops");
+        verify(connection).sAdd("cache:tag:product:42", "productByCategoryCache|product:category:laptops");
+    }
+
+    @Test
+    void evictTaggedEvictsOnlyTaggedEntries() {
+        categoryCache.put("product:category:laptops", "laptops");
+        categoryCache.put("product:category:tablets", "tablets");
+        searchCache.put("product:search:pro", "pro results");
+        searchCache.put("product:search:mini", "mini results");
+        when(setOperations.members("cache:tag:product:42"))
+                .thenReturn(Set.of("productByCategoryCache|product:category:laptops", "productSearchCache|product:search:pro"));
+
+        cacheTagIndex.evictTagged(List.of("product:42"));
+
+        assertThat(categoryCache.get("product:category:laptops")).isNull();
+        assertThat(searchCache.get("product:search:pro")).isNull();
+        assertThat(categoryCache.get("product:category:tablets")).isNotNull();
+        assertThat(searchCache.get("product:search:mini")).isNotNull();
+        verify(setOperations).remove(eq("cache:tag:product:42"), any(Object[].class));
+        assertThat(meterRegistry.counter("cache.tag.evicted.entries").count()).isEqualTo(2);
+    }
+
+    @Test
+    void evictTaggedWaitsForCommitInsideTransaction() {
+        categoryCache.put("product:category:laptops", "laptops");
+        when(setOperations.members("cache:tag:category:LAPTOPS"))
+                .thenReturn(Set.of("productByCategoryCache|product:category:laptops"));
+        TransactionSynchronizationManager.initSynchronization();
+
+        cacheTagIndex.evictTagged(List.of("category:LAPTOPS"));
+
+        assertThat(categoryCache.get("product:category:laptops")).isNotNull();
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertThat(categoryCache.get("product:category:laptops")).isNull();
+    }
+}
@@ -2,6 +2,7 @@ package com.sqli.ecomAnalytics.cache;
 
 import com.sqli.ecomAnalytics.Analytics.CustomersAnalyticsService;
 import com.sqli.ecomAnalytics.dto.CustomerAnalyticsDto;
+import com.sqli.ecomAnalytics.dto.CustomerMetricsSummary;
 import com.sqli.ecomAnalytics.entity.CustomerSegments;
 import com.sqli.ecomAnalytics.entity.Segments;
 import com.sqli.ecomAnalytics.repository.CustomerRepository;
@@ -20,6 +21,7 @@ import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.*;
 
 public class CustomerAnalyticsCacheTest extends BaseCacheTest{
@@ -44,25 +46,19 @@ public class CustomerAnalyticsCacheTest extends BaseCacheTest{
         LocalDateTime end = LocalDateTime.of(2025, 9, 25, 23, 59);
         LocalDateTime threshold = LocalDateTime.of(2025, 8, 19, 0, 0);
 
-        CustomerSegments cs = new CustomerSegments();
-        cs.setSegmentLabel(Segments.CHAMPION);
-        cs.setCustomerId(1);
-        cs.setRecency(1);
-        cs.setFrequency(new BigDecimal("5.0"));
-        cs.setMonetary(new BigDecimal("1000.0"));
+        CustomerMetricsSummary summary = mock(CustomerMetricsSummary.class);
+        when(summary.getAverageLifetimeValue()).thenReturn(new BigDecimal("1500.00"));
+        when(summary.getChurnedCustomers()).thenReturn(50L);
+        when(summary.getTotalCustomers()).thenReturn(1000L);
 
-        when(customerRepository.getCustomerCountBySegment())
-                .thenReturn(Collections.singletonList(new Object[]{cs, 100L}));
-        when(customerRepository.findHighSpendingCustomers(any()))
+        when(customerRepository.getSegmentDistributionFromMetrics())
+                .thenReturn(Collections.singletonList(new Object[]{"CHAMPION", 100L}));
+        when(customerRepository.findTopCustomerMetrics(any(), anyInt()))
                 .thenReturn(Collections.emptyList());
-        when(customerRepository.getAverageLifetimeValue())
-                .thenReturn(new BigDecimal("1500.00"));
+        when(customerRepository.getCustomerMetricsSummary(any()))
+                .thenReturn(summary);
         when(customerRepository.getMonthlyRegistrationTrends(any(), any()))
                 .thenReturn(Collections.emptyList());
-        when(customerRepository.countChurnedCustomers(any()))
-                .thenReturn(50L);
-        when(customerRepository.countAllCustomers())
-                .thenReturn(1000L);
 
         String cacheKey = RedisCacheKeys.customerAnalyticsKey(start, end, threshold);
 
@@ -107,22 +103,20 @@ public class CustomerAnalyticsCacheTest extends BaseCacheTest{
         assertThat(r1).isEqualTo(r2);
 
         try {
-            verify(customerRepository, times(1)).getCustomerCountBySegment();
+            verify(customerRepository, times(1)).getSegmentDistributionFromMetrics();
         } catch (MockitoAssertionError e) {
             System.err.println(" verification failed: " + e.getMessage());
             try {
-                verify(customerRepository, atLeastOnce()).getCustomerCountBySegment();
+                verify(customerRepository, atLeastOnce()).getSegmentDistributionFromMetrics();
             } catch (MockitoAssertionError e2) {
                 System.out.println(mockingDetails(customerRepository).getInvocations());
             }
             throw e;
         }
 
-        verify(customerRepository, times(1)).findHighSpendingCustomers(any());
-        verify(customerRepository, times(1)).getAverageLifetimeValue();
+        verify(customerRepository, times(1)).findTopCustomerMetrics(any(), anyInt());
+        verify(customerRepository, times(1)).getCustomerMetricsSummary(any());
         verify(customerRepository, times(1)).getMonthlyRegistrationTrends(any(), any());
-        verify(customerRepository, times(1)).countChurnedCustomers(any());
-        verify(customerRepository, times(1)).countAllCustomers();
     }
 
     @Test
@@ -1,6 +1,7 @@
 package com.sqli.ecomAnalytics.cache;
 
 import com.sqli.ecomAnalytics.entity.OrderStatus;
+import com.sqli.ecomAnalytics.entity.Customers;
 import com.sqli.ecomAnalytics.entity.Orders;
 import com.sqli.ecomAnalytics.repository.CustomerRepository;
 import com.sqli.ecomAnalytics.repository.OrderItemsRepository;
@@ -107,8 +108,12 @@ public class OrderServiceCacheTest extends BaseCacheTest {
         assertCache("customerSpentCache", "customer:spent:1",new BigDecimal("1500.00"));
         assertCache("customerOrderCountCache", "customer:orders:1", 5);
 
+        Customers customer = new Customers();
+        customer.setCustomerId(customerId);
+
         Orders o = new Orders();
 
+        o.setCustomer(customer);
         o.setStatus(OrderStatus.PENDING);
 
         when(orderRepository.findById(orderId)).thenReturn(Optional.of(o));
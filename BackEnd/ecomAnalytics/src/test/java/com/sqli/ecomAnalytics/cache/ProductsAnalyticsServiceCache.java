@@ -4,6 +4,7 @@ import com.sqli.ecomAnalytics.Analytics.ProductsAnalyticsService;
 import com.sqli.ecomAnalytics.dto.ProductPerformanceDto;
 import com.sqli.ecomAnalytics.entity.ProductCategory;
 import com.sqli.ecomAnalytics.entity.Products;
+import com.sqli.ecomAnalytics.repository.ProductDailyStatsRepository;
 import com.sqli.ecomAnalytics.repository.ProductRepository;
 import com.sqli.ecomAnalytics.util.RedisCacheKeys;
 import org.junit.jupiter.api.Test;
@@ -11,8 +12,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Collections;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.*;
@@ -25,27 +28,35 @@ public class ProductsAnalyticsServiceCache extends BaseCacheTest {
     @MockitoBean
     private ProductRepository productRepository;
 
+    @MockitoBean
+    private ProductDailyStatsRepository productDailyStatsRepository;
+
     @Test
     void getProductPerformanceCache() {
         LocalDateTime start = LocalDateTime.of(2025, 8, 1, 0, 0);
         LocalDateTime end = LocalDateTime.of(2025, 9, 25, 23, 59);
         int lowStockThreshold = 10;
 
-        Products product = new Products();
-        product.setProductId(1);
-        product.setName("Laptop");
+        LocalDate startDay = start.toLocalDate();
+        LocalDate endDay = end.toLocalDate();
 
-        Object[] topProduct = new Object[]{product, 50L, new BigDecimal("50000.00")};
-        when(productRepository.getProductPerformanceByRevenue(start, end)).thenReturn(Collections.singletonList(topProduct));
+        Object[] topProduct = new Object[]{1, "Laptop", new BigDecimal("50"), new BigDecimal("50000.00")};
+        when(productDailyStatsRepository.getProductPerformanceByRevenue(startDay, endDay)).thenReturn(Collections.singletonList(topProduct));
 
-        Object[] categoryPerf = new Object[]{ProductCategory.LAPTOPS, 100L, new BigDecimal("75000.00"), 5};
-        when(productRepository.getCategoryPerformance(start, end))
+        Object[] categoryPerf = new Object[]{ProductCategory.LAPTOPS.name(), new BigDecimal("100"), new BigDecimal("75000.00"), 5L};
+        when(productDailyStatsRepository.getCategoryPerformance(startDay, endDay))
                 .thenReturn(Collections.singletonList(categoryPerf));
 
-        Object[] inventoryData = new Object[]{1, "Laptop1", 25, 50L};
-        when(productRepository.getInventoryTurnoverData(start, end))
+        Object[] inventoryData = new Object[]{1, "Laptop1", 25, new BigDecimal("50")};
+        when(productDailyStatsRepository.getInventoryTurnoverData(startDay, endDay))
                 .thenReturn(Collections.singletonList(inventoryData));
 
+        Products laptop = new Products();
+        laptop.setProductId(1);
+        laptop.setName("Laptop1");
+        laptop.setStockQuantity(25);
+        when(productRepository.findAllById(List.of(1))).thenReturn(List.of(laptop));
+
         Products lowStockProduct = new Products();
         lowStockProduct.setProductId(2);
         lowStockProduct.setName("Laptop2");
@@ -54,16 +65,19 @@ public class ProductsAnalyticsServiceCache extends BaseCacheTest {
 
         ProductPerformanceDto result1 = productsAnalyticsService.getProductPerformance(start, end, lowStockThreshold);
 
-        String cacheKey = RedisCacheKeys.productPerformanceKeys(start, end, lowStockThreshold);
-        assertCache("productsPerformanceCache", cacheKey, result1);
+        String cacheKey = RedisCacheKeys.productPerformanceKeys(start, end);
+        assertCache("productsPerformanceCache", cacheKey, new ProductPerformanceDto(result1.getTopSellingProducts(),
+                result1.getCategoryPerformance(), result1.getInventoryAnalysis(), null));
 
         ProductPerformanceDto result2 = productsAnalyticsService.getProductPerformance(start, end, lowStockThreshold);
 
         assertThat(result1).isEqualTo(result2);
 
-        verify(productRepository, times(1)).getProductPerformanceByRevenue(start, end);
-        verify(productRepository, times(1)).getCategoryPerformance(start, end);
-        verify(productRepository, times(1)).getInventoryTurnoverData(start, end);
-        verify(productRepository, times(1)).findLowStock(lowStockThreshold);
+        verify(productDailyStatsRepository, times(1)).getProductPerformanceByRevenue(startDay, endDay);
+        verify(productDailyStatsRepository, times(1)).getCategoryPerformance(startDay, endDay);
+        verify(productDailyStatsRepository, times(1)).getInventoryTurnoverData(startDay, endDay);
+        // Stock is live, read again on every call
+        verify(productRepository, times(2)).findLowStock(lowStockThreshold);
+        verify(productRepository, times(2)).findAllById(List.of(1));
     }
 }
@@ -0,0 +1,150 @@
+package com.sqli.ecomAnalytics.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class RefreshAheadCacheTest {
+    private static final Duration TTL = Duration.ofHours(1);
+
+    private StringRedisTemplate redisTemplate;
+    private ValueOperations<String, String> valueOperations;
+    private ConcurrentMapCache delegate;
+    private SimpleMeterRegistry meterRegistry;
+    private RefreshAheadCache cache;
+    private KpiSource source;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setup() {
+        redisTemplate = mock(StringRedisTemplate.class);
+        valueOperations = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(true);
+        delegate = new ConcurrentMapCache("kpiCache");
+        meterRegistry = new SimpleMeterRegistry();
+        // Runs refreshes on the calling thread so the assertions do not have to wait
+        cache = new RefreshAheadCache(delegate, redisTemplate, "kpiCache::", RedisCacheWriter.TtlFunction.just(TTL),
+                0.8, Duration.ofMinutes(15), Duration.ofSeconds(30), Runnable::run, meterRegistry);
+        source = new KpiSource();
+    }
+
+    @Test
+    void missLoadsThroughDelegateWithoutRefreshing() throws Exception {
+        assertThat(read("kpi:1")).isEqualTo("kpi-1");
+
+        assertThat(delegate.get("kpi:1").get()).isEqualTo("kpi-1");
+        assertThat(source.loads.get()).isEqualTo(1);
+        cache.refreshDueEntries();
+        assertThat(source.loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    void entryCloseToExpiryIsServedAndRefreshedInBackground() throws Exception {
+        delegate.put("kpi:2", "stale");
+        // Written by another node 55 minutes ago
+        when(redisTemplate.getExpire("kpiCache::kpi:2", TimeUnit.MILLISECONDS)).thenReturn(Duration.ofMinutes(5).toMillis());
+
+        assertThat(read("kpi:2")).isEqualTo("stale");
+
+        assertThat(delegate.get("kpi:2").get()).isEqualTo("kpi-1");
+        assertThat(counter("read", "success")).isEqualTo(1);
+        verify(valueOperations).setIfAbsent(eq("cache:refresh:kpiCache:kpi:2"), anyString(), any(Duration.class));
+    }
+
+    @Test
+    void freshEntryIsNotRefreshed() throws Exception {
+        delegate.put("kpi:3", "fresh");
+        when(redisTemplate.getExpire("kpiCache::kpi:3", TimeUnit.MILLISECONDS)).thenReturn(Duration.ofMinutes(50).toMillis());
+
+        assertThat(read("kpi:3")).isEqualTo("fresh");
+        cache.refreshDueEntries();
+
+        assertThat(source.loads.get()).isZero();
+        verify(valueOperations, never()).setIfAbsent(anyString(), anyString(), any(Duration.class));
+    }
+
+    @Test
+    void refreshClaimedByAnotherNodeIsSkipped() throws Exception {
+        delegate.put("kpi:4", "stale");
+        when(redisTemplate.getExpire("kpiCache::kpi:4", TimeUnit.MILLISECONDS)).thenReturn(1000L);
+        when(valueOperations.setIfAbsent(eq("cache:refresh:kpiCache:kpi:4"), anyString(), any(Duration.class))).thenReturn(false);
+
+        assertThat(read("kpi:4")).isEqualTo("stale");
+
+        assertThat(source.loads.get()).isZero();
+        assertThat(delegate.get("kpi:4").get()).isEqualTo("stale");
+    }
+
+    @Test
+    void failedRefreshKeepsServingCachedValue() throws Exception {
+        delegate.put("kpi:5", "stale");
+        when(redisTemplate.getExpire("kpiCache::kpi:5", TimeUnit.MILLISECONDS)).thenReturn(1000L);
+        source.failing = true;
+
+        assertThat(read("kpi:5")).isEqualTo("stale");
+
+        assertThat(delegate.get("kpi:5").get()).isEqualTo("stale");
+        assertThat(counter("any", "failure")).isEqualTo(1);
+    }
+
+    // Stands in for the cache interceptor: the aspect records the call, then the cache is asked for the key
+    private String read(String key) throws Exception {
+        Method method = KpiSource.class.getMethod("kpi", String.class);
+        RefreshAheadContext.Invocation invocation =
+                new RefreshAheadContext.Invocation(new CachingProxy(cache, source), method, new Object[]{key});
+        RefreshAheadContext.Invocation previous = RefreshAheadContext.enter(invocation);
+        try {
+            return cache.get(key, () -> source.kpi(key));
+        } finally {
+            RefreshAheadContext.exit(previous);
+        }
+    }
+
+    private double counter(String trigger, String result) {
+        return meterRegistry.get("cache.refresh.ahead")
+                .tags("cache", "kpiCache", "trigger", trigger, "result", result)
+                .counter().count();
+    }
+
+    public static class KpiSource {
+        private final AtomicInteger loads = new AtomicInteger();
+        private volatile boolean failing;
+
+        public String kpi(String key) {
+            if (failing) {
+                throw new IllegalStateException("database down");
+            }
+            return "kpi-" + loads.incrementAndGet();
+        }
+    }
+
+    // Minimal proxy with the same shape as the @Cacheable one: every call goes through the cache
+    public static class CachingProxy extends KpiSource {
+        private final RefreshAheadCache cache;
+        private final KpiSource target;
+
+        CachingProxy(RefreshAheadCache cache, KpiSource target) {
+            this.cache = cache;
+            this.target = target;
+        }
+
+        @Override
+        public String kpi(String key) {
+            return cache.get(key, () -> target.kpi(key));
+        }
+    }
+}
@@ -2,7 +2,8 @@ package com.sqli.ecomAnalytics.cache;
 
 import com.sqli.ecomAnalytics.Analytics.SalesAnalyticsService;
 import com.sqli.ecomAnalytics.dto.SalesTrendDto;
-import com.sqli.ecomAnalytics.repository.OrderRepository;
+import com.sqli.ecomAnalytics.dto.TimeGranularity;
+import com.sqli.ecomAnalytics.repository.DailySalesRollupRepository;
 import com.sqli.ecomAnalytics.util.RedisCacheKeys;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,6 +11,7 @@ import org.springframework.test.context.bean.override.mockito.MockitoBean;
 
 import java.math.BigDecimal;
 import java.sql.Date;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -21,7 +23,7 @@ public class SalesAnalyticsServiceCache extends BaseCacheTest{
     private SalesAnalyticsService salesAnalyticsService;
 
     @MockitoBean
-    private OrderRepository orderRepository;
+    private DailySalesRollupRepository dailySalesRollupRepository;
 
     @Test
     void getSalesTrendCache() {
@@ -32,17 +34,21 @@ public class SalesAnalyticsServiceCache extends BaseCacheTest{
         Object[] day2 = new Object[] {Date.valueOf("2025-08-15"), new BigDecimal("1500.00"), 15L};
         List<Object[]> dailyData = List.of(day1, day2);
 
-        when(orderRepository.getDailySalesTrends(start, end)).thenReturn(dailyData);
+        when(dailySalesRollupRepository.getDailySalesTrends(LocalDate.of(2025, 8, 1), LocalDate.of(2025, 8, 31))).thenReturn(dailyData);
+        when(dailySalesRollupRepository.getDailySalesTrends(LocalDate.of(2025, 9, 1), LocalDate.of(2025, 9, 30))).thenReturn(List.of());
 
-        SalesTrendDto result1 = salesAnalyticsService.getsalesTrend(start, end);
+        SalesTrendDto result1 = salesAnalyticsService.getsalesTrend(start, end, TimeGranularity.DAY);
 
-        String cacheKey = RedisCacheKeys.salesTrendKeys(start, end);
+        String cacheKey = RedisCacheKeys.salesTrendKeys(start, end, TimeGranularity.DAY);
         assertCache("salesTrendCache", cacheKey, result1);
 
-        SalesTrendDto result2 = salesAnalyticsService.getsalesTrend(start, end);
+        SalesTrendDto result2 = salesAnalyticsService.getsalesTrend(start, end, TimeGranularity.DAY);
+        // Another granularity over the same months reuses the cached day buckets
+        salesAnalyticsService.getsalesTrend(start, end, TimeGranularity.WEEK);
 
         assertThat(result1).isEqualTo(result2);
 
-        verify(orderRepository, times(1)).getDailySalesTrends(start, end);
+        verify(dailySalesRollupRepository, times(1)).getDailySalesTrends(LocalDate.of(2025, 8, 1), LocalDate.of(2025, 8, 31));
+        verify(dailySalesRollupRepository, times(1)).getDailySalesTrends(LocalDate.of(2025, 9, 1), LocalDate.of(2025, 9, 30));
     }
 }
@@ -0,0 +1,124 @@
+package com.sqli.ecomAnalytics.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class SingleFlightCacheTest {
+    private StringRedisTemplate redisTemplate;
+    private ValueOperations<String, String> valueOperations;
+    private ConcurrentMapCache delegate;
+    private SimpleMeterRegistry meterRegistry;
+    private SingleFlightCache cache;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setup() {
+        redisTemplate = mock(StringRedisTemplate.class);
+        valueOperations = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        delegate = new ConcurrentMapCache("kpiCache");
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new SingleFlightCache(delegate, redisTemplate, Duration.ofSeconds(2), Duration.ofMillis(10), meterRegistry);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void concurrentMissesShareOneLoad() throws Exception {
+        when(valueOperations.setIfAbsent(eq("cache:lock:kpiCache:kpi:1"), anyString(), any(Duration.class))).thenReturn(true);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        int callers = 8;
+
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < callers; i++) {
+            results.add(executor.submit(() -> cache.get("kpi:1", () -> {
+                loads.incrementAndGet();
+                release.await();
+                return "kpi";
+            })));
+        }
+        // Let every caller reach the cache before the single load finishes
+        Thread.sleep(200);
+        release.countDown();
+        for (Future<String> result : results) {
+            assertThat(result.get()).isEqualTo("kpi");
+        }
+        executor.shutdown();
+
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(delegate.get("kpi:1").get()).isEqualTo("kpi");
+        assertThat(counter("executed", "local")).isEqualTo(1);
+        assertThat(counter("coalesced", "local")).isEqualTo(callers - 1);
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of("cache:lock:kpiCache:kpi:1")), anyString());
+    }
+
+    @Test
+    void waitsForValueLoadedByAnotherNode() throws Exception {
+        when(valueOperations.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(false);
+        when(redisTemplate.hasKey("cache:lock:kpiCache:kpi:2")).thenReturn(true);
+
+        Thread otherNode = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException ignored) {
+            }
+            delegate.put("kpi:2", "from other node");
+        });
+        otherNode.start();
+
+        String value = cache.get("kpi:2", () -> "loaded here");
+        otherNode.join();
+
+        assertThat(value).isEqualTo("from other node");
+        assertThat(counter("coalesced", "remote")).isEqualTo(1);
+        assertThat(counter("executed", "local")).isZero();
+    }
+
+    @Test
+    void loadsLocallyWhenRemoteHolderReleasesWithoutValue() {
+        when(valueOperations.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(false);
+        when(redisTemplate.hasKey("cache:lock:kpiCache:kpi:3")).thenReturn(false);
+
+        String value = cache.get("kpi:3", () -> "loaded here");
+
+        assertThat(value).isEqualTo("loaded here");
+        assertThat(counter("executed", "local")).isEqualTo(1);
+    }
+
+    @Test
+    void loaderFailureIsPropagatedAndNotCached() {
+        when(valueOperations.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(true);
+
+        assertThatThrownBy(() -> cache.get("kpi:4", () -> {
+            throw new IllegalStateException("database down");
+        })).hasCauseInstanceOf(IllegalStateException.class);
+
+        assertThat(delegate.get("kpi:4")).isNull();
+    }
+
+    private double counter(String result, String source) {
+        return meterRegistry.get("cache.single.flight.loads")
+                .tags("cache", "kpiCache", "result", result, "source", source)
+                .counter().count();
+    }
+}
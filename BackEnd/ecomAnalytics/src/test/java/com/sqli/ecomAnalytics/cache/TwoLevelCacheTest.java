@@ -0,0 +1,217 @@
+package com.sqli.ecomAnalytics.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sqli.ecomAnalytics.configuration.CacheProp;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+public class TwoLevelCacheTest {
+    private ConcurrentMapCache l2;
+    private CacheInvalidationPublisher publisher;
+    private static final TwoLevelCache.EntryTtl FIVE_MINUTES = TwoLevelCache.EntryTtl.fixed(Duration.ofMinutes(5));
+
+    private TwoLevelCache cache;
+
+    @BeforeEach
+    void setup() {
+        l2 = spy(new ConcurrentMapCache("kpiCache"));
+        publisher = mock(CacheInvalidationPublisher.class);
+        cache = new TwoLevelCache("kpiCache", Caffeine.newBuilder().maximumSize(100).build(), l2,
+                CacheSerializers.binary(CacheProp.Compression.NONE, 0), publisher, FIVE_MINUTES, false);
+    }
+
+    @Test
+    void readThroughPopulatesL1() {
+        l2.put("kpi:2025-01-01:2025-01-31", "snapshot");
+
+        assertThat(cache.get("kpi:2025-01-01:2025-01-31").get()).isEqualTo("snapshot");
+        assertThat(cache.get("kpi:2025-01-01:2025-01-31").get()).isEqualTo("snapshot");
+
+        verify(l2, times(1)).get("kpi:2025-01-01:2025-01-31");
+        assertThat(cache.localSize()).isEqualTo(1);
+    }
+
+    @Test
+    void missOnBothTiersReturnsNull() {
+        assertThat(cache.get("missing")).isNull();
+        assertThat(cache.localSize()).isZero();
+    }
+
+    @Test
+    void putWritesBothTiersAndBroadcasts() {
+        cache.put("products:all", "catalog");
+
+        assertThat(l2.get("products:all").get()).isEqualTo("catalog");
+        assertThat(cache.localSize()).isEqualTo(1);
+        verify(publisher).publishEvict("kpiCache", "products:all");
+    }
+
+    @Test
+    void fillAfterMissIsNotBroadcast() {
+        assertThat(cache.get("kpi:2025-01-01:2025-01-31")).isNull();
+
+        cache.put("kpi:2025-01-01:2025-01-31", "snapshot");
+
+        assertThat(cache.localSize()).isEqualTo(1);
+        verify(publisher, never()).publishEvict(anyString(), any());
+    }
+
+    @Test
+    void putOfAnotherKeyAfterMissIsBroadcast() {
+        assertThat(cache.get("product:1")).isNull();
+
+        cache.put("product:2", "laptop");
+
+        verify(publisher).publishEvict("kpiCache", "product:2");
+    }
+
+    @Test
+    void readersGetTheirOwnCopy() {
+        cache.put("products:all", new ArrayList<>(List.of("phone", "laptop")));
+
+        @SuppressWarnings("unchecked")
+        List<String> first = (List<String>) cache.get("products:all").get();
+        first.add("tablet");
+
+        assertThat(cache.get("products:all").get()).isEqualTo(List.of("phone", "laptop"));
+    }
+
+    @Test
+    void l1IsBoundedBySerializedSize() {
+        TwoLevelCache bounded = new TwoLevelCache("productCatalogCache", Caffeine.newBuilder()
+                .maximumWeight(4096)
+                .weigher(TwoLevelCache::weigh)
+                .executor(Runnable::run)
+                .build(), new ConcurrentMapCache("productCatalogCache"),
+                CacheSerializers.binary(CacheProp.Compression.NONE, 0), publisher, FIVE_MINUTES, false);
+
+        for (int i = 0; i < 10; i++) {
+            bounded.put("catalog:" + i, "x".repeat(1000));
+        }
+
+        assertThat(bounded.localWeight()).isLessThanOrEqualTo(4096);
+        assertThat(bounded.localSize()).isLessThan(10);
+    }
+
+    @Test
+    void nullValuesAreCachedInL1() {
+        cache.put("customer:spent:1", null);
+
+        Cache.ValueWrapper wrapper = cache.get("customer:spent:1");
+        assertThat(wrapper).isNotNull();
+        assertThat(wrapper.get()).isNull();
+    }
+
+    @Test
+    void evictRemovesBothTiersAndBroadcasts() {
+        cache.put("product:1", "phone");
+
+        cache.evict("product:1");
+
+        assertThat(l2.get("product:1")).isNull();
+        assertThat(cache.localSize()).isZero();
+        verify(publisher, times(2)).publishEvict("kpiCache", "product:1");
+    }
+
+    @Test
+    void clearBroadcastsClear() {
+        cache.put("product:1", "phone");
+
+        cache.clear();
+
+        assertThat(cache.get("product:1")).isNull();
+        verify(publisher).publishClear("kpiCache");
+    }
+
+    @Test
+    void localEvictionLeavesL2Untouched() {
+        cache.put("product:1", "phone");
+
+        cache.evictLocal("product:1");
+
+        assertThat(cache.localSize()).isZero();
+        assertThat(l2.get("product:1").get()).isEqualTo("phone");
+    }
+
+    @Test
+    void valueLoaderRunsOnceAcrossBothTiers() {
+        assertThat(cache.get("kpi:today", () -> "computed")).isEqualTo("computed");
+        assertThat(cache.get("kpi:today", () -> "recomputed")).isEqualTo("computed");
+
+        assertThat(l2.get("kpi:today").get()).isEqualTo("computed");
+    }
+
+    @Test
+    void valueLoaderReadsAreCounted() {
+        l2.put("kpi:yesterday", "stored");
+
+        cache.get("kpi:today", () -> "computed");
+        cache.get("kpi:today", () -> "recomputed");
+        cache.get("kpi:yesterday", () -> "recomputed");
+
+        assertThat(cache.missCount()).isEqualTo(1);
+        assertThat(cache.l1HitCount()).isEqualTo(1);
+        assertThat(cache.hitCount()).isEqualTo(2);
+        assertThat(cache.putCount()).isEqualTo(1);
+    }
+
+    @Test
+    void sharedValuesAreReturnedWithoutACopy() {
+        TwoLevelCache shared = new TwoLevelCache("productCatalogCache", Caffeine.newBuilder().maximumSize(100).build(),
+                new ConcurrentMapCache("productCatalogCache"), CacheSerializers.binary(CacheProp.Compression.NONE, 0),
+                publisher, FIVE_MINUTES, true);
+        List<String> catalog = List.of("phone", "laptop");
+
+        shared.put("products:all", catalog);
+
+        assertThat(shared.get("products:all").get()).isSameAs(catalog);
+    }
+
+    @Test
+    void entryReadBackFromRedisExpiresWithTheRedisCopy() {
+        AtomicLong nanos = new AtomicLong();
+        TwoLevelCache.EntryTtl ttl = new TwoLevelCache.EntryTtl() {
+            @Override
+            public Duration afterPut(Object key, Object value) {
+                return Duration.ofMinutes(5);
+            }
+
+            @Override
+            public Duration afterL2Hit(Object key, Object value) {
+                return Duration.ofSeconds(10);
+            }
+        };
+        TwoLevelCache expiring = new TwoLevelCache("kpiCache", Caffeine.newBuilder()
+                .expireAfter(TwoLevelCache.expiry())
+                .ticker(nanos::get)
+                .build(), l2, CacheSerializers.binary(CacheProp.Compression.NONE, 0), publisher, ttl, false);
+        l2.put("kpi:old", "almost expired");
+        expiring.put("kpi:new", "fresh");
+
+        assertThat(expiring.get("kpi:old").get()).isEqualTo("almost expired");
+        nanos.addAndGet(Duration.ofSeconds(11).toNanos());
+        l2.evict("kpi:old");
+
+        assertThat(expiring.get("kpi:old")).isNull();
+        assertThat(expiring.get("kpi:new").get()).isEqualTo("fresh");
+    }
+
+    @Test
+    void remoteEvictionMatchesNonStringKeys() {
+        cache.put(42, "answer");
+
+        cache.evictLocal("42");
+
+        assertThat(cache.localSize()).isZero();
+    }
+}
@@ -1,11 +1,13 @@
 package com.sqli.ecomAnalytics.controller;
 
 import com.sqli.ecomAnalytics.Analytics.*;
+import com.sqli.ecomAnalytics.configuration.AnalyticsProp;
 import com.sqli.ecomAnalytics.configuration.SecurityConfig;
 import com.sqli.ecomAnalytics.dto.CustomerAnalyticsDto;
 import com.sqli.ecomAnalytics.dto.KpiDto;
 import com.sqli.ecomAnalytics.dto.ProductPerformanceDto;
 import com.sqli.ecomAnalytics.dto.SalesTrendDto;
+import com.sqli.ecomAnalytics.dto.TimeGranularity;
 import com.sqli.ecomAnalytics.entity.Products;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -17,6 +19,7 @@ import org.springframework.test.web.servlet.MockMvc;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 
@@ -24,12 +27,14 @@ import static org.mockito.ArgumentMatchers.anyInt;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(AnalyticsController.class)
-@Import(SecurityConfig.class)
+@Import({SecurityConfig.class, AnalyticsWindowNormalizer.class, AnalyticsProp.class})
 public class AnalyticsControllerTest {
     @Autowired
     private MockMvc mockMvc;
@@ -58,7 +63,7 @@ public class AnalyticsControllerTest {
         dto.setAverageCustomerLifetimeValue(new BigDecimal("1500.00"));
         dto.setChurnRate(new BigDecimal("5.00"));
         dto.setTopCustomers(List.of(
-                new CustomerAnalyticsDto.TopCustomerData(1, "John Doe", new BigDecimal("2500.00"), 15, "CHAMPION", new BigDecimal(100))
+                new CustomerAnalyticsDto.TopCustomerData(1, "John Doe", new BigDecimal("2500.00"), 15, "CHAMPION", new BigDecimal(100), LocalDateTime.of(2022, 1, 1, 0, 0))
         ));
         dto.setRegistrationTrends(List.of(
                 new CustomerAnalyticsDto.CustomerRegistrationTrendData(2024, 1, 100L)
@@ -109,7 +114,8 @@ public class AnalyticsControllerTest {
         SalesTrendDto.DailySalesData daily1 = new SalesTrendDto.DailySalesData(LocalDate.of(2025,8,1), new BigDecimal("1000.00"), 10L);
         SalesTrendDto.DailySalesData daily2 = new SalesTrendDto.DailySalesData(LocalDate.of(2025,8,15), new BigDecimal("1500.00"), 15L);
         SalesTrendDto.MonthlySalesData monthly1 = new SalesTrendDto.MonthlySalesData(2025, 8, new BigDecimal("2500.00"), 25L);
-        return new SalesTrendDto(List.of(daily1, daily2), List.of(monthly1), "UP");
+        SalesTrendDto.SalesBucketData week1 = new SalesTrendDto.SalesBucketData(LocalDateTime.of(2025,7,28,0,0), new BigDecimal("1000.00"), 10L);
+        return new SalesTrendDto(List.of(daily1, daily2), List.of(monthly1), "UP", TimeGranularity.WEEK, List.of(week1));
     }
 
     @Test
@@ -143,6 +149,19 @@ public class AnalyticsControllerTest {
                 .andExpect(jsonPath("$.totalOrders").value(5000));
     }
 
+    @Test
+    void getKpiSnapsWindowToWholeDays() throws Exception {
+        when(kpiService.getKpi(any(), any())).thenReturn(createMockKpiDto());
+
+        mockMvc.perform(get("/api/analytics/kpi")
+                        .param("start","2025-08-10T13:42:17")
+                        .param("end","2025-09-22T08:05:00"))
+                .andExpect(status().isOk());
+
+        verify(kpiService).getKpi(LocalDateTime.of(2025, 8, 10, 0, 0),
+                LocalDateTime.of(2025, 9, 22, 23, 59, 59, 999_999_000));
+    }
+
     @Test
     void getProductPerformance() throws Exception {
         ProductPerformanceDto dto = createMockProductPerformanceDto();
@@ -166,17 +185,20 @@ public class AnalyticsControllerTest {
     @Test
     void getSalesTrend() throws Exception {
         SalesTrendDto dto = createMockSalesTrendDto();
-        when(salesAnalyticsService.getsalesTrend(any(), any())).thenReturn(dto);
+        when(salesAnalyticsService.getsalesTrend(any(), any(), eq(TimeGranularity.WEEK))).thenReturn(dto);
 
         mockMvc.perform(get("/api/analytics/salesAnalytics")
                         .param("start","2025-08-10T00:00:00")
-                        .param("end","2025-09-22T23:59:59"))
+                        .param("end","2025-09-22T23:59:59")
+                        .param("granularity","WEEK"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.dailySales").isArray())
                 .andExpect(jsonPath("$.dailySales[0].date").value("2025-08-01"))
                 .andExpect(jsonPath("$.dailySales[0].revenue").value(1000.00))
                 .andExpect(jsonPath("$.dailySales[0].orderCount").value(10))
                 .andExpect(jsonPath("$.monthlySales").isArray())
-                .andExpect(jsonPath("$.trendDirection").value("UP"));
+                .andExpect(jsonPath("$.trendDirection").value("UP"))
+                .andExpect(jsonPath("$.granularity").value("WEEK"))
+                .andExpect(jsonPath("$.buckets[0].orderCount").value(10));
     }
 }
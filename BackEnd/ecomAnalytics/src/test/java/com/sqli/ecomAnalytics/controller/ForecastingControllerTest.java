@@ -0,0 +1,59 @@
+package com.sqli.ecomAnalytics.controller;
+
+import com.sqli.ecomAnalytics.configuration.SecurityConfig;
+import com.sqli.ecomAnalytics.dto.ForecastJobDto;
+import com.sqli.ecomAnalytics.dto.ForecastJobStatus;
+import com.sqli.ecomAnalytics.dto.ForecastRequestDto;
+import com.sqli.ecomAnalytics.exceptions.ForecastJobNotFoundException;
+import com.sqli.ecomAnalytics.service.ForecastingResponseService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.mapping.JpaMetamodelMappingContext;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(ForecastingController.class)
+@Import(SecurityConfig.class)
+public class ForecastingControllerTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private ForecastingResponseService forecastingService;
+
+    @MockitoBean
+    private JpaMetamodelMappingContext jpaMetamodelMappingContext;
+
+    @Test
+    void generateForecastReturnsAcceptedJob() throws Exception {
+        ForecastJobDto job = ForecastJobDto.builder().requestId("abc").status(ForecastJobStatus.PENDING).build();
+        when(forecastingService.submit(any(ForecastRequestDto.class))).thenReturn(job);
+
+        mockMvc.perform(post("/api/forecasting/generate")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"forecastDays\":30,\"includeConfidenceIntervals\":true,\"modelComparison\":true}"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/api/forecasting/abc"))
+                .andExpect(jsonPath("$.requestId").value("abc"))
+                .andExpect(jsonPath("$.status").value("PENDING"));
+    }
+
+    @Test
+    void getForecastJobNotFound() throws Exception {
+        when(forecastingService.getJob("missing")).thenThrow(new ForecastJobNotFoundException("Forecast job with ID: missing not found"));
+
+        mockMvc.perform(get("/api/forecasting/missing"))
+                .andExpect(status().isNotFound());
+    }
+}
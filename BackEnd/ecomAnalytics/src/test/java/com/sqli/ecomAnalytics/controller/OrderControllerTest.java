@@ -1,6 +1,7 @@
 package com.sqli.ecomAnalytics.controller;
 
 import com.sqli.ecomAnalytics.configuration.SecurityConfig;
+import com.sqli.ecomAnalytics.dto.KeysetPageDto;
 import com.sqli.ecomAnalytics.dto.OrderCreateDto;
 import com.sqli.ecomAnalytics.entity.OrderStatus;
 import com.sqli.ecomAnalytics.entity.Orders;
@@ -16,9 +17,15 @@ import org.springframework.data.jpa.mapping.JpaMetamodelMappingContext;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.function.Consumer;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
@@ -28,6 +35,8 @@ import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.when;
 
 @WebMvcTest(OrdersController.class)
@@ -84,6 +93,25 @@ public class OrderControllerTest {
 
     }
 
+    @Test
+    void createOrders() throws Exception {
+        Orders order1 = new Orders();
+        order1.setOrderId(1);
+        order1.setStatus(OrderStatus.PENDING);
+        Orders order2 = new Orders();
+        order2.setOrderId(2);
+        order2.setStatus(OrderStatus.PENDING);
+
+        when(ordersService.createOrders(anyList())).thenReturn(List.of(order1, order2));
+
+        mockMvc.perform(post("/api/orders/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"customerId\":1,\"orderItems\":[{\"productId\":1,\"quantity\":1}]}," +
+                                "{\"customerId\":2,\"orderItems\":[{\"productId\":2,\"quantity\":3}]}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2));
+    }
+
     @Test
     void updateOrderStatus() throws Exception {
         Orders order = new Orders();
@@ -111,6 +139,51 @@ public class OrderControllerTest {
                 .andExpect(jsonPath("$.length()").value(1));
     }
 
+    @Test
+    void getOrdersPage() throws Exception {
+        Orders order = new Orders();
+        order.setOrderId(41);
+        order.setStatus(OrderStatus.PENDING);
+
+        when(ordersService.getOrdersPage(40, 1)).thenReturn(new KeysetPageDto<>(List.of(order), 1, 41));
+
+        mockMvc.perform(get("/api/orders/page").param("after", "40").param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(1))
+                .andExpect(jsonPath("$.nextCursor").value(41));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void streamByOrderStatus() throws Exception {
+        Orders order1 = new Orders();
+        order1.setOrderId(1);
+        order1.setStatus(OrderStatus.PENDING);
+        Orders order2 = new Orders();
+        order2.setOrderId(2);
+        order2.setStatus(OrderStatus.PENDING);
+
+        doAnswer(invocation -> {
+            Consumer<Orders> consumer = invocation.getArgument(1);
+            consumer.accept(order1);
+            consumer.accept(order2);
+            return null;
+        }).when(ordersService).streamOrders(eq(OrderStatus.PENDING), any(Consumer.class));
+
+        MvcResult result = mockMvc.perform(get("/api/orders/orderStatus/PENDING/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(streamed -> {
+                    String[] lines = streamed.getResponse().getContentAsString().split("\n");
+                    assertThat(lines).hasSize(2);
+                    assertThat(lines[0]).contains("\"orderId\":1");
+                });
+    }
+
     @Test
     void getTotalSpentByCustomer() throws Exception {
         when(ordersService.getTotalSpentByCustomer(1)).thenReturn(Optional.of(BigDecimal.valueOf(300)));
@@ -1,5 +1,6 @@
 package com.sqli.ecomAnalytics.service;
 
+import com.sqli.ecomAnalytics.cache.CacheTagIndex;
 import com.sqli.ecomAnalytics.dto.CustomerRegistrationDto;
 import com.sqli.ecomAnalytics.dto.CustomerUpdateDto;
 import com.sqli.ecomAnalytics.entity.Customers;
@@ -21,6 +22,7 @@ import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(SpringExtension.class)
@@ -29,6 +31,8 @@ public class CustomersServiceTest {
     private CustomerRepository customerRepository;
     @Mock
     private MLEventPublisher mlEventPublisher;
+    @Mock
+    private CacheTagIndex cacheTagIndex;
 
     @InjectMocks
     private CustomersService customersService;
@@ -60,6 +64,7 @@ public class CustomersServiceTest {
 
         assertEquals(dto.getEmail(), saved.getEmail());
         assertTrue(saved.getCustomerCode().startsWith("CUSTJOHDOE"));
+        verify(cacheTagIndex).evictTagged(List.of("customers:count"));
     }
 
 
@@ -0,0 +1,56 @@
+package com.sqli.ecomAnalytics.service;
+
+import com.sqli.ecomAnalytics.entity.OrderStatus;
+import com.sqli.ecomAnalytics.entity.Orders;
+import com.sqli.ecomAnalytics.repository.DailySalesRollupRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class DailySalesRollupServiceTest {
+    @Mock
+    private DailySalesRollupRepository rollupRepository;
+    @InjectMocks
+    private DailySalesRollupService dailySalesRollupService;
+
+    private Orders createOrder(OrderStatus status) {
+        Orders order = new Orders();
+        order.setOrderId(1);
+        order.setStatus(status);
+        order.setTotalAmount(new BigDecimal("120.00"));
+        order.setOrderDate(LocalDateTime.of(2025, 8, 10, 15, 30));
+        return order;
+    }
+
+    @Test
+    void recordOrderCreated() {
+        dailySalesRollupService.recordOrderCreated(createOrder(OrderStatus.PENDING));
+
+        verify(rollupRepository).applyDelta(LocalDate.of(2025, 8, 10), "PENDING", new BigDecimal("120.00"), 1);
+    }
+
+    @Test
+    void recordStatusChangeMovesOrderBetweenBuckets() {
+        dailySalesRollupService.recordStatusChange(createOrder(OrderStatus.DELIVERED), OrderStatus.PENDING);
+
+        verify(rollupRepository).applyDelta(LocalDate.of(2025, 8, 10), "PENDING", new BigDecimal("-120.00"), -1);
+        verify(rollupRepository).applyDelta(LocalDate.of(2025, 8, 10), "DELIVERED", new BigDecimal("120.00"), 1);
+    }
+
+    @Test
+    void recordStatusChangeIgnoresSameStatus() {
+        dailySalesRollupService.recordStatusChange(createOrder(OrderStatus.DELIVERED), OrderStatus.DELIVERED);
+
+        verify(rollupRepository, never()).applyDelta(any(), anyString(), any(), anyLong());
+    }
+}
@@ -0,0 +1,171 @@
+package com.sqli.ecomAnalytics.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sqli.ecomAnalytics.configuration.ForecastProp;
+import com.sqli.ecomAnalytics.dto.ForecastJobDto;
+import com.sqli.ecomAnalytics.dto.ForecastJobStatus;
+import com.sqli.ecomAnalytics.dto.ForecastRequestDto;
+import com.sqli.ecomAnalytics.dto.ForecastResponse;
+import com.sqli.ecomAnalytics.exceptions.ForecastJobNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ForecastingResponseServiceTest {
+    @Mock
+    private StringRedisTemplate redisTemplate;
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+    @Mock
+    private MLEventPublisher mlEventPublisher;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final Map<String, String> redis = new HashMap<>();
+    private ForecastingResponseService forecastingService;
+
+    @BeforeEach
+    void setup() {
+        lenient().when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        lenient().when(valueOperations.get(anyString())).thenAnswer(invocation -> redis.get(invocation.<String>getArgument(0)));
+        lenient().doAnswer(invocation -> redis.put(invocation.getArgument(0), invocation.getArgument(1)))
+                .when(valueOperations).set(anyString(), anyString(), any(Duration.class));
+        lenient().when(valueOperations.setIfAbsent(anyString(), anyString(), any(Duration.class)))
+                .thenAnswer(invocation -> redis.putIfAbsent(invocation.getArgument(0), invocation.getArgument(1)) == null);
+        lenient().when(redisTemplate.execute(any(RedisScript.class), anyList(), any(), any(), any())).thenAnswer(invocation ->
+                redis.replace(invocation.<List<String>>getArgument(1).get(0), invocation.getArgument(2), invocation.getArgument(3)) ? 1L : 0L);
+        lenient().when(redisTemplate.delete(anyString())).thenAnswer(invocation -> redis.remove(invocation.<String>getArgument(0)) != null);
+
+        forecastingService = new ForecastingResponseService(redisTemplate, objectMapper, mlEventPublisher, new ForecastProp());
+    }
+
+    @Test
+    void submitPublishesRequestAndReturnsPendingJob() {
+        when(mlEventPublisher.areEventsEnabled()).thenReturn(true);
+
+        ForecastJobDto job = forecastingService.submit(request(30));
+
+        assertEquals(ForecastJobStatus.PENDING, job.getStatus());
+        ArgumentCaptor<ForecastRequestDto> published = ArgumentCaptor.forClass(ForecastRequestDto.class);
+        verify(mlEventPublisher).publishForecastRequest(published.capture());
+        assertEquals(job.getRequestId(), published.getValue().getRequestId());
+        assertEquals(ForecastJobStatus.PENDING, forecastingService.getJob(job.getRequestId()).getStatus());
+    }
+
+    @Test
+    void identicalRequestReusesStoredResult() {
+        when(mlEventPublisher.areEventsEnabled()).thenReturn(true);
+        ForecastJobDto first = forecastingService.submit(request(30));
+        forecastingService.listenForForecastResponse(ForecastResponse.builder().success(true).bestModel("prophet").build(),
+                first.getRequestId());
+
+        ForecastJobDto second = forecastingService.submit(request(30));
+
+        assertEquals(first.getRequestId(), second.getRequestId());
+        assertEquals(ForecastJobStatus.COMPLETED, second.getStatus());
+        assertEquals("prophet", second.getResult().getBestModel());
+        verify(mlEventPublisher, times(1)).publishForecastRequest(any());
+        verify(redisTemplate).convertAndSend("forecast:completed", first.getRequestId());
+    }
+
+    @Test
+    void failedJobIsNotReused() {
+        when(mlEventPublisher.areEventsEnabled()).thenReturn(true);
+        ForecastJobDto first = forecastingService.submit(request(14));
+        forecastingService.listenForForecastResponse(ForecastResponse.builder().success(false).error("model error").build(),
+                first.getRequestId());
+
+        ForecastJobDto second = forecastingService.submit(request(14));
+
+        assertEquals(ForecastJobStatus.FAILED, forecastingService.getJob(first.getRequestId()).getStatus());
+        assertNotEquals(first.getRequestId(), second.getRequestId());
+        verify(mlEventPublisher, times(2)).publishForecastRequest(any());
+    }
+
+    @Test
+    void pendingJobPastTimeoutIsReportedAsFailed() throws Exception {
+        ForecastJobDto stale = ForecastJobDto.builder()
+                .requestId("stale")
+                .status(ForecastJobStatus.PENDING)
+                .forecastDays(30)
+                .submittedAt(LocalDateTime.now().minusMinutes(10))
+                .build();
+        redis.put("forecast:job:stale", objectMapper.writeValueAsString(stale));
+
+        ForecastJobDto job = forecastingService.getJob("stale");
+
+        assertEquals(ForecastJobStatus.FAILED, job.getStatus());
+        assertEquals("Forecast generation timed out", job.getError());
+    }
+
+    @Test
+    void awaitJobCompletesWhenCompletionIsBroadcast() {
+        when(mlEventPublisher.areEventsEnabled()).thenReturn(true);
+        ForecastJobDto job = forecastingService.submit(request(30));
+        DeferredResult<ForecastJobDto> result = forecastingService.awaitJob(job.getRequestId(), Duration.ofSeconds(10));
+        assertFalse(result.hasResult());
+
+        forecastingService.listenForForecastResponse(ForecastResponse.builder().success(true).build(), job.getRequestId());
+        forecastingService.onJobCompleted(job.getRequestId());
+
+        assertTrue(result.hasResult());
+        assertEquals(ForecastJobStatus.COMPLETED, ((ForecastJobDto) result.getResult()).getStatus());
+    }
+
+    @Test
+    void jobIsStoredBeforeTheRequestIsClaimed() {
+        when(mlEventPublisher.areEventsEnabled()).thenReturn(true);
+
+        ForecastJobDto job = forecastingService.submit(request(30));
+
+        InOrder inOrder = inOrder(valueOperations);
+        inOrder.verify(valueOperations).set(eq("forecast:job:" + job.getRequestId()), anyString(), any(Duration.class));
+        inOrder.verify(valueOperations).setIfAbsent(anyString(), eq(job.getRequestId()), any(Duration.class));
+    }
+
+    @Test
+    void requestLosingTheClaimDropsItsOwnJob() {
+        when(mlEventPublisher.areEventsEnabled()).thenReturn(true);
+        ForecastJobDto first = forecastingService.submit(request(30));
+
+        ForecastJobDto second = forecastingService.submit(request(30));
+
+        assertEquals(first.getRequestId(), second.getRequestId());
+        assertEquals(1, redis.keySet().stream().filter(key -> key.startsWith("forecast:job:")).count());
+        verify(mlEventPublisher, times(1)).publishForecastRequest(any());
+    }
+
+    @Test
+    void getJobThrowsWhenUnknown() {
+        assertThrows(ForecastJobNotFoundException.class, () -> forecastingService.getJob("missing"));
+    }
+
+    private static ForecastRequestDto request(int days) {
+        ForecastRequestDto request = new ForecastRequestDto();
+        request.setForecastDays(days);
+        request.setIncludeConfidenceIntervals(true);
+        request.setModelComparison(true);
+        return request;
+    }
+}
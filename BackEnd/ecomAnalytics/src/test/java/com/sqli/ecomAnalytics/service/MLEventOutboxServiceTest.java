@@ -0,0 +1,206 @@
+package com.sqli.ecomAnalytics.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sqli.ecomAnalytics.configuration.MLEventsProp;
+import com.sqli.ecomAnalytics.events.Events;
+import com.sqli.ecomAnalytics.events.MLEvents;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.kafka.core.KafkaProducerException;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class MLEventOutboxServiceTest {
+    private static final String DELETE = "DELETE FROM ml_event_outbox WHERE id = ANY(?) AND next_attempt_at = ?";
+    private static final String CLAIM = "UPDATE ml_event_outbox SET next_attempt_at";
+    private static final Timestamp LEASE = Timestamp.valueOf("2025-08-10 12:00:30.123456");
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    @Mock
+    private KafkaTemplate<String, MLEvents> kafkaTemplate;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private SimpleMeterRegistry meterRegistry;
+    private MLEventOutboxService outboxService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        outboxService = new MLEventOutboxService(jdbcTemplate, kafkaTemplate, objectMapper, transactionManager,
+                new MLEventsProp(), meterRegistry);
+    }
+
+    private MLEventOutboxService.OutboxRecord record(long id, int customerId) throws Exception {
+        return record(id, customerId, 0);
+    }
+
+    private MLEventOutboxService.OutboxRecord record(long id, int customerId, int attempts) throws Exception {
+        MLEvents event = new MLEvents(customerId, Events.ORDER_CREATED);
+        event.setData((int) id);
+        return new MLEventOutboxService.OutboxRecord(id, customerId, objectMapper.writeValueAsString(event), attempts);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void givenBatch(MLEventOutboxService.OutboxRecord... records) {
+        when(jdbcTemplate.queryForObject(anyString(), eq(Boolean.class), anyLong())).thenReturn(true);
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), eq(500))).thenReturn(List.of(records));
+        when(jdbcTemplate.queryForObject(startsWith("SELECT NOW()"), eq(Timestamp.class), eq(30.0))).thenReturn(LEASE);
+    }
+
+    @Test
+    void acknowledgedBatchIsRemovedFromOutbox() throws Exception {
+        givenBatch(record(1, 10), record(2, 20), record(3, 10));
+        when(kafkaTemplate.send(anyString(), anyString(), any(MLEvents.class))).thenReturn(CompletableFuture.completedFuture(null));
+
+        assertThat(outboxService.relayBatch()).isEqualTo(3);
+
+        ArgumentCaptor<Object> ids = ArgumentCaptor.forClass(Object.class);
+        verify(jdbcTemplate).update(eq(DELETE), ids.capture(), eq(LEASE));
+        assertThat((Long[]) ids.getValue()).containsExactly(1L, 2L, 3L);
+        verify(kafkaTemplate, times(2)).send(eq("ml-events"), eq("10"), any(MLEvents.class));
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+        assertThat(meterRegistry.get("ml.events.outbox.sent").counter().count()).isEqualTo(3);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void failedCustomerKeepsLaterEventsAndBacksOff() throws Exception {
+        givenBatch(record(1, 10), record(2, 20), record(3, 10), record(4, 20));
+        when(kafkaTemplate.send(anyString(), eq("10"), any(MLEvents.class))).thenReturn(CompletableFuture.completedFuture(null));
+        when(kafkaTemplate.send(anyString(), eq("20"), any(MLEvents.class)))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        assertThat(outboxService.relayBatch()).isEqualTo(2);
+
+        ArgumentCaptor<Object> ids = ArgumentCaptor.forClass(Object.class);
+        verify(jdbcTemplate).update(eq(DELETE), ids.capture(), eq(LEASE));
+        assertThat((Long[]) ids.getValue()).containsExactly(1L, 3L);
+
+        ArgumentCaptor<List<Object[]>> backoffs = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(startsWith("UPDATE ml_event_outbox"), backoffs.capture());
+        assertThat(backoffs.getValue()).singleElement().satisfies(args -> assertThat(args).containsExactly(2L, 1.0, 20, 4L, LEASE));
+        assertThat(meterRegistry.get("ml.events.outbox.failed").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void rowsAreClaimedAndCommittedBeforeTheBrokerIsAwaited() throws Exception {
+        givenBatch(record(1, 10), record(2, 20));
+        when(kafkaTemplate.send(anyString(), anyString(), any(MLEvents.class))).thenReturn(CompletableFuture.completedFuture(null));
+
+        outboxService.relayBatch();
+
+        ArgumentCaptor<Object> claimed = ArgumentCaptor.forClass(Object.class);
+        InOrder inOrder = inOrder(jdbcTemplate, transactionManager, kafkaTemplate);
+        inOrder.verify(jdbcTemplate).update(startsWith(CLAIM), eq(LEASE), claimed.capture());
+        inOrder.verify(transactionManager).commit(any());
+        inOrder.verify(kafkaTemplate, times(2)).send(anyString(), anyString(), any(MLEvents.class));
+        inOrder.verify(jdbcTemplate).update(eq(DELETE), any(Object.class), eq(LEASE));
+        inOrder.verify(transactionManager).commit(any());
+        assertThat((Long[]) claimed.getValue()).containsExactly(1L, 2L);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void unreadablePayloadIsDeadLetteredWithoutBlockingTheCustomer() throws Exception {
+        givenBatch(new MLEventOutboxService.OutboxRecord(1, 10, "{not json", 0), record(2, 10));
+        when(kafkaTemplate.send(anyString(), anyString(), any(MLEvents.class))).thenReturn(CompletableFuture.completedFuture(null));
+
+        assertThat(outboxService.relayBatch()).isEqualTo(1);
+
+        ArgumentCaptor<Object> ids = ArgumentCaptor.forClass(Object.class);
+        verify(jdbcTemplate).update(eq(DELETE), ids.capture(), eq(LEASE));
+        assertThat((Long[]) ids.getValue()).containsExactly(2L);
+        ArgumentCaptor<List<Object[]>> moved = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(contains("INSERT INTO ml_event_dead_letter"), moved.capture());
+        assertThat(moved.getValue()).singleElement().satisfies(args -> {
+            assertThat(args[0]).isEqualTo(1L);
+            assertThat(args[1]).isEqualTo(LEASE);
+            assertThat((String) args[2]).startsWith("unreadable payload");
+        });
+        verify(jdbcTemplate, never()).batchUpdate(startsWith("UPDATE ml_event_outbox"), anyList());
+        assertThat(meterRegistry.get("ml.events.outbox.dead.lettered").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("ml.events.outbox.failed").counter().count()).isZero();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void eventRefusedPastMaxAttemptsIsDeadLettered() throws Exception {
+        givenBatch(record(1, 10, 9), record(2, 10), record(3, 20, 3));
+        when(kafkaTemplate.send(anyString(), anyString(), any(MLEvents.class)))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("record too large")))
+                .thenReturn(CompletableFuture.completedFuture(null))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")));
+
+        assertThat(outboxService.relayBatch()).isEqualTo(1);
+
+        ArgumentCaptor<List<Object[]>> moved = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(contains("INSERT INTO ml_event_dead_letter"), moved.capture());
+        assertThat(moved.getValue()).singleElement().satisfies(args -> {
+            assertThat(args[0]).isEqualTo(1L);
+            assertThat((String) args[2]).contains("after 10 attempts");
+        });
+        // Customer 20 is still under the limit and only backs off
+        ArgumentCaptor<List<Object[]>> backoffs = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(startsWith("UPDATE ml_event_outbox"), backoffs.capture());
+        assertThat(backoffs.getValue()).singleElement().satisfies(args -> assertThat(args).containsExactly(3L, 8.0, 20, 3L, LEASE));
+    }
+
+    @Test
+    void brokerTimeoutFailsTheRestOfTheBatchWithoutSendingIt() throws Exception {
+        givenBatch(record(1, 10), record(2, 20), record(3, 30));
+        when(kafkaTemplate.send(anyString(), anyString(), any(MLEvents.class)))
+                .thenReturn(CompletableFuture.completedFuture(null))
+                .thenReturn(CompletableFuture.failedFuture(new KafkaProducerException(null, "send failed",
+                        new org.apache.kafka.common.errors.TimeoutException("metadata not available after 5000ms"))));
+
+        assertThat(outboxService.relayBatch()).isEqualTo(1);
+
+        verify(kafkaTemplate, times(2)).send(anyString(), anyString(), any(MLEvents.class));
+        assertThat(meterRegistry.get("ml.events.outbox.failed").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void leaseCoversTheSendTimeoutAndOneBlockedSend() {
+        assertThat(outboxService.claimLease()).isEqualTo(Duration.ofSeconds(30));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void relayIsSkippedWhileAnotherNodeHoldsTheLock() {
+        when(jdbcTemplate.queryForObject(anyString(), eq(Boolean.class), anyLong())).thenReturn(false);
+
+        assertThat(outboxService.relayBatch()).isZero();
+
+        verify(jdbcTemplate, never()).query(anyString(), any(RowMapper.class), any(Object[].class));
+        verifyNoInteractions(kafkaTemplate);
+    }
+
+    @Test
+    void backoffDoublesUpToTheMaximum() {
+        assertThat(outboxService.backoff(0)).isEqualTo(Duration.ofSeconds(1));
+        assertThat(outboxService.backoff(3)).isEqualTo(Duration.ofSeconds(8));
+        assertThat(outboxService.backoff(30)).isEqualTo(Duration.ofMinutes(5));
+    }
+}
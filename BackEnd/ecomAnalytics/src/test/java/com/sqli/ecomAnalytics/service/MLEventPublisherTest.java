@@ -0,0 +1,126 @@
+package com.sqli.ecomAnalytics.service;
+
+import com.sqli.ecomAnalytics.configuration.MLEventsProp;
+import com.sqli.ecomAnalytics.entity.Customers;
+import com.sqli.ecomAnalytics.entity.Orders;
+import com.sqli.ecomAnalytics.events.Events;
+import com.sqli.ecomAnalytics.events.MLEvents;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class MLEventPublisherTest {
+    @Mock
+    private KafkaTemplate<String, MLEvents> kafkaTemplate;
+    @Mock
+    private MLEventOutboxService outboxService;
+
+    private MLEventPublisher publisher(boolean coalescing) {
+        MLEventsProp prop = new MLEventsProp();
+        prop.getCoalescing().setEnabled(coalescing);
+        MLEventPublisher publisher = new MLEventPublisher(kafkaTemplate, outboxService, prop);
+        publisher.enableEvents();
+        return publisher;
+    }
+
+    private Orders order(int orderId, int customerId) {
+        Customers customer = new Customers();
+        customer.setCustomerId(customerId);
+        Orders order = new Orders();
+        order.setOrderId(orderId);
+        order.setCustomer(customer);
+        return order;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<MLEvents> flushed() {
+        ArgumentCaptor<List<MLEvents>> events = ArgumentCaptor.forClass(List.class);
+        verify(outboxService).appendAll(events.capture());
+        return events.getValue();
+    }
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void eventsOfOneCustomerAreFlushedAsOneDirtyEvent() {
+        MLEventPublisher publisher = publisher(true);
+
+        publisher.publishOrdersCreated(List.of(order(1, 7), order(2, 7), order(3, 8)));
+        publisher.publishOrderUpdated(7, 1);
+        publisher.publishCustomerUpdated(7);
+        verifyNoInteractions(outboxService);
+
+        publisher.flushDirtyCustomers();
+
+        assertThat(flushed())
+                .extracting(MLEvents::getCustomerId, MLEvents::getEventType, MLEvents::getData)
+                .containsExactlyInAnyOrder(
+                        tuple(7, Events.CUSTOMER_DIRTY, List.of("CUSTOMER_UPDATED", "ORDER_CREATED", "ORDER_UPDATED")),
+                        tuple(8, Events.CUSTOMER_DIRTY, List.of("ORDER_CREATED")));
+
+        publisher.flushDirtyCustomers();
+        verifyNoMoreInteractions(outboxService);
+    }
+
+    @Test
+    void onlyCommittedWritesMarkCustomersDirty() {
+        MLEventPublisher publisher = publisher(true);
+
+        TransactionSynchronizationManager.initSynchronization();
+        publisher.publishOrderCreated(7, 1);
+        publisher.flushDirtyCustomers();
+        verifyNoInteractions(outboxService);
+
+        // Rolled back: the synchronizations are dropped without afterCommit
+        TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationManager.initSynchronization();
+        publisher.publishOrderCreated(8, 2);
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        TransactionSynchronizationManager.clearSynchronization();
+
+        publisher.flushDirtyCustomers();
+        assertThat(flushed()).extracting(MLEvents::getCustomerId).containsExactly(8);
+    }
+
+    @Test
+    void failedFlushIsRetriedNextWindow() {
+        MLEventPublisher publisher = publisher(true);
+        doThrow(new IllegalStateException("db down")).doNothing().when(outboxService).appendAll(anyList());
+
+        publisher.publishCustomerUpdated(7);
+        publisher.flushDirtyCustomers();
+        publisher.flushDirtyCustomers();
+
+        verify(outboxService, times(2)).appendAll(argThat(events ->
+                events.size() == 1 && events.get(0).getCustomerId() == 7));
+    }
+
+    @Test
+    void withoutCoalescingEveryEventGoesToTheOutbox() {
+        MLEventPublisher publisher = publisher(false);
+
+        publisher.publishCustomerUpdated(7);
+        publisher.publishCustomerUpdated(7);
+
+        verify(outboxService, times(2)).append(argThat(event -> event.getEventType() == Events.CUSTOMER_UPDATED));
+    }
+}
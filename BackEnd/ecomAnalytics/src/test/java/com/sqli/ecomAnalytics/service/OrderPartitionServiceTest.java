@@ -0,0 +1,69 @@
+package com.sqli.ecomAnalytics.service;
+
+import com.sqli.ecomAnalytics.configuration.PartitionProp;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class OrderPartitionServiceTest {
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private PartitionProp partitionProp;
+    private OrderPartitionService orderPartitionService;
+
+    @BeforeEach
+    void setUp() {
+        partitionProp = new PartitionProp();
+        orderPartitionService = new OrderPartitionService(jdbcTemplate, partitionProp);
+    }
+
+    @Test
+    void maintenanceCreatesMonthsAhead() {
+        when(jdbcTemplate.queryForObject(anyString(), eq(Integer.class), any(), any())).thenReturn(1);
+
+        orderPartitionService.maintainPartitions();
+
+        YearMonth current = YearMonth.now();
+        verify(jdbcTemplate).queryForObject("SELECT create_order_partitions(?, ?)", Integer.class,
+                current.atDay(1), current.plusMonths(3).atDay(1));
+        verify(jdbcTemplate, never()).execute(anyString());
+    }
+
+    @Test
+    void detachReleasesItemsBeforeOrders() {
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), eq("order_items_y2024m01")))
+                .thenReturn(List.of("order_items_order_id_order_date_fkey"));
+
+        orderPartitionService.detachPartition(YearMonth.of(2024, 1));
+
+        InOrder inOrder = inOrder(jdbcTemplate);
+        inOrder.verify(jdbcTemplate).execute("ALTER TABLE order_items DETACH PARTITION order_items_y2024m01 CONCURRENTLY");
+        inOrder.verify(jdbcTemplate).execute("ALTER TABLE order_items_y2024m01 DROP CONSTRAINT \"order_items_order_id_order_date_fkey\"");
+        inOrder.verify(jdbcTemplate).execute("ALTER TABLE orders DETACH PARTITION orders_y2024m01 CONCURRENTLY");
+    }
+
+    @Test
+    void onlyMonthsBeforeCutoffAreDetached() {
+        when(jdbcTemplate.queryForList(contains("pg_inherits"), eq(String.class), eq("orders")))
+                .thenReturn(List.of("orders_y2024m01", "orders_y2024m02", "orders_y2024m03"));
+
+        List<YearMonth> detached = orderPartitionService.detachPartitionsBefore(YearMonth.of(2024, 3));
+
+        assertThat(detached).containsExactly(YearMonth.of(2024, 1), YearMonth.of(2024, 2));
+        verify(jdbcTemplate, never()).execute("ALTER TABLE orders DETACH PARTITION orders_y2024m03 CONCURRENTLY");
+    }
+}
@@ -1,26 +1,41 @@
 package com.sqli.ecomAnalytics.service;
 
+import com.sqli.ecomAnalytics.cache.CacheTagIndex;
+import com.sqli.ecomAnalytics.configuration.OrdersProp;
+import com.sqli.ecomAnalytics.dto.KeysetPageDto;
 import com.sqli.ecomAnalytics.dto.OrderCreateDto;
 import com.sqli.ecomAnalytics.dto.OrderItemsDto;
 import com.sqli.ecomAnalytics.entity.*;
+import com.sqli.ecomAnalytics.exceptions.InvalidOrderDataException;
+import com.sqli.ecomAnalytics.exceptions.ProductStockInsufficient;
 import com.sqli.ecomAnalytics.repository.CustomerRepository;
-import com.sqli.ecomAnalytics.repository.OrderItemsRepository;
 import com.sqli.ecomAnalytics.repository.OrderRepository;
 import com.sqli.ecomAnalytics.repository.ProductRepository;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.*;
 
 
@@ -33,11 +48,19 @@ public class OrdersServiceTest {
     @Mock
     private CustomerRepository customerRepository;
     @Mock
-    private OrderItemsRepository orderItemsRepository;
-    @Mock
     private MLEventPublisher mlEventPublisher;
     @Mock
     private CustomerSegmentsService customerSegmentsService;
+    @Mock
+    private DailySalesRollupService dailySalesRollupService;
+    @Mock
+    private ProductDailyStatsService productDailyStatsService;
+    @Mock
+    private EntityManager entityManager;
+    @Mock
+    private CacheTagIndex cacheTagIndex;
+    @Spy
+    private OrdersProp ordersProp = new OrdersProp();
     @InjectMocks
     private OrdersService ordersService;
 
@@ -67,12 +90,12 @@ public class OrdersServiceTest {
         savedOrder.setCustomer(customer);
         savedOrder.setStatus(OrderStatus.PENDING);
         savedOrder.setTotalAmount(BigDecimal.valueOf(100));
-        savedOrder.setOrderDate(LocalDateTime.now());
+        savedOrder.setOrderDate(LocalDateTime.of(2025, 1, 15, 9, 0));
 
         when(customerRepository.findById(1)).thenReturn(Optional.of(customer));
-        when(productRepository.findById(10)).thenReturn(Optional.of(product));
+        when(productRepository.decrementStock(10, 2)).thenReturn(1);
+        when(productRepository.findAllById(Set.of(10))).thenReturn(List.of(product));
         when(orderRepository.save(any(Orders.class))).thenReturn(savedOrder);
-        when(orderItemsRepository.save(any(OrderItems.class))).thenAnswer(i -> i.getArgument(0));
 
 
         Orders created = ordersService.createOrder(orderDto);
@@ -81,10 +104,99 @@ public class OrdersServiceTest {
 
         assertEquals(OrderStatus.PENDING, created.getStatus());
         assertEquals(BigDecimal.valueOf(100), created.getTotalAmount());
-        assertEquals(8, product.getStockQuantity());
 
-        verify(orderItemsRepository, times(1)).save(any(OrderItems.class));
-        verify(productRepository, times(1)).save(product);
+        verify(entityManager, times(1)).persist(any(OrderItems.class));
+        verify(productRepository, times(1)).decrementStock(10, 2);
+        verify(productRepository, never()).findById(anyInt());
+        verify(productRepository, never()).save(any(Products.class));
+        verify(dailySalesRollupService, times(1)).recordOrderCreated(savedOrder);
+        verify(cacheTagIndex, times(1)).evictTagged(List.of("orders:all", "orders:month:2025-01"));
+    }
+
+    @Test
+    void createOrdersReservesStockOncePerProduct() {
+        Customers customer = new Customers();
+        customer.setCustomerId(1);
+        customer.setOrderCount(0);
+        customer.setTotalSpent(BigDecimal.ZERO);
+
+        Products product = new Products();
+        product.setProductId(10);
+        product.setSku("SKU-001");
+        product.setPrice(BigDecimal.valueOf(50));
+        product.setStockQuantity(10);
+
+        OrderCreateDto first = new OrderCreateDto(1, LocalDateTime.of(2025, 3, 4, 10, 0), List.of(new OrderItemsDto(10, 2)));
+        OrderCreateDto second = new OrderCreateDto(1, LocalDateTime.of(2025, 3, 9, 18, 0), List.of(new OrderItemsDto(10, 3)));
+
+        when(customerRepository.findAllById(Set.of(1))).thenReturn(List.of(customer));
+        when(productRepository.decrementStock(10, 5)).thenReturn(1);
+        when(productRepository.findAllById(Set.of(10))).thenReturn(List.of(product));
+        when(orderRepository.saveAll(anyList())).thenAnswer(i -> i.getArgument(0));
+
+        List<Orders> created = ordersService.createOrders(List.of(first, second));
+
+        assertEquals(2, created.size());
+        assertEquals(BigDecimal.valueOf(100), created.get(0).getTotalAmount());
+        assertEquals(BigDecimal.valueOf(150), created.get(1).getTotalAmount());
+        assertEquals(2, customer.getOrderCount());
+        assertEquals(BigDecimal.valueOf(250), customer.getTotalSpent());
+
+        verify(productRepository, times(1)).decrementStock(10, 5);
+        verify(productRepository, never()).findById(anyInt());
+        verify(entityManager, times(2)).persist(any(OrderItems.class));
+        verify(customerSegmentsService, times(1)).initializeCustomerSegments(1);
+        verify(cacheTagIndex, times(1)).evictTagged(List.of("customer:1", "orders:all", "orders:month:2025-03"));
+        verify(dailySalesRollupService, times(1)).recordOrdersCreated(created);
+        verify(mlEventPublisher, times(1)).publishOrdersCreated(created);
+    }
+
+    @Test
+    void createOrdersRejectsBatchWhenStockRunsOut() {
+        Customers customer = new Customers();
+        customer.setCustomerId(1);
+        customer.setOrderCount(0);
+        customer.setTotalSpent(BigDecimal.ZERO);
+
+        Products product = new Products();
+        product.setProductId(10);
+        product.setSku("SKU-001");
+        product.setPrice(BigDecimal.valueOf(50));
+        product.setStockQuantity(4);
+
+        OrderCreateDto first = new OrderCreateDto(1, LocalDateTime.now(), List.of(new OrderItemsDto(10, 2)));
+        OrderCreateDto second = new OrderCreateDto(1, LocalDateTime.now(), List.of(new OrderItemsDto(10, 3)));
+
+        when(customerRepository.findAllById(Set.of(1))).thenReturn(List.of(customer));
+        when(productRepository.decrementStock(10, 5)).thenReturn(0);
+        when(productRepository.findById(10)).thenReturn(Optional.of(product));
+
+        assertThrows(ProductStockInsufficient.class, () -> ordersService.createOrders(List.of(first, second)));
+
+        verify(orderRepository, never()).saveAll(anyList());
+        verify(mlEventPublisher, never()).publishOrdersCreated(anyList());
+    }
+
+    @Test
+    void createOrdersRejectsBatchOverTheConfiguredSize() {
+        ordersProp.setMaxBatchSize(1);
+        OrderCreateDto first = new OrderCreateDto(1, LocalDateTime.now(), List.of(new OrderItemsDto(10, 2)));
+        OrderCreateDto second = new OrderCreateDto(1, LocalDateTime.now(), List.of(new OrderItemsDto(11, 3)));
+
+        assertThrows(InvalidOrderDataException.class, () -> ordersService.createOrders(List.of(first, second)));
+
+        verifyNoInteractions(customerRepository, productRepository, orderRepository);
+    }
+
+    @Test
+    void createOrderRejectsProductListedTwice() {
+        OrderCreateDto order = new OrderCreateDto(1, LocalDateTime.now(),
+                List.of(new OrderItemsDto(10, 2), new OrderItemsDto(11, 1), new OrderItemsDto(10, 1)));
+
+        assertThrows(InvalidOrderDataException.class, () -> ordersService.createOrder(order));
+        assertThrows(InvalidOrderDataException.class, () -> ordersService.createOrders(List.of(order)));
+
+        verify(productRepository, never()).decrementStock(anyInt(), anyInt());
     }
 
     @Test
@@ -92,15 +204,24 @@ public class OrdersServiceTest {
         Orders order = new Orders();
         order.setOrderId(1);
 
+        Customers customer = new Customers();
+        customer.setCustomerId(7);
+
         Orders existing = new Orders();
         existing.setOrderId(1);
+        existing.setCustomer(customer);
         existing.setStatus(OrderStatus.PENDING);
+        existing.setOrderDate(LocalDateTime.of(2024, 11, 30, 23, 0));
 
         when(orderRepository.findById(1)).thenReturn(Optional.of(existing));
         when(orderRepository.save(any())).thenAnswer(i -> i.getArgument(0));
 
         Orders updated = ordersService.updateOrderStatus(order.getOrderId(), OrderStatus.DELIVERED);
         assertEquals(OrderStatus.DELIVERED, updated.getStatus());
+        verify(dailySalesRollupService, times(1)).recordStatusChange(updated, OrderStatus.PENDING);
+        verify(productDailyStatsService, times(1)).recordStatusChange(updated, OrderStatus.PENDING);
+        // The order's month is long closed, its cached analytics windows must still go
+        verify(cacheTagIndex, times(1)).evictTagged(List.of("customer:7", "orders:all", "orders:month:2024-11"));
     }
 
     @Test
@@ -126,6 +247,47 @@ public class OrdersServiceTest {
         assertEquals(OrderStatus.DELIVERED, result.getFirst().getStatus());
     }
 
+    @Test
+    void getOrdersPageReturnsCursorWhenMoreRowsExist() {
+        List<Orders> rows = IntStream.rangeClosed(11, 13).mapToObj(id -> {
+            Orders o = new Orders();
+            o.setOrderId(id);
+            return o;
+        }).toList();
+        when(orderRepository.findPageAfter(10, Limit.of(3))).thenReturn(rows);
+
+        KeysetPageDto<Orders> page = ordersService.getOrdersPage(10, 2);
+
+        assertEquals(2, page.getItems().size());
+        assertEquals(2, page.getSize());
+        assertEquals(12, page.getNextCursor());
+    }
+
+    @Test
+    void findPageByStatusCapsPageSizeAndEndsOnLastPage() {
+        Orders o1 = new Orders();
+        o1.setOrderId(5);
+        when(orderRepository.findPageByStatusAfter(OrderStatus.PENDING, 0, Limit.of(1001))).thenReturn(List.of(o1));
+
+        KeysetPageDto<Orders> page = ordersService.findPageByStatus(OrderStatus.PENDING, 0, 50_000);
+
+        assertEquals(1, page.getItems().size());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void streamOrdersClearsPersistenceContextWhileStreaming() {
+        Stream<Orders> rows = IntStream.rangeClosed(1, 1200).mapToObj(id -> new Orders());
+        when(orderRepository.streamByStatus(OrderStatus.DELIVERED)).thenReturn(rows);
+        List<Orders> consumed = new ArrayList<>();
+
+        ordersService.streamOrders(OrderStatus.DELIVERED, consumed::add);
+
+        assertEquals(1200, consumed.size());
+        verify(entityManager, times(2)).clear();
+        verify(orderRepository, never()).streamAll();
+    }
+
     @Test
     void getTotalSpentByCustomer() {
         when(orderRepository.getTotalSpentByCustomer(1)).thenReturn(Optional.of(BigDecimal.valueOf(250)));
@@ -0,0 +1,56 @@
+package com.sqli.ecomAnalytics.service;
+
+import com.sqli.ecomAnalytics.entity.OrderStatus;
+import com.sqli.ecomAnalytics.entity.Orders;
+import com.sqli.ecomAnalytics.repository.ProductDailyStatsRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ProductDailyStatsServiceTest {
+    private static final LocalDateTime ORDER_DATE = LocalDateTime.of(2025, 8, 10, 10, 0);
+
+    @Mock
+    private ProductDailyStatsRepository statsRepository;
+    @InjectMocks
+    private ProductDailyStatsService productDailyStatsService;
+
+    private Orders createOrder(OrderStatus status) {
+        Orders order = new Orders();
+        order.setOrderId(1);
+        order.setStatus(status);
+        order.setOrderDate(ORDER_DATE);
+        return order;
+    }
+
+    @Test
+    void deliveredOrderIsAddedToStats() {
+        productDailyStatsService.recordStatusChange(createOrder(OrderStatus.DELIVERED), OrderStatus.PENDING);
+
+        verify(statsRepository).applyOrderDelta(1, ORDER_DATE, 1);
+    }
+
+    @Test
+    void orderLeavingDeliveredIsRemovedFromStats() {
+        productDailyStatsService.recordStatusChange(createOrder(OrderStatus.CANCELLED), OrderStatus.DELIVERED);
+
+        verify(statsRepository).applyOrderDelta(1, ORDER_DATE, -1);
+    }
+
+    @Test
+    void changesOutsideDeliveredAreIgnored() {
+        productDailyStatsService.recordStatusChange(createOrder(OrderStatus.CANCELLED), OrderStatus.PENDING);
+        productDailyStatsService.recordStatusChange(createOrder(OrderStatus.DELIVERED), OrderStatus.DELIVERED);
+
+        verify(statsRepository, never()).applyOrderDelta(anyInt(), any(), anyInt());
+    }
+}
@@ -1,9 +1,11 @@
 package com.sqli.ecomAnalytics.service;
 
+import com.sqli.ecomAnalytics.cache.CacheTagIndex;
 import com.sqli.ecomAnalytics.dto.ProductCreateDto;
 import com.sqli.ecomAnalytics.dto.ProductUpdateDto;
 import com.sqli.ecomAnalytics.entity.ProductCategory;
 import com.sqli.ecomAnalytics.entity.Products;
+import com.sqli.ecomAnalytics.exceptions.ProductStockInsufficient;
 import com.sqli.ecomAnalytics.repository.ProductRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -16,13 +18,18 @@ import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(SpringExtension.class)
 public class ProductsServiceTest {
     @Mock
     private ProductRepository productRepository;
+    @Mock
+    private CacheTagIndex cacheTagIndex;
 
     @InjectMocks
     private ProductsService productsService;
@@ -39,6 +46,7 @@ public class ProductsServiceTest {
         Products result = productsService.createProduct(dto);
 
         assertEquals("SKU123", result.getSku());
+        verify(cacheTagIndex).evictTagged(List.of("category:LAPTOPS", "brand:apple", "products:count"));
     }
 
     @Test
@@ -87,21 +95,30 @@ public class ProductsServiceTest {
 
     @Test
     void decreaseStock() {
-        Products product = new Products();
-        product.setProductId(1);
-        product.setStockQuantity(10);
-
-        when(productRepository.findById(1)).thenReturn(Optional.of(product));
-
         Products updatedProduct = new Products();
         updatedProduct.setProductId(1);
         updatedProduct.setStockQuantity(5);
 
-        when(productRepository.save(any(Products.class))).thenReturn(updatedProduct);
+        when(productRepository.decrementStock(1, 5)).thenReturn(1);
+        when(productRepository.findById(1)).thenReturn(Optional.of(updatedProduct));
 
         Products result = productsService.decreaseStock(1, 5);
 
         assertEquals(5, result.getStockQuantity());
+        verify(productRepository, never()).save(any(Products.class));
+        verify(cacheTagIndex).evictTagged(List.of("product:1"));
+    }
+
+    @Test
+    void decreaseStockInsufficient() {
+        Products product = new Products();
+        product.setProductId(1);
+        product.setStockQuantity(3);
+
+        when(productRepository.decrementStock(1, 5)).thenReturn(0);
+        when(productRepository.findById(1)).thenReturn(Optional.of(product));
+
+        assertThrows(ProductStockInsufficient.class, () -> productsService.decreaseStock(1, 5));
     }
 
     @Test
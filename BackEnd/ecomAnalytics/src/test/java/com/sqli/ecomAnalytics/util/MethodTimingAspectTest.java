@@ -0,0 +1,156 @@
+package com.sqli.ecomAnalytics.util;
+
+import com.sqli.ecomAnalytics.configuration.RedisConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.EnableAspectJAutoProxy;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class MethodTimingAspectTest {
+    private AnnotationConfigApplicationContext context;
+    private MeterRegistry meterRegistry;
+    private KpiSource source;
+
+    @BeforeEach
+    void setup() {
+        context = new AnnotationConfigApplicationContext(TimingConfig.class);
+        meterRegistry = context.getBean(MeterRegistry.class);
+        source = context.getBean(KpiSource.class);
+    }
+
+    @AfterEach
+    void close() {
+        context.close();
+    }
+
+    private Timer timer(String method, String result) {
+        return meterRegistry.find(MethodTimingAspect.TIMER_NAME)
+                .tags("class", "KpiSource", "method", method, "result", result)
+                .timer();
+    }
+
+    @Test
+    void cachedCallsAreSplitIntoMissAndHit() {
+        source.load(1);
+        source.load(1);
+        source.load(1);
+
+        assertThat(timer("load", "miss").count()).isEqualTo(1);
+        assertThat(timer("load", "hit").count()).isEqualTo(2);
+        assertThat(timer("load", "hit").getId().getTag("cache")).isEqualTo("kpiCache");
+        assertThat(source.loads()).isEqualTo(1);
+    }
+
+    @Test
+    void nestedCachedCallKeepsOuterOutcome() {
+        source.load(1);
+        TrendSource trends = context.getBean(TrendSource.class);
+        trends.trend(1);
+        trends.trend(1);
+
+        Timer trendMiss = meterRegistry.find(MethodTimingAspect.TIMER_NAME)
+                .tags("class", "TrendSource", "method", "trend", "result", "miss").timer();
+        Timer trendHit = meterRegistry.find(MethodTimingAspect.TIMER_NAME)
+                .tags("class", "TrendSource", "method", "trend", "result", "hit").timer();
+        assertThat(trendMiss.count()).isEqualTo(1);
+        assertThat(trendHit.count()).isEqualTo(1);
+        // The inner call ran inside the outer miss and was answered from its own cache
+        assertThat(timer("load", "hit").count()).isEqualTo(1);
+    }
+
+    @Test
+    void evictionsAndFailuresAreTagged() {
+        source.evict(1);
+        assertThatThrownBy(() -> source.load(-1)).isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(timer("evict", "evict").count()).isEqualTo(1);
+        Timer failed = meterRegistry.find(MethodTimingAspect.TIMER_NAME)
+                .tags("method", "load", "exception", "IllegalArgumentException").timer();
+        assertThat(failed).isNotNull();
+        assertThat(failed.count()).isEqualTo(1);
+    }
+
+    @Configuration
+    @EnableCaching(order = RedisConfig.CACHE_ADVISOR_ORDER)
+    @EnableAspectJAutoProxy(proxyTargetClass = true)
+    static class TimingConfig {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        CacheManager cacheManager() {
+            return new ConcurrentMapCacheManager("kpiCache", "salesTrendCache");
+        }
+
+        @Bean
+        MethodTimingAspect methodTimingAspect(MeterRegistry meterRegistry) {
+            return new MethodTimingAspect(meterRegistry);
+        }
+
+        @Bean
+        CacheMissProbeAspect cacheMissProbeAspect() {
+            return new CacheMissProbeAspect();
+        }
+
+        @Bean
+        KpiSource kpiSource() {
+            return new KpiSource();
+        }
+
+        @Bean
+        TrendSource trendSource(KpiSource kpiSource) {
+            return new TrendSource(kpiSource);
+        }
+    }
+
+    static class KpiSource {
+        private int loads;
+
+        @Cacheable(value = "kpiCache", key = "#id")
+        public String load(int id) {
+            if (id < 0) {
+                throw new IllegalArgumentException("negative id");
+            }
+            loads++;
+            return "kpi-" + id;
+        }
+
+        public int loads() {
+            return loads;
+        }
+
+        @CacheEvict(value = "kpiCache", key = "#id")
+        public void evict(int id) {
+        }
+    }
+
+    static class TrendSource {
+        private final KpiSource kpiSource;
+
+        TrendSource(KpiSource kpiSource) {
+            this.kpiSource = kpiSource;
+        }
+
+        @Cacheable(value = "salesTrendCache", key = "#id")
+        public String trend(int id) {
+            return "trend-" + kpiSource.load(id);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.sqli.ecomAnalytics.util;
+
+import com.sqli.ecomAnalytics.repository.ProductDailyStatsRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class RepositoryMetricsAspectTest {
+    private static final LocalDate START = LocalDate.of(2025, 1, 1);
+    private static final LocalDate END = LocalDate.of(2025, 1, 31);
+
+    private SimpleMeterRegistry meterRegistry;
+    private ProductDailyStatsRepository repository;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        ProductDailyStatsRepository target = mock(ProductDailyStatsRepository.class);
+        when(target.getInventoryTurnoverData(START, END)).thenReturn(List.of(
+                new Object[]{1, "Laptop", 10, 4L}, new Object[]{2, "Phone", 5, 9L}, new Object[]{3, "Tablet", 0, 1L}));
+        when(target.applyOrderDelta(anyInt(), any(LocalDateTime.class), anyInt())).thenReturn(3);
+
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.addInterface(ProductDailyStatsRepository.class);
+        factory.addAspect(new RepositoryMetricsAspect(meterRegistry));
+        repository = factory.getProxy();
+    }
+
+    @Test
+    void rowsReturnedAreRecordedPerQuery() {
+        repository.getInventoryTurnoverData(START, END);
+        repository.getInventoryTurnoverData(START, END);
+
+        DistributionSummary rows = meterRegistry.find(RepositoryMetricsAspect.ROWS_NAME)
+                .tags("repository", "ProductDailyStatsRepository", "method", "getInventoryTurnoverData")
+                .summary();
+        assertThat(rows).isNotNull();
+        assertThat(rows.count()).isEqualTo(2);
+        assertThat(rows.totalAmount()).isEqualTo(6.0);
+    }
+
+    @Test
+    void modifyingQueriesAreNotCountedAsRows() {
+        repository.applyOrderDelta(1, LocalDateTime.of(2025, 1, 2, 10, 0), 1);
+
+        assertThat(meterRegistry.find(RepositoryMetricsAspect.ROWS_NAME).tags("method", "applyOrderDelta").summary())
+                .isNull();
+    }
+}
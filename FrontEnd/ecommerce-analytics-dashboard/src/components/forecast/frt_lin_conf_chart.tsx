@@ -429,9 +429,15 @@ const ForecastChart = ({ initialDays = 30 }) => {
     setError(null);
     try {
       const payload = { forecastDays: Number(days), includeConfidenceIntervals: true, modelComparison: true };
-      const res = await apiClient.post('/forecasting/generate', payload);
-      // accommodate both axios-like and direct responses
-      const data = res && res.data ? res.data : res;
+      // the forecast runs as a job: submit it, then wait on it until it is no longer pending
+      let job = await apiClient.post('/forecasting/generate', payload);
+      for (let attempt = 0; job && job.status === 'PENDING' && attempt < 20; attempt++) {
+        job = await apiClient.get(`/forecasting/${job.requestId}/wait`, { params: { timeoutSeconds: 8 } });
+      }
+      if (!job || job.status !== 'COMPLETED') {
+        throw new Error(job && job.error ? job.error : 'Forecast did not complete in time');
+      }
+      const data = job.result;
 
       if (!data || !Array.isArray(data.forecastData)) {
         throw new Error('Unexpected response shape from forecast API');
@@ -27,6 +27,7 @@ class Events(Enum):
     ORDER_UPDATED = "ORDER_UPDATED"
     INITIAL_DATA_GENERATED = "INITIAL_DATA_GENERATED"
     FORECAST_REQUESTED = "FORECAST_REQUESTED"
+    CUSTOMER_DIRTY = "CUSTOMER_DIRTY"
 
 
 @dataclass
@@ -168,6 +169,24 @@ class MLEventConsumer:
                 logger.error(f"Error processing ORDER_UPDATED for customer {event.customer_id}: {e}")
                 raise
 
+    def process_customer_dirty(self, event: MLEvent):
+        coalesced = event.data or []
+        logger.info(f"Processing CUSTOMER_DIRTY for customer {event.customer_id}, coalesced {coalesced}")
+
+        with self.get_db() as session:
+            self.initialize_services(session)
+
+            try:
+                recommendation = self.recommendation_service.generate_customer_recommendations(event.customer_id)
+                logger.info(f"Updated {recommendation} recommendations for dirty customer {event.customer_id}")
+
+                segment = self.segmentation_service.update_all_segments()
+                logger.info(f"Updated segmentation for dirty customer: {segment}")
+
+            except Exception as e:
+                logger.error(f"Error processing CUSTOMER_DIRTY for customer {event.customer_id}: {e}")
+                raise
+
     def process_initial_data_generated(self, event: MLEvent):
         logger.info("Processing INITIAL_DATA_GENERATED ")
 
@@ -201,6 +220,7 @@ class MLEventConsumer:
             Events.ORDER_UPDATED.value: self.process_order_updated,
             Events.INITIAL_DATA_GENERATED.value: self.process_initial_data_generated,
             Events.FORECAST_REQUESTED.value: self.process_forecast_requested,
+            Events.CUSTOMER_DIRTY.value: self.process_customer_dirty,
         }
 
         processor = event_processors.get(event.event_type)